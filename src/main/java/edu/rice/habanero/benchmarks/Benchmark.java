@@ -1,10 +1,16 @@
 package edu.rice.habanero.benchmarks;
 
+import edu.rice.habanero.concurrent.executors.QosMonitor;
+import edu.rice.habanero.concurrent.executors.QosStatistics;
+import edu.rice.habanero.concurrent.executors.StealStatistics;
+import edu.rice.habanero.concurrent.executors.TaskExecutor;
+
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
 
 /**
  * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
@@ -12,7 +18,10 @@ import java.util.Map;
  */
 public abstract class Benchmark {
 
+    private static final int MAX_REPORTED_LEVELS = 16;
+
     final Map<String, List<Double>> customAttrs = new HashMap<>();
+    private long executedTasks = -1;
 
     public void track(final String attrName, final double attrValue) {
         if (!customAttrs.containsKey(attrName)) {
@@ -21,6 +30,70 @@ public abstract class Benchmark {
         customAttrs.get(attrName).add(attrValue);
     }
 
+    /**
+     * Records the steal attempts and the steal success rate (in percent) of work-stealing executors, used to compare
+     * victim selection policies (see <code>-victim</code>). The local and remote steals are recorded with
+     * <code>-domains</code>. The executed tasks are reported as tasks/sec once the iteration time is known.
+     */
+    public void trackStealStatistics(final TaskExecutor taskExecutor) {
+        if (taskExecutor instanceof StealStatistics) {
+            final StealStatistics stealStatistics = (StealStatistics) taskExecutor;
+            final long stealAttempts = stealStatistics.stealAttempts();
+            final long successfulSteals = stealStatistics.successfulSteals();
+            track("StealAttempts", stealAttempts);
+            track("StealSuccessRate", stealAttempts == 0 ? 0 : (100.0 * successfulSteals) / stealAttempts);
+            executedTasks = stealStatistics.executedTasks();
+            if (BenchmarkRunner.cancelGroups()) {
+                track("DiscardedTasks", stealStatistics.discardedTasks());
+            }
+            if (BenchmarkRunner.reportLocality()) {
+                final long remoteSteals = stealStatistics.remoteSteals();
+                track("LocalSteals", successfulSteals - remoteSteals);
+                track("RemoteSteals", remoteSteals);
+            }
+        }
+    }
+
+    /**
+     * Records the QoS measured by the executor when run with <code>-Dhabanero.qos=true</code>: the percentage of task
+     * starts while a strictly higher priority task was queued, the average number of such tasks, the priority-weighted
+     * completion time and, for up to 16 priorities, the average number of queued tasks per priority.
+     */
+    public void trackQos(final TaskExecutor taskExecutor) {
+        if (taskExecutor instanceof QosStatistics) {
+            final QosMonitor qosMonitor = ((QosStatistics) taskExecutor).qosMonitor();
+            if (qosMonitor != null) {
+                track("InversionRate", qosMonitor.inversionRate());
+                track("HigherQueuedAtStart", qosMonitor.meanHigherQueued());
+                track("WeightedCompletion (ms)", qosMonitor.weightedCompletionMillis());
+                final SortedMap<Integer, Double> meanQueued = qosMonitor.meanQueued();
+                if (meanQueued.size() <= MAX_REPORTED_LEVELS) {
+                    for (final Map.Entry<Integer, Double> entry : meanQueued.entrySet()) {
+                        track("QueuedAtPriority" + entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the time from the first observation of the stop condition of a benchmark until its executor terminated,
+     * i.e. the time spent draining the tasks that were still queued. Compare runs with and without
+     * <code>-cancelGroups</code>.
+     */
+    public void trackDrainTime(final long stopNanos) {
+        if (stopNanos != 0) {
+            track("DrainTime (ms)", (System.nanoTime() - stopNanos) / 1e6);
+        }
+    }
+
+    void trackThroughput(final double execTimeMillis) {
+        if (executedTasks >= 0) {
+            track("TasksPerSec", executedTasks / (execTimeMillis / 1e3));
+            executedTasks = -1;
+        }
+    }
+
     public final String name() {
         return getClass().getSimpleName();
     }
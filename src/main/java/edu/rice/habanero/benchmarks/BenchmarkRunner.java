@@ -1,7 +1,14 @@
 package edu.rice.habanero.benchmarks;
 
+import edu.rice.habanero.concurrent.executors.PriorityAging;
+import edu.rice.habanero.concurrent.executors.LocalityDomains;
+import edu.rice.habanero.concurrent.executors.VictimSelectorType;
+import edu.rice.habanero.concurrent.util.CpuQuota;
+import edu.rice.habanero.concurrent.util.TerminationDetectorType;
+
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
@@ -15,10 +22,19 @@ public class BenchmarkRunner {
     protected static final double tolerance = 0.20;
 
     public static int ITERATIONS = 12;
-    public static int NUM_THREADS = Runtime.getRuntime().availableProcessors();
+    public static int NUM_THREADS = CpuQuota.availableParallelism();
     public static int MIN_PRIORITY = Thread.MIN_PRIORITY;
     public static int MAX_PRIORITY = Thread.MAX_PRIORITY;
     public static boolean DEBUG = false;
+    public static VictimSelectorType VICTIM_SELECTOR = VictimSelectorType.ROUND_ROBIN;
+    public static TerminationDetectorType TERMINATION_DETECTOR = TerminationDetectorType.LATCH;
+    public static long AGING_WAIT_MILLIS = 0;
+    public static double AGING_FRACTION = 0;
+    public static boolean CANCEL_GROUPS = false;
+    public static boolean YIELD_POINTS = true;
+    public static boolean LAZY_SPLIT = false;
+    public static String LOCALITY_DOMAINS = null;
+    public static int REMOTE_STEAL_INTERVAL = LocalityDomains.DEFAULT_REMOTE_STEAL_INTERVAL;
 
     public static int numThreads() {
         return NUM_THREADS;
@@ -32,6 +48,71 @@ public class BenchmarkRunner {
         return MAX_PRIORITY;
     }
 
+    public static VictimSelectorType victimSelector() {
+        return VICTIM_SELECTOR;
+    }
+
+    public static TerminationDetectorType terminationDetector() {
+        return TERMINATION_DETECTOR;
+    }
+
+    /**
+     * @return the worker to domain mapping given by <code>-domains</code>, either <code>detect</code> or a comma
+     * separated domain per worker. The CPU topology is detected if the option is missing.
+     */
+    public static LocalityDomains localityDomains() {
+        final LocalityDomains localityDomains;
+        if (LOCALITY_DOMAINS == null || "detect".equalsIgnoreCase(LOCALITY_DOMAINS)) {
+            localityDomains = LocalityDomains.detect(NUM_THREADS);
+        } else {
+            final String[] domainStrings = LOCALITY_DOMAINS.split(",");
+            final int[] workerDomains = new int[NUM_THREADS];
+            for (int i = 0; i < NUM_THREADS; i++) {
+                // a short list is repeated over the workers
+                workerDomains[i] = Integer.parseInt(domainStrings[i % domainStrings.length].trim());
+            }
+            localityDomains = new LocalityDomains(workerDomains, LocalityDomains.DEFAULT_REMOTE_STEAL_INTERVAL);
+        }
+        return localityDomains.withRemoteStealInterval(REMOTE_STEAL_INTERVAL);
+    }
+
+    /**
+     * @return true if the local and remote steals should be reported, i.e. <code>-domains</code> was given.
+     */
+    public static boolean reportLocality() {
+        return LOCALITY_DOMAINS != null;
+    }
+
+    /**
+     * @return true if benchmarks that stop early should cancel a task group instead of only setting a flag that every
+     * queued task checks once it runs.
+     */
+    public static boolean cancelGroups() {
+        return CANCEL_GROUPS;
+    }
+
+    /**
+     * @return true if long running sequential kernels should suspend themselves once higher priority work is pending.
+     */
+    public static boolean yieldPoints() {
+        return YIELD_POINTS;
+    }
+
+    /**
+     * @return true if recursive benchmarks should ask the executor whether to spawn or inline each child, instead of
+     * always spawning above their fixed cutoffs.
+     */
+    public static boolean lazySplit() {
+        return LAZY_SPLIT;
+    }
+
+    public static PriorityAging priorityAging() {
+        if (AGING_WAIT_MILLIS == 0 && AGING_FRACTION == 0) {
+            return PriorityAging.STRICT;
+        }
+        return new PriorityAging(AGING_WAIT_MILLIS, TimeUnit.MILLISECONDS, AGING_FRACTION);
+    }
+
     private static void parseArgs(final String[] args) throws Exception {
 
         final String numWorkersStr = System.getProperty("hj.numWorkers");
@@ -51,6 +132,24 @@ public class BenchmarkRunner {
                 MAX_PRIORITY = Integer.parseInt(argValue);
             } else if ("-minPriority".equalsIgnoreCase(argName)) {
                 MIN_PRIORITY = Integer.parseInt(argValue);
+            } else if ("-victim".equalsIgnoreCase(argName)) {
+                VICTIM_SELECTOR = VictimSelectorType.valueOf(argValue.toUpperCase());
+            } else if ("-termination".equalsIgnoreCase(argName)) {
+                TERMINATION_DETECTOR = TerminationDetectorType.valueOf(argValue.toUpperCase());
+            } else if ("-agingWait".equalsIgnoreCase(argName)) {
+                AGING_WAIT_MILLIS = Long.parseLong(argValue);
+            } else if ("-agingFraction".equalsIgnoreCase(argName)) {
+                AGING_FRACTION = Double.parseDouble(argValue);
+            } else if ("-cancelGroups".equalsIgnoreCase(argName)) {
+                CANCEL_GROUPS = Boolean.parseBoolean(argValue);
+            } else if ("-yield".equalsIgnoreCase(argName)) {
+                YIELD_POINTS = Boolean.parseBoolean(argValue);
+            } else if ("-lazySplit".equalsIgnoreCase(argName)) {
+                LAZY_SPLIT = Boolean.parseBoolean(argValue);
+            } else if ("-domains".equalsIgnoreCase(argName)) {
+                LOCALITY_DOMAINS = argValue;
+            } else if ("-remoteStealInterval".equalsIgnoreCase(argName)) {
+                REMOTE_STEAL_INTERVAL = Integer.parseInt(argValue);
             } else if ("-debug".equalsIgnoreCase(argName) || "-verbose".equalsIgnoreCase(argName)) {
                 DEBUG = true;
             }
@@ -62,6 +161,15 @@ public class BenchmarkRunner {
         System.out.printf(BenchmarkRunner.argOutputFormat, "Num Threads", NUM_THREADS);
         System.out.printf(BenchmarkRunner.argOutputFormat, "Min Priority", MIN_PRIORITY);
         System.out.printf(BenchmarkRunner.argOutputFormat, "Max Priority", MAX_PRIORITY);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "Victim Selector", VICTIM_SELECTOR);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "Termination Detector", TERMINATION_DETECTOR);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "Aging Wait (ms)", AGING_WAIT_MILLIS);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "Aging Fraction", AGING_FRACTION);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "Cancel Groups", CANCEL_GROUPS);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "Yield Points", YIELD_POINTS);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "Lazy Split", LAZY_SPLIT);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "Locality Domains", localityDomains());
+        System.out.printf(BenchmarkRunner.argOutputFormat, "Remote Steal Interval", REMOTE_STEAL_INTERVAL);
         System.out.printf(BenchmarkRunner.argOutputFormat, "Debug/Verbose", DEBUG);
     }
 
@@ -94,6 +202,7 @@ public class BenchmarkRunner {
 
             final double execTimeMillis = (endTime - startTime) / 1e6;
             rawExecTimes.add(execTimeMillis);
+            benchmark.trackThroughput(execTimeMillis);
 
             benchmark.cleanupIteration(i + 1 == ITERATIONS, execTimeMillis);
             System.out.printf(execTimeOutputFormat, benchmark.name(), " Iteration-" + i, execTimeMillis);
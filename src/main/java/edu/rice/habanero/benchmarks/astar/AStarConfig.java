@@ -196,6 +196,10 @@ public final class AStarConfig {
         return (int) (resultPriority + minPriority());
     }
 
+    protected static int numNodes() {
+        return allNodes.length;
+    }
+
     protected static GridNode originNode() {
         return allNodes[0];
     }
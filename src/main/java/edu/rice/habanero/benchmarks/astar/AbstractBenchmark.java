@@ -4,13 +4,18 @@ import edu.rice.habanero.benchmarks.Benchmark;
 import edu.rice.habanero.benchmarks.BenchmarkRunner;
 import edu.rice.habanero.benchmarks.astar.AStarConfig.GridNode;
 import edu.rice.habanero.concurrent.executors.TaskExecutor;
+import edu.rice.habanero.concurrent.util.TaskGroup;
+import edu.rice.habanero.concurrent.util.TaskHandle;
 
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.async;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.asyncWithHandle;
 import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.kernel;
 
 /**
@@ -39,6 +44,14 @@ public abstract class AbstractBenchmark extends Benchmark {
 
     protected abstract TaskExecutor createTaskExecutor();
 
+    /**
+     * When true, a node improved while its task is still queued has that task reprioritized instead of a duplicate
+     * task spawned. Requires a {@link edu.rice.habanero.concurrent.executors.ReprioritizableTaskExecutor}.
+     */
+    protected boolean reprioritizeQueuedNodes() {
+        return false;
+    }
+
     @Override
     public void runIteration() {
 
@@ -46,6 +59,11 @@ public abstract class AbstractBenchmark extends Benchmark {
 
         final AtomicInteger nodesExplored = new AtomicInteger(0);
         final AtomicReference<Double> pathCost = new AtomicReference<Double>(null);
+        final AtomicInteger duplicatesAvoided = new AtomicInteger(0);
+        final AtomicLong stopNanos = new AtomicLong(0);
+        final TaskGroup taskGroup = BenchmarkRunner.cancelGroups() ? new TaskGroup() : null;
+        final AtomicReferenceArray<TaskHandle> queuedTasks =
+                reprioritizeQueuedNodes() ? new AtomicReferenceArray<TaskHandle>(AStarConfig.numNodes()) : null;
 
         kernel(taskExecutor, new Runnable() {
 
@@ -76,6 +94,10 @@ public abstract class AbstractBenchmark extends Benchmark {
                             if (successCas) {
                                 final double distance = loopNeighbor.distanceFrom(originNode);
                                 pathCost.set(distance);
+                                stopNanos.compareAndSet(0, System.nanoTime());
+                                if (taskGroup != null) {
+                                    taskGroup.cancel();
+                                }
                             }
                             return;
                         } else {
@@ -87,7 +109,21 @@ public abstract class AbstractBenchmark extends Benchmark {
 
             private void spawnTask(final GridNode node) {
                 final int priorityIndex = AStarConfig.priority(node, targetNode, originNode);
-                async(priorityIndex, new Runnable() {
+                if (queuedTasks != null) {
+                    final TaskHandle queuedTask = queuedTasks.get(node.id);
+                    if (queuedTask != null && queuedTask.reprioritize(priorityIndex)) {
+                        // the queued task reads the improved distance once it runs
+                        duplicatesAvoided.incrementAndGet();
+                        return;
+                    }
+                    queuedTasks.set(node.id, asyncWithHandle(priorityIndex, searchTask(node)));
+                } else {
+                    async(taskGroup, priorityIndex, searchTask(node));
+                }
+            }
+
+            private Runnable searchTask(final GridNode node) {
+                return new Runnable() {
                     @Override
                     public void run() {
                         if (pathFound.get()) {
@@ -99,9 +135,16 @@ public abstract class AbstractBenchmark extends Benchmark {
                         }
                         performSearch(node);
                     }
-                });
+                };
             }
         });
+        trackStealStatistics(taskExecutor);
+        trackQos(taskExecutor);
+        trackDrainTime(stopNanos.get());
+        if (queuedTasks != null) {
+            track("DuplicatesAvoided", duplicatesAvoided.get());
+            System.out.printf(BenchmarkRunner.argOutputFormat, "Duplicates Avoided", duplicatesAvoided.get());
+        }
 
         System.out.printf(BenchmarkRunner.argOutputFormat, "Solution Path Cost", pathCost.get());
         if (BenchmarkRunner.DEBUG) {
@@ -0,0 +1,34 @@
+package edu.rice.habanero.benchmarks.astar;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.concurrent.executors.IndexedPriorityQueueTaskExecutor;
+import edu.rice.habanero.concurrent.executors.TaskExecutor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reprioritizes the queued task of an improved node instead of spawning a duplicate task for it.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class IndexedPriorityQueueBenchmark extends AbstractBenchmark {
+
+    public static void main(final String[] args) {
+        BenchmarkRunner.runBenchmark(args, new IndexedPriorityQueueBenchmark());
+    }
+
+    @Override
+    protected TaskExecutor createTaskExecutor() {
+        final int numThreads = BenchmarkRunner.numThreads();
+        final int minPriorityInc = BenchmarkRunner.minPriority();
+        final int maxPriorityInc = BenchmarkRunner.maxPriority();
+        return new IndexedPriorityQueueTaskExecutor(
+                numThreads, numThreads, 0L, TimeUnit.MILLISECONDS,
+                minPriorityInc, maxPriorityInc, BenchmarkRunner.terminationDetector());
+    }
+
+    @Override
+    protected boolean reprioritizeQueuedNodes() {
+        return true;
+    }
+}
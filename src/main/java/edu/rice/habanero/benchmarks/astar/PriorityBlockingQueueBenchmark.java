@@ -22,6 +22,6 @@ public class PriorityBlockingQueueBenchmark extends AbstractBenchmark {
         final int maxPriorityInc = BenchmarkRunner.maxPriority();
         return new PriorityBlockingQueueTaskExecutor(
                 numThreads, numThreads, 0L, TimeUnit.MILLISECONDS,
-                minPriorityInc, maxPriorityInc);
+                minPriorityInc, maxPriorityInc, BenchmarkRunner.terminationDetector());
     }
 }
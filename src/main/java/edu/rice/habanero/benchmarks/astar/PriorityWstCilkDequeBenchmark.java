@@ -3,6 +3,7 @@ package edu.rice.habanero.benchmarks.astar;
 import edu.rice.habanero.benchmarks.BenchmarkRunner;
 import edu.rice.habanero.concurrent.executors.PriorityWstTaskExecutor;
 import edu.rice.habanero.concurrent.executors.TaskExecutor;
+import edu.rice.habanero.concurrent.executors.WstOptions;
 import edu.rice.habanero.concurrent.wstdeque.PoolType;
 
 /**
@@ -20,6 +21,10 @@ public class PriorityWstCilkDequeBenchmark extends AbstractBenchmark {
         final int minPriorityInc = BenchmarkRunner.minPriority();
         final int maxPriorityInc = BenchmarkRunner.maxPriority();
         return new PriorityWstTaskExecutor(
-                PoolType.CILK, numThreads, minPriorityInc, maxPriorityInc);
+                PoolType.CILK, numThreads, minPriorityInc, maxPriorityInc,
+                new WstOptions()
+                        .victimSelector(BenchmarkRunner.victimSelector())
+                        .terminationDetector(BenchmarkRunner.terminationDetector())
+                        .priorityAging(BenchmarkRunner.priorityAging()));
     }
 }
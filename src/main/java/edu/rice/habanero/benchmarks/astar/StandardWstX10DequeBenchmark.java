@@ -3,6 +3,7 @@ package edu.rice.habanero.benchmarks.astar;
 import edu.rice.habanero.benchmarks.BenchmarkRunner;
 import edu.rice.habanero.concurrent.executors.StandardWstTaskExecutor;
 import edu.rice.habanero.concurrent.executors.TaskExecutor;
+import edu.rice.habanero.concurrent.executors.WstOptions;
 import edu.rice.habanero.concurrent.wstdeque.PoolType;
 
 /**
@@ -17,6 +18,10 @@ public class StandardWstX10DequeBenchmark extends AbstractBenchmark {
     @Override
     protected TaskExecutor createTaskExecutor() {
         final int numThreads = BenchmarkRunner.numThreads();
-        return new StandardWstTaskExecutor(PoolType.X10, numThreads);
+        return new StandardWstTaskExecutor(
+                PoolType.X10, numThreads,
+                new WstOptions()
+                        .victimSelector(BenchmarkRunner.victimSelector())
+                        .terminationDetector(BenchmarkRunner.terminationDetector()));
     }
 }
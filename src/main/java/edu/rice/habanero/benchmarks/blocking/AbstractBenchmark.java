@@ -0,0 +1,126 @@
+package edu.rice.habanero.benchmarks.blocking;
+
+import edu.rice.habanero.benchmarks.Benchmark;
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.concurrent.executors.TaskExecutor;
+import edu.rice.habanero.concurrent.util.Blocker;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static edu.rice.habanero.benchmarks.BenchmarkRunner.maxPriority;
+import static edu.rice.habanero.benchmarks.BenchmarkRunner.minPriority;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.async;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.block;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.kernel;
+
+/**
+ * Mixes CPU bound tasks with tasks that block, e.g. on simulated I/O, before their work. The tasks are spread evenly
+ * over the priority levels, the time until all tasks of the highest priority completed is reported next to the total
+ * time. Compare <code>-managed true</code>, where tasks block through {@link
+ * edu.rice.habanero.concurrent.util.TaskExecutorUtil#block}, with <code>-managed false</code>.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public abstract class AbstractBenchmark extends Benchmark {
+
+    /**
+     * package protected constructor.
+     */
+    AbstractBenchmark() {
+        super();
+    }
+
+    @Override
+    public final void initialize(final String[] args) throws IOException {
+        BlockingConfig.parseArgs(args);
+    }
+
+    @Override
+    public final void printArgInfo() {
+        BlockingConfig.printArgs();
+    }
+
+    @Override
+    public final void preIteration(final boolean firstIteration) {
+        // nothing to do
+    }
+
+    @Override
+    public final void runIteration() {
+        final TaskExecutor taskExecutor = createTaskExecutor();
+
+        final int priorityLevels = maxPriority() - minPriority() + 1;
+        final AtomicInteger pendingMaxPriorityTasks = new AtomicInteger(0);
+        for (int i = 0; i < BlockingConfig.N; i += priorityLevels) {
+            pendingMaxPriorityTasks.incrementAndGet();
+        }
+        final AtomicLong maxPriorityDoneNanos = new AtomicLong(0);
+        final long startNanos = System.nanoTime();
+
+        kernel(taskExecutor, new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < BlockingConfig.N; i++) {
+                    final int taskId = i;
+                    final int priority = maxPriority() - (i % priorityLevels);
+                    async(priority, new Runnable() {
+                        @Override
+                        public void run() {
+                            if (BlockingConfig.blocks(taskId)) {
+                                blockFor(TimeUnit.MICROSECONDS.toNanos(BlockingConfig.D));
+                            }
+                            BlockingConfig.performWork(taskId);
+                            if (priority == maxPriority() && pendingMaxPriorityTasks.decrementAndGet() == 0) {
+                                maxPriorityDoneNanos.set(System.nanoTime());
+                            }
+                        }
+                    });
+                }
+            }
+        });
+        trackStealStatistics(taskExecutor);
+        trackQos(taskExecutor);
+
+        final double maxPriorityDoneMillis = (maxPriorityDoneNanos.get() - startNanos) / 1e6;
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Max Priority Done (ms)", maxPriorityDoneMillis);
+        track("MaxPriorityDone (ms)", maxPriorityDoneMillis);
+    }
+
+    private static void blockFor(final long durationNanos) {
+        final long deadlineNanos = System.nanoTime() + durationNanos;
+        final Blocker blocker = new Blocker() {
+            @Override
+            public boolean block() {
+                LockSupport.parkNanos(deadlineNanos - System.nanoTime());
+                return isReleasable();
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return System.nanoTime() - deadlineNanos >= 0;
+            }
+        };
+        try {
+            if (BlockingConfig.MANAGED) {
+                block(blocker);
+            } else {
+                while (!blocker.isReleasable()) {
+                    blocker.block();
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    protected abstract TaskExecutor createTaskExecutor();
+
+    @Override
+    public final void cleanupIteration(final boolean lastIteration, final double execTimeMillis) {
+        // nothing to do
+    }
+}
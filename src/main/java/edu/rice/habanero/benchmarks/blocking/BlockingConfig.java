@@ -0,0 +1,87 @@
+package edu.rice.habanero.benchmarks.blocking;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.concurrent.executors.ElasticSizing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class BlockingConfig {
+
+    protected static int N = 2_000; // num tasks
+    protected static int W = 20_000; // work per task
+    protected static int F = 25; // percentage of tasks that block
+    protected static int D = 1_000; // block duration in microseconds
+    protected static int S = -1; // spare workers, defaults to the number of threads
+    protected static boolean MANAGED = true;
+
+    protected static void parseArgs(final String[] args) {
+        int i = 0;
+        while (i < args.length) {
+            final String loopOptionKey = args[i];
+            if ("-n".equals(loopOptionKey)) {
+                i += 1;
+                N = Integer.parseInt(args[i]);
+            } else if ("-w".equals(loopOptionKey)) {
+                i += 1;
+                W = Integer.parseInt(args[i]);
+            } else if ("-f".equals(loopOptionKey)) {
+                i += 1;
+                F = Integer.parseInt(args[i]);
+            } else if ("-d".equals(loopOptionKey)) {
+                i += 1;
+                D = Integer.parseInt(args[i]);
+            } else if ("-s".equals(loopOptionKey)) {
+                i += 1;
+                S = Integer.parseInt(args[i]);
+            } else if ("-managed".equals(loopOptionKey)) {
+                i += 1;
+                MANAGED = Boolean.parseBoolean(args[i]);
+            }
+            i += 1;
+        }
+    }
+
+    protected static void printArgs() {
+        System.out.printf(BenchmarkRunner.argOutputFormat, "N (num tasks)", N);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "W (work per task)", W);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "F (blocking tasks %)", F);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "D (block in us)", D);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "S (spare workers)", spareWorkers());
+        System.out.printf(BenchmarkRunner.argOutputFormat, "Managed blocking", MANAGED);
+    }
+
+    protected static int spareWorkers() {
+        return S < 0 ? BenchmarkRunner.numThreads() : S;
+    }
+
+    /**
+     * The work-stealing executors are created with the spare workers on top of the threads, the spare workers only
+     * run while other workers are blocked. Without spare workers, a fixed-size executor starts its own spare workers
+     * beyond the threads while workers are blocked.
+     */
+    protected static ElasticSizing elasticSizing() {
+        if (spareWorkers() == 0) {
+            return ElasticSizing.FIXED;
+        }
+        return new ElasticSizing(BenchmarkRunner.numThreads(), Integer.MAX_VALUE, 1, TimeUnit.MILLISECONDS);
+    }
+
+    protected static boolean blocks(final int taskId) {
+        return (taskId % 100) < F;
+    }
+
+    protected static void performWork(final int taskId) {
+        double res = 0;
+        for (int i = 0; i < W; i++) {
+            final double sint = Math.sin((37.2 * taskId) + i + 1);
+            res += sint * sint;
+        }
+        // defeat dead code elimination
+        if (res < 0) {
+            throw new IllegalStateException("Benchmark exited with unrealistic res value " + res);
+        }
+    }
+}
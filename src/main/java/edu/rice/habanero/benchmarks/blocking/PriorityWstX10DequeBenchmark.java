@@ -0,0 +1,31 @@
+package edu.rice.habanero.benchmarks.blocking;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.concurrent.executors.PriorityWstTaskExecutor;
+import edu.rice.habanero.concurrent.executors.TaskExecutor;
+import edu.rice.habanero.concurrent.executors.WstOptions;
+import edu.rice.habanero.concurrent.wstdeque.PoolType;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class PriorityWstX10DequeBenchmark extends AbstractBenchmark {
+
+    public static void main(final String[] args) {
+        BenchmarkRunner.runBenchmark(args, new PriorityWstX10DequeBenchmark());
+    }
+
+    @Override
+    protected TaskExecutor createTaskExecutor() {
+        final int numWorkers = BenchmarkRunner.numThreads() + BlockingConfig.spareWorkers();
+        final int minPriorityInc = BenchmarkRunner.minPriority();
+        final int maxPriorityInc = BenchmarkRunner.maxPriority();
+        return new PriorityWstTaskExecutor(
+                PoolType.X10, numWorkers, minPriorityInc, maxPriorityInc,
+                new WstOptions()
+                        .victimSelector(BenchmarkRunner.victimSelector())
+                        .elasticSizing(BlockingConfig.elasticSizing())
+                        .terminationDetector(BenchmarkRunner.terminationDetector())
+                        .priorityAging(BenchmarkRunner.priorityAging()));
+    }
+}
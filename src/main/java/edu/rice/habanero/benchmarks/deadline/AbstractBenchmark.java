@@ -0,0 +1,124 @@
+package edu.rice.habanero.benchmarks.deadline;
+
+import edu.rice.habanero.benchmarks.Benchmark;
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.concurrent.executors.DeadlineTaskExecutor;
+import edu.rice.habanero.concurrent.executors.TaskExecutor;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static edu.rice.habanero.benchmarks.BenchmarkRunner.maxPriority;
+import static edu.rice.habanero.benchmarks.BenchmarkRunner.minPriority;
+
+/**
+ * Jobs with deadlines arrive from an external thread in bursts. Deadline executors order the jobs by deadline, the
+ * other executors receive a fixed priority class derived from the slack of a job when it arrives.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public abstract class AbstractBenchmark extends Benchmark {
+
+    /**
+     * package protected constructor.
+     */
+    AbstractBenchmark() {
+        super();
+    }
+
+    @Override
+    public final void initialize(final String[] args) throws IOException {
+        DeadlineConfig.parseArgs(args);
+    }
+
+    @Override
+    public final void printArgInfo() {
+        DeadlineConfig.printArgs();
+    }
+
+    @Override
+    public final void preIteration(final boolean firstIteration) {
+        DeadlineConfig.calibrate();
+    }
+
+    @Override
+    public final void runIteration() {
+        final TaskExecutor taskExecutor = createTaskExecutor();
+
+        final AtomicInteger executedJobs = new AtomicInteger(0);
+        final AtomicInteger metDeadlines = new AtomicInteger(0);
+        final AtomicLong latenessSum = new AtomicLong(0);
+
+        final long burstPeriodNanos = DeadlineConfig.burstPeriodNanos();
+        final Random random = new Random(DeadlineConfig.N);
+        long nextBurstNanos = System.nanoTime();
+        int jobId = 0;
+        while (jobId < DeadlineConfig.N) {
+            final long waitNanos = nextBurstNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+                continue;
+            }
+            for (int i = 0; i < DeadlineConfig.B && jobId < DeadlineConfig.N; i++, jobId++) {
+                // the slack lies between one and S burst periods
+                final double slackBursts = 1 + (random.nextDouble() * (DeadlineConfig.S - 1));
+                final long slackNanos = (long) (slackBursts * burstPeriodNanos);
+                final long deadlineNanos = System.nanoTime() + slackNanos;
+                final int loopJobId = jobId;
+                submitJob(taskExecutor, deadlineNanos, slackNanos, new Runnable() {
+                    @Override
+                    public void run() {
+                        DeadlineConfig.performJob(loopJobId);
+                        executedJobs.incrementAndGet();
+                        final long latenessNanos = System.nanoTime() - deadlineNanos;
+                        if (latenessNanos <= 0) {
+                            metDeadlines.incrementAndGet();
+                        } else {
+                            latenessSum.addAndGet(latenessNanos);
+                        }
+                    }
+                });
+            }
+            nextBurstNanos += burstPeriodNanos;
+        }
+        taskExecutor.triggerShutdown();
+        taskExecutor.awaitTermination();
+        trackStealStatistics(taskExecutor);
+        trackQos(taskExecutor);
+
+        final int numJobs = DeadlineConfig.N;
+        final int lateJobs = executedJobs.get() - metDeadlines.get();
+        final double metPercent = (100.0 * metDeadlines.get()) / numJobs;
+        final double avgLatenessMillis = lateJobs == 0 ? 0 : latenessSum.get() / (lateJobs * 1e6);
+        final double shedJobs = numJobs - executedJobs.get();
+
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Deadlines Met (%)", metPercent);
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Avg. Lateness (ms)", avgLatenessMillis);
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Shed Jobs", shedJobs);
+        track("DeadlinesMet (%)", metPercent);
+        track("Lateness (ms)", avgLatenessMillis);
+        track("ShedJobs", shedJobs);
+    }
+
+    private static void submitJob(
+            final TaskExecutor taskExecutor, final long deadlineNanos, final long slackNanos, final Runnable job) {
+        if (taskExecutor instanceof DeadlineTaskExecutor) {
+            ((DeadlineTaskExecutor) taskExecutor).submit(deadlineNanos, job);
+        } else {
+            // static priority classes, one per bucket of slack
+            final int priorityLevels = maxPriority() - minPriority() + 1;
+            final long slackBuckets = Math.min(priorityLevels - 1, slackNanos / DeadlineConfig.bucketNanos());
+            taskExecutor.submit(maxPriority() - (int) slackBuckets, job);
+        }
+    }
+
+    protected abstract TaskExecutor createTaskExecutor();
+
+    @Override
+    public final void cleanupIteration(final boolean lastIteration, final double execTimeMillis) {
+        // nothing to do
+    }
+}
@@ -0,0 +1,97 @@
+package edu.rice.habanero.benchmarks.deadline;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class DeadlineConfig {
+
+    protected static int N = 20_000;
+    protected static int W = 200;
+    protected static int B = 64;
+    protected static double U = 0.9;
+    protected static int S = 4;
+    protected static boolean SHED = false;
+
+    // measured once before the first iteration
+    protected static long jobNanos = -1;
+
+    protected static void parseArgs(final String[] args) {
+        int i = 0;
+        while (i < args.length) {
+            final String loopOptionKey = args[i];
+            if ("-n".equals(loopOptionKey)) {
+                i += 1;
+                N = Integer.parseInt(args[i]);
+            } else if ("-w".equals(loopOptionKey)) {
+                i += 1;
+                W = Integer.parseInt(args[i]);
+            } else if ("-b".equals(loopOptionKey)) {
+                i += 1;
+                B = Integer.parseInt(args[i]);
+            } else if ("-u".equals(loopOptionKey)) {
+                i += 1;
+                U = Double.parseDouble(args[i]);
+            } else if ("-s".equals(loopOptionKey)) {
+                i += 1;
+                S = Integer.parseInt(args[i]);
+            } else if ("-shed".equals(loopOptionKey)) {
+                i += 1;
+                SHED = Boolean.parseBoolean(args[i]);
+            }
+            i += 1;
+        }
+    }
+
+    protected static void printArgs() {
+        System.out.printf(BenchmarkRunner.argOutputFormat, "N (num jobs)", N);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "W (work per job)", W);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "B (jobs per burst)", B);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "U (offered load)", U);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "S (max slack, bursts)", S);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "Shed expired", SHED);
+    }
+
+    protected static void calibrate() {
+        if (jobNanos < 0) {
+            final int numJobs = 1_000;
+            // only the last round is measured, the earlier rounds warm up the compiled job
+            for (int round = 0; round < 20; round++) {
+                final long startTime = System.nanoTime();
+                for (int i = 0; i < numJobs; i++) {
+                    performJob(i);
+                }
+                jobNanos = Math.max(1, (System.nanoTime() - startTime) / numJobs);
+            }
+            System.out.println("  Calibrated job duration to " + jobNanos + " ns.");
+        }
+    }
+
+    /**
+     * @return the time between two bursts that offers the configured load to the workers.
+     */
+    protected static long burstPeriodNanos() {
+        return (long) ((B * jobNanos) / (BenchmarkRunner.numThreads() * U));
+    }
+
+    /**
+     * @return the span of deadlines mapped onto a single priority level, the levels together cover the maximum slack.
+     */
+    protected static long bucketNanos() {
+        final int priorityLevels = BenchmarkRunner.maxPriority() - BenchmarkRunner.minPriority() + 1;
+        return Math.max(1, (S * burstPeriodNanos()) / priorityLevels);
+    }
+
+    protected static void performJob(final int jobId) {
+        double res = 0;
+        for (int i = 0; i < W; i++) {
+            final double sint = Math.sin((37.2 * jobId) + i + 1);
+            res += sint * sint;
+        }
+        // defeat dead code elimination
+        if (res < 0) {
+            throw new IllegalStateException("Benchmark exited with unrealistic res value " + res);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package edu.rice.habanero.benchmarks.deadline;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.concurrent.executors.DeadlineWindow;
+import edu.rice.habanero.concurrent.executors.DeadlineWstTaskExecutor;
+import edu.rice.habanero.concurrent.executors.TaskExecutor;
+import edu.rice.habanero.concurrent.executors.WstOptions;
+import edu.rice.habanero.concurrent.wstdeque.PoolType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class DeadlineWstX10DequeBenchmark extends AbstractBenchmark {
+
+    public static void main(final String[] args) {
+        BenchmarkRunner.runBenchmark(args, new DeadlineWstX10DequeBenchmark());
+    }
+
+    @Override
+    protected TaskExecutor createTaskExecutor() {
+        final int numThreads = BenchmarkRunner.numThreads();
+        final int priorityLevels = BenchmarkRunner.maxPriority() - BenchmarkRunner.minPriority() + 1;
+        final DeadlineWindow deadlineWindow = new DeadlineWindow(
+                DeadlineConfig.bucketNanos(), TimeUnit.NANOSECONDS, DeadlineConfig.SHED);
+        return new DeadlineWstTaskExecutor(
+                PoolType.X10, numThreads, priorityLevels, deadlineWindow,
+                new WstOptions()
+                        .victimSelector(BenchmarkRunner.victimSelector())
+                        .terminationDetector(BenchmarkRunner.terminationDetector()));
+    }
+}
@@ -0,0 +1,130 @@
+package edu.rice.habanero.benchmarks.executorservice;
+
+import edu.rice.habanero.benchmarks.Benchmark;
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.concurrent.executors.PriorityWstExecutorService;
+import edu.rice.habanero.concurrent.util.Prioritized;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static edu.rice.habanero.benchmarks.BenchmarkRunner.maxPriority;
+import static edu.rice.habanero.benchmarks.BenchmarkRunner.minPriority;
+
+/**
+ * Submits independent {@link Prioritized} tasks with priorities scattered over the priority range from a single
+ * thread through the {@link ExecutorService} API, as code written against <code>java.util.concurrent</code> would, and
+ * waits for them with <code>invokeAll</code>. Besides the time it reports how early the tasks with the highest priority
+ * completed: the mean completion position of those tasks divided by the number of tasks, 0.5 means no preference.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public abstract class AbstractBenchmark extends Benchmark {
+
+    /**
+     * package protected constructor.
+     */
+    AbstractBenchmark() {
+        super();
+    }
+
+    @Override
+    public final void initialize(final String[] args) throws IOException {
+        ExecutorServiceConfig.parseArgs(args);
+    }
+
+    @Override
+    public final void printArgInfo() {
+        ExecutorServiceConfig.printArgs();
+    }
+
+    @Override
+    public final void preIteration(final boolean firstIteration) {
+        // nothing to do
+    }
+
+    @Override
+    public final void runIteration() {
+        final ExecutorService executorService = createExecutorService();
+        final AtomicInteger completionCounter = new AtomicInteger(0);
+        final int numLevels = maxPriority() - minPriority() + 1;
+
+        final List<WorkTask> tasks = new ArrayList<>(ExecutorServiceConfig.N);
+        for (int i = 0; i < ExecutorServiceConfig.N; i++) {
+            final long hash = i * 2_654_435_761L;
+            final int priority = minPriority() + (int) ((hash >>> 16) % numLevels);
+            tasks.add(new WorkTask(priority, completionCounter));
+        }
+
+        double checksum = 0;
+        try {
+            for (final Future<Double> future : executorService.invokeAll(tasks)) {
+                checksum += future.get();
+            }
+            executorService.shutdown();
+            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (final InterruptedException | ExecutionException ex) {
+            throw new IllegalStateException(ex);
+        }
+        if (executorService instanceof PriorityWstExecutorService) {
+            final PriorityWstExecutorService priorityExecutorService = (PriorityWstExecutorService) executorService;
+            trackStealStatistics(priorityExecutorService.taskExecutor());
+            trackQos(priorityExecutorService.taskExecutor());
+        }
+
+        long maxPriorityTasks = 0;
+        long maxPriorityRankSum = 0;
+        for (final WorkTask task : tasks) {
+            if (task.priority == maxPriority()) {
+                maxPriorityTasks++;
+                maxPriorityRankSum += task.completionRank;
+            }
+        }
+        final double maxPriorityRank = maxPriorityTasks == 0 ? 0 :
+                (double) maxPriorityRankSum / maxPriorityTasks / ExecutorServiceConfig.N;
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Checksum", checksum);
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Max Priority Rank", maxPriorityRank);
+        track("MaxPriorityRank", maxPriorityRank);
+    }
+
+    protected abstract ExecutorService createExecutorService();
+
+    @Override
+    public final void cleanupIteration(final boolean lastIteration, final double execTimeMillis) {
+        // nothing to do
+    }
+
+    private static final class WorkTask implements Callable<Double>, Prioritized {
+
+        private final int priority;
+        private final AtomicInteger completionCounter;
+        private int completionRank;
+
+        private WorkTask(final int priority, final AtomicInteger completionCounter) {
+            this.priority = priority;
+            this.completionCounter = completionCounter;
+        }
+
+        @Override
+        public int priority() {
+            return priority;
+        }
+
+        @Override
+        public Double call() {
+            double result = 0;
+            for (int i = 0; i < ExecutorServiceConfig.W; i++) {
+                result += Math.sin(priority + i);
+            }
+            completionRank = completionCounter.getAndIncrement();
+            return result;
+        }
+    }
+}
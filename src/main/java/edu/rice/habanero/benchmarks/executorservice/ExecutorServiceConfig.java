@@ -0,0 +1,32 @@
+package edu.rice.habanero.benchmarks.executorservice;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class ExecutorServiceConfig {
+
+    protected static int N = 100_000; // num tasks
+    protected static int W = 200; // work per task
+
+    protected static void parseArgs(final String[] args) {
+        int i = 0;
+        while (i < args.length) {
+            final String loopOptionKey = args[i];
+            if ("-n".equals(loopOptionKey)) {
+                i += 1;
+                N = Integer.parseInt(args[i]);
+            } else if ("-w".equals(loopOptionKey)) {
+                i += 1;
+                W = Integer.parseInt(args[i]);
+            }
+            i += 1;
+        }
+    }
+
+    protected static void printArgs() {
+        System.out.printf(BenchmarkRunner.argOutputFormat, "N (num tasks)", N);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "W (work per task)", W);
+    }
+}
@@ -0,0 +1,26 @@
+package edu.rice.habanero.benchmarks.executorservice;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.concurrent.executors.PriorityWstExecutorService;
+import edu.rice.habanero.concurrent.wstdeque.PoolType;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class PriorityWstX10DequeBenchmark extends AbstractBenchmark {
+
+    public static void main(final String[] args) {
+        BenchmarkRunner.runBenchmark(args, new PriorityWstX10DequeBenchmark());
+    }
+
+    @Override
+    protected ExecutorService createExecutorService() {
+        final int numThreads = BenchmarkRunner.numThreads();
+        final int minPriorityInc = BenchmarkRunner.minPriority();
+        final int maxPriorityInc = BenchmarkRunner.maxPriority();
+        return new PriorityWstExecutorService(
+                PoolType.X10, numThreads, minPriorityInc, maxPriorityInc);
+    }
+}
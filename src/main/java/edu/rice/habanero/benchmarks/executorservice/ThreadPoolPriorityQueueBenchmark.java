@@ -0,0 +1,61 @@
+package edu.rice.habanero.benchmarks.executorservice;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.concurrent.util.Prioritized;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The usual way to get priorities out of <code>java.util.concurrent</code>: a {@link ThreadPoolExecutor} over a
+ * {@link PriorityBlockingQueue} whose futures are ordered by the priority of their task, and in submission order
+ * within a priority.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class ThreadPoolPriorityQueueBenchmark extends AbstractBenchmark {
+
+    public static void main(final String[] args) {
+        BenchmarkRunner.runBenchmark(args, new ThreadPoolPriorityQueueBenchmark());
+    }
+
+    @Override
+    protected ExecutorService createExecutorService() {
+        final int numThreads = BenchmarkRunner.numThreads();
+        final AtomicLong sequenceCounter = new AtomicLong(0);
+        return new ThreadPoolExecutor(
+                numThreads, numThreads, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>()) {
+            @Override
+            protected <T> RunnableFuture<T> newTaskFor(final Callable<T> callable) {
+                final int priority = callable instanceof Prioritized ? ((Prioritized) callable).priority() : 0;
+                return new ComparableFuture<>(callable, priority, sequenceCounter.getAndIncrement());
+            }
+        };
+    }
+
+    private static final class ComparableFuture<V> extends FutureTask<V> implements Comparable<ComparableFuture<?>> {
+
+        private final int priority;
+        private final long sequence;
+
+        private ComparableFuture(final Callable<V> callable, final int priority, final long sequence) {
+            super(callable);
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(final ComparableFuture<?> other) {
+            if (priority != other.priority) {
+                return priority > other.priority ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
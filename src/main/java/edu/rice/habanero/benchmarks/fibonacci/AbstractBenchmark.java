@@ -1,15 +1,21 @@
 package edu.rice.habanero.benchmarks.fibonacci;
 
 import edu.rice.habanero.benchmarks.Benchmark;
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
 import edu.rice.habanero.concurrent.executors.TaskExecutor;
+import edu.rice.habanero.concurrent.util.TaskFuture;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static edu.rice.habanero.benchmarks.BenchmarkRunner.maxPriority;
 import static edu.rice.habanero.benchmarks.BenchmarkRunner.minPriority;
 import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.async;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.asyncOrInline;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.future;
 import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.kernel;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.shouldSplit;
 
 /**
  * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
@@ -50,11 +56,17 @@ public abstract class AbstractBenchmark extends Benchmark {
                 async(0, new Runnable() {
                     @Override
                     public void run() {
-                        fibonacciRecusion(1, numLevels, FibonacciConfig.N, resultAcc);
+                        if (FibonacciConfig.JOIN) {
+                            resultAcc.set(fibonacciJoin(1, numLevels, FibonacciConfig.N));
+                        } else {
+                            fibonacciRecusion(1, numLevels, FibonacciConfig.N, resultAcc);
+                        }
                     }
                 });
             }
         });
+        trackStealStatistics(taskExecutor);
+        trackQos(taskExecutor);
     }
 
     private void fibonacciRecusion(final int id, final int numLevels, final int number, final AtomicInteger resultAcc) {
@@ -64,7 +76,7 @@ public abstract class AbstractBenchmark extends Benchmark {
         }
 
         final int leftId = 2 * id;
-        async(leftId % numLevels, new Runnable() {
+        spawn(leftId % numLevels, new Runnable() {
             @Override
             public void run() {
                 fibonacciRecusion(leftId, numLevels, number - 1, resultAcc);
@@ -72,7 +84,7 @@ public abstract class AbstractBenchmark extends Benchmark {
         });
 
         final int rightId = leftId + 1;
-        async(rightId % numLevels, new Runnable() {
+        spawn(rightId % numLevels, new Runnable() {
             @Override
             public void run() {
                 fibonacciRecusion(rightId, numLevels, number - 2, resultAcc);
@@ -80,6 +92,47 @@ public abstract class AbstractBenchmark extends Benchmark {
         });
     }
 
+    private static void spawn(final int priority, final Runnable runnable) {
+        if (BenchmarkRunner.lazySplit()) {
+            asyncOrInline(priority, runnable);
+        } else {
+            async(priority, runnable);
+        }
+    }
+
+    /**
+     * Same task graph as {@link #fibonacciRecusion}, but results are passed back through futures instead of a shared
+     * accumulator.
+     */
+    private int fibonacciJoin(final int id, final int numLevels, final int number) {
+        if (number == 1 || number == 2) {
+            return 1;
+        }
+
+        final int leftId = 2 * id;
+        final int rightId = leftId + 1;
+        if (BenchmarkRunner.lazySplit() && !shouldSplit(leftId % numLevels)) {
+            // both children run inline, the pool already holds enough work for thieves
+            return fibonacciJoin(rightId, numLevels, number - 2) + fibonacciJoin(leftId, numLevels, number - 1);
+        }
+
+        final TaskFuture<Integer> leftFuture = future(leftId % numLevels, new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return fibonacciJoin(leftId, numLevels, number - 1);
+            }
+        });
+
+        final TaskFuture<Integer> rightFuture = future(rightId % numLevels, new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return fibonacciJoin(rightId, numLevels, number - 2);
+            }
+        });
+
+        return rightFuture.join() + leftFuture.join();
+    }
+
     protected abstract TaskExecutor createTaskExecutor();
 
     @Override
@@ -8,6 +8,7 @@ import edu.rice.habanero.benchmarks.BenchmarkRunner;
 public final class FibonacciConfig {
 
     protected static int N = 22;
+    protected static boolean JOIN = false;
 
     protected static void parseArgs(final String[] args) {
         int i = 0;
@@ -16,6 +17,8 @@ public final class FibonacciConfig {
             if ("-n".equals(loopOptionKey)) {
                 i += 1;
                 N = Integer.parseInt(args[i]);
+            } else if ("-join".equals(loopOptionKey)) {
+                JOIN = true;
             }
             i += 1;
         }
@@ -23,5 +26,6 @@ public final class FibonacciConfig {
 
     protected static void printArgs() {
         System.out.printf(BenchmarkRunner.argOutputFormat, "N (term index)", N);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "Join results", JOIN);
     }
 }
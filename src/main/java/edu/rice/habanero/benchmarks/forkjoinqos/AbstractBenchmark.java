@@ -2,14 +2,18 @@ package edu.rice.habanero.benchmarks.forkjoinqos;
 
 import edu.rice.habanero.benchmarks.Benchmark;
 import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.benchmarks.util.ThreadLocalCounter;
 import edu.rice.habanero.concurrent.executors.TaskExecutor;
+import edu.rice.habanero.concurrent.util.TaskGroup;
 
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import static edu.rice.habanero.benchmarks.BenchmarkRunner.*;
 import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.async;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.asyncAll;
 import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.kernel;
 
 /**
@@ -45,6 +49,13 @@ public abstract class AbstractBenchmark extends Benchmark {
 
         final AtomicInteger tasksExecCounter = new AtomicInteger(0);
         final AtomicLong prioritySumCounter = new AtomicLong(0);
+        final AtomicLong stopNanos = new AtomicLong(0);
+        final TaskGroup taskGroup = BenchmarkRunner.cancelGroups() ? new TaskGroup() : null;
+        // queueing latency of the executed tasks, indexed by the priority they were submitted with
+        final AtomicLongArray latencySums = new AtomicLongArray(maxPriority() + 1);
+        final AtomicLongArray latencyCounts = new AtomicLongArray(maxPriority() + 1);
+        // time the producers spend spawning their chunks
+        final ThreadLocalCounter spawnNanos = new ThreadLocalCounter();
 
         kernel(taskExecutor, new Runnable() {
             @Override
@@ -56,32 +67,61 @@ public abstract class AbstractBenchmark extends Benchmark {
                     async(maxPriority(), new Runnable() {
                         @Override
                         public void run() {
-                            for (int i = 0; i < chunkSize; i++) {
-                                final int priority = i % (priorityLevels - 1);
-                                async(priority, new Runnable() {
-                                    @Override
-                                    public void run() {
-
-                                        final int tasksExec = tasksExecCounter.get();
-                                        if (tasksExec > ForkJoinQosConfig.L) {
-                                            return;
-                                        } else {
-                                            tasksExecCounter.incrementAndGet();
+                            final long spawnStartNanos = System.nanoTime();
+                            if (ForkJoinQosConfig.BATCH) {
+                                // the tasks of each priority in the chunk are spawned as one batch
+                                final int numBatches = priorityLevels - 1;
+                                for (int priority = 0; priority < numBatches; priority++) {
+                                    final int batchSize = Math.max(0, (chunkSize - priority + numBatches - 1) / numBatches);
+                                    final Runnable[] batch = new Runnable[batchSize];
+                                    final long submitNanos = System.nanoTime();
+                                    for (int k = 0; k < batch.length; k++) {
+                                        batch[k] = newTask(priority, submitNanos);
+                                    }
+                                    asyncAll(taskGroup, priority, batch);
+                                }
+                            } else {
+                                for (int i = 0; i < chunkSize; i++) {
+                                    final int priority = i % (priorityLevels - 1);
+                                    async(taskGroup, priority, newTask(priority, System.nanoTime()));
+                                }
+                            }
+                            spawnNanos.increment(System.nanoTime() - spawnStartNanos);
+                        }
+
+                        private Runnable newTask(final int priority, final long submitNanos) {
+                            return new Runnable() {
+                                @Override
+                                public void run() {
+                                    final long startNanos = System.nanoTime();
+
+                                    final int tasksExec = tasksExecCounter.get();
+                                    if (tasksExec > ForkJoinQosConfig.L) {
+                                        return;
+                                    } else if (tasksExecCounter.incrementAndGet() > ForkJoinQosConfig.L) {
+                                        stopNanos.compareAndSet(0, System.nanoTime());
+                                        if (taskGroup != null) {
+                                            taskGroup.cancel();
                                         }
+                                    }
 
-                                        prioritySumCounter.addAndGet(priority);
+                                    prioritySumCounter.addAndGet(priority);
+                                    latencySums.addAndGet(priority, startNanos - submitNanos);
+                                    latencyCounts.incrementAndGet(priority);
 
-                                        final double theta = (37.2 * priority) + 1;
-                                        ForkJoinQosConfig.performComputation(theta);
-                                    }
-                                });
-                            }
+                                    final double theta = (37.2 * priority) + 1;
+                                    ForkJoinQosConfig.performComputation(theta);
+                                }
+                            };
                         }
                     });
 
                 }
             }
         });
+        trackStealStatistics(taskExecutor);
+        trackQos(taskExecutor);
+        trackDrainTime(stopNanos.get());
 
         final double actualTasksExec = tasksExecCounter.get();
         final double actualPrioritySum = prioritySumCounter.get();
@@ -90,6 +130,18 @@ public abstract class AbstractBenchmark extends Benchmark {
         System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Actual Tasks Exec", actualTasksExec);
         System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Priority of Tasks", actualPrioritySum);
         System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Avg. Priority QoS", actualPriorityQos);
+        final double spawnNanosPerTask = (1.0 * spawnNanos.get()) / ForkJoinQosConfig.N;
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Spawn per Task (ns)", spawnNanosPerTask);
+        track("SpawnPerTask (ns)", spawnNanosPerTask);
+        for (int priority = 0; priority < latencySums.length(); priority++) {
+            final long latencyCount = latencyCounts.get(priority);
+            if (latencyCount > 0) {
+                final String attrName = "Latency-P" + priority + " (ms)";
+                final double avgLatencyMillis = latencySums.get(priority) / (latencyCount * 1e6);
+                System.out.printf(BenchmarkRunner.statDataOutputFormat, "", attrName, avgLatencyMillis);
+                track(attrName, avgLatencyMillis);
+            }
+        }
     }
 
     protected abstract TaskExecutor createTaskExecutor();
@@ -9,6 +9,7 @@ public final class ForkJoinQosConfig {
 
     protected static int N = 40_000;
     protected static int L = 10_000;
+    protected static boolean BATCH = false; // producers spawn each priority of their chunk as a single batch
 
     protected static void parseArgs(final String[] args) {
         int i = 0;
@@ -20,6 +21,9 @@ public final class ForkJoinQosConfig {
             } else if ("-l".equals(loopOptionKey)) {
                 i += 1;
                 L = Integer.parseInt(args[i]);
+            } else if ("-batch".equals(loopOptionKey)) {
+                i += 1;
+                BATCH = Boolean.parseBoolean(args[i]);
             }
             i += 1;
         }
@@ -28,6 +32,7 @@ public final class ForkJoinQosConfig {
     protected static void printArgs() {
         System.out.printf(BenchmarkRunner.argOutputFormat, "N (total tasks)", N);
         System.out.printf(BenchmarkRunner.argOutputFormat, "L (exec. tasks)", L);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "Batch submission", BATCH);
     }
 
     protected static void performComputation(final double theta) {
@@ -0,0 +1,158 @@
+package edu.rice.habanero.benchmarks.kernels;
+
+import edu.rice.habanero.benchmarks.Benchmark;
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.benchmarks.util.ThreadLocalCounter;
+import edu.rice.habanero.concurrent.executors.QosMonitor;
+import edu.rice.habanero.concurrent.executors.TaskExecutor;
+import edu.rice.habanero.concurrent.executors.WorkerLifecycle;
+
+import com.sun.management.ThreadMXBean;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static edu.rice.habanero.benchmarks.BenchmarkRunner.maxPriority;
+import static edu.rice.habanero.benchmarks.BenchmarkRunner.minPriority;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.async;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.kernel;
+
+/**
+ * Runs many short kernels back to back, as a scheduler that serves a stream of requests would. Each kernel spawns
+ * <code>N</code> empty tasks over all priorities. By default every kernel gets a new executor, with
+ * <code>-persistent true</code> all kernels run on a single executor whose workers stay dormant between the kernels.
+ * The setup time of a kernel is measured from the start of the kernel, including the construction of the executor,
+ * until its root task starts running; compare it across both modes to see the setup time saved.
+ * <p/>
+ * The bytes allocated per task are summed over the live threads, hence they only cover the tasks run by workers that
+ * outlive the iteration, i.e. with <code>-persistent true</code>.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public abstract class AbstractBenchmark extends Benchmark {
+
+    private TaskExecutor persistentExecutor = null;
+
+    /**
+     * package protected constructor.
+     */
+    AbstractBenchmark() {
+        super();
+    }
+
+    @Override
+    public final void initialize(final String[] args) throws IOException {
+        KernelsConfig.parseArgs(args);
+    }
+
+    @Override
+    public final void printArgInfo() {
+        KernelsConfig.printArgs();
+    }
+
+    @Override
+    public final void preIteration(final boolean firstIteration) {
+        // nothing to do
+    }
+
+    @Override
+    public final void runIteration() {
+        final ThreadLocalCounter tasksExecCounter = new ThreadLocalCounter();
+        final AtomicLong rootStartNanos = new AtomicLong(0);
+        // the tasks share their body, the allocations measured are those of spawning and running them
+        final Runnable childTask = new Runnable() {
+            @Override
+            public void run() {
+                tasksExecCounter.increment();
+            }
+        };
+
+        // every kernel but a persistent one has its own executor, their QoS is reported once the kernels are timed
+        final List<TaskExecutor> measuredExecutors = new ArrayList<>(QosMonitor.ENABLED ? KernelsConfig.K : 0);
+        long setupNanos = 0;
+        final long startBytes = allocatedBytes();
+        final long startTime = System.nanoTime();
+        for (int k = 0; k < KernelsConfig.K; k++) {
+            final long kernelStartNanos = System.nanoTime();
+            final TaskExecutor taskExecutor;
+            if (KernelsConfig.PERSISTENT) {
+                if (persistentExecutor == null) {
+                    persistentExecutor = createTaskExecutor(WorkerLifecycle.PERSISTENT);
+                }
+                taskExecutor = persistentExecutor;
+            } else {
+                taskExecutor = createTaskExecutor(WorkerLifecycle.TRANSIENT);
+            }
+            kernel(taskExecutor, new Runnable() {
+                @Override
+                public void run() {
+                    rootStartNanos.set(System.nanoTime());
+                    final int numLevels = maxPriority() - minPriority() + 1;
+                    for (int i = 0; i < KernelsConfig.N; i++) {
+                        async(minPriority() + (i % numLevels), childTask);
+                    }
+                }
+            });
+            setupNanos += rootStartNanos.get() - kernelStartNanos;
+            if (QosMonitor.ENABLED && !KernelsConfig.PERSISTENT) {
+                measuredExecutors.add(taskExecutor);
+            }
+        }
+        final long endTime = System.nanoTime();
+        final long endBytes = allocatedBytes();
+
+        final double tasksExec = tasksExecCounter.get();
+        final double allocPerTask = (endBytes - startBytes) / tasksExec;
+        final double setupMicros = setupNanos / 1e3 / KernelsConfig.K;
+        final double kernelMicros = (endTime - startTime) / 1e3 / KernelsConfig.K;
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Tasks Exec", tasksExec);
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Setup per Kernel (us)", setupMicros);
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Time per Kernel (us)", kernelMicros);
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Alloc per Task (bytes)", allocPerTask);
+        track("SetupPerKernel (us)", setupMicros);
+        track("TimePerKernel (us)", kernelMicros);
+        track("AllocPerTask (bytes)", allocPerTask);
+        if (KernelsConfig.PERSISTENT) {
+            // a persistent executor measures all kernels it ran so far, its completion times count from its creation
+            measuredExecutors.add(persistentExecutor);
+        }
+        for (final TaskExecutor measuredExecutor : measuredExecutors) {
+            trackQos(measuredExecutor);
+        }
+    }
+
+    /**
+     * @return the bytes allocated so far by the live threads, or zero if the JVM does not measure them.
+     */
+    private static long allocatedBytes() {
+        final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof ThreadMXBean)) {
+            return 0;
+        }
+        final ThreadMXBean sunThreadBean = (ThreadMXBean) threadBean;
+        if (!sunThreadBean.isThreadAllocatedMemorySupported() || !sunThreadBean.isThreadAllocatedMemoryEnabled()) {
+            return 0;
+        }
+        long bytes = 0;
+        for (final long allocated : sunThreadBean.getThreadAllocatedBytes(sunThreadBean.getAllThreadIds())) {
+            // -1 for threads that have terminated meanwhile
+            bytes += Math.max(0, allocated);
+        }
+        return bytes;
+    }
+
+    protected abstract TaskExecutor createTaskExecutor(WorkerLifecycle workerLifecycle);
+
+    protected abstract void closeTaskExecutor(TaskExecutor taskExecutor);
+
+    @Override
+    public final void cleanupIteration(final boolean lastIteration, final double execTimeMillis) {
+        if (lastIteration && persistentExecutor != null) {
+            closeTaskExecutor(persistentExecutor);
+            persistentExecutor = null;
+        }
+    }
+}
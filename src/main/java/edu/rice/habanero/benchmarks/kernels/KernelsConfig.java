@@ -0,0 +1,37 @@
+package edu.rice.habanero.benchmarks.kernels;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class KernelsConfig {
+
+    protected static int K = 200; // num kernels per iteration
+    protected static int N = 1_000; // num tasks per kernel
+    protected static boolean PERSISTENT = false; // reuse a single executor with persistent workers
+
+    protected static void parseArgs(final String[] args) {
+        int i = 0;
+        while (i < args.length) {
+            final String loopOptionKey = args[i];
+            if ("-k".equals(loopOptionKey)) {
+                i += 1;
+                K = Integer.parseInt(args[i]);
+            } else if ("-n".equals(loopOptionKey)) {
+                i += 1;
+                N = Integer.parseInt(args[i]);
+            } else if ("-persistent".equals(loopOptionKey)) {
+                i += 1;
+                PERSISTENT = Boolean.parseBoolean(args[i]);
+            }
+            i += 1;
+        }
+    }
+
+    protected static void printArgs() {
+        System.out.printf(BenchmarkRunner.argOutputFormat, "K (num kernels)", K);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "N (num tasks per kernel)", N);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "Persistent workers", PERSISTENT);
+    }
+}
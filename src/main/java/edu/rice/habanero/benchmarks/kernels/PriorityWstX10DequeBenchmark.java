@@ -0,0 +1,38 @@
+package edu.rice.habanero.benchmarks.kernels;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.concurrent.executors.PriorityWstTaskExecutor;
+import edu.rice.habanero.concurrent.executors.TaskExecutor;
+import edu.rice.habanero.concurrent.executors.WorkerLifecycle;
+import edu.rice.habanero.concurrent.executors.WstOptions;
+import edu.rice.habanero.concurrent.wstdeque.PoolType;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class PriorityWstX10DequeBenchmark extends AbstractBenchmark {
+
+    public static void main(final String[] args) {
+        BenchmarkRunner.runBenchmark(args, new PriorityWstX10DequeBenchmark());
+    }
+
+    @Override
+    protected TaskExecutor createTaskExecutor(final WorkerLifecycle workerLifecycle) {
+        final int numThreads = BenchmarkRunner.numThreads();
+        final int minPriorityInc = BenchmarkRunner.minPriority();
+        final int maxPriorityInc = BenchmarkRunner.maxPriority();
+        return new PriorityWstTaskExecutor(
+                PoolType.X10, numThreads, minPriorityInc, maxPriorityInc,
+                new WstOptions()
+                        .victimSelector(BenchmarkRunner.victimSelector())
+                        .terminationDetector(BenchmarkRunner.terminationDetector())
+                        .priorityAging(BenchmarkRunner.priorityAging())
+                        .localityDomains(BenchmarkRunner.localityDomains())
+                        .workerLifecycle(workerLifecycle));
+    }
+
+    @Override
+    protected void closeTaskExecutor(final TaskExecutor taskExecutor) {
+        ((PriorityWstTaskExecutor) taskExecutor).close();
+    }
+}
@@ -0,0 +1,35 @@
+package edu.rice.habanero.benchmarks.kernels;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.concurrent.executors.StandardWstTaskExecutor;
+import edu.rice.habanero.concurrent.executors.TaskExecutor;
+import edu.rice.habanero.concurrent.executors.WorkerLifecycle;
+import edu.rice.habanero.concurrent.executors.WstOptions;
+import edu.rice.habanero.concurrent.wstdeque.PoolType;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class StandardWstX10DequeBenchmark extends AbstractBenchmark {
+
+    public static void main(final String[] args) {
+        BenchmarkRunner.runBenchmark(args, new StandardWstX10DequeBenchmark());
+    }
+
+    @Override
+    protected TaskExecutor createTaskExecutor(final WorkerLifecycle workerLifecycle) {
+        final int numThreads = BenchmarkRunner.numThreads();
+        return new StandardWstTaskExecutor(
+                PoolType.X10, numThreads,
+                new WstOptions()
+                        .victimSelector(BenchmarkRunner.victimSelector())
+                        .terminationDetector(BenchmarkRunner.terminationDetector())
+                        .localityDomains(BenchmarkRunner.localityDomains())
+                        .workerLifecycle(workerLifecycle));
+    }
+
+    @Override
+    protected void closeTaskExecutor(final TaskExecutor taskExecutor) {
+        ((StandardWstTaskExecutor) taskExecutor).close();
+    }
+}
@@ -7,6 +7,7 @@ package edu.rice.habanero.benchmarks.knapsack;
 import edu.rice.habanero.benchmarks.Benchmark;
 import edu.rice.habanero.benchmarks.BenchmarkRunner;
 import edu.rice.habanero.benchmarks.util.ThreadLocalCounter;
+import edu.rice.habanero.benchmarks.util.YieldPoints;
 import edu.rice.habanero.concurrent.executors.TaskExecutor;
 
 import java.io.IOException;
@@ -16,7 +17,9 @@ import java.util.Stack;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.async;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.continueLater;
 import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.kernel;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.shouldSplit;
 
 /**
  * Source: http://www.cs.cmu.edu/afs/cs.cmu.edu/project/scandal-2/misc/Cilk-4/examples/knapsack.cilk
@@ -28,6 +31,8 @@ public abstract class AbstractBenchmark extends Benchmark {
     public static final int INFEASIBLE_VALUE = -1;
     private static final AtomicInteger best_so_far = new AtomicInteger(INFEASIBLE_VALUE);
     private static final ThreadLocalCounter taskCounter = new ThreadLocalCounter();
+    private static final YieldPoints yieldPoints = new YieldPoints();
+    private static final int YIELD_CHECK_MASK = (1 << 8) - 1;
 
     private static KnapsackItem[] allItems = null;
     private static long randomSeed = 1010101L;
@@ -89,6 +94,7 @@ public abstract class AbstractBenchmark extends Benchmark {
     private void initialize() {
         best_so_far.set(INFEASIBLE_VALUE);
         taskCounter.reset();
+        yieldPoints.reset();
 
         // randomly initialize the items
         final Random random = new Random(randomSeed);
@@ -138,6 +144,9 @@ public abstract class AbstractBenchmark extends Benchmark {
                 }
             }
         });
+        trackStealStatistics(taskExecutor);
+        trackQos(taskExecutor);
+        yieldPoints.track(this);
     }
 
     @Override
@@ -165,8 +174,9 @@ public abstract class AbstractBenchmark extends Benchmark {
         }
 
         if (itemsLeft <= threshold) {
-            final int result = knapsackSeq(e, index, capacity, itemsLeft, valueSoFar);
-            knapsackResult.run(result);
+            final Stack<KnapsackArguments> workQueue = new Stack<>();
+            workQueue.push(new KnapsackArguments(index, capacity, itemsLeft, valueSoFar));
+            knapsackSeq(e, workQueue, INFEASIBLE_VALUE, knapsackResult);
             return;
         }
 
@@ -215,8 +225,7 @@ public abstract class AbstractBenchmark extends Benchmark {
             }
         };
 
-        taskCounter.increment();
-        async(index, new Runnable() {
+        spawn(index, new Runnable() {
             @Override
             public void run() {
                 try {
@@ -227,8 +236,7 @@ public abstract class AbstractBenchmark extends Benchmark {
             }
         });
 
-        taskCounter.increment();
-        async(index, new Runnable() {
+        spawn(index, new Runnable() {
             @Override
             public void run() {
                 try {
@@ -240,19 +248,47 @@ public abstract class AbstractBenchmark extends Benchmark {
         });
     }
 
+    private static void spawn(final int priority, final Runnable runnable) {
+        if (BenchmarkRunner.lazySplit() && !shouldSplit(priority)) {
+            // inlined children are not counted as tasks
+            runnable.run();
+        } else {
+            taskCounter.increment();
+            async(priority, runnable);
+        }
+    }
+
     /**
-     * @return the optimal solution
+     * Passes the optimal solution of the subproblems in the work queue to the callback. Once higher priority tasks are
+     * pending, the remaining work queue is suspended as a continuation.
      */
-    private static int knapsackSeq(
-            final KnapsackItem[] e, final int argIndex,
-            final int argCapacity, final int argItemsLeft, final int argValueSoFar) {
-
-        final KnapsackArguments arguments = new KnapsackArguments(argIndex, argCapacity, argItemsLeft, argValueSoFar);
-        final Stack<KnapsackArguments> workQueue = new Stack<>();
-        workQueue.add(arguments);
+    private static void knapsackSeq(
+            final KnapsackItem[] e, final Stack<KnapsackArguments> workQueue,
+            final int argLocalBest, final CallbackResult knapsackResult) {
 
-        int localBest = INFEASIBLE_VALUE;
+        int localBest = argLocalBest;
+        long pendingSinceNanos = 0;
+        int steps = 0;
         while (!workQueue.isEmpty()) {
+            if ((++steps & YIELD_CHECK_MASK) == 0) {
+                pendingSinceNanos = yieldPoints.observe(pendingSinceNanos);
+                if (yieldPoints.shouldYield(pendingSinceNanos)) {
+                    final int suspendedBest = localBest;
+                    continueLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                knapsackSeq(e, workQueue, suspendedBest, knapsackResult);
+                            } catch (Exception e1) {
+                                e1.printStackTrace();
+                            }
+                        }
+                    });
+                    yieldPoints.stopped(pendingSinceNanos, true);
+                    return;
+                }
+            }
+
             final KnapsackArguments loopArg = workQueue.pop();
 
             if (loopArg.capacity <= 0) {
@@ -297,9 +333,9 @@ public abstract class AbstractBenchmark extends Benchmark {
           * value. The program is highly non-deterministic.
           */
         updateBestSoFar(localBest);
+        yieldPoints.stopped(pendingSinceNanos, false);
 
-
-        return localBest;
+        knapsackResult.run(localBest);
     }
 
     private static void updateBestSoFar(final int newBest) {
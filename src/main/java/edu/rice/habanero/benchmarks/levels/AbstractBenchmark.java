@@ -0,0 +1,96 @@
+package edu.rice.habanero.benchmarks.levels;
+
+import edu.rice.habanero.benchmarks.Benchmark;
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.benchmarks.util.ThreadLocalCounter;
+import edu.rice.habanero.concurrent.executors.TaskExecutor;
+
+import java.io.IOException;
+
+import static edu.rice.habanero.benchmarks.BenchmarkRunner.maxPriority;
+import static edu.rice.habanero.benchmarks.BenchmarkRunner.minPriority;
+import static edu.rice.habanero.benchmarks.BenchmarkRunner.numThreads;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.async;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.kernel;
+
+/**
+ * Spreads empty tasks over a large number of priority levels, so the execution time is dominated by the cost of
+ * finding the next task rather than by running it. Run with increasing <code>-l</code> values to see the lookup cost
+ * against the number of levels.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public abstract class AbstractBenchmark extends Benchmark {
+
+    /**
+     * package protected constructor.
+     */
+    AbstractBenchmark() {
+        super();
+    }
+
+    @Override
+    public final void initialize(final String[] args) throws IOException {
+        LevelsConfig.parseArgs(args);
+    }
+
+    @Override
+    public final void printArgInfo() {
+        LevelsConfig.printArgs();
+    }
+
+    @Override
+    public final void preIteration(final boolean firstIteration) {
+        // nothing to do
+    }
+
+    @Override
+    public final void runIteration() {
+        final TaskExecutor taskExecutor = createTaskExecutor();
+        final ThreadLocalCounter tasksExecCounter = new ThreadLocalCounter();
+
+        final long startTime = System.nanoTime();
+        kernel(taskExecutor, new Runnable() {
+            @Override
+            public void run() {
+                final int numLevels = maxPriority() - minPriority() + 1;
+                final int numProducers = 10 * numThreads();
+                final int chunkSize = LevelsConfig.N / numProducers;
+                for (int p = 0; p < numProducers; p++) {
+                    final int pp = p;
+                    async(maxPriority(), new Runnable() {
+                        @Override
+                        public void run() {
+                            for (int i = 0; i < chunkSize; i++) {
+                                // scatter the tasks over all the levels
+                                final long hash = ((long) pp * chunkSize + i) * 2_654_435_761L;
+                                final int priority = minPriority() + (int) ((hash >>> 16) % numLevels);
+                                async(priority, new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        tasksExecCounter.increment();
+                                    }
+                                });
+                            }
+                        }
+                    });
+                }
+            }
+        });
+        final long endTime = System.nanoTime();
+        trackQos(taskExecutor);
+
+        final double tasksExec = tasksExecCounter.get();
+        final double nanosPerTask = (endTime - startTime) / tasksExec;
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Tasks Exec", tasksExec);
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Nanos per Task", nanosPerTask);
+        track("NanosPerTask", nanosPerTask);
+    }
+
+    protected abstract TaskExecutor createTaskExecutor();
+
+    @Override
+    public final void cleanupIteration(final boolean lastIteration, final double execTimeMillis) {
+        // nothing to do
+    }
+}
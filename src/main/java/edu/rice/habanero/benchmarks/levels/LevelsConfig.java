@@ -0,0 +1,34 @@
+package edu.rice.habanero.benchmarks.levels;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class LevelsConfig {
+
+    protected static int N = 200_000; // num tasks
+    protected static int L = 10_000; // num priority levels
+
+    protected static void parseArgs(final String[] args) {
+        int i = 0;
+        while (i < args.length) {
+            final String loopOptionKey = args[i];
+            if ("-n".equals(loopOptionKey)) {
+                i += 1;
+                N = Integer.parseInt(args[i]);
+            } else if ("-l".equals(loopOptionKey)) {
+                i += 1;
+                L = Math.max(1, Integer.parseInt(args[i]));
+            }
+            i += 1;
+        }
+
+        BenchmarkRunner.MAX_PRIORITY = BenchmarkRunner.MIN_PRIORITY + L - 1;
+    }
+
+    protected static void printArgs() {
+        System.out.printf(BenchmarkRunner.argOutputFormat, "N (num tasks)", N);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "L (num levels)", L);
+    }
+}
@@ -25,14 +25,19 @@
 package edu.rice.habanero.benchmarks.nqueens;
 
 import edu.rice.habanero.benchmarks.Benchmark;
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.benchmarks.util.YieldPoints;
 import edu.rice.habanero.concurrent.executors.TaskExecutor;
+import edu.rice.habanero.concurrent.util.TaskGroup;
 
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static edu.rice.habanero.benchmarks.nqueens.NQueensConfig.extendRight;
 import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.async;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.continueLater;
 import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.kernel;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.shouldSplit;
 
 /**
  * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu) [HJlib version]
@@ -40,6 +45,7 @@ import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.kernel;
 public abstract class AbstractBenchmark extends Benchmark {
 
     private final AtomicLong resultCounter = new AtomicLong(0);
+    private final YieldPoints yieldPoints = new YieldPoints();
 
     /**
      * package protected constructor.
@@ -61,6 +67,7 @@ public abstract class AbstractBenchmark extends Benchmark {
     @Override
     public void preIteration(final boolean firstIteration) {
         resultCounter.set(0);
+        yieldPoints.reset();
     }
 
     protected abstract TaskExecutor createTaskExecutor();
@@ -68,6 +75,8 @@ public abstract class AbstractBenchmark extends Benchmark {
     @Override
     public void runIteration() {
         final TaskExecutor taskExecutor = createTaskExecutor();
+        final AtomicLong stopNanos = new AtomicLong(0);
+        final TaskGroup taskGroup = BenchmarkRunner.cancelGroups() ? new TaskGroup() : null;
         kernel(taskExecutor, new Runnable() {
             @Override
             public void run() {
@@ -80,7 +89,7 @@ public abstract class AbstractBenchmark extends Benchmark {
                 for (int i = 0; i < NQueensConfig.SIZE; i++) {
                     final int ii = i;
                     final int[] b = extendRight(a, ii);
-                    async(depth, new Runnable() {
+                    final Runnable childTask = new Runnable() {
                         @Override
                         public void run() {
                             {
@@ -97,18 +106,67 @@ public abstract class AbstractBenchmark extends Benchmark {
                                 } else {
                                     final int[] b2 = new int[NQueensConfig.SIZE];
                                     System.arraycopy(b, 0, b2, 0, b.length);
-                                    nqueensKernelSeq(b2, depth + 1);
+                                    nqueensKernelSeqFrom(b2, depth + 1, 0);
                                 }
                             }
                         }
-                    });
+                    };
+                    if (BenchmarkRunner.lazySplit() && !shouldSplit(depth)) {
+                        childTask.run();
+                    } else {
+                        async(taskGroup, depth, childTask);
+                    }
+                }
+            }
+
+            /**
+             * Explores the subtrees of the columns from <code>firstColumn</code> onwards. A yield point between two
+             * subtrees suspends the remaining columns as a continuation.
+             */
+            private void nqueensKernelSeqFrom(final int[] a, final int depth, final int firstColumn) {
+
+                if (NQueensConfig.SIZE == depth) {
+                    nqueensKernelSeq(a, depth);
+                    return;
+                }
+
+                long pendingSinceNanos = 0;
+                for (int i = firstColumn; i < NQueensConfig.SIZE; i++) {
+                    if (i > firstColumn) {
+                        pendingSinceNanos = yieldPoints.observe(pendingSinceNanos);
+                        if (yieldPoints.shouldYield(pendingSinceNanos)) {
+                            final int nextColumn = i;
+                            continueLater(new Runnable() {
+                                @Override
+                                public void run() {
+                                    nqueensKernelSeqFrom(a, depth, nextColumn);
+                                }
+                            });
+                            yieldPoints.stopped(pendingSinceNanos, true);
+                            return;
+                        }
+                    }
+                    a[depth] = i;
+                    if (NQueensConfig.boardValid((depth + 1), a)) {
+                        nqueensKernelSeq(a, depth + 1);
+                        if (resultCounter.get() >= NQueensConfig.SOLUTIONS_LIMIT) {
+                            // cooperative termination check
+                            break;
+                        }
+                    }
                 }
+                yieldPoints.stopped(pendingSinceNanos, false);
             }
 
             private void nqueensKernelSeq(final int[] a, final int depth) {
 
                 if (NQueensConfig.SIZE == depth) {
-                    resultCounter.addAndGet(1L);
+                    if (resultCounter.addAndGet(1L) >= NQueensConfig.SOLUTIONS_LIMIT) {
+                        stopNanos.compareAndSet(0, System.nanoTime());
+                        if (taskGroup != null) {
+                            taskGroup.cancel();
+                        }
+                    }
                     return;
                 }
 
@@ -127,6 +185,10 @@ public abstract class AbstractBenchmark extends Benchmark {
                 }
             }
         });
+        trackStealStatistics(taskExecutor);
+        trackQos(taskExecutor);
+        trackDrainTime(stopNanos.get());
+        yieldPoints.track(this);
     }
 
     @Override
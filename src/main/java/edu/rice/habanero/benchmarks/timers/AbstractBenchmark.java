@@ -0,0 +1,123 @@
+package edu.rice.habanero.benchmarks.timers;
+
+import edu.rice.habanero.benchmarks.Benchmark;
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static edu.rice.habanero.benchmarks.BenchmarkRunner.maxPriority;
+import static edu.rice.habanero.benchmarks.BenchmarkRunner.minPriority;
+
+/**
+ * Measures the cost of timers in two phases. First <code>N</code> timers with delays between one and sixty seconds
+ * are inserted and then cancelled, the rates of both operations are reported. Then <code>J</code> timers with delays
+ * of up to <code>D</code> milliseconds and random priorities fire, and the jitter is the time from the deadline of a
+ * timer until its task starts running.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public abstract class AbstractBenchmark extends Benchmark {
+
+    /**
+     * package protected constructor.
+     */
+    AbstractBenchmark() {
+        super();
+    }
+
+    @Override
+    public final void initialize(final String[] args) throws IOException {
+        TimersConfig.parseArgs(args);
+    }
+
+    @Override
+    public final void printArgInfo() {
+        TimersConfig.printArgs();
+    }
+
+    @Override
+    public final void preIteration(final boolean firstIteration) {
+        // nothing to do
+    }
+
+    @Override
+    public final void runIteration() {
+        final Random random = new Random(42);
+        final int numLevels = maxPriority() - minPriority() + 1;
+        final Runnable noop = new Runnable() {
+            @Override
+            public void run() {
+                // cancelled before it runs
+            }
+        };
+
+        startScheduler();
+
+        final Object[] timers = new Object[TimersConfig.N];
+        final long insertStartNanos = System.nanoTime();
+        for (int i = 0; i < TimersConfig.N; i++) {
+            final long delayNanos = TimeUnit.SECONDS.toNanos(1) + random.nextInt(59_000) * 1_000_000L;
+            timers[i] = schedule(minPriority() + (i % numLevels), delayNanos, noop);
+        }
+        final long cancelStartNanos = System.nanoTime();
+        for (int i = 0; i < TimersConfig.N; i++) {
+            cancel(timers[i]);
+        }
+        final long cancelEndNanos = System.nanoTime();
+
+        final long[] jitterNanos = new long[TimersConfig.J];
+        for (int i = 0; i < TimersConfig.J; i++) {
+            final int timerIndex = i;
+            final long delayNanos = 1 + random.nextInt(TimersConfig.D * 1_000) * 1_000L;
+            final long deadlineNanos = System.nanoTime() + delayNanos;
+            schedule(minPriority() + random.nextInt(numLevels), delayNanos, new Runnable() {
+                @Override
+                public void run() {
+                    jitterNanos[timerIndex] = System.nanoTime() - deadlineNanos;
+                }
+            });
+        }
+
+        stopScheduler();
+
+        Arrays.sort(jitterNanos);
+        long totalJitterNanos = 0;
+        for (final long jitter : jitterNanos) {
+            totalJitterNanos += jitter;
+        }
+        final double insertRate = TimersConfig.N / ((cancelStartNanos - insertStartNanos) / 1e6);
+        final double cancelRate = TimersConfig.N / ((cancelEndNanos - cancelStartNanos) / 1e6);
+        final double meanJitterMicros = totalJitterNanos / 1e3 / TimersConfig.J;
+        final double p99JitterMicros = jitterNanos[(int) (0.99 * (TimersConfig.J - 1))] / 1e3;
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Insert Rate (ops/ms)", insertRate);
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Cancel Rate (ops/ms)", cancelRate);
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Mean Jitter (us)", meanJitterMicros);
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "P99 Jitter (us)", p99JitterMicros);
+        track("InsertRate (ops/ms)", insertRate);
+        track("CancelRate (ops/ms)", cancelRate);
+        track("MeanJitter (us)", meanJitterMicros);
+        track("P99Jitter (us)", p99JitterMicros);
+    }
+
+    protected abstract void startScheduler();
+
+    /**
+     * @return the handle to cancel the timer with.
+     */
+    protected abstract Object schedule(int priority, long delayNanos, Runnable task);
+
+    protected abstract void cancel(Object timer);
+
+    /**
+     * Returns once all timers that have not been cancelled have fired and their tasks have completed.
+     */
+    protected abstract void stopScheduler();
+
+    @Override
+    public final void cleanupIteration(final boolean lastIteration, final double execTimeMillis) {
+        // nothing to do
+    }
+}
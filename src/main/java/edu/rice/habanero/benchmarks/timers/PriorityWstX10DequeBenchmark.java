@@ -0,0 +1,54 @@
+package edu.rice.habanero.benchmarks.timers;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.concurrent.executors.PriorityWstTaskExecutor;
+import edu.rice.habanero.concurrent.executors.ScheduledTask;
+import edu.rice.habanero.concurrent.executors.TimingWheelScheduler;
+import edu.rice.habanero.concurrent.executors.WstOptions;
+import edu.rice.habanero.concurrent.wstdeque.PoolType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class PriorityWstX10DequeBenchmark extends AbstractBenchmark {
+
+    private PriorityWstTaskExecutor taskExecutor;
+    private TimingWheelScheduler scheduler;
+
+    public static void main(final String[] args) {
+        BenchmarkRunner.runBenchmark(args, new PriorityWstX10DequeBenchmark());
+    }
+
+    @Override
+    protected void startScheduler() {
+        final int numThreads = BenchmarkRunner.numThreads();
+        final int minPriorityInc = BenchmarkRunner.minPriority();
+        final int maxPriorityInc = BenchmarkRunner.maxPriority();
+        taskExecutor = new PriorityWstTaskExecutor(
+                PoolType.X10, numThreads, minPriorityInc, maxPriorityInc,
+                new WstOptions()
+                        .victimSelector(BenchmarkRunner.victimSelector())
+                        .terminationDetector(BenchmarkRunner.terminationDetector())
+                        .priorityAging(BenchmarkRunner.priorityAging()));
+        scheduler = new TimingWheelScheduler(taskExecutor, TimersConfig.T, TimeUnit.MICROSECONDS);
+    }
+
+    @Override
+    protected Object schedule(final int priority, final long delayNanos, final Runnable task) {
+        return scheduler.schedule(priority, delayNanos, TimeUnit.NANOSECONDS, task);
+    }
+
+    @Override
+    protected void cancel(final Object timer) {
+        ((ScheduledTask) timer).cancel();
+    }
+
+    @Override
+    protected void stopScheduler() {
+        taskExecutor.triggerShutdown();
+        taskExecutor.awaitTermination();
+        scheduler.shutdown();
+    }
+}
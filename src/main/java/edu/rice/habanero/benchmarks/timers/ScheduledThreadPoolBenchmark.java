@@ -0,0 +1,48 @@
+package edu.rice.habanero.benchmarks.timers;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ScheduledThreadPoolExecutor}, which keeps its timers in a binary heap and ignores the priorities. Cancelled
+ * timers are removed from the heap at once, as the timing wheel does.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class ScheduledThreadPoolBenchmark extends AbstractBenchmark {
+
+    private ScheduledThreadPoolExecutor executor;
+
+    public static void main(final String[] args) {
+        BenchmarkRunner.runBenchmark(args, new ScheduledThreadPoolBenchmark());
+    }
+
+    @Override
+    protected void startScheduler() {
+        executor = new ScheduledThreadPoolExecutor(BenchmarkRunner.numThreads());
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    protected Object schedule(final int priority, final long delayNanos, final Runnable task) {
+        return executor.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    protected void cancel(final Object timer) {
+        ((ScheduledFuture<?>) timer).cancel(false);
+    }
+
+    @Override
+    protected void stopScheduler() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (final InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package edu.rice.habanero.benchmarks.timers;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class TimersConfig {
+
+    protected static int N = 100_000; // num timers inserted and cancelled
+    protected static int J = 2_000; // num timers whose firing jitter is measured
+    protected static int D = 100; // max delay of the jitter timers in milliseconds
+    protected static int T = 1_000; // tick of the timing wheel in microseconds
+
+    protected static void parseArgs(final String[] args) {
+        int i = 0;
+        while (i < args.length) {
+            final String loopOptionKey = args[i];
+            if ("-n".equals(loopOptionKey)) {
+                i += 1;
+                N = Integer.parseInt(args[i]);
+            } else if ("-j".equals(loopOptionKey)) {
+                i += 1;
+                J = Integer.parseInt(args[i]);
+            } else if ("-d".equals(loopOptionKey)) {
+                i += 1;
+                D = Integer.parseInt(args[i]);
+            } else if ("-t".equals(loopOptionKey)) {
+                i += 1;
+                T = Integer.parseInt(args[i]);
+            }
+            i += 1;
+        }
+    }
+
+    protected static void printArgs() {
+        System.out.printf(BenchmarkRunner.argOutputFormat, "N (num timers inserted)", N);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "J (num timers fired)", J);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "D (max delay ms)", D);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "T (tick us)", T);
+    }
+}
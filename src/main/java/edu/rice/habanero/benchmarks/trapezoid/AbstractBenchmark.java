@@ -10,6 +10,7 @@ import java.io.IOException;
 import static edu.rice.habanero.benchmarks.BenchmarkRunner.maxPriority;
 import static edu.rice.habanero.benchmarks.BenchmarkRunner.numThreads;
 import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.async;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.asyncAll;
 import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.kernel;
 
 /**
@@ -43,6 +44,8 @@ public abstract class AbstractBenchmark extends Benchmark {
     public final void runIteration() {
 
         final ThreadLocalCounter resultSum = new ThreadLocalCounter();
+        // time the producers spend spawning their chunks
+        final ThreadLocalCounter spawnNanos = new ThreadLocalCounter();
         final TaskExecutor taskExecutor = createTaskExecutor();
 
         final int scaleFactor = 1_000_000_000;
@@ -61,37 +64,53 @@ public abstract class AbstractBenchmark extends Benchmark {
                     async(maxPriority(), new Runnable() {
                         @Override
                         public void run() {
-                            for (int i = 0; i < chunkSize; i++) {
-                                async(maxPriority(), new Runnable() {
-                                    @Override
-                                    public void run() {
+                            final Runnable piece = new Runnable() {
+                                @Override
+                                public void run() {
 
-                                        final int limit = 100;
-                                        final double localIncrement = increment / limit;
+                                    final int limit = 100;
+                                    final double localIncrement = increment / limit;
 
-                                        for (int i = 0; i < limit; i++) {
-                                            final double lx = TrapezoidalConfig.L + (pp * chunkSize * increment);
-                                            final double rx = lx + localIncrement;
+                                    for (int i = 0; i < limit; i++) {
+                                        final double lx = TrapezoidalConfig.L + (pp * chunkSize * increment);
+                                        final double rx = lx + localIncrement;
 
-                                            final double ly = TrapezoidalConfig.fx(lx);
-                                            final double ry = TrapezoidalConfig.fx(rx);
-                                            final double area = 0.5 * (ly + ry) * localIncrement;
+                                        final double ly = TrapezoidalConfig.fx(lx);
+                                        final double ry = TrapezoidalConfig.fx(rx);
+                                        final double area = 0.5 * (ly + ry) * localIncrement;
 
-                                            final long areaLong = (long) (area * scaleFactor);
-                                            resultSum.increment(areaLong);
-                                        }
+                                        final long areaLong = (long) (area * scaleFactor);
+                                        resultSum.increment(areaLong);
                                     }
-                                });
+                                }
+                            };
+                            final long startNanos = System.nanoTime();
+                            if (TrapezoidalConfig.BATCH) {
+                                final Runnable[] pieces = new Runnable[chunkSize];
+                                for (int i = 0; i < chunkSize; i++) {
+                                    pieces[i] = piece;
+                                }
+                                asyncAll(maxPriority(), pieces);
+                            } else {
+                                for (int i = 0; i < chunkSize; i++) {
+                                    async(maxPriority(), piece);
+                                }
                             }
+                            spawnNanos.increment(System.nanoTime() - startNanos);
                         }
                     });
 
                 }
             }
         });
+        trackStealStatistics(taskExecutor);
+        trackQos(taskExecutor);
 
         final double computedArea = (1.0 * resultSum.get()) / scaleFactor;
+        final double spawnNanosPerTask = (1.0 * spawnNanos.get()) / TrapezoidalConfig.N;
         System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Computed Area", computedArea);
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Spawn per Task (ns)", spawnNanosPerTask);
+        track("SpawnPerTask (ns)", spawnNanosPerTask);
     }
 
     protected abstract TaskExecutor createTaskExecutor();
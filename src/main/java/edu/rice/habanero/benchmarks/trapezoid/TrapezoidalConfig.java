@@ -10,6 +10,7 @@ public final class TrapezoidalConfig {
     protected static int N = 100_000; // num pieces
     protected static double L = 0; // left end-point
     protected static double R = 100; // right end-point
+    protected static boolean BATCH = false; // producers spawn their chunk with a single batch submission
     protected static boolean debug = false;
 
     protected static void parseArgs(final String[] args) {
@@ -29,6 +30,10 @@ public final class TrapezoidalConfig {
                     i += 1;
                     R = Double.parseDouble(args[i]);
                     break;
+                case "-batch":
+                    i += 1;
+                    BATCH = Boolean.parseBoolean(args[i]);
+                    break;
                 case "-debug":
                 case "-verbose":
                     debug = true;
@@ -42,6 +47,7 @@ public final class TrapezoidalConfig {
         System.out.printf(BenchmarkRunner.argOutputFormat, "N (num trapezoids)", N);
         System.out.printf(BenchmarkRunner.argOutputFormat, "L (left end-point)", L);
         System.out.printf(BenchmarkRunner.argOutputFormat, "R (right end-point)", R);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "Batch submission", BATCH);
         System.out.printf(BenchmarkRunner.argOutputFormat, "debug", debug);
     }
 
@@ -0,0 +1,64 @@
+package edu.rice.habanero.benchmarks.util;
+
+import edu.rice.habanero.benchmarks.Benchmark;
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.higherPriorityPending;
+
+/**
+ * Yield points of long running sequential kernels, also records the priority inversion they observe.
+ * <p/>
+ * The inversion of a task is measured from the first yield point that finds higher priority work pending until the
+ * task yields or completes. Compare runs with <code>-yield true</code> and <code>-yield false</code>.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class YieldPoints {
+
+    private final AtomicLong inversionNanos = new AtomicLong(0);
+    private final AtomicLong yieldedTasks = new AtomicLong(0);
+
+    /**
+     * Invoked at a yield point of a task.
+     *
+     * @param pendingSinceNanos the value returned by the previous yield point of the task, zero at the first one.
+     * @return the time higher priority work was first observed pending by the task, or zero if not yet observed.
+     */
+    public long observe(final long pendingSinceNanos) {
+        if (pendingSinceNanos != 0 || !higherPriorityPending()) {
+            return pendingSinceNanos;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * @return true if the task should suspend itself as a continuation.
+     */
+    public boolean shouldYield(final long pendingSinceNanos) {
+        return pendingSinceNanos != 0 && BenchmarkRunner.yieldPoints();
+    }
+
+    /**
+     * Invoked when a task that observed pending work stops running, either by yielding or by completing.
+     */
+    public void stopped(final long pendingSinceNanos, final boolean yielded) {
+        if (pendingSinceNanos != 0) {
+            inversionNanos.addAndGet(System.nanoTime() - pendingSinceNanos);
+        }
+        if (yielded) {
+            yieldedTasks.incrementAndGet();
+        }
+    }
+
+    public void reset() {
+        inversionNanos.set(0);
+        yieldedTasks.set(0);
+    }
+
+    public void track(final Benchmark benchmark) {
+        benchmark.track("InversionTime (ms)", inversionNanos.get() / 1e6);
+        benchmark.track("YieldedTasks", yieldedTasks.get());
+    }
+}
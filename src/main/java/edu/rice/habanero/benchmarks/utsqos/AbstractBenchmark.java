@@ -3,6 +3,7 @@ package edu.rice.habanero.benchmarks.utsqos;
 import edu.rice.habanero.benchmarks.Benchmark;
 import edu.rice.habanero.benchmarks.BenchmarkRunner;
 import edu.rice.habanero.concurrent.executors.TaskExecutor;
+import edu.rice.habanero.concurrent.util.TaskGroup;
 
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -44,6 +45,8 @@ public abstract class AbstractBenchmark extends Benchmark {
         final AtomicLong prioritySumCounter = new AtomicLong(0);
 
         final TaskExecutor taskExecutor = createTaskExecutor();
+        final AtomicLong stopNanos = new AtomicLong(0);
+        final TaskGroup taskGroup = BenchmarkRunner.cancelGroups() ? new TaskGroup() : null;
 
         kernel(taskExecutor, new Runnable() {
             @Override
@@ -55,20 +58,28 @@ public abstract class AbstractBenchmark extends Benchmark {
             }
 
             protected void spawnNode(final Node node) {
-                taskExecutor.submit(node.priority, new Runnable() {
+                final Runnable nodeTask = new Runnable() {
                     @Override
                     public void run() {
                         final int tasksExec = tasksExecCounter.get();
                         if (tasksExec > UtsConfig.L) {
                             return;
-                        } else {
-                            tasksExecCounter.incrementAndGet();
+                        } else if (tasksExecCounter.incrementAndGet() > UtsConfig.L) {
+                            stopNanos.compareAndSet(0, System.nanoTime());
+                            if (taskGroup != null) {
+                                taskGroup.cancel();
+                            }
                         }
 
                         prioritySumCounter.addAndGet(node.priority);
                         traverseNode(node);
                     }
-                });
+                };
+                if (taskGroup != null) {
+                    taskExecutor.submit(node.priority, taskGroup, nodeTask);
+                } else {
+                    taskExecutor.submit(node.priority, nodeTask);
+                }
             }
 
             protected void traverseNode(final Node node) {
@@ -79,6 +90,9 @@ public abstract class AbstractBenchmark extends Benchmark {
                 }
             }
         });
+        trackStealStatistics(taskExecutor);
+        trackQos(taskExecutor);
+        trackDrainTime(stopNanos.get());
 
         final double actualTasksExec = tasksExecCounter.get();
         final double actualPrioritySum = prioritySumCounter.get();
@@ -22,6 +22,6 @@ public class SyncPriorityQueueBenchmark extends AbstractBenchmark {
         final int maxPriorityInc = BenchmarkRunner.maxPriority();
         return new SynchronizedPriorityQueueTaskExecutor(
                 numThreads, numThreads, 0L, TimeUnit.MILLISECONDS,
-                minPriorityInc, maxPriorityInc);
+                minPriorityInc, maxPriorityInc, BenchmarkRunner.terminationDetector());
     }
 }
@@ -0,0 +1,107 @@
+package edu.rice.habanero.benchmarks.wakeup;
+
+import edu.rice.habanero.benchmarks.Benchmark;
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.concurrent.executors.TaskExecutor;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static edu.rice.habanero.benchmarks.BenchmarkRunner.maxPriority;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.async;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.kernel;
+
+/**
+ * Measures the latency between submitting a task while all other workers are idle and the task starting on another
+ * worker. The submitting worker busy-waits, so the task must be stolen by one of the idle workers.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public abstract class AbstractBenchmark extends Benchmark {
+
+    /**
+     * package protected constructor.
+     */
+    AbstractBenchmark() {
+        super();
+    }
+
+    @Override
+    public final void initialize(final String[] args) throws IOException {
+        WakeUpConfig.parseArgs(args);
+    }
+
+    @Override
+    public final void printArgInfo() {
+        WakeUpConfig.printArgs();
+    }
+
+    @Override
+    public final void preIteration(final boolean firstIteration) {
+        // nothing to do
+    }
+
+    @Override
+    public final void runIteration() {
+        final TaskExecutor taskExecutor = createTaskExecutor();
+
+        final AtomicLong latencySum = new AtomicLong(0);
+        final AtomicLong latencyMax = new AtomicLong(0);
+
+        kernel(taskExecutor, new Runnable() {
+            @Override
+            public void run() {
+                async(maxPriority(), new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < WakeUpConfig.N; i++) {
+                            pause();
+
+                            final AtomicLong startTime = new AtomicLong(0);
+                            final long submitTime = System.nanoTime();
+                            async(maxPriority(), new Runnable() {
+                                @Override
+                                public void run() {
+                                    startTime.set(System.nanoTime());
+                                }
+                            });
+                            while (startTime.get() == 0) {
+                                // busy-wait for another worker to pick up the task
+                            }
+
+                            final long latency = startTime.get() - submitTime;
+                            latencySum.addAndGet(latency);
+                            latencyMax.set(Math.max(latencyMax.get(), latency));
+                        }
+                    }
+                });
+            }
+        });
+        trackQos(taskExecutor);
+
+        final double avgLatencyMicros = latencySum.get() / (1e3 * WakeUpConfig.N);
+        final double maxLatencyMicros = latencyMax.get() / 1e3;
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Avg. Wake-up (us)", avgLatencyMicros);
+        System.out.printf(BenchmarkRunner.statDataOutputFormat, "", "Max. Wake-up (us)", maxLatencyMicros);
+
+        track("AvgWakeUpMicros", avgLatencyMicros);
+        track("MaxWakeUpMicros", maxLatencyMicros);
+    }
+
+    private static void pause() {
+        try {
+            // allow the other workers to run out of work and go idle
+            TimeUnit.MICROSECONDS.sleep(WakeUpConfig.P);
+        } catch (final InterruptedException ex) {
+            // ignore
+        }
+    }
+
+    protected abstract TaskExecutor createTaskExecutor();
+
+    @Override
+    public final void cleanupIteration(final boolean lastIteration, final double execTimeMillis) {
+        // nothing to do
+    }
+}
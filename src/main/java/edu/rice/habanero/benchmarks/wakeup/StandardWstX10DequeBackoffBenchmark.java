@@ -0,0 +1,26 @@
+package edu.rice.habanero.benchmarks.wakeup;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+import edu.rice.habanero.concurrent.executors.IdleStrategyType;
+import edu.rice.habanero.concurrent.executors.StandardWstTaskExecutor;
+import edu.rice.habanero.concurrent.executors.TaskExecutor;
+import edu.rice.habanero.concurrent.executors.WstOptions;
+import edu.rice.habanero.concurrent.wstdeque.PoolType;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class StandardWstX10DequeBackoffBenchmark extends AbstractBenchmark {
+
+    public static void main(final String[] args) {
+        BenchmarkRunner.runBenchmark(args, new StandardWstX10DequeBackoffBenchmark());
+    }
+
+    @Override
+    protected TaskExecutor createTaskExecutor() {
+        final int numThreads = WakeUpConfig.numThreads();
+        return new StandardWstTaskExecutor(
+                PoolType.X10, numThreads,
+                new WstOptions().idleStrategy(IdleStrategyType.BACKOFF));
+    }
+}
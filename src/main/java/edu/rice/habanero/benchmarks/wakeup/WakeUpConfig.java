@@ -0,0 +1,39 @@
+package edu.rice.habanero.benchmarks.wakeup;
+
+import edu.rice.habanero.benchmarks.BenchmarkRunner;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class WakeUpConfig {
+
+    protected static int N = 200; // num wake-ups
+    protected static int P = 2_000; // pause between wake-ups in microseconds
+
+    protected static void parseArgs(final String[] args) {
+        int i = 0;
+        while (i < args.length) {
+            final String loopOptionKey = args[i];
+            if ("-n".equals(loopOptionKey)) {
+                i += 1;
+                N = Integer.parseInt(args[i]);
+            } else if ("-p".equals(loopOptionKey)) {
+                i += 1;
+                P = Integer.parseInt(args[i]);
+            }
+            i += 1;
+        }
+    }
+
+    protected static void printArgs() {
+        System.out.printf(BenchmarkRunner.argOutputFormat, "N (num wake-ups)", N);
+        System.out.printf(BenchmarkRunner.argOutputFormat, "P (pause in us)", P);
+    }
+
+    /**
+     * The benchmark needs at least one idle worker besides the submitting worker.
+     */
+    protected static int numThreads() {
+        return Math.max(2, BenchmarkRunner.numThreads());
+    }
+}
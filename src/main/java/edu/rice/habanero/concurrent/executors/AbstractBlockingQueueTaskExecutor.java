@@ -1,7 +1,12 @@
 package edu.rice.habanero.concurrent.executors;
 
-import edu.rice.habanero.concurrent.util.ModCountDownLatch;
+import edu.rice.habanero.concurrent.util.Blocker;
+import edu.rice.habanero.concurrent.util.GroupedTask;
 import edu.rice.habanero.concurrent.util.PriorityTask;
+import edu.rice.habanero.concurrent.util.TaskFuture;
+import edu.rice.habanero.concurrent.util.TaskGroup;
+import edu.rice.habanero.concurrent.util.TerminationDetector;
+import edu.rice.habanero.concurrent.util.TerminationDetectorType;
 
 import java.util.concurrent.*;
 
@@ -9,31 +14,42 @@ import java.util.concurrent.*;
  * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
  * @author Vivek Sarkar
  */
-public abstract class AbstractBlockingQueueTaskExecutor implements TaskExecutor {
+public abstract class AbstractBlockingQueueTaskExecutor implements TaskExecutor, QosStatistics {
 
     protected final int minPriorityInc;
     protected final int maxPriorityInc;
-    protected final ModCountDownLatch countDownLatch;
+    protected final TerminationDetector terminationDetector;
     protected final ExecutorService executor;
+    private final QosMonitor qosMonitor = QosMonitor.ENABLED ? new QosMonitor() : null;
 
     public AbstractBlockingQueueTaskExecutor(
             final int corePoolSize, final int maximumPoolSize,
             final long keepAliveTime, final TimeUnit timeUnit,
             final int minPriorityInc, final int maxPriorityInc) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, timeUnit, minPriorityInc, maxPriorityInc,
+             TerminationDetectorType.LATCH);
+    }
+
+    public AbstractBlockingQueueTaskExecutor(
+            final int corePoolSize, final int maximumPoolSize,
+            final long keepAliveTime, final TimeUnit timeUnit,
+            final int minPriorityInc, final int maxPriorityInc,
+            final TerminationDetectorType terminationDetectorType) {
 
         this.minPriorityInc = minPriorityInc;
         this.maxPriorityInc = maxPriorityInc;
-        this.countDownLatch = new ModCountDownLatch(1);
+        this.terminationDetector = terminationDetectorType.newInstance(maximumPoolSize);
         this.executor = executorServiceFactory(
                 corePoolSize, maximumPoolSize, keepAliveTime, timeUnit,
-                minPriorityInc, maxPriorityInc, countDownLatch);
+                minPriorityInc, maxPriorityInc, terminationDetector);
+        ThreadPoolHelping.markPoolThreads(executor);
     }
 
     protected ExecutorService executorServiceFactory(
             final int corePoolSize, final int maximumPoolSize,
             final long keepAliveTime, final TimeUnit timeUnit,
             final int minPriorityInc, final int maxPriorityInc,
-            final ModCountDownLatch countDownLatch) {
+            final TerminationDetector terminationDetector) {
         final BlockingQueue<Runnable> workQueue = priorityQueueFactory(corePoolSize);
         return new ThreadPoolExecutor(corePoolSize, maximumPoolSize, keepAliveTime, timeUnit, workQueue) {
             @Override
@@ -44,7 +60,7 @@ public abstract class AbstractBlockingQueueTaskExecutor implements TaskExecutor
                     return runnableFuture;
                 } else {
                     final int priority = (maxPriorityInc + minPriorityInc) / 2;
-                    return new PriorityTask<T>(priority, runnable, countDownLatch);
+                    return new PriorityTask<T>(priority, runnable, terminationDetector, qosMonitor);
                 }
             }
         };
@@ -54,7 +70,8 @@ public abstract class AbstractBlockingQueueTaskExecutor implements TaskExecutor
 
     @Override
     public void triggerShutdown() {
-        countDownLatch.countDown();
+        terminationDetector.taskCompleted();
+        terminationDetector.tryTerminate();
     }
 
     @Override
@@ -62,7 +79,7 @@ public abstract class AbstractBlockingQueueTaskExecutor implements TaskExecutor
         boolean keepLooping = true;
         while (keepLooping) {
             try {
-                countDownLatch.await();
+                terminationDetector.await();
                 keepLooping = false;
             } catch (final InterruptedException ex) {
                 // do nothing
@@ -83,7 +100,59 @@ public abstract class AbstractBlockingQueueTaskExecutor implements TaskExecutor
     @Override
     public void submit(final int priority, final Runnable runnable) {
         final int taskPriority = Math.max(minPriorityInc, Math.min(priority, maxPriorityInc));
-        final PriorityTask priorityTask = new PriorityTask(taskPriority, runnable, countDownLatch);
+        final PriorityTask priorityTask = new PriorityTask(taskPriority, runnable, terminationDetector, qosMonitor);
         executor.submit(priorityTask);
     }
+
+    @Override
+    public void submitAll(final int priority, final Runnable[] tasks) {
+        for (final Runnable task : tasks) {
+            submit(priority, task);
+        }
+    }
+
+    @Override
+    public <T> TaskFuture<T> submit(final int priority, final Callable<T> task) {
+        final TaskFuture<T> future = new TaskFuture<>(this, task);
+        submit(priority, future);
+        return future;
+    }
+
+    @Override
+    public void submit(final int priority, final TaskGroup group, final Runnable task) {
+        submit(priority, new GroupedTask(group, task));
+    }
+
+    @Override
+    public boolean helpQueuedTask() {
+        return ThreadPoolHelping.helpQueuedTask(executor);
+    }
+
+    @Override
+    public boolean isWorkerThread() {
+        return ThreadPoolHelping.isPoolThread(executor);
+    }
+
+    @Override
+    public QosMonitor qosMonitor() {
+        return qosMonitor;
+    }
+
+    @Override
+    public boolean higherPriorityPending() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldSplit(final int priority) {
+        return true;
+    }
+
+    @Override
+    public void managedBlock(final Blocker blocker) throws InterruptedException {
+        // the number of threads is fixed
+        while (!blocker.isReleasable() && !blocker.block()) {
+            // keep blocking
+        }
+    }
 }
@@ -0,0 +1,64 @@
+package edu.rice.habanero.concurrent.executors;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spins for a few failed searches, then yields and eventually parks the worker on its own permit.
+ * <p/>
+ * The worker announces itself in the shared parked counter before re-checking for work, and publishers of new work
+ * read the counter after publishing their task. Thus either the worker sees the new work or the publisher sees the
+ * parked worker. Parks are timed as a safety net, the park time grows exponentially with the idle count.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+final class BackoffIdleStrategy implements IdleStrategy {
+
+    private static final int SPIN_LIMIT = 64;
+    private static final int YIELD_LIMIT = SPIN_LIMIT + 64;
+    private static final long MIN_PARK_NANOS = 50_000L;
+    private static final long MAX_PARK_NANOS = 10_000_000L;
+
+    private final AtomicInteger parkedWorkers;
+    private final AtomicReference<Thread> parkedThread = new AtomicReference<>(null);
+
+    BackoffIdleStrategy(final AtomicInteger parkedWorkers) {
+        this.parkedWorkers = parkedWorkers;
+    }
+
+    @Override
+    public void idle(final int idleCount, final WorkProbe workProbe) {
+        if (idleCount <= SPIN_LIMIT) {
+            return;
+        }
+        if (idleCount <= YIELD_LIMIT) {
+            Thread.yield();
+            return;
+        }
+
+        final Thread currentThread = Thread.currentThread();
+        parkedThread.set(currentThread);
+        parkedWorkers.incrementAndGet();
+        try {
+            if (!workProbe.hasWork()) {
+                final int shift = Math.min(idleCount - YIELD_LIMIT, 10);
+                final long parkNanos = Math.min(MAX_PARK_NANOS, MIN_PARK_NANOS << shift);
+                LockSupport.parkNanos(this, parkNanos);
+            }
+        } finally {
+            parkedThread.set(null);
+            parkedWorkers.decrementAndGet();
+        }
+    }
+
+    @Override
+    public boolean wakeUp() {
+        final Thread thread = parkedThread.get();
+        if (thread != null && parkedThread.compareAndSet(thread, null)) {
+            LockSupport.unpark(thread);
+            return true;
+        }
+        return false;
+    }
+}
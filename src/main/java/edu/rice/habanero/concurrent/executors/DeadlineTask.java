@@ -0,0 +1,37 @@
+package edu.rice.habanero.concurrent.executors;
+
+import edu.rice.habanero.concurrent.util.TaskExecutorUtil;
+
+/**
+ * A task queued by a deadline executor that sheds expired tasks, workers discard it instead of running it once its
+ * deadline has passed.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+final class DeadlineTask implements Runnable {
+
+    private final long deadlineNanos;
+    private final Runnable runnable;
+
+    DeadlineTask(final long deadlineNanos, final Runnable runnable) {
+        this.deadlineNanos = deadlineNanos;
+        this.runnable = runnable;
+    }
+
+    @Override
+    public void run() {
+        runnable.run();
+    }
+
+    boolean hasExpired() {
+        return System.nanoTime() - deadlineNanos > 0;
+    }
+
+    /**
+     * Invoked instead of {@link #run()} for an expired task that is shed, a finish scope waiting on the task is still
+     * notified.
+     */
+    void discard() {
+        TaskExecutorUtil.discard(runnable);
+    }
+}
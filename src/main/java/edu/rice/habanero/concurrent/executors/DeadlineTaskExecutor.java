@@ -0,0 +1,16 @@
+package edu.rice.habanero.concurrent.executors;
+
+/**
+ * An executor that orders its queued tasks by deadline rather than by a fixed priority.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public interface DeadlineTaskExecutor extends TaskExecutor {
+
+    /**
+     * Submits a task that should complete by the specified time.
+     *
+     * @param deadlineNanos the deadline as a {@link System#nanoTime()} value.
+     */
+    void submit(long deadlineNanos, Runnable task);
+}
@@ -0,0 +1,40 @@
+package edu.rice.habanero.concurrent.executors;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configures how a {@link DeadlineWstTaskExecutor} maps deadlines onto its priority levels.
+ * <p/>
+ * Time is divided into buckets of <code>bucketWidth</code>, each level holds the tasks whose deadlines fall into one
+ * bucket. The levels form a window of consecutive buckets that rolls forward as time passes, hence the window spans
+ * <code>levels * bucketWidth</code> and tasks with later deadlines share the last level. Tasks are ordered by bucket,
+ * not by their exact deadlines.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class DeadlineWindow {
+
+    private final long bucketNanos;
+    private final boolean shedExpired;
+
+    /**
+     * @param bucketWidth the span of deadlines mapped onto a single level.
+     * @param timeUnit    the unit of <code>bucketWidth</code>.
+     * @param shedExpired true if tasks whose deadline has passed are discarded instead of run once a worker finds them.
+     */
+    public DeadlineWindow(final long bucketWidth, final TimeUnit timeUnit, final boolean shedExpired) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("Bucket width (" + bucketWidth + ") must be positive");
+        }
+        this.bucketNanos = timeUnit.toNanos(bucketWidth);
+        this.shedExpired = shedExpired;
+    }
+
+    public long bucketNanos() {
+        return bucketNanos;
+    }
+
+    public boolean shedsExpired() {
+        return shedExpired;
+    }
+}
@@ -0,0 +1,55 @@
+package edu.rice.habanero.concurrent.executors;
+
+import edu.rice.habanero.concurrent.wstdeque.PoolType;
+
+/**
+ * Earliest-deadline-first scheduling on the priority work-stealing engine.
+ * <p/>
+ * Each level of a {@link PriorityWstTaskExecutor} holds the tasks of one deadline bucket of a {@link DeadlineWindow},
+ * the window rolls forward over the same levels and pools as time passes. Tasks submitted with a fixed priority
+ * <code>p</code> are due <code>levels - 1 - p</code> buckets after the head of the window.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class DeadlineWstTaskExecutor extends PriorityWstTaskExecutor implements DeadlineTaskExecutor {
+
+    private final RollingLevels rollingLevels;
+    private final boolean shedExpired;
+
+    public DeadlineWstTaskExecutor(
+            final PoolType poolType, final int parallelism,
+            final int levels, final DeadlineWindow deadlineWindow) {
+        this(poolType, parallelism, levels, deadlineWindow, new WstOptions());
+    }
+
+    /**
+     * @param options elastic sizing, priority aging and persistent workers do not apply to rolling levels, the workers
+     *                are fixed and transient and always serve the earliest deadline.
+     */
+    public DeadlineWstTaskExecutor(
+            final PoolType poolType, final int parallelism,
+            final int levels, final DeadlineWindow deadlineWindow,
+            final WstOptions options) {
+        this(poolType, parallelism, levels, deadlineWindow, options, new RollingLevels(levels, deadlineWindow));
+    }
+
+    private DeadlineWstTaskExecutor(
+            final PoolType poolType, final int parallelism,
+            final int levels, final DeadlineWindow deadlineWindow,
+            final WstOptions options, final RollingLevels rollingLevels) {
+        super(poolType, parallelism, 0, levels - 1, new WstOptions()
+                      .idleStrategy(options.idleStrategy())
+                      .victimSelector(options.victimSelector())
+                      .terminationDetector(options.terminationDetector())
+                      .localityDomains(options.localityDomains(parallelism)),
+              rollingLevels);
+        this.rollingLevels = rollingLevels;
+        this.shedExpired = deadlineWindow.shedsExpired();
+    }
+
+    @Override
+    public void submit(final long deadlineNanos, final Runnable task) {
+        final Runnable queuedTask = shedExpired ? new DeadlineTask(deadlineNanos, task) : task;
+        submitToLevel(rollingLevels.deadlineIndex(deadlineNanos), queuedTask);
+    }
+}
@@ -0,0 +1,74 @@
+package edu.rice.habanero.concurrent.executors;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configures how a work-stealing executor sizes its set of running workers between a minimum and its parallelism.
+ * <p/>
+ * An elastic executor starts with <code>minWorkers</code> workers. A worker that repeatedly observes at least
+ * <code>backlogThreshold</code> tasks in its own pool while no worker is parked starts (or revives) another worker. A
+ * worker that has been idle for <code>retireAfterIdle</code> with empty pools retires: it parks until it is revived or
+ * the executor terminates. At least <code>minWorkers</code> workers always remain active.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class ElasticSizing {
+
+    /**
+     * All workers are started on demand and never retire.
+     */
+    public static final ElasticSizing FIXED = new ElasticSizing();
+
+    private final boolean elastic;
+    private final int minWorkers;
+    private final int backlogThreshold;
+    private final long retireAfterIdleNanos;
+
+    private ElasticSizing() {
+        this.elastic = false;
+        this.minWorkers = Integer.MAX_VALUE;
+        this.backlogThreshold = Integer.MAX_VALUE;
+        this.retireAfterIdleNanos = Long.MAX_VALUE;
+    }
+
+    public ElasticSizing(
+            final int minWorkers, final int backlogThreshold,
+            final long retireAfterIdle, final TimeUnit timeUnit) {
+        if (minWorkers < 1) {
+            throw new IllegalArgumentException("Min workers (" + minWorkers + ") must be positive");
+        }
+        if (backlogThreshold < 1) {
+            throw new IllegalArgumentException("Backlog threshold (" + backlogThreshold + ") must be positive");
+        }
+        if (retireAfterIdle < 0) {
+            throw new IllegalArgumentException("Retire after idle (" + retireAfterIdle + ") must not be negative");
+        }
+        this.elastic = true;
+        this.minWorkers = minWorkers;
+        this.backlogThreshold = backlogThreshold;
+        this.retireAfterIdleNanos = timeUnit.toNanos(retireAfterIdle);
+    }
+
+    public boolean isElastic() {
+        return elastic;
+    }
+
+    public int minWorkers() {
+        return minWorkers;
+    }
+
+    public int backlogThreshold() {
+        return backlogThreshold;
+    }
+
+    public long retireAfterIdleNanos() {
+        return retireAfterIdleNanos;
+    }
+
+    /**
+     * @return the number of workers the executor starts before growth is driven by backlog.
+     */
+    int initialWorkers(final int parallelism) {
+        return Math.min(minWorkers, parallelism);
+    }
+}
@@ -0,0 +1,159 @@
+package edu.rice.habanero.concurrent.executors;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * The event ring of a single work-stealing worker, see {@link EventTracing}.
+ * <p/>
+ * Tracing is enabled with the system property <code>habanero.trace=true</code>, it is read once into the static final
+ * {@link #ENABLED} that guards every record call, hence the JIT removes the calls when tracing is disabled. A record is
+ * a timestamp and a packed word of event type, level and argument in a preallocated <code>long[]</code>, written only
+ * by the owner worker without locks or allocation. The ring keeps the last <code>habanero.trace.capacity</code> records
+ * (default 65536, rounded up to a power of two), older records are overwritten. If <code>habanero.trace.file</code> is
+ * set, executors write their trace to that file once they have terminated, the file holds the trace of the executor
+ * that terminated last.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+final class EventTrace {
+
+    static final boolean ENABLED = Boolean.getBoolean("habanero.trace");
+    static final String TRACE_FILE = System.getProperty("habanero.trace.file");
+
+    static final int TASK_START = 1;
+    static final int TASK_END = 2;
+    static final int STEAL = 3;
+    static final int IDLE_START = 4;
+    static final int IDLE_END = 5;
+    static final int LEVEL_SWITCH = 6;
+
+    private static final int CAPACITY = Integer.highestOneBit(
+            Math.max(2, Integer.getInteger("habanero.trace.capacity", 1 << 16)) * 2 - 1);
+
+    private static final AtomicLongFieldUpdater<EventTrace> publishedUpdater =
+            AtomicLongFieldUpdater.newUpdater(EventTrace.class, "published");
+
+    // two slots per record: the timestamp and the packed type (8 bits), level (24 bits) and argument (32 bits)
+    private final long[] records = new long[2 * CAPACITY];
+    private long next;
+    private volatile long published;
+
+    /**
+     * Invoked only by the owner worker, callers guard the call with {@link #ENABLED}.
+     */
+    void record(final int type, final int level, final int argument) {
+        final int slot = slot(next);
+        records[slot] = System.nanoTime();
+        records[slot + 1] = ((long) type << 56) | ((long) (level & 0xFFFFFF) << 32) | (argument & 0xFFFFFFFFL);
+        next++;
+        // readers only see complete records
+        publishedUpdater.lazySet(this, next);
+    }
+
+    private static int slot(final long recordIndex) {
+        return (int) (recordIndex & (CAPACITY - 1)) << 1;
+    }
+
+    /**
+     * Writes the records of the workers in the Chrome trace event format, which Perfetto also reads. Each worker is a
+     * thread of a single process, timestamps are in microseconds since the earliest record. While the workers are
+     * running the oldest records may be overwritten during the dump.
+     */
+    static void writeChromeTrace(final EventTrace[] traces, final Appendable out) throws IOException {
+        long originNanos = Long.MAX_VALUE;
+        for (final EventTrace trace : traces) {
+            final long end = trace == null ? 0 : trace.published;
+            if (end > 0) {
+                originNanos = Math.min(originNanos, trace.records[slot(Math.max(0, end - CAPACITY))]);
+            }
+        }
+
+        out.append("{\"displayTimeUnit\":\"ns\",\"traceEvents\":[");
+        boolean first = true;
+        for (int worker = 0; worker < traces.length; worker++) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            out.append("\n{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(String.valueOf(worker))
+               .append(",\"args\":{\"name\":\"worker-").append(String.valueOf(worker)).append("\"}}");
+
+            // the workers have no trace while tracing is disabled
+            final EventTrace trace = traces[worker];
+            final long end = trace == null ? 0 : trace.published;
+            // end events whose begin event was overwritten are dropped, as are repeated idle begins
+            int openTasks = 0;
+            boolean idle = false;
+            for (long i = Math.max(0, end - CAPACITY); i < end; i++) {
+                final int slot = slot(i);
+                final long timestamp = trace.records[slot];
+                final long word = trace.records[slot + 1];
+                final int type = (int) (word >>> 56);
+                final int level = (int) ((word >>> 32) & 0xFFFFFF);
+                final int argument = (int) word;
+                final String ts = String.format(Locale.ROOT, "%.3f", (timestamp - originNanos) / 1e3);
+                final String prefix = ",\n{\"pid\":1,\"tid\":" + worker + ",\"ts\":" + ts + ",";
+                switch (type) {
+                    case TASK_START:
+                        openTasks++;
+                        out.append(prefix).append("\"ph\":\"B\",\"name\":\"task L").append(String.valueOf(level))
+                           .append("\",\"args\":{\"level\":").append(String.valueOf(level)).append("}}");
+                        break;
+                    case TASK_END:
+                        if (openTasks > 0) {
+                            openTasks--;
+                            out.append(prefix).append("\"ph\":\"E\"}");
+                        }
+                        break;
+                    case STEAL:
+                        out.append(prefix).append("\"ph\":\"i\",\"s\":\"t\",\"name\":\"steal\"")
+                           .append(",\"args\":{\"victim\":").append(String.valueOf(argument))
+                           .append(",\"level\":").append(String.valueOf(level)).append("}}");
+                        break;
+                    case IDLE_START:
+                        if (!idle) {
+                            idle = true;
+                            out.append(prefix).append("\"ph\":\"B\",\"name\":\"idle\"}");
+                        }
+                        break;
+                    case IDLE_END:
+                        if (idle) {
+                            idle = false;
+                            out.append(prefix).append("\"ph\":\"E\"}");
+                        }
+                        break;
+                    case LEVEL_SWITCH:
+                        out.append(prefix).append("\"ph\":\"i\",\"s\":\"t\",\"name\":\"level switch\"")
+                           .append(",\"args\":{\"from\":").append(String.valueOf(argument))
+                           .append(",\"to\":").append(String.valueOf(level)).append("}}");
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        out.append("\n]}\n");
+    }
+
+    /**
+     * Writes the trace to <code>habanero.trace.file</code> if tracing is enabled and the file is configured.
+     */
+    static void writeTraceFile(final EventTrace[] traces) {
+        if (!ENABLED || TRACE_FILE == null) {
+            return;
+        }
+        try (final Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(TRACE_FILE), StandardCharsets.UTF_8))) {
+            writeChromeTrace(traces, writer);
+        } catch (final IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+}
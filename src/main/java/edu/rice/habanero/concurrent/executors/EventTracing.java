@@ -0,0 +1,20 @@
+package edu.rice.habanero.concurrent.executors;
+
+import java.io.IOException;
+
+/**
+ * Implemented by the work-stealing executors to dump the event timelines of their workers: task start and end with the
+ * priority level, steals with the victim and level, idle periods and switches between levels. Events are only recorded
+ * when the JVM is started with <code>-Dhabanero.trace=true</code>, otherwise the trace is empty. With
+ * <code>-Dhabanero.trace.file=&lt;path&gt;</code> the trace is also written to the file once the executor terminated.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public interface EventTracing {
+
+    /**
+     * Writes the recorded events in the Chrome trace event JSON format, which can be opened in Perfetto or
+     * <code>chrome://tracing</code>. May be invoked while the executor is running.
+     */
+    void writeChromeTrace(Appendable out) throws IOException;
+}
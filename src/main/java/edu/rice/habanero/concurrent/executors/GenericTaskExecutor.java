@@ -1,20 +1,27 @@
 package edu.rice.habanero.concurrent.executors;
 
+import edu.rice.habanero.concurrent.util.Blocker;
+import edu.rice.habanero.concurrent.util.GroupedTask;
 import edu.rice.habanero.concurrent.util.ModCountDownLatch;
 import edu.rice.habanero.concurrent.util.PriorityTask;
+import edu.rice.habanero.concurrent.util.TaskFuture;
+import edu.rice.habanero.concurrent.util.TaskGroup;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
  * @author Vivek Sarkar
  */
-public class GenericTaskExecutor implements TaskExecutor {
+public class GenericTaskExecutor implements TaskExecutor, QosStatistics {
 
     private final int minPriorityInc;
     private final int maxPriorityInc;
     private final ModCountDownLatch countDownLatch;
     private final ExecutorService executor;
+    private final QosMonitor qosMonitor = QosMonitor.ENABLED ? new QosMonitor() : null;
 
     public GenericTaskExecutor(
             final int minPriorityInc, final int maxPriorityInc,
@@ -23,6 +30,8 @@ public class GenericTaskExecutor implements TaskExecutor {
         this.maxPriorityInc = maxPriorityInc;
         this.countDownLatch = new ModCountDownLatch(1);
         this.executor = executor;
+        // threads the executor started before are not told apart, they block instead of helping
+        ThreadPoolHelping.markPoolThreads(executor);
     }
 
     @Override
@@ -51,8 +60,69 @@ public class GenericTaskExecutor implements TaskExecutor {
 
     @Override
     public void submit(final int priority, final Runnable runnable) {
-        final PriorityTask priorityTask = new PriorityTask(priority, runnable, countDownLatch);
+        final PriorityTask priorityTask = new PriorityTask(priority, runnable, countDownLatch, qosMonitor);
         executor.submit(priorityTask);
     }
 
+    @Override
+    public void submitAll(final int priority, final Runnable[] tasks) {
+        for (final Runnable task : tasks) {
+            submit(priority, task);
+        }
+    }
+
+    @Override
+    public <T> TaskFuture<T> submit(final int priority, final Callable<T> task) {
+        final TaskFuture<T> future = new TaskFuture<>(this, task);
+        submit(priority, future);
+        return future;
+    }
+
+    @Override
+    public void submit(final int priority, final TaskGroup group, final Runnable task) {
+        submit(priority, new GroupedTask(group, task));
+    }
+
+    @Override
+    public boolean helpQueuedTask() {
+        return ThreadPoolHelping.helpQueuedTask(executor);
+    }
+
+    @Override
+    public boolean isWorkerThread() {
+        return ThreadPoolHelping.isPoolThread(executor);
+    }
+
+    @Override
+    public QosMonitor qosMonitor() {
+        return qosMonitor;
+    }
+
+    @Override
+    public boolean higherPriorityPending() {
+        return false;
+    }
+
+    @Override
+    public boolean shouldSplit(final int priority) {
+        return true;
+    }
+
+    /**
+     * A fork-join pool compensates for its blocked worker, other executor services just block.
+     */
+    @Override
+    public void managedBlock(final Blocker blocker) throws InterruptedException {
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+            @Override
+            public boolean block() throws InterruptedException {
+                return blocker.block();
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return blocker.isReleasable();
+            }
+        });
+    }
 }
@@ -0,0 +1,32 @@
+package edu.rice.habanero.concurrent.executors;
+
+/**
+ * Policy used by a worker thread to decide what to do after it failed to find a task to execute. Each worker owns its
+ * own instance, so implementations may keep per-worker state (e.g. the parked thread).
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public interface IdleStrategy {
+
+    /**
+     * Invoked only by the owner worker after a search for a task has failed.
+     *
+     * @param idleCount the number of consecutive failed searches, starts at 1.
+     * @param workProbe used to re-check for work after the worker has announced that it is about to park.
+     */
+    void idle(int idleCount, WorkProbe workProbe);
+
+    /**
+     * Invoked by any thread to release the owner worker if it is currently parked.
+     *
+     * @return true if this call released a parked worker.
+     */
+    boolean wakeUp();
+
+    /**
+     * Allows an idle strategy to check for available work before the worker is parked.
+     */
+    interface WorkProbe {
+        boolean hasWork();
+    }
+}
@@ -0,0 +1,33 @@
+package edu.rice.habanero.concurrent.executors;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public enum IdleStrategyType {
+    /**
+     * Idle workers keep spinning on the work queues, lowest latency but keeps every core busy.
+     */
+    SPIN() {
+        @Override
+        public IdleStrategy newInstance(final AtomicInteger parkedWorkers) {
+            return new SpinIdleStrategy();
+        }
+    },
+    /**
+     * Idle workers spin briefly, then yield and finally park until new work is signalled.
+     */
+    BACKOFF() {
+        @Override
+        public IdleStrategy newInstance(final AtomicInteger parkedWorkers) {
+            return new BackoffIdleStrategy(parkedWorkers);
+        }
+    };
+
+    /**
+     * @param parkedWorkers counter of parked workers shared by all the workers of an executor.
+     * @return a new idle strategy instance for a single worker.
+     */
+    public abstract IdleStrategy newInstance(AtomicInteger parkedWorkers);
+}
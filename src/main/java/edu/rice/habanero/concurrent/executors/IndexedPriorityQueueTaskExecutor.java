@@ -0,0 +1,60 @@
+package edu.rice.habanero.concurrent.executors;
+
+import edu.rice.habanero.concurrent.util.IndexedPriorityQueue;
+import edu.rice.habanero.concurrent.util.TaskHandle;
+import edu.rice.habanero.concurrent.util.TerminationDetectorType;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A thread pool over a single {@link IndexedPriorityQueue}, tasks submitted through {@link #submitWithHandle} can be
+ * reprioritized while they are queued.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class IndexedPriorityQueueTaskExecutor extends AbstractBlockingQueueTaskExecutor
+        implements ReprioritizableTaskExecutor {
+
+    private IndexedPriorityQueue priorityQueue;
+
+    public IndexedPriorityQueueTaskExecutor(
+            final int corePoolSize, final int maximumPoolSize,
+            final long keepAliveTime, final TimeUnit timeUnit,
+            final int minPriorityInc, final int maxPriorityInc) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, timeUnit,
+             minPriorityInc, maxPriorityInc, TerminationDetectorType.LATCH);
+    }
+
+    public IndexedPriorityQueueTaskExecutor(
+            final int corePoolSize, final int maximumPoolSize,
+            final long keepAliveTime, final TimeUnit timeUnit,
+            final int minPriorityInc, final int maxPriorityInc,
+            final TerminationDetectorType terminationDetectorType) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, timeUnit,
+              minPriorityInc, maxPriorityInc, terminationDetectorType);
+        // a task handed directly to a starting thread would never be queued, hence could not be reprioritized
+        ((ThreadPoolExecutor) executor).prestartAllCoreThreads();
+    }
+
+    @Override
+    public TaskHandle submitWithHandle(final int priority, final Runnable task) {
+        final int taskPriority = Math.max(minPriorityInc, Math.min(priority, maxPriorityInc));
+        final TaskHandle taskHandle = new TaskHandle(
+                taskPriority, task, terminationDetector, minPriorityInc, maxPriorityInc);
+        // execute() queues the handle itself, submit() would wrap it into a PriorityTask
+        executor.execute(taskHandle);
+        return taskHandle;
+    }
+
+    @Override
+    protected void onShutdown() {
+        priorityQueue.terminate();
+    }
+
+    @Override
+    protected IndexedPriorityQueue priorityQueueFactory(final int corePoolSize) {
+        priorityQueue = new IndexedPriorityQueue();
+        return priorityQueue;
+    }
+}
@@ -0,0 +1,67 @@
+package edu.rice.habanero.concurrent.executors;
+
+import edu.rice.habanero.concurrent.util.TerminationDetector;
+
+/**
+ * The kernel epochs of a persistent work-stealing executor, see {@link WorkerLifecycle#PERSISTENT}.
+ * <p/>
+ * Each kernel runs in its own epoch of the termination detector: the first submission after the previous kernel has
+ * terminated reopens the detector with a fresh token, which the kernel completes when it triggers the shutdown as
+ * usual. Workers that observe the termination wait on this monitor while the detector stays terminated. Kernels run
+ * one after the other, concurrent callers should share a running kernel through finish scopes instead.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+final class KernelEpochs {
+
+    private final TerminationDetector terminationDetector;
+    private boolean closed = false;
+
+    KernelEpochs(final TerminationDetector terminationDetector) {
+        this.terminationDetector = terminationDetector;
+    }
+
+    /**
+     * Invoked before a task is spawned, starts the next epoch and releases the dormant workers if the previous kernel
+     * has terminated. Only reads the detector otherwise.
+     *
+     * @throws IllegalStateException if the executor has been closed.
+     */
+    void openIfTerminated() {
+        if (terminationDetector.isTerminated()) {
+            synchronized (this) {
+                if (closed) {
+                    throw new IllegalStateException("Executor has been closed");
+                }
+                if (terminationDetector.isTerminated()) {
+                    terminationDetector.reopen();
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Invoked by a worker that observed the termination of the kernel.
+     *
+     * @return true once the next kernel has started, false once the executor has been closed.
+     */
+    synchronized boolean awaitNextEpoch() {
+        while (!closed && terminationDetector.isTerminated()) {
+            try {
+                wait();
+            } catch (final InterruptedException ex) {
+                // ignore
+            }
+        }
+        return !closed;
+    }
+
+    /**
+     * The dormant workers exit, a kernel that is still running completes first.
+     */
+    synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+}
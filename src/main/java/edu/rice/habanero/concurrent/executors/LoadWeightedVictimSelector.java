@@ -0,0 +1,27 @@
+package edu.rice.habanero.concurrent.executors;
+
+/**
+ * Samples two random victims and picks the one with the larger approximate load. Heavily loaded workers are chosen
+ * more often without reading the load of every worker on each attempt.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+final class LoadWeightedVictimSelector extends RandomVictimSelector {
+
+    private final LoadProbe loadProbe;
+
+    LoadWeightedVictimSelector(final int workerIndex, final int parallelism, final LoadProbe loadProbe) {
+        super(workerIndex, parallelism);
+        this.loadProbe = loadProbe;
+    }
+
+    @Override
+    public int nextVictim() {
+        final int first = randomVictim();
+        final int second = randomVictim();
+        if (first == second) {
+            return first;
+        }
+        return loadProbe.approximateLoad(second) > loadProbe.approximateLoad(first) ? second : first;
+    }
+}
@@ -0,0 +1,98 @@
+package edu.rice.habanero.concurrent.executors;
+
+import edu.rice.habanero.concurrent.util.CpuTopology;
+
+import java.util.Arrays;
+
+/**
+ * Maps the workers of a work-stealing executor to locality domains, e.g. the CPUs sharing a last level cache or a
+ * socket.
+ * <p/>
+ * The mapping is used by {@link VictimSelectorType#LOCALITY} to prefer victims of the own domain, a thief tries a
+ * victim of another domain only after <code>remoteStealInterval</code> consecutive failed steal attempts in its own
+ * domain. The executors count the successful steals that crossed domains for every victim selector. The mapping does
+ * not pin worker threads to CPUs, the placement of the threads is left to the operating system.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class LocalityDomains {
+
+    public static final int DEFAULT_REMOTE_STEAL_INTERVAL = 4;
+
+    private final int[] workerDomains;
+    private final int remoteStealInterval;
+
+    /**
+     * @param workerDomains       the domain of each worker, indexed by worker.
+     * @param remoteStealInterval the number of consecutive failed local steal attempts before a remote victim is tried.
+     */
+    public LocalityDomains(final int[] workerDomains, final int remoteStealInterval) {
+        if (workerDomains.length == 0) {
+            throw new IllegalArgumentException("Worker domains must not be empty");
+        }
+        if (remoteStealInterval < 1) {
+            throw new IllegalArgumentException("Remote steal interval (" + remoteStealInterval + ") must be positive");
+        }
+        this.workerDomains = workerDomains.clone();
+        this.remoteStealInterval = remoteStealInterval;
+    }
+
+    /**
+     * All workers share a single domain, stealing is not restricted.
+     */
+    public static LocalityDomains single(final int parallelism) {
+        return new LocalityDomains(new int[parallelism], DEFAULT_REMOTE_STEAL_INTERVAL);
+    }
+
+    /**
+     * Spreads the workers evenly over the online CPUs ordered by domain, so that consecutive workers share a domain.
+     * Falls back to a single domain if the CPU topology cannot be read.
+     */
+    public static LocalityDomains detect(final int parallelism) {
+        final int[] cpuDomains = CpuTopology.cpuDomains();
+        if (cpuDomains.length == 0) {
+            return single(parallelism);
+        }
+        final int[] workerDomains = new int[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workerDomains[i] = cpuDomains[(int) (((long) i * cpuDomains.length) / parallelism)];
+        }
+        return new LocalityDomains(workerDomains, DEFAULT_REMOTE_STEAL_INTERVAL);
+    }
+
+    /**
+     * @return the same mapping with a different remote steal interval.
+     */
+    public LocalityDomains withRemoteStealInterval(final int remoteStealInterval) {
+        return new LocalityDomains(workerDomains, remoteStealInterval);
+    }
+
+    public int parallelism() {
+        return workerDomains.length;
+    }
+
+    public int domainOf(final int workerIndex) {
+        return workerDomains[workerIndex];
+    }
+
+    public int remoteStealInterval() {
+        return remoteStealInterval;
+    }
+
+    public boolean sameDomain(final int workerIndex, final int otherWorkerIndex) {
+        return workerDomains[workerIndex] == workerDomains[otherWorkerIndex];
+    }
+
+    void checkParallelism(final int parallelism) {
+        if (parallelism != workerDomains.length) {
+            final String message = "Locality domains are defined for " + workerDomains.length +
+                    " workers, parallelism is " + parallelism;
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(workerDomains);
+    }
+}
@@ -0,0 +1,75 @@
+package edu.rice.habanero.concurrent.executors;
+
+/**
+ * Walks the other workers of the own locality domain like {@link RoundRobinVictimSelector}. After
+ * <code>remoteStealInterval</code> consecutive failed local attempts a single victim of another domain is tried, the
+ * remote victims are walked in index order as well. A worker without local peers only steals remotely.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+final class LocalityVictimSelector implements VictimSelector {
+
+    private final int workerIndex;
+    private final int[] localPeers;
+    private final int[] remoteWorkers;
+    private final int remoteStealInterval;
+    private int localCursor;
+    private int remoteCursor;
+    private int failedLocalSteals;
+
+    LocalityVictimSelector(final int workerIndex, final LocalityDomains localityDomains) {
+        this.workerIndex = workerIndex;
+        this.remoteStealInterval = localityDomains.remoteStealInterval();
+
+        final int parallelism = localityDomains.parallelism();
+        int numLocalPeers = 0;
+        for (int i = 0; i < parallelism; i++) {
+            if (i != workerIndex && localityDomains.sameDomain(workerIndex, i)) {
+                numLocalPeers++;
+            }
+        }
+        this.localPeers = new int[numLocalPeers];
+        this.remoteWorkers = new int[parallelism - 1 - numLocalPeers];
+        int localCount = 0;
+        int remoteCount = 0;
+        // start with the workers that follow the owner, as the round-robin selector does
+        for (int j = 1; j < parallelism; j++) {
+            final int i = (workerIndex + j) % parallelism;
+            if (localityDomains.sameDomain(workerIndex, i)) {
+                localPeers[localCount++] = i;
+            } else {
+                remoteWorkers[remoteCount++] = i;
+            }
+        }
+    }
+
+    private boolean remoteTurn() {
+        return remoteWorkers.length > 0 && (localPeers.length == 0 || failedLocalSteals >= remoteStealInterval);
+    }
+
+    @Override
+    public int nextVictim() {
+        if (remoteTurn()) {
+            return remoteWorkers[remoteCursor];
+        }
+        return localPeers.length > 0 ? localPeers[localCursor] : workerIndex;
+    }
+
+    @Override
+    public void stealAttempted(final int victim, final boolean success) {
+        if (remoteTurn()) {
+            // a single remote attempt per interval, successful or not
+            failedLocalSteals = 0;
+            if (!success) {
+                remoteCursor = (remoteCursor + 1) % remoteWorkers.length;
+            }
+        } else if (localPeers.length > 0) {
+            if (success) {
+                failedLocalSteals = 0;
+            } else {
+                failedLocalSteals++;
+                localCursor = (localCursor + 1) % localPeers.length;
+            }
+        }
+    }
+}
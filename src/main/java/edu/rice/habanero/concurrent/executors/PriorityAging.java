@@ -0,0 +1,71 @@
+package edu.rice.habanero.concurrent.executors;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configures how a priority work-stealing executor bounds the starvation of its lower priority levels.
+ * <p/>
+ * A strict executor always serves the highest non-empty level. With aging, a worker instead serves the lowest
+ * non-empty level on every <code>1 / agingFraction</code>-th scheduling decision, and serves a non-empty level that
+ * has not been served for longer than <code>maxWait</code>. Waiting times are tracked per level rather than per task:
+ * a level is considered to have waited since any worker last served a task from it.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class PriorityAging {
+
+    /**
+     * Lower levels are only served while all higher levels are empty.
+     */
+    public static final PriorityAging STRICT = new PriorityAging();
+
+    private final boolean aging;
+    private final int agingPeriod;
+    private final long maxWaitNanos;
+
+    private PriorityAging() {
+        this.aging = false;
+        this.agingPeriod = 0;
+        this.maxWaitNanos = Long.MAX_VALUE;
+    }
+
+    /**
+     * @param maxWait       the wait after which a non-empty level is served, zero disables the time bound.
+     * @param timeUnit      the unit of <code>maxWait</code>.
+     * @param agingFraction the fraction of scheduling decisions that serve the lowest non-empty level, zero disables
+     *                      the fraction bound.
+     */
+    public PriorityAging(final long maxWait, final TimeUnit timeUnit, final double agingFraction) {
+        if (maxWait < 0) {
+            throw new IllegalArgumentException("Max wait (" + maxWait + ") must not be negative");
+        }
+        if (agingFraction < 0 || agingFraction > 1) {
+            throw new IllegalArgumentException("Aging fraction (" + agingFraction + ") must be in [0, 1]");
+        }
+        if (maxWait == 0 && agingFraction == 0) {
+            throw new IllegalArgumentException("One of max wait and aging fraction must be positive");
+        }
+        this.aging = true;
+        this.agingPeriod = agingFraction == 0 ? 0 : (int) Math.max(1, Math.round(1 / agingFraction));
+        this.maxWaitNanos = maxWait == 0 ? Long.MAX_VALUE : timeUnit.toNanos(maxWait);
+    }
+
+    public boolean isAging() {
+        return aging;
+    }
+
+    /**
+     * @return the number of scheduling decisions between two decisions that serve the lowest level, or zero.
+     */
+    public int agingPeriod() {
+        return agingPeriod;
+    }
+
+    public long maxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    boolean hasMaxWait() {
+        return maxWaitNanos != Long.MAX_VALUE;
+    }
+}
@@ -1,6 +1,7 @@
 package edu.rice.habanero.concurrent.executors;
 
 import edu.rice.habanero.concurrent.util.PriorityTaskComparator;
+import edu.rice.habanero.concurrent.util.TerminationDetectorType;
 
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -19,6 +20,15 @@ public class PriorityBlockingQueueTaskExecutor extends AbstractBlockingQueueTask
               minPriorityInc, maxPriorityInc);
     }
 
+    public PriorityBlockingQueueTaskExecutor(
+            final int corePoolSize, final int maximumPoolSize,
+            final long keepAliveTime, final TimeUnit timeUnit,
+            final int minPriorityInc, final int maxPriorityInc,
+            final TerminationDetectorType terminationDetectorType) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, timeUnit,
+              minPriorityInc, maxPriorityInc, terminationDetectorType);
+    }
+
     @Override
     protected void onShutdown() {
         // do nothing
@@ -0,0 +1,117 @@
+package edu.rice.habanero.concurrent.executors;
+
+import edu.rice.habanero.concurrent.util.Helping;
+
+import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link CompletionService} over a {@link PriorityWstExecutorService} that hands out the completed futures with the
+ * highest priority first, and those of the same priority in the order they completed. The priorities are resolved as
+ * in {@link PriorityWstExecutorService}.
+ * <p/>
+ * A worker of the executor waiting in {@link #take()} runs other queued tasks meanwhile, as it does while waiting on a
+ * {@link edu.rice.habanero.concurrent.util.TaskFuture}. The timed {@link #poll(long, TimeUnit)} only waits.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class PriorityCompletionService<V> implements CompletionService<V> {
+
+    private static final long WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final Comparator<PriorityFuture<?>> COMPLETION_ORDER = new Comparator<PriorityFuture<?>>() {
+        @Override
+        public int compare(final PriorityFuture<?> future1, final PriorityFuture<?> future2) {
+            if (future1.priority() != future2.priority()) {
+                return future1.priority() > future2.priority() ? -1 : 1;
+            }
+            return Long.compare(future1.completionIndex, future2.completionIndex);
+        }
+    };
+
+    private final PriorityWstExecutorService executorService;
+    private final PriorityBlockingQueue<PriorityFuture<V>> completedQueue =
+            new PriorityBlockingQueue<>(16, COMPLETION_ORDER);
+    private final AtomicLong completionCounter = new AtomicLong(0);
+
+    public PriorityCompletionService(final PriorityWstExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * Invoked by the future once it is done.
+     */
+    void completed(final PriorityFuture<V> future) {
+        future.completionIndex = completionCounter.getAndIncrement();
+        completedQueue.add(future);
+    }
+
+    @Override
+    public Future<V> submit(final Callable<V> task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        final PriorityFuture<V> future = new PriorityFuture<>(
+                task, executorService.priorityOf(task), executorService, this);
+        executorService.enqueue(future);
+        return future;
+    }
+
+    @Override
+    public Future<V> submit(final Runnable task, final V result) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        final PriorityFuture<V> future = new PriorityFuture<>(
+                Executors.callable(task, result), executorService.priorityOf(task), executorService, this);
+        executorService.enqueue(future);
+        return future;
+    }
+
+    @Override
+    public Future<V> take() throws InterruptedException {
+        final Future<V> future = helpUntilCompleted();
+        return future != null ? future : completedQueue.take();
+    }
+
+    @Override
+    public Future<V> poll() {
+        return completedQueue.poll();
+    }
+
+    @Override
+    public Future<V> poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return completedQueue.poll(timeout, unit);
+    }
+
+    /**
+     * On a worker of the executor, runs queued tasks until a future has completed.
+     *
+     * @return the completed future, or null if the caller is not a worker.
+     */
+    private Future<V> helpUntilCompleted() throws InterruptedException {
+        final PriorityWstTaskExecutor taskExecutor = executorService.taskExecutor();
+        if (!taskExecutor.isWorkerThread()) {
+            return null;
+        }
+        while (true) {
+            final Future<V> future = completedQueue.poll();
+            if (future != null) {
+                return future;
+            }
+            if (!Helping.tryHelp(taskExecutor)) {
+                // nothing to help with or nested too deep, wait in short slices for tasks queued in the meantime
+                final Future<V> completedFuture = completedQueue.poll(WAIT_NANOS, TimeUnit.NANOSECONDS);
+                if (completedFuture != null) {
+                    return completedFuture;
+                }
+            }
+        }
+    }
+}
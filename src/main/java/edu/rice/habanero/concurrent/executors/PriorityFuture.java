@@ -0,0 +1,52 @@
+package edu.rice.habanero.concurrent.executors;
+
+import edu.rice.habanero.concurrent.util.Prioritized;
+import edu.rice.habanero.concurrent.util.TaskFuture;
+
+import java.util.concurrent.Callable;
+
+/**
+ * The future of a task submitted through a {@link PriorityWstExecutorService}, queued in the executor as is. Waiting
+ * for it behaves as for any {@link TaskFuture}. A task dequeued after {@link PriorityWstExecutorService#shutdownNow()}
+ * is cancelled instead of run.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+final class PriorityFuture<V> extends TaskFuture<V> implements Prioritized {
+
+    private final int priority;
+    private final PriorityWstExecutorService executorService;
+    private final PriorityCompletionService<V> completionService;
+    // the position in the completion queue among futures of the same priority
+    long completionIndex;
+
+    PriorityFuture(
+            final Callable<V> callable, final int priority, final PriorityWstExecutorService executorService,
+            final PriorityCompletionService<V> completionService) {
+        super(executorService.taskExecutor(), callable);
+        this.priority = priority;
+        this.executorService = executorService;
+        this.completionService = completionService;
+    }
+
+    @Override
+    public int priority() {
+        return priority;
+    }
+
+    @Override
+    public void run() {
+        if (executorService.isStopped()) {
+            cancel(false);
+            return;
+        }
+        super.run();
+    }
+
+    @Override
+    protected void done() {
+        if (completionService != null) {
+            completionService.completed(this);
+        }
+    }
+}
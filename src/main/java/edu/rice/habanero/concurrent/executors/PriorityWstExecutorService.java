@@ -0,0 +1,332 @@
+package edu.rice.habanero.concurrent.executors;
+
+import edu.rice.habanero.concurrent.util.Prioritized;
+import edu.rice.habanero.concurrent.util.TaskFuture;
+import edu.rice.habanero.concurrent.wstdeque.PoolType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exposes a {@link PriorityWstTaskExecutor} as an {@link ExecutorService}.
+ * <p/>
+ * The priority of a task is taken from the task if it implements {@link Prioritized}, else from the default priority
+ * set by the submitting thread with {@link #setDefaultPriority(int)}, else it is the middle of the priority range of
+ * the executor. The futures are {@link TaskFuture}s queued in the executor as they are, a worker waiting on a future
+ * runs other queued tasks meanwhile.
+ * <p/>
+ * After {@link #shutdown()} tasks submitted by other threads are rejected, but the running tasks may still submit
+ * subtasks, as in {@link java.util.concurrent.ForkJoinPool}: the executor terminates once all tasks are done.
+ * {@link #shutdownNow()} removes and returns the queued tasks, and does not interrupt the running tasks.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class PriorityWstExecutorService implements ExecutorService {
+
+    private final PriorityWstTaskExecutor taskExecutor;
+    private final ThreadLocal<Integer> defaultPriority = new ThreadLocal<>();
+
+    // submissions from non-worker threads that have passed the shutdown check but are not queued yet
+    private final AtomicInteger externalSubmits = new AtomicInteger(0);
+    private final AtomicBoolean shutdownTriggered = new AtomicBoolean(false);
+    private final CountDownLatch terminatedLatch = new CountDownLatch(1);
+    private volatile boolean shutdown = false;
+    private volatile boolean stopped = false;
+
+    public PriorityWstExecutorService(
+            final PoolType poolType, final int parallelism,
+            final int minPriorityInc, final int maxPriorityInc) {
+        this(new PriorityWstTaskExecutor(poolType, parallelism, minPriorityInc, maxPriorityInc));
+    }
+
+    /**
+     * @param taskExecutor a fresh executor, it is shut down by this service and must not be used directly otherwise.
+     */
+    public PriorityWstExecutorService(final PriorityWstTaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * @return the underlying executor, e.g. to read its statistics. Tasks must be submitted through this service.
+     */
+    public PriorityWstTaskExecutor taskExecutor() {
+        return taskExecutor;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Sets the priority of the tasks submitted by the calling thread that do not implement {@link Prioritized}.
+     */
+    public void setDefaultPriority(final int priority) {
+        defaultPriority.set(priority);
+    }
+
+    public void clearDefaultPriority() {
+        defaultPriority.remove();
+    }
+
+    int priorityOf(final Object task) {
+        if (task instanceof Prioritized) {
+            return ((Prioritized) task).priority();
+        }
+        final Integer priority = defaultPriority.get();
+        return priority == null ? taskExecutor.defaultPriority() : priority;
+    }
+
+    /**
+     * Queues the future in the executor unless the service is shut down.
+     *
+     * @throws RejectedExecutionException if a non-worker thread submits after {@link #shutdown()}.
+     */
+    void enqueue(final PriorityFuture<?> future) {
+        if (taskExecutor.isWorkerThread()) {
+            // the executor has not terminated while one of its tasks runs
+            taskExecutor.submit(future.priority(), future);
+            return;
+        }
+        externalSubmits.incrementAndGet();
+        try {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor has been shut down");
+            }
+            taskExecutor.submit(future.priority(), future);
+        } finally {
+            externalSubmits.decrementAndGet();
+        }
+    }
+
+    /**
+     * The failure of the command is passed to the uncaught exception handler of the worker, as no one can observe its
+     * future.
+     */
+    @Override
+    public void execute(final Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        final Callable<Void> callable = new Callable<Void>() {
+            @Override
+            public Void call() {
+                try {
+                    command.run();
+                } catch (final RuntimeException | Error th) {
+                    final Thread currentThread = Thread.currentThread();
+                    currentThread.getUncaughtExceptionHandler().uncaughtException(currentThread, th);
+                    throw th;
+                }
+                return null;
+            }
+        };
+        enqueue(new PriorityFuture<>(callable, priorityOf(command), this, null));
+    }
+
+    @Override
+    public <T> Future<T> submit(final Callable<T> task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        final PriorityFuture<T> future = new PriorityFuture<>(task, priorityOf(task), this, null);
+        enqueue(future);
+        return future;
+    }
+
+    @Override
+    public <T> Future<T> submit(final Runnable task, final T result) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        final PriorityFuture<T> future = new PriorityFuture<>(
+                Executors.callable(task, result), priorityOf(task), this, null);
+        enqueue(future);
+        return future;
+    }
+
+    @Override
+    public Future<?> submit(final Runnable task) {
+        return submit(task, null);
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(final Collection<? extends Callable<T>> tasks) throws InterruptedException {
+        final List<Future<T>> futures = new ArrayList<>(tasks.size());
+        boolean done = false;
+        try {
+            for (final Callable<T> task : tasks) {
+                futures.add(submit(task));
+            }
+            for (final Future<T> future : futures) {
+                try {
+                    future.get();
+                } catch (final CancellationException | ExecutionException ex) {
+                    // reported through the future
+                }
+            }
+            done = true;
+            return futures;
+        } finally {
+            if (!done) {
+                cancelAll(futures);
+            }
+        }
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(
+            final Collection<? extends Callable<T>> tasks, final long timeout, final TimeUnit unit)
+            throws InterruptedException {
+        final long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+        final List<Future<T>> futures = new ArrayList<>(tasks.size());
+        boolean done = false;
+        try {
+            for (final Callable<T> task : tasks) {
+                futures.add(submit(task));
+            }
+            for (final Future<T> future : futures) {
+                try {
+                    future.get(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+                } catch (final CancellationException | ExecutionException ex) {
+                    // reported through the future
+                } catch (final TimeoutException ex) {
+                    return futures;
+                }
+            }
+            done = true;
+            return futures;
+        } finally {
+            if (!done) {
+                cancelAll(futures);
+            }
+        }
+    }
+
+    @Override
+    public <T> T invokeAny(final Collection<? extends Callable<T>> tasks)
+            throws InterruptedException, ExecutionException {
+        try {
+            return doInvokeAny(tasks, Long.MAX_VALUE);
+        } catch (final TimeoutException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    @Override
+    public <T> T invokeAny(final Collection<? extends Callable<T>> tasks, final long timeout, final TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return doInvokeAny(tasks, System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * @param deadlineNanos the {@link System#nanoTime()} to give up at, or {@link Long#MAX_VALUE} to never time out.
+     */
+    private <T> T doInvokeAny(final Collection<? extends Callable<T>> tasks, final long deadlineNanos)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (tasks.isEmpty()) {
+            throw new IllegalArgumentException("No tasks to invoke");
+        }
+        final PriorityCompletionService<T> completionService = new PriorityCompletionService<>(this);
+        final List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (final Callable<T> task : tasks) {
+                futures.add(completionService.submit(task));
+            }
+            ExecutionException lastFailure = null;
+            for (int i = 0; i < futures.size(); i++) {
+                final Future<T> future;
+                if (deadlineNanos == Long.MAX_VALUE) {
+                    future = completionService.take();
+                } else {
+                    future = completionService.poll(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (future == null) {
+                        throw new TimeoutException();
+                    }
+                }
+                try {
+                    return future.get();
+                } catch (final ExecutionException ex) {
+                    lastFailure = ex;
+                } catch (final CancellationException ex) {
+                    lastFailure = new ExecutionException(ex);
+                }
+            }
+            throw lastFailure;
+        } finally {
+            cancelAll(futures);
+        }
+    }
+
+    private static <T> void cancelAll(final List<Future<T>> futures) {
+        for (final Future<T> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Rejects further submissions from non-worker threads and shuts the executor down once the submissions in progress
+     * have been queued.
+     */
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        if (!shutdownTriggered.compareAndSet(false, true)) {
+            return;
+        }
+        while (externalSubmits.get() > 0) {
+            Thread.yield();
+        }
+        taskExecutor.triggerShutdown();
+
+        final Thread terminationThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                taskExecutor.awaitTermination();
+                terminatedLatch.countDown();
+            }
+        }, "priority-wst-termination");
+        terminationThread.setDaemon(true);
+        terminationThread.start();
+    }
+
+    /**
+     * Removes the tasks that no worker has taken yet and returns them, highest priority first. Tasks that the workers
+     * take in the meantime, including subtasks submitted by the running tasks, are cancelled as they are dequeued.
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        stopped = true;
+        shutdown();
+        final List<Runnable> queuedTasks = new ArrayList<>();
+        taskExecutor.drainQueuedTasks(queuedTasks);
+        return queuedTasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminatedLatch.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return terminatedLatch.await(timeout, unit);
+    }
+}
@@ -1,92 +1,311 @@
 package edu.rice.habanero.concurrent.executors;
 
-import edu.rice.habanero.concurrent.util.ModCountDownLatch;
+import edu.rice.habanero.concurrent.util.AtomicPriorityBitmap;
+import edu.rice.habanero.concurrent.util.Blocker;
+import edu.rice.habanero.concurrent.util.GroupedTask;
+import edu.rice.habanero.concurrent.util.InjectionQueues;
+import edu.rice.habanero.concurrent.util.Prioritized;
+import edu.rice.habanero.concurrent.util.TaskFuture;
+import edu.rice.habanero.concurrent.util.TaskGroup;
+import edu.rice.habanero.concurrent.util.TerminationDetector;
 import edu.rice.habanero.concurrent.wstdeque.PoolType;
 import edu.rice.habanero.concurrent.wstdeque.WorkStealingPool;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
  * @author Vivek Sarkar
  */
-public class PriorityWstTaskExecutor implements TaskExecutor {
+public class PriorityWstTaskExecutor implements TaskExecutor, StealStatistics, SchedulerMetrics, EventTracing,
+        QosStatistics {
 
     private final int parallelism;
     private final int minPriorityInc;
     private final int maxPriorityInc;
-    private final ModCountDownLatch countDownLatch;
+    private final TerminationDetector terminationDetector;
+    // null unless the workers are persistent
+    private final KernelEpochs kernelEpochs;
+    private final RollingLevels rollingLevels;
 
     private final GlobalPriorityState globalPriorityState;
+    private final InjectionQueues injectionQueues;
     private final WorkerThread[] workerThreads;
-    private boolean allThreadsStarted = false;
-
-    private final AtomicInteger startedThreadsCounter = new AtomicInteger(-1);
+    private final WorkerSizing<WorkerThread> workerSizing;
+    private final QosMonitor qosMonitor;
 
     public PriorityWstTaskExecutor(
             final PoolType poolType, final int parallelism,
             final int minPriorityInc, final int maxPriorityInc) {
+        this(poolType, parallelism, minPriorityInc, maxPriorityInc, new WstOptions());
+    }
+
+    public PriorityWstTaskExecutor(
+            final PoolType poolType, final int parallelism,
+            final int minPriorityInc, final int maxPriorityInc,
+            final WstOptions options) {
+        this(poolType, parallelism, minPriorityInc, maxPriorityInc, options, null);
+    }
+
+    /**
+     * @param rollingLevels the window of deadline buckets the levels represent, or null for fixed priority levels.
+     */
+    PriorityWstTaskExecutor(
+            final PoolType poolType, final int parallelism,
+            final int minPriorityInc, final int maxPriorityInc,
+            final WstOptions options, final RollingLevels rollingLevels) {
 
         if (maxPriorityInc < minPriorityInc) {
             final String message = "Min Priority (" + minPriorityInc +
                     ") must be less than or equal to Max Priority (" + maxPriorityInc + ")";
             throw new IllegalArgumentException(message);
         }
+        final PriorityAging priorityAging = options.priorityAging();
+        final LocalityDomains localityDomains = options.localityDomains(parallelism);
+        localityDomains.checkParallelism(parallelism);
 
         this.parallelism = parallelism;
         this.minPriorityInc = minPriorityInc;
         this.maxPriorityInc = maxPriorityInc;
-        this.countDownLatch = new ModCountDownLatch(1);
+        this.terminationDetector = options.terminationDetector().newInstance(parallelism);
+        this.kernelEpochs = options.workerLifecycle() == WorkerLifecycle.PERSISTENT ?
+                new KernelEpochs(terminationDetector) : null;
+        this.rollingLevels = rollingLevels;
+        // the levels of a deadline executor roll over time, they are not comparable to fixed priorities
+        this.qosMonitor = QosMonitor.ENABLED && rollingLevels == null ? new QosMonitor() : null;
 
         this.globalPriorityState = new GlobalPriorityState(maxPriorityInc - minPriorityInc + 1);
+        this.injectionQueues = new InjectionQueues(maxPriorityInc - minPriorityInc + 1, parallelism);
+
+        // per level rather than per task timestamps, and only when a wait bound is configured
+        final AtomicLongArray lastServedNanos;
+        if (priorityAging.hasMaxWait()) {
+            lastServedNanos = new AtomicLongArray(maxPriorityInc - minPriorityInc + 1);
+            final long currentNanos = System.nanoTime();
+            for (int i = 0; i < lastServedNanos.length(); i++) {
+                lastServedNanos.set(i, currentNanos);
+            }
+        } else {
+            lastServedNanos = null;
+        }
 
         this.workerThreads = new WorkerThread[parallelism];
+        this.workerSizing = new WorkerSizing<WorkerThread>(
+                workerThreads, options.elasticSizing(), terminationDetector) {
+            @Override
+            WorkerThread newWorker(final int workerIndex) {
+                final WorkerThread workerThread = new WorkerThread(
+                        workerIndex, poolType, workerThreads, this, globalPriorityState,
+                        injectionQueues, terminationDetector, minPriorityInc, maxPriorityInc,
+                        options.idleStrategy(), options.victimSelector(), localityDomains, priorityAging,
+                        lastServedNanos, rollingLevels, qosMonitor, kernelEpochs);
+                if (kernelEpochs != null) {
+                    // dormant workers do not keep the JVM alive if the executor is never closed
+                    workerThread.setDaemon(true);
+                }
+                return workerThread;
+            }
+        };
         for (int i = 0; i < parallelism; i++) {
-            this.workerThreads[i] = new WorkerThread(
-                    i, poolType, workerThreads, globalPriorityState,
-                    countDownLatch, minPriorityInc, maxPriorityInc);
+            this.workerThreads[i] = workerSizing.newWorker(i);
         }
     }
 
+    /**
+     * A task that implements {@link Prioritized} is queued at its own priority as is, others at the default priority.
+     */
     @Override
     public void submit(final Runnable task) {
-        final int priority = (maxPriorityInc + minPriorityInc) / 2;
-        submit(priority, task);
+        if (task instanceof Prioritized) {
+            submit(((Prioritized) task).priority(), task);
+        } else {
+            submit(defaultPriority(), task);
+        }
     }
 
     @Override
     public void submit(final int priority, final Runnable task) {
 
+        submitToLevel(priorityIndex(priority), task);
+    }
+
+    private int priorityIndex(final int priority) {
         final int sanitizedPriority = Math.max(minPriorityInc, Math.min(priority, maxPriorityInc));
+        if (rollingLevels == null) {
+            return maxPriorityInc - sanitizedPriority;
+        }
+        // a fixed priority is taken as the number of buckets after the head of the window
+        return rollingLevels.levelIndex(maxPriorityInc - sanitizedPriority);
+    }
 
-        countDownLatch.updateCount();
+    /**
+     * Queues the task at the level with the specified index, the highest priority level has index zero.
+     */
+    void submitToLevel(final int priorityIndex, final Runnable task) {
+
+        if (kernelEpochs != null) {
+            kernelEpochs.openIfTerminated();
+        }
+        terminationDetector.taskSpawned();
+        if (QosMonitor.ENABLED && qosMonitor != null) {
+            qosMonitor.taskQueued(maxPriorityInc - priorityIndex);
+        }
         final Thread currentThread = Thread.currentThread();
-        if (currentThread instanceof WorkerThread) {
-            ((WorkerThread) currentThread).pushTask(sanitizedPriority, task);
-            if (!allThreadsStarted) {
-                final int numActiveThreads = startedThreadsCounter.incrementAndGet();
-                if (numActiveThreads < parallelism) {
-                    workerThreads[numActiveThreads].start();
-                } else {
-                    allThreadsStarted = true;
-                }
+        // a spare worker injects the tasks it spawns like other threads
+        if (currentThread instanceof WorkerThread && !((WorkerThread) currentThread).isSpare()) {
+            final WorkerThread workerThread = (WorkerThread) currentThread;
+            workerThread.pushTask(priorityIndex, task);
+            workerSizing.pushedByWorker(workerThread);
+        } else {
+            final int workerIndex = workerSizing.claimInitialWorker();
+            if (workerIndex >= 0) {
+                workerThreads[workerIndex].pushTask(priorityIndex, task);
+                workerSizing.startWorker(workerIndex);
+            } else {
+                injectTask(priorityIndex, task);
+                workerSizing.injectedBacklog(1);
+            }
+        }
+    }
+
+    /**
+     * Queues the tasks at the priority as successive calls of {@link #submit(int, Runnable)} would, but takes a single
+     * update of the termination detector, a single push into the pool of the calling worker or a single append to an
+     * injection queue, and a single publication of the level.
+     */
+    @Override
+    public void submitAll(final int priority, final Runnable[] tasks) {
+        final int count = tasks.length;
+        if (count == 0) {
+            return;
+        }
+        final int priorityIndex = priorityIndex(priority);
+        if (kernelEpochs != null) {
+            kernelEpochs.openIfTerminated();
+        }
+        terminationDetector.tasksSpawned(count);
+        if (QosMonitor.ENABLED && qosMonitor != null) {
+            for (int i = 0; i < count; i++) {
+                qosMonitor.taskQueued(maxPriorityInc - priorityIndex);
             }
+        }
+        final Thread currentThread = Thread.currentThread();
+        // a spare worker injects the tasks it spawns like other threads
+        if (currentThread instanceof WorkerThread && !((WorkerThread) currentThread).isSpare()) {
+            final WorkerThread workerThread = (WorkerThread) currentThread;
+            workerThread.pushTasks(priorityIndex, tasks, count);
+            workerSizing.pushedByWorker(workerThread);
         } else {
-            final int numActiveThreads = startedThreadsCounter.incrementAndGet();
-            if (numActiveThreads < parallelism) {
-                workerThreads[numActiveThreads].pushTask(sanitizedPriority, task);
+            final int workerIndex = workerSizing.claimInitialWorker();
+            if (workerIndex >= 0) {
+                workerThreads[workerIndex].pushTasks(priorityIndex, tasks, count);
+                workerSizing.startWorker(workerIndex);
             } else {
-                throw new RuntimeException("All threads active, cannot accept task from non-worker thread");
+                injectionQueues.offerAll(priorityIndex, tasks, count);
+                globalPriorityState.set(priorityIndex, true);
+                workerSizing.wakeParkedWorker();
+                workerSizing.injectedBacklog(count);
             }
-            if (numActiveThreads < parallelism) {
-                workerThreads[numActiveThreads].start();
+        }
+    }
+
+    @Override
+    public <T> TaskFuture<T> submit(final int priority, final Callable<T> task) {
+        final TaskFuture<T> future = new TaskFuture<>(this, task);
+        submit(priority, future);
+        return future;
+    }
+
+    @Override
+    public void submit(final int priority, final TaskGroup group, final Runnable task) {
+        submit(priority, new GroupedTask(group, task));
+    }
+
+    @Override
+    public boolean helpQueuedTask() {
+        final Thread currentThread = Thread.currentThread();
+        if (currentThread instanceof WorkerThread) {
+            final WorkerThread workerThread = (WorkerThread) currentThread;
+            if (workerThread.allWorkerThreads == workerThreads) {
+                final Object task = workerThread.findTask();
+                if (task instanceof Runnable) {
+                    workerThread.runTask((Runnable) task);
+                    return true;
+                }
             }
         }
+        return false;
+    }
+
+    @Override
+    public boolean higherPriorityPending() {
+        final Thread currentThread = Thread.currentThread();
+        if (currentThread instanceof WorkerThread) {
+            final WorkerThread workerThread = (WorkerThread) currentThread;
+            return workerThread.allWorkerThreads == workerThreads && workerThread.higherPriorityPending();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean shouldSplit(final int priority) {
+        final Thread currentThread = Thread.currentThread();
+        if (currentThread instanceof WorkerThread) {
+            final WorkerThread workerThread = (WorkerThread) currentThread;
+            if (workerThread.allWorkerThreads == workerThreads) {
+                return workerThread.shouldSplit(priorityIndex(priority));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void managedBlock(final Blocker blocker) throws InterruptedException {
+        workerSizing.managedBlock(blocker);
+    }
+
+    /**
+     * @return the number of workers that have been started and are not retired.
+     */
+    public int activeWorkers() {
+        return workerSizing.activeWorkers();
+    }
+
+    /**
+     * Tasks from non-worker threads go to the shared injection queues, the pools of a worker only support pushes from
+     * their owner once it has started.
+     */
+    private void injectTask(final int priorityIndex, final Runnable task) {
+        injectionQueues.offer(priorityIndex, task);
+        globalPriorityState.set(priorityIndex, true);
+        workerSizing.wakeParkedWorker();
     }
 
     @Override
     public void triggerShutdown() {
-        countDownLatch.countDown();
+        releaseToken();
+    }
+
+    /**
+     * Keeps the executor from terminating on behalf of a task that is held outside of it, e.g. a pending timer, until
+     * {@link #releaseToken()} is invoked.
+     */
+    void holdToken() {
+        if (kernelEpochs != null) {
+            kernelEpochs.openIfTerminated();
+        }
+        terminationDetector.taskSpawned();
+    }
+
+    void releaseToken() {
+        terminationDetector.taskCompleted();
+        if (terminationDetector.tryTerminate()) {
+            workerSizing.wakeAllParkedWorkers();
+        }
     }
 
     @Override
@@ -94,62 +313,270 @@ public class PriorityWstTaskExecutor implements TaskExecutor {
         boolean keepLooping = true;
         while (keepLooping) {
             try {
-                countDownLatch.await();
+                terminationDetector.await();
             } catch (final InterruptedException ex) {
                 // ignore
             } finally {
                 keepLooping = !stopped();
             }
         }
+        // workers may still be parked if termination was detected by this thread
+        workerSizing.wakeAllParkedWorkers();
+        if (EventTrace.ENABLED) {
+            EventTrace.writeTraceFile(eventTraces());
+        }
     }
 
     private boolean stopped() {
-        return countDownLatch.getCount() <= 0;
+        return terminationDetector.isTerminated();
     }
 
-    private static class WorkerThread extends Thread {
+    /**
+     * Lets the dormant workers of a persistent executor exit once the running kernel, if any, has terminated. The
+     * executor cannot run further kernels. Has no effect on other executors, their workers exit at termination.
+     */
+    public void close() {
+        if (kernelEpochs != null) {
+            kernelEpochs.close();
+        }
+    }
+
+    /**
+     * Removes the queued tasks that no worker has taken yet, they count as completed for the termination of the
+     * executor. The workers keep running the tasks they take in the meantime.
+     *
+     * @param drained receives the removed tasks, highest priority first.
+     */
+    void drainQueuedTasks(final List<Runnable> drained) {
+        final int priorityLevels = maxPriorityInc - minPriorityInc + 1;
+        int numDrained = 0;
+        for (int priorityIndex = 0; priorityIndex < priorityLevels; priorityIndex++) {
+            final int levelStart = drained.size();
+            for (final WorkerThread workerThread : workerThreads) {
+                final WorkStealingPool pool = workerThread.myPools.get(priorityIndex);
+                // a steal may fail while the owner pops concurrently, retry until the pool is empty
+                while (pool != null && !pool.isEmpty()) {
+                    final Object task = pool.steal();
+                    if (task != WorkStealingPool.EMPTY) {
+                        drained.add((Runnable) task);
+                    }
+                }
+            }
+            Object task;
+            while ((task = injectionQueues.poll(priorityIndex, 0)) != null) {
+                drained.add((Runnable) task);
+            }
+            final int levelDrained = drained.size() - levelStart;
+            if (QosMonitor.ENABLED && qosMonitor != null && levelDrained > 0) {
+                qosMonitor.tasksDropped(maxPriorityInc - priorityIndex, levelDrained);
+            }
+            numDrained += levelDrained;
+        }
+        if (numDrained > 0) {
+            terminationDetector.tasksCompleted(numDrained);
+            if (terminationDetector.tryTerminate()) {
+                workerSizing.wakeAllParkedWorkers();
+            }
+        }
+    }
+
+    /**
+     * @return the priority of the tasks submitted without one.
+     */
+    int defaultPriority() {
+        return (maxPriorityInc + minPriorityInc) / 2;
+    }
+
+    @Override
+    public boolean isWorkerThread() {
+        final Thread currentThread = Thread.currentThread();
+        return currentThread instanceof WorkerThread &&
+                ((WorkerThread) currentThread).allWorkerThreads == workerThreads;
+    }
+
+    @Override
+    public long stealAttempts() {
+        long result = 0;
+        for (final WorkerThread workerThread : workerSizing.workers()) {
+            result += workerThread.stealAttempts;
+        }
+        return result;
+    }
+
+    @Override
+    public long successfulSteals() {
+        long result = 0;
+        for (final WorkerThread workerThread : workerSizing.workers()) {
+            result += workerThread.successfulSteals;
+        }
+        return result;
+    }
+
+    @Override
+    public long remoteSteals() {
+        long result = 0;
+        for (final WorkerThread workerThread : workerSizing.workers()) {
+            result += workerThread.remoteSteals;
+        }
+        return result;
+    }
+
+    @Override
+    public WorkerMetrics[] workerMetrics() {
+        // the spare workers follow the workers of the executor
+        final List<WorkerThread> workers = workerSizing.workers();
+        final WorkerMetrics[] result = new WorkerMetrics[workers.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = workers.get(i).metrics();
+        }
+        return result;
+    }
+
+    @Override
+    public QosMonitor qosMonitor() {
+        return qosMonitor;
+    }
+
+    @Override
+    public void writeChromeTrace(final Appendable out) throws IOException {
+        EventTrace.writeChromeTrace(eventTraces(), out);
+    }
+
+    private EventTrace[] eventTraces() {
+        final List<WorkerThread> workers = workerSizing.workers();
+        final EventTrace[] result = new EventTrace[workers.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = workers.get(i).eventTrace;
+        }
+        return result;
+    }
+
+    @Override
+    public long executedTasks() {
+        long result = 0;
+        for (final WorkerThread workerThread : workerSizing.workers()) {
+            result += workerThread.executedTasks;
+        }
+        return result;
+    }
+
+    @Override
+    public long discardedTasks() {
+        long result = 0;
+        for (final WorkerThread workerThread : workerSizing.workers()) {
+            result += workerThread.discardedTasks;
+        }
+        return result;
+    }
+
+    private static class WorkerThread extends WorkerSizing.Worker implements VictimSelector.LoadProbe {
+
+        private static final int TERMINATION_SCAN_LIMIT = 128;
+        private static final int MIN_POOL_CAPACITY = 1 << 4;
+        private static final int MAX_POOL_CAPACITY = 1 << 13;
+        private static final int SLOTS_PER_WORKER = 1 << 17;
+        private static final int MAX_STEAL_BATCH = 32;
+        private static final int AGING_CLOCK_MASK = (1 << 4) - 1;
+        private static final int WINDOW_CLOCK_MASK = (1 << 4) - 1;
+        private static final int SPLIT_DEPTH = 4;
 
         private final int parallelism;
         private final int threadSeqNum;
-        private final int maxPriorityInc;
-        private int previousVictim;
         private int localMaxPriorityIndex;
+        private int stealPriorityIndex;
+        private long stealAttempts;
+        private long successfulSteals;
+        private long remoteSteals;
+        private long executedTasks;
+        private long discardedTasks;
+        private long localPops;
+        private long idleSpins;
+        private long globalStateResets;
+        private final long[] levelExecutedTasks;
+        private final EventTrace eventTrace = EventTrace.ENABLED ? new EventTrace() : null;
+        private int tracedPriorityIndex = -1;
+        private final QosMonitor qosMonitor;
+        private final int maxPriorityInc;
+        private final KernelEpochs kernelEpochs;
 
         private final int priorityLevels;
-        private final WorkStealingPool[] myPools;
-        private final boolean[] localPriorityState;
+        private final PoolType poolType;
+        private final int logPoolCapacity;
+        private final AtomicReferenceArray<WorkStealingPool> myPools;
+        private final LocalPriorityState localPriorityState;
+        private final Object[] stealBuffer = new Object[MAX_STEAL_BATCH];
 
         private final WorkerThread[] allWorkerThreads;
         private final GlobalPriorityState globalPriorityState;
-        private final ModCountDownLatch countDownLatch;
+        private final InjectionQueues injectionQueues;
+        private final TerminationDetector terminationDetector;
+        private final VictimSelector victimSelector;
+        private final LocalityDomains localityDomains;
+        private int lastPushIndex;
+
+        private final PriorityAging priorityAging;
+        private final AtomicLongArray lastServedNanos;
+        private int foundPriorityIndex;
+        private int runningPriorityIndex;
+        // set by thieves that took tasks from our pools, cleared by the owner
+        private volatile boolean stealDemand;
+        private long schedulingDecisions;
+        private long agingClockNanos;
+
+        // levels are scanned from the head of the window, offsets are relative to the head seen by the last scan
+        private final RollingLevels rollingLevels;
+        private int windowHead;
 
         private WorkerThread(
                 final int threadSeqNum, final PoolType poolType,
-                final WorkerThread[] workerThreads,
+                final WorkerThread[] workerThreads, final WorkerSizing<WorkerThread> workerSizing,
                 final GlobalPriorityState globalPriorityState,
-                final ModCountDownLatch countDownLatch,
-                final int minPriorityInc, final int maxPriorityInc) {
+                final InjectionQueues injectionQueues,
+                final TerminationDetector terminationDetector,
+                final int minPriorityInc, final int maxPriorityInc,
+                final IdleStrategyType idleStrategyType,
+                final VictimSelectorType victimSelectorType, final LocalityDomains localityDomains,
+                final PriorityAging priorityAging, final AtomicLongArray lastServedNanos,
+                final RollingLevels rollingLevels, final QosMonitor qosMonitor, final KernelEpochs kernelEpochs) {
 
+            super(workerSizing, threadSeqNum, idleStrategyType);
             this.parallelism = workerThreads.length;
             this.threadSeqNum = threadSeqNum;
-            this.maxPriorityInc = maxPriorityInc;
-            this.previousVictim = nextVictim(threadSeqNum);
             this.localMaxPriorityIndex = maxPriorityInc - minPriorityInc + 1;
 
             this.allWorkerThreads = workerThreads;
             this.globalPriorityState = globalPriorityState;
-            this.countDownLatch = countDownLatch;
+            this.injectionQueues = injectionQueues;
+            this.terminationDetector = terminationDetector;
+            // a spare worker is outside of the locality domains, it visits all workers in turn
+            this.victimSelector = (isSpare() ? VictimSelectorType.ROUND_ROBIN : victimSelectorType).newInstance(
+                    threadSeqNum, parallelism, this, localityDomains);
+            this.localityDomains = localityDomains;
+            this.priorityAging = priorityAging;
+            this.lastServedNanos = lastServedNanos;
+            this.agingClockNanos = System.nanoTime();
+            this.rollingLevels = rollingLevels;
+            this.windowHead = 0;
+            this.qosMonitor = qosMonitor;
+            this.maxPriorityInc = maxPriorityInc;
+            this.kernelEpochs = kernelEpochs;
 
             this.priorityLevels = maxPriorityInc - minPriorityInc + 1;
-            this.localPriorityState = new boolean[priorityLevels];
-            this.myPools = new WorkStealingPool[priorityLevels];
-            for (int i = 0; i < myPools.length; i++) {
-                myPools[i] = poolType.newInstance();
-            }
+            this.runningPriorityIndex = priorityLevels;
+            this.localPriorityState = new LocalPriorityState(priorityLevels);
+            this.levelExecutedTasks = new long[priorityLevels];
+            // pools are allocated on the first push to a level, many levels may never be used by a worker
+            this.poolType = poolType;
+            this.logPoolCapacity = logPoolCapacity(priorityLevels);
+            this.myPools = new AtomicReferenceArray<>(priorityLevels);
         }
 
-        private int nextVictim(final int threadSeqNum) {
-            return (threadSeqNum + 1) % parallelism;
+        /**
+         * Keeps the preallocated slots per worker roughly constant, so thousands of levels do not exhaust the heap.
+         */
+        private static int logPoolCapacity(final int priorityLevels) {
+            final int slotsPerLevel = Math.max(MIN_POOL_CAPACITY, SLOTS_PER_WORKER / priorityLevels);
+            return 31 - Integer.numberOfLeadingZeros(Math.min(MAX_POOL_CAPACITY, slotsPerLevel));
         }
 
         @Override
@@ -161,158 +588,694 @@ public class PriorityWstTaskExecutor implements TaskExecutor {
                 while (keepLooping) {
                     final Object myTask = findTask();
                     if (myTask instanceof Runnable) {
-                        counter = 0;
-                        try {
-                            ((Runnable) myTask).run();
-                        } finally {
-                            countDownLatch.countDown();
+                        if (EventTrace.ENABLED && counter > 0) {
+                            eventTrace.record(EventTrace.IDLE_END, 0, 0);
                         }
+                        counter = 0;
+                        runTask((Runnable) myTask);
                     } else {
                         counter++;
-                        if (counter > 1_000_000) {
-                            final int availableIndex = globalPriorityState.nextAvailableIndex(0);
-                            if (availableIndex >= priorityLevels) {
-                                // no more tasks in queues
-                                while (countDownLatch.getCount() > 0) {
-                                    countDownLatch.countDown();
-                                }
-                            } else {
-                                counter = 0;
-                            }
+                        idleSpins++;
+                        if (EventTrace.ENABLED && counter == 1) {
+                            eventTrace.record(EventTrace.IDLE_START, 0, 0);
+                        }
+                        if ((counter & (counter - 1)) == 0 || counter > TERMINATION_SCAN_LIMIT) {
+                            // the full check may aggregate counters of all threads, back off while idle
+                            terminationDetector.tryTerminate();
                         }
+                        if (idle(counter)) {
+                            counter = 0;
+                        }
+                    }
+                    if (stopped()) {
+                        keepLooping = awaitNextKernel();
+                        counter = 0;
                     }
-                    keepLooping = !stopped();
                 }
+                // release the remaining parked workers so that they can observe termination
+                workerSizing.wakeAllParkedWorkers();
             } catch (final Throwable ex) {
                 ex.printStackTrace();
             }
             return;
         }
 
+        /**
+         * Invoked once the kernel has terminated, the workers of a persistent executor go dormant until the next kernel
+         * starts while the other workers exit. The pools are empty and are reused by the next kernel.
+         *
+         * @return true if the worker should keep running.
+         */
+        private boolean awaitNextKernel() {
+            if (kernelEpochs == null) {
+                return false;
+            }
+            // the parked workers go dormant as well
+            workerSizing.wakeAllParkedWorkers();
+            return kernelEpochs.awaitNextEpoch();
+        }
+
+        private void runTask(final Runnable task) {
+            // tasks run while helping are nested, restore the level of the outer task afterwards
+            final int outerPriorityIndex = runningPriorityIndex;
+            final int priorityIndex = foundPriorityIndex;
+            runningPriorityIndex = priorityIndex;
+            if (EventTrace.ENABLED) {
+                traceTaskStart(priorityIndex);
+            }
+            if (QosMonitor.ENABLED && qosMonitor != null) {
+                qosMonitor.taskStarted(maxPriorityInc - priorityIndex);
+            }
+            try {
+                task.run();
+            } finally {
+                if (EventTrace.ENABLED) {
+                    eventTrace.record(EventTrace.TASK_END, priorityIndex, 0);
+                }
+                if (QosMonitor.ENABLED && qosMonitor != null) {
+                    qosMonitor.taskCompleted(maxPriorityInc - priorityIndex);
+                }
+                runningPriorityIndex = outerPriorityIndex;
+                executedTasks++;
+                levelExecutedTasks[priorityIndex]++;
+                terminationDetector.taskCompleted();
+            }
+        }
+
+        /**
+         * Records a level switch if the task runs at a different level than the previous task, including nested tasks.
+         */
+        private void traceTaskStart(final int priorityIndex) {
+            if (priorityIndex != tracedPriorityIndex) {
+                if (tracedPriorityIndex >= 0) {
+                    eventTrace.record(EventTrace.LEVEL_SWITCH, priorityIndex, tracedPriorityIndex);
+                }
+                tracedPriorityIndex = priorityIndex;
+            }
+            eventTrace.record(EventTrace.TASK_START, priorityIndex, 0);
+        }
+
+        /**
+         * Lazy binary splitting: a child is spawned while our pool at its level holds fewer than
+         * <code>SPLIT_DEPTH</code> tasks for thieves, or while thieves have recently taken tasks from us or other
+         * workers are parked.
+         */
+        private boolean shouldSplit(final int priorityIndex) {
+            if (stealDemand) {
+                stealDemand = false;
+                return true;
+            }
+            if (workerSizing.hasParkedWorkers()) {
+                return true;
+            }
+            final WorkStealingPool myPool = myPools.get(priorityIndex);
+            return myPool == null || myPool.size() < SPLIT_DEPTH;
+        }
+
+        /**
+         * Compares the level of the running task against the first flagged level of the global state, a single read
+         * of the bitmap with up to 64 levels.
+         */
+        private boolean higherPriorityPending() {
+            if (runningPriorityIndex >= priorityLevels) {
+                return false;
+            }
+            if (rollingLevels == null) {
+                return globalPriorityState.nextAvailableIndex(0) < runningPriorityIndex;
+            }
+            return nextGlobalOffset(0) < offsetOf(runningPriorityIndex);
+        }
+
         private Object findTask() {
+            if (rollingLevels != null) {
+                return findDeadlineTask();
+            }
+            if (!priorityAging.isAging()) {
+                return findStrictTask();
+            }
+            schedulingDecisions++;
+            final int agedPriorityIndex = agedPriorityIndex();
+            if (agedPriorityIndex >= 0) {
+                final Object agedTask = findTaskWithPriority(agedPriorityIndex);
+                if (agedTask != WorkStealingPool.EMPTY) {
+                    foundPriorityIndex = agedPriorityIndex;
+                    markServed(agedPriorityIndex);
+                    return agedTask;
+                }
+            }
+            final Object strictTask = findStrictTask();
+            if (strictTask != WorkStealingPool.EMPTY) {
+                markServed(foundPriorityIndex);
+            }
+            return strictTask;
+        }
+
+        /**
+         * @return the level that is due to be served ahead of the higher levels, or -1 if the scheduling decision
+         * should remain strict.
+         */
+        private int agedPriorityIndex() {
+            final int agingPeriod = priorityAging.agingPeriod();
+            if (agingPeriod > 0 && schedulingDecisions % agingPeriod == 0) {
+                return lowestAvailableIndex(false, 0);
+            }
+            if (lastServedNanos != null && (schedulingDecisions & AGING_CLOCK_MASK) == 0) {
+                // the clock is only read on every 16th decision, served levels are stamped with the cached value
+                agingClockNanos = System.nanoTime();
+                return lowestAvailableIndex(true, agingClockNanos - priorityAging.maxWaitNanos());
+            }
+            return -1;
+        }
+
+        /**
+         * @param overdueOnly       whether to skip the levels served after <code>servedBeforeNanos</code>. A flag
+         *                          rather than a cut-off value as the nanoTime stamps may have either sign.
+         * @param servedBeforeNanos ignored unless <code>overdueOnly</code> is set.
+         * @return the lowest priority non-empty level, or -1 if none. The highest non-empty level is skipped as a
+         * strict decision serves it anyway.
+         */
+        private int lowestAvailableIndex(final boolean overdueOnly, final long servedBeforeNanos) {
+            int result = -1;
+            final int highestIndex = globalPriorityState.nextAvailableIndex(0);
+            for (int priorityIndex = globalPriorityState.nextAvailableIndex(highestIndex + 1);
+                 priorityIndex < priorityLevels;
+                 priorityIndex = globalPriorityState.nextAvailableIndex(priorityIndex + 1)) {
+                if (!overdueOnly || lastServedNanos.get(priorityIndex) - servedBeforeNanos <= 0) {
+                    result = priorityIndex;
+                }
+            }
+            return result;
+        }
+
+        private void markServed(final int priorityIndex) {
+            if (lastServedNanos != null) {
+                lastServedNanos.lazySet(priorityIndex, agingClockNanos);
+            }
+        }
+
+        /**
+         * Serves the levels in order starting at the head of the window, the window is rolled forward on every 16th
+         * decision.
+         */
+        private Object findDeadlineTask() {
+            schedulingDecisions++;
+            if ((schedulingDecisions & WINDOW_CLOCK_MASK) == 0) {
+                advanceWindow();
+            }
+            final int head = rollingLevels.head();
+            if (head != windowHead) {
+                // the cached offsets refer to the previous head
+                windowHead = head;
+                localMaxPriorityIndex = 0;
+            }
+            return findStrictTask();
+        }
+
+        /**
+         * Advances the window while its head bucket has passed and the head level is empty. A task pushed to the head
+         * level while it advances ends up in the last bucket of the window, it is delayed but not lost.
+         */
+        private void advanceWindow() {
+            final long currentNanos = System.nanoTime();
+            int head = rollingLevels.head();
+            while (rollingLevels.isBehind(currentNanos) && !globalPriorityState.isSet(head) && !levelHasWork(head)) {
+                rollingLevels.advance(head);
+                head = rollingLevels.head();
+            }
+        }
+
+        /**
+         * @return the index of the level <code>offset</code> levels after the head of the window.
+         */
+        private int physicalIndex(final int offset) {
+            final int index = offset + windowHead;
+            return index < priorityLevels ? index : index - priorityLevels;
+        }
+
+        private int offsetOf(final int priorityIndex) {
+            return priorityIndex >= windowHead ? priorityIndex - windowHead : priorityIndex + priorityLevels - windowHead;
+        }
+
+        /**
+         * @return the offset of the first level at or after <code>fromOffset</code> that is flagged in the global
+         * state, or the number of levels if none.
+         */
+        private int nextGlobalOffset(final int fromOffset) {
+            if (windowHead == 0) {
+                return globalPriorityState.nextAvailableIndex(fromOffset);
+            }
+            if (fromOffset >= priorityLevels) {
+                return priorityLevels;
+            }
+            final int fromIndex = physicalIndex(fromOffset);
+            final int priorityIndex = globalPriorityState.nextAvailableIndex(fromIndex);
+            if (fromIndex >= windowHead) {
+                if (priorityIndex < priorityLevels) {
+                    return priorityIndex - windowHead;
+                }
+                final int wrappedIndex = globalPriorityState.nextAvailableIndex(0);
+                return wrappedIndex < windowHead ? wrappedIndex + priorityLevels - windowHead : priorityLevels;
+            }
+            return priorityIndex < windowHead ? priorityIndex + priorityLevels - windowHead : priorityLevels;
+        }
+
+        /**
+         * @return the first offset in [fromOffset, toOffset) whose level is flagged in our local state, or
+         * <code>toOffset</code> if none.
+         */
+        private int nextLocalOffset(final int fromOffset, final int toOffset) {
+            if (windowHead == 0) {
+                return localPriorityState.nextSetIndex(fromOffset, toOffset);
+            }
+            if (fromOffset >= toOffset) {
+                return toOffset;
+            }
+            final int fromIndex = physicalIndex(fromOffset);
+            final int toIndex = fromIndex + (toOffset - fromOffset);
+            if (toIndex <= priorityLevels) {
+                return localPriorityState.nextSetIndex(fromIndex, toIndex) - fromIndex + fromOffset;
+            }
+            final int priorityIndex = localPriorityState.nextSetIndex(fromIndex, priorityLevels);
+            if (priorityIndex < priorityLevels) {
+                return priorityIndex - fromIndex + fromOffset;
+            }
+            final int wrappedIndex = localPriorityState.nextSetIndex(0, toIndex - priorityLevels);
+            return wrappedIndex + priorityLevels - fromIndex + fromOffset;
+        }
+
+        /**
+         * Looks for a task at a single level in our own pool, the pools of the victims and the injection queues without
+         * updating any flags.
+         */
+        private Object findTaskWithPriority(final int priorityIndex) {
+            final WorkStealingPool myPool = myPools.get(priorityIndex);
+            if (myPool != null) {
+                final Object localTask = popLocal(priorityIndex, myPool);
+                if (localTask != WorkStealingPool.EMPTY) {
+                    return localTask;
+                }
+            }
+            return stealTaskWithPriority(priorityIndex);
+        }
+
+        private Object stealTaskWithPriority(final int priorityIndex) {
+            stealPriorityIndex = priorityIndex;
+            for (int i = 0; i < parallelism; i++) {
+                // find victim index and try to steal from there
+                final int victim = victimSelector.nextVictim();
+                final WorkerThread victimThread = allWorkerThreads[victim];
+                if (victimThread.claimsTaskWithPriority(priorityIndex)) {
+                    stealAttempts++;
+                    final Object stolenTask = stealHalf(victimThread, priorityIndex);
+                    if (stolenTask != WorkStealingPool.EMPTY) {
+                        // found a stolen task to execute
+                        successfulSteals++;
+                        if (!isSpare() && !localityDomains.sameDomain(threadSeqNum, victim)) {
+                            remoteSteals++;
+                        }
+                        if (EventTrace.ENABLED) {
+                            eventTrace.record(EventTrace.STEAL, priorityIndex, victim);
+                        }
+                        victimSelector.stealAttempted(victim, true);
+                        return stolenTask;
+                    }
+                }
+                // Current victim couldn't provide task, let the selector update its victim
+                victimSelector.stealAttempted(victim, false);
+            }
+            final Object injectedTask = pollInjected(priorityIndex);
+            if (injectedTask != null) {
+                // found a task submitted by a non-worker thread
+                return injectedTask;
+            }
+            return WorkStealingPool.EMPTY;
+        }
+
+        /**
+         * Serves the highest non-empty level. Levels are visited by their offset from the head of the window, which is
+         * always zero for fixed priority levels.
+         */
+        private Object findStrictTask() {
 
             // first search for highest priority item
-            if (localPriorityState[0]) {
+            if (localPriorityState.get(windowHead)) {
                 // our local flags claim we have a task with higher priority!
-                final Object localTask = myPools[0].popBottom();
+                final Object localTask = popLocal(windowHead, myPools.get(windowHead));
                 if (localTask != WorkStealingPool.EMPTY) {
                     // found a local task to execute with highest priority
                     localMaxPriorityIndex = 0;
+                    foundPriorityIndex = windowHead;
                     return localTask;
                 } else {
-                    localPriorityState[0] = false;
+                    localPriorityState.set(windowHead, false);
                 }
             }
 
-            final int priorityIndex = globalPriorityState.nextAvailableIndex(0);
+            final int priorityOffset = nextGlobalOffset(0);
             // ensure we do not have any local task with a higher priority (in case global state is out of sync)
-            for (int loopIndex = localMaxPriorityIndex; loopIndex < priorityIndex; loopIndex++) {
-                if (localPriorityState[loopIndex]) {
-                    // our local flags claim we have a task with higher priority!
-                    final WorkStealingPool myPool = myPools[loopIndex];
-                    final Object localTask = myPool.popBottom();
-                    if (localTask != WorkStealingPool.EMPTY) {
-                        // found a local task to execute with higher priority
-                        if (!myPool.isEmpty()) {
-                            globalPriorityState.set(loopIndex, true);
-                            localMaxPriorityIndex = loopIndex;
-                        } else {
-                            localPriorityState[loopIndex] = false;
-                        }
-                        return localTask;
+            for (int loopOffset = nextLocalOffset(localMaxPriorityIndex, priorityOffset);
+                 loopOffset < priorityOffset;
+                 loopOffset = nextLocalOffset(loopOffset + 1, priorityOffset)) {
+                // our local flags claim we have a task with higher priority!
+                final int loopIndex = physicalIndex(loopOffset);
+                final WorkStealingPool myPool = myPools.get(loopIndex);
+                final Object localTask = popLocal(loopIndex, myPool);
+                if (localTask != WorkStealingPool.EMPTY) {
+                    // found a local task to execute with higher priority
+                    if (!myPool.isEmpty()) {
+                        globalPriorityState.set(loopIndex, true);
+                        localMaxPriorityIndex = loopOffset;
                     } else {
-                        localPriorityState[loopIndex] = false;
+                        localPriorityState.set(loopIndex, false);
                     }
+                    foundPriorityIndex = loopIndex;
+                    return localTask;
+                } else {
+                    localPriorityState.set(loopIndex, false);
                 }
             }
 
             // exhaustively search local and global pools, attempting steals
-            int loopPriorityIndex = priorityIndex;
-            while (loopPriorityIndex < priorityLevels) {
-                {
-                    final Object localTask = myPools[loopPriorityIndex].popBottom();
+            int loopPriorityOffset = priorityOffset;
+            while (loopPriorityOffset < priorityLevels) {
+                final int loopPriorityIndex = physicalIndex(loopPriorityOffset);
+                final WorkStealingPool myPool = myPools.get(loopPriorityIndex);
+                if (myPool != null) {
+                    final Object localTask = popLocal(loopPriorityIndex, myPool);
                     if (localTask != WorkStealingPool.EMPTY) {
                         // found a local task to execute
-                        localMaxPriorityIndex = loopPriorityIndex;
+                        localMaxPriorityIndex = loopPriorityOffset;
+                        foundPriorityIndex = loopPriorityIndex;
                         return localTask;
                     }
                 }
-                for (int i = 0; i < parallelism; i++) {
-                    // find victim index and try to steal from there
-                    final WorkerThread victimThread = allWorkerThreads[previousVictim];
-                    if (victimThread.claimsTaskWithPriority(loopPriorityIndex)) {
-                        final Object stolenTask = victimThread.steal(loopPriorityIndex);
-                        if (stolenTask != WorkStealingPool.EMPTY) {
-                            // found a stolen task to execute
-                            return stolenTask;
-                        }
-                    }
-                    // Current victim couldn't provide task, update victim
-                    previousVictim = nextVictim(previousVictim);
-                    if (previousVictim == threadSeqNum) {
-                        previousVictim = nextVictim(previousVictim);
-                    }
+                final Object stolenTask = stealTaskWithPriority(loopPriorityIndex);
+                if (stolenTask != WorkStealingPool.EMPTY) {
+                    foundPriorityIndex = loopPriorityIndex;
+                    return stolenTask;
                 }
 
                 // no task with specified priority found, attempt to update global state
                 globalPriorityState.set(loopPriorityIndex, false);
+                globalStateResets++;
+                // a victim or an external submitter may have added a task after our scan, restore the flag if so
+                if (levelHasWork(loopPriorityIndex)) {
+                    globalPriorityState.set(loopPriorityIndex, true);
+                }
 
                 // try and search for task with next available priority
-                loopPriorityIndex = globalPriorityState.nextAvailableIndex(loopPriorityIndex + 1);
+                loopPriorityOffset = nextGlobalOffset(loopPriorityOffset + 1);
             }
             // found no task to execute :(
             return WorkStealingPool.EMPTY;
         }
 
-        private void pushTask(final int priorityLevel, final Object item) {
-            final int priorityIndex = maxPriorityInc - priorityLevel;
-            final boolean priorityAvailable = localPriorityState[priorityIndex];
+        private void pushTask(final int priorityIndex, final Object item) {
+            final boolean priorityAvailable = localPriorityState.get(priorityIndex);
+            lastPushIndex = priorityIndex;
 
-            myPools[priorityIndex].pushBottom(item);
+            myPool(priorityIndex).pushBottom(item);
+            publishLevel(priorityIndex, priorityAvailable);
+            workerSizing.wakeParkedWorker();
+        }
+
+        private void pushTasks(final int priorityIndex, final Object[] items, final int count) {
+            final boolean priorityAvailable = localPriorityState.get(priorityIndex);
+            lastPushIndex = priorityIndex;
+
+            myPool(priorityIndex).pushBottomBatch(items, count);
+            publishLevel(priorityIndex, priorityAvailable);
+            workerSizing.wakeParkedWorker();
+        }
+
+        private WorkStealingPool myPool(final int priorityIndex) {
+            WorkStealingPool myPool = myPools.get(priorityIndex);
+            if (myPool == null) {
+                myPool = poolType.newInstance(logPoolCapacity);
+                myPools.set(priorityIndex, myPool);
+            }
+            return myPool;
+        }
+
+        /**
+         * Updates the flags after tasks have been pushed into our pool at the specified level.
+         */
+        private void publishLevel(final int priorityIndex, final boolean priorityAvailable) {
             if (!priorityAvailable) {
                 // need to update both global and local flags
                 globalPriorityState.set(priorityIndex, true);
-                localPriorityState[priorityIndex] = true;
+                localPriorityState.set(priorityIndex, true);
+            } else if (!globalPriorityState.isSet(priorityIndex)) {
+                // a thief may have cleared the global flag, advertise the task so woken workers can find it
+                globalPriorityState.set(priorityIndex, true);
+            }
+            localMaxPriorityIndex = Math.min(localMaxPriorityIndex, offsetOf(priorityIndex));
+        }
+
+        private WorkerMetrics metrics() {
+            return new WorkerMetrics(
+                    levelExecutedTasks.clone(), localPops, successfulSteals, stealAttempts - successfulSteals,
+                    idleSpins, globalStateResets);
+        }
+
+        @Override
+        boolean hasLocalWork() {
+            for (int priorityIndex = localPriorityState.nextSetIndex(0, priorityLevels);
+                 priorityIndex < priorityLevels;
+                 priorityIndex = localPriorityState.nextSetIndex(priorityIndex + 1, priorityLevels)) {
+                if (!myPools.get(priorityIndex).isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        int localBacklog() {
+            return myPools.get(lastPushIndex).size();
+        }
+
+        @Override
+        public boolean hasWork() {
+            if (stopped()) {
+                return true;
+            }
+            // thieves restore a cleared flag if they observe a non-empty pool, hence only flagged levels need checking
+            for (int priorityIndex = globalPriorityState.nextAvailableIndex(0);
+                 priorityIndex < priorityLevels;
+                 priorityIndex = globalPriorityState.nextAvailableIndex(priorityIndex + 1)) {
+                if (levelHasWork(priorityIndex)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean levelHasWork(final int priorityIndex) {
+            for (final WorkerThread workerThread : allWorkerThreads) {
+                if (workerThread.claimsNonEmptyPool(priorityIndex)) {
+                    return true;
+                }
+            }
+            return !injectionQueues.isEmpty(priorityIndex);
+        }
+
+        /**
+         * Moves up to half of the victim's tasks at the specified level into our own pool for that level, the first
+         * stolen task is returned for immediate execution.
+         */
+        private Object stealHalf(final WorkerThread victimThread, final int priorityIndex) {
+            // rely on the victim to update its own flags that might be out of sync due to a steal
+            final WorkStealingPool victimPool = victimThread.myPools.get(priorityIndex);
+            if (victimPool == null) {
+                return WorkStealingPool.EMPTY;
+            }
+            // a spare worker keeps no tasks in its pools
+            final int maxTasks = isSpare() ? 1 : Math.max(1, Math.min(stealBuffer.length, (victimPool.size() + 1) / 2));
+            final int numStolen = victimPool.stealBatch(maxTasks, stealBuffer);
+            if (numStolen == 0) {
+                return WorkStealingPool.EMPTY;
+            }
+            victimThread.stealDemand = true;
+            // tasks of cancelled groups are dropped rather than moved into our pool
+            int numLive = 0;
+            for (int i = 0; i < numStolen; i++) {
+                final Object stolenTask = stealBuffer[i];
+                stealBuffer[i] = null;
+                if (isDiscarded(stolenTask)) {
+                    discard(stolenTask);
+                } else {
+                    stealBuffer[numLive++] = stolenTask;
+                }
+            }
+            discardTasks(priorityIndex, numStolen - numLive);
+            if (numLive == 0) {
+                return WorkStealingPool.EMPTY;
+            }
+            final Object result = stealBuffer[0];
+            stealBuffer[0] = null;
+            if (numLive > 1) {
+                final boolean priorityAvailable = localPriorityState.get(priorityIndex);
+                final WorkStealingPool myPool = myPool(priorityIndex);
+                for (int i = 1; i < numLive; i++) {
+                    myPool.pushBottom(stealBuffer[i]);
+                    stealBuffer[i] = null;
+                }
+                publishLevel(priorityIndex, priorityAvailable);
+                workerSizing.wakeParkedWorker();
+            }
+            return result;
+        }
+
+        /**
+         * Pops from our own pool, dropping the tasks of cancelled groups on the way. Tasks of a group are usually
+         * spawned together, hence a run of them is discarded in one pass with a single update of the detector.
+         */
+        private Object popLocal(final int priorityIndex, final WorkStealingPool myPool) {
+            int numDiscarded = 0;
+            Object localTask = myPool.popBottom();
+            while (isDiscarded(localTask)) {
+                discard(localTask);
+                numDiscarded++;
+                localTask = myPool.popBottom();
+            }
+            discardTasks(priorityIndex, numDiscarded);
+            if (localTask != WorkStealingPool.EMPTY) {
+                localPops++;
+            }
+            return localTask;
+        }
+
+        private Object pollInjected(final int priorityIndex) {
+            int numDiscarded = 0;
+            Object injectedTask = injectionQueues.poll(priorityIndex, threadSeqNum);
+            while (isDiscarded(injectedTask)) {
+                discard(injectedTask);
+                numDiscarded++;
+                injectedTask = injectionQueues.poll(priorityIndex, threadSeqNum);
+            }
+            discardTasks(priorityIndex, numDiscarded);
+            return injectedTask;
+        }
+
+        /**
+         * @return true for tasks of cancelled groups and for expired tasks of a deadline executor that sheds them.
+         */
+        private static boolean isDiscarded(final Object task) {
+            if (task instanceof GroupedTask) {
+                return ((GroupedTask) task).isCancelled();
+            }
+            return task instanceof DeadlineTask && ((DeadlineTask) task).hasExpired();
+        }
+
+        private static void discard(final Object task) {
+            if (task instanceof GroupedTask) {
+                ((GroupedTask) task).discard();
+            } else if (task instanceof DeadlineTask) {
+                ((DeadlineTask) task).discard();
+            }
+        }
+
+        private void discardTasks(final int priorityIndex, final int numDiscarded) {
+            if (numDiscarded > 0) {
+                discardedTasks += numDiscarded;
+                terminationDetector.tasksCompleted(numDiscarded);
+                if (QosMonitor.ENABLED && qosMonitor != null) {
+                    qosMonitor.tasksDropped(maxPriorityInc - priorityIndex, numDiscarded);
+                }
             }
-            localMaxPriorityIndex = Math.min(localMaxPriorityIndex, priorityIndex);
         }
 
-        private Object steal(final int priorityIndex) {
-            // rely on the worker to update its own flags that might be out of sync due to a steal
-            return myPools[priorityIndex].steal();
+        @Override
+        public int approximateLoad(final int worker) {
+            // load at the priority level currently being searched
+            final WorkStealingPool pool = allWorkerThreads[worker].myPools.get(stealPriorityIndex);
+            return pool == null ? 0 : pool.size();
+        }
+
+        private boolean claimsNonEmptyPool(final int priorityIndex) {
+            final WorkStealingPool pool = myPools.get(priorityIndex);
+            return pool != null && !pool.isEmpty();
         }
 
         private boolean claimsTaskWithPriority(final int priorityIndex) {
-            return localPriorityState[priorityIndex];
+            return localPriorityState.get(priorityIndex);
         }
 
         private boolean stopped() {
-            return countDownLatch.getCount() <= 0;
+            return terminationDetector.isTerminated();
         }
     }
 
+    /**
+     * Flags of the non-empty priority levels across all workers, workers race to set and clear them.
+     */
     private static class GlobalPriorityState {
-        private final boolean[] statusArray;
+        private final AtomicPriorityBitmap statusBitmap;
 
         private GlobalPriorityState(final int levels) {
-            this.statusArray = new boolean[levels];
-            for (int i = 0; i < statusArray.length; i++) {
-                statusArray[i] = false;
-            }
+            this.statusBitmap = new AtomicPriorityBitmap(levels);
         }
 
         public void set(final int index, final boolean value) {
-            statusArray[index] = (value);
+            if (value) {
+                statusBitmap.set(index);
+            } else {
+                statusBitmap.clear(index);
+            }
+        }
+
+        public boolean isSet(final int index) {
+            return statusBitmap.isSet(index);
         }
 
         public int nextAvailableIndex(final int startIndex) {
-            int i = startIndex;
-            for (; i < statusArray.length; i++) {
-                if (statusArray[i]) {
-                    return i;
+            return statusBitmap.nextSetIndex(startIndex);
+        }
+    }
+
+    /**
+     * Flags of the non-empty priority levels of a single worker. Written only by the owner, thieves read them as
+     * hints.
+     */
+    private static class LocalPriorityState {
+        private final long[] statusWords;
+
+        private LocalPriorityState(final int levels) {
+            this.statusWords = new long[(levels + 63) >>> 6];
+        }
+
+        public boolean get(final int index) {
+            return (statusWords[index >>> 6] & (1L << index)) != 0;
+        }
+
+        public void set(final int index, final boolean value) {
+            if (value) {
+                statusWords[index >>> 6] |= (1L << index);
+            } else {
+                statusWords[index >>> 6] &= ~(1L << index);
+            }
+        }
+
+        /**
+         * @return the first set index in [fromIndex, toIndex), or toIndex if none.
+         */
+        public int nextSetIndex(final int fromIndex, final int toIndex) {
+            if (fromIndex >= toIndex) {
+                return toIndex;
+            }
+            int word = fromIndex >>> 6;
+            long value = statusWords[word] & (-1L << fromIndex);
+            while (true) {
+                if (value != 0) {
+                    return Math.min(toIndex, (word << 6) + Long.numberOfTrailingZeros(value));
+                }
+                word++;
+                if ((word << 6) >= toIndex) {
+                    return toIndex;
                 }
+                value = statusWords[word];
             }
-            return i;
         }
     }
 }
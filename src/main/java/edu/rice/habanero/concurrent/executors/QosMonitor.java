@@ -0,0 +1,192 @@
+package edu.rice.habanero.concurrent.executors;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the quality of service of an executor online, on the same basis for every executor: a task is counted as
+ * queued from its submission until it starts or is dropped, a larger priority value is served first.
+ * <p/>
+ * Each time a task starts the monitor records whether a task with a strictly higher priority was queued (a priority
+ * inversion) and how many of them were, and every 64th start of a thread samples the number of queued tasks at each
+ * priority. Each completion adds to the priority-weighted completion time, the completion times are measured from the
+ * creation of the monitor and weighted by <code>priority - lowestPriority + 1</code>.
+ * <p/>
+ * QoS is measured only if the JVM is started with <code>-Dhabanero.qos=true</code>, the static final {@link #ENABLED}
+ * guards every call into the monitor so that the executors pay nothing otherwise. The per-priority queued counts are
+ * shared by all threads, the remaining counters are kept per thread and are aggregated on demand, they are
+ * approximate while the executor is running.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class QosMonitor {
+
+    public static final boolean ENABLED = Boolean.getBoolean("habanero.qos");
+
+    private static final int SAMPLE_MASK = (1 << 6) - 1;
+
+    private final long originNanos = System.nanoTime();
+    // priorities are not known up front, e.g. the standard work-stealing executor has no priority range
+    private final ConcurrentSkipListMap<Integer, Level> levels = new ConcurrentSkipListMap<>();
+    private final AtomicLong queueSamples = new AtomicLong(0);
+    private final Queue<Recorder> recorders = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Recorder> threadRecorder = new ThreadLocal<Recorder>() {
+        @Override
+        protected Recorder initialValue() {
+            final Recorder recorder = new Recorder();
+            recorders.add(recorder);
+            return recorder;
+        }
+    };
+
+    public void taskQueued(final int priority) {
+        level(priority).queued.incrementAndGet();
+    }
+
+    /**
+     * Invoked for queued tasks that are discarded without running, e.g. the tasks of a cancelled group.
+     */
+    public void tasksDropped(final int priority, final int numTasks) {
+        level(priority).queued.addAndGet(-numTasks);
+    }
+
+    public void taskStarted(final int priority) {
+        level(priority).queued.decrementAndGet();
+        long higherQueued = 0;
+        for (final Level level : levels.tailMap(priority, false).values()) {
+            higherQueued += Math.max(0, level.queued.get());
+        }
+
+        final Recorder recorder = threadRecorder.get();
+        recorder.startedTasks++;
+        recorder.higherQueuedSum += higherQueued;
+        if (higherQueued > 0) {
+            recorder.inversions++;
+        }
+        if ((recorder.startedTasks & SAMPLE_MASK) == 0) {
+            queueSamples.incrementAndGet();
+            for (final Level level : levels.values()) {
+                level.queuedSum.addAndGet(Math.max(0, level.queued.get()));
+            }
+        }
+    }
+
+    public void taskCompleted(final int priority) {
+        final double completionNanos = System.nanoTime() - originNanos;
+        final Recorder recorder = threadRecorder.get();
+        recorder.completedTasks++;
+        recorder.prioritySum += priority;
+        recorder.completionSum += completionNanos;
+        recorder.weightedCompletionSum += priority * completionNanos;
+    }
+
+    private Level level(final int priority) {
+        final Level level = levels.get(priority);
+        if (level != null) {
+            return level;
+        }
+        final Level newLevel = new Level();
+        final Level existingLevel = levels.putIfAbsent(priority, newLevel);
+        return existingLevel == null ? newLevel : existingLevel;
+    }
+
+    public long startedTasks() {
+        long result = 0;
+        for (final Recorder recorder : recorders) {
+            result += recorder.startedTasks;
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of task starts while a task with a strictly higher priority was queued.
+     */
+    public long inversions() {
+        long result = 0;
+        for (final Recorder recorder : recorders) {
+            result += recorder.inversions;
+        }
+        return result;
+    }
+
+    /**
+     * @return the percentage of task starts that were priority inversions.
+     */
+    public double inversionRate() {
+        final long startedTasks = startedTasks();
+        return startedTasks == 0 ? 0 : (100.0 * inversions()) / startedTasks;
+    }
+
+    /**
+     * @return the average number of tasks with a strictly higher priority that were queued when a task started.
+     */
+    public double meanHigherQueued() {
+        long startedTasks = 0;
+        long higherQueuedSum = 0;
+        for (final Recorder recorder : recorders) {
+            startedTasks += recorder.startedTasks;
+            higherQueuedSum += recorder.higherQueuedSum;
+        }
+        return startedTasks == 0 ? 0 : (double) higherQueuedSum / startedTasks;
+    }
+
+    /**
+     * @return the sampled average number of queued tasks of each priority seen by the monitor.
+     */
+    public SortedMap<Integer, Double> meanQueued() {
+        final long numSamples = queueSamples.get();
+        final SortedMap<Integer, Double> result = new TreeMap<>();
+        for (final Map.Entry<Integer, Level> entry : levels.entrySet()) {
+            final long queuedSum = entry.getValue().queuedSum.get();
+            result.put(entry.getKey(), numSamples == 0 ? 0 : (double) queuedSum / numSamples);
+        }
+        return result;
+    }
+
+    /**
+     * @return the average completion time in milliseconds weighted by <code>priority - lowestPriority + 1</code>, so
+     * that completing high priority tasks early lowers the value.
+     */
+    public double weightedCompletionMillis() {
+        long completedTasks = 0;
+        double prioritySum = 0;
+        double completionSum = 0;
+        double weightedCompletionSum = 0;
+        for (final Recorder recorder : recorders) {
+            completedTasks += recorder.completedTasks;
+            prioritySum += recorder.prioritySum;
+            completionSum += recorder.completionSum;
+            weightedCompletionSum += recorder.weightedCompletionSum;
+        }
+        if (completedTasks == 0) {
+            return 0;
+        }
+        // the lowest priority is only known now, shift the weights accordingly
+        final double weightOffset = levels.firstKey() - 1;
+        final double weightSum = prioritySum - weightOffset * completedTasks;
+        return (weightedCompletionSum - weightOffset * completionSum) / weightSum / 1e6;
+    }
+
+    private static final class Level {
+        private final AtomicLong queued = new AtomicLong(0);
+        private final AtomicLong queuedSum = new AtomicLong(0);
+    }
+
+    /**
+     * The counters of a single thread, written only by that thread.
+     */
+    private static final class Recorder {
+        private long startedTasks;
+        private long inversions;
+        private long higherQueuedSum;
+        private long completedTasks;
+        private double prioritySum;
+        private double completionSum;
+        private double weightedCompletionSum;
+    }
+}
@@ -0,0 +1,14 @@
+package edu.rice.habanero.concurrent.executors;
+
+/**
+ * Implemented by the executors to report their quality of service, measured by a {@link QosMonitor}.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public interface QosStatistics {
+
+    /**
+     * @return the monitor of the executor, or null unless {@link QosMonitor#ENABLED}.
+     */
+    QosMonitor qosMonitor();
+}
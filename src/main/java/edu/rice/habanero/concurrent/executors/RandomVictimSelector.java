@@ -0,0 +1,44 @@
+package edu.rice.habanero.concurrent.executors;
+
+/**
+ * Picks victims uniformly at random from the other workers using a per-worker xorshift generator.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+class RandomVictimSelector implements VictimSelector {
+
+    private final int workerIndex;
+    private final int parallelism;
+    private int seed;
+
+    RandomVictimSelector(final int workerIndex, final int parallelism) {
+        this.workerIndex = workerIndex;
+        this.parallelism = parallelism;
+        // xorshift requires a non-zero seed
+        this.seed = (workerIndex + 1) * 0x9E3779B9 | 1;
+    }
+
+    protected final int randomVictim() {
+        if (parallelism == 1) {
+            return workerIndex;
+        }
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        // choose among the other workers and skip over the owner index
+        final int candidate = (x >>> 1) % (parallelism - 1);
+        return candidate >= workerIndex ? candidate + 1 : candidate;
+    }
+
+    @Override
+    public int nextVictim() {
+        return randomVictim();
+    }
+
+    @Override
+    public void stealAttempted(final int victim, final boolean success) {
+        // stateless between attempts
+    }
+}
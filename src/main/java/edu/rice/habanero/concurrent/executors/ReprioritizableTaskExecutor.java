@@ -0,0 +1,16 @@
+package edu.rice.habanero.concurrent.executors;
+
+import edu.rice.habanero.concurrent.util.TaskHandle;
+
+/**
+ * An executor whose queued tasks can be moved to a different priority.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public interface ReprioritizableTaskExecutor extends TaskExecutor {
+
+    /**
+     * @return a handle through which the priority of the task can be changed until a worker dequeues it.
+     */
+    TaskHandle submitWithHandle(int priority, Runnable task);
+}
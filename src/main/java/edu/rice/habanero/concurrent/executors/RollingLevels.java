@@ -0,0 +1,73 @@
+package edu.rice.habanero.concurrent.executors;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The rolling window of deadline buckets of a {@link DeadlineWstTaskExecutor}.
+ * <p/>
+ * Bucket <code>b</code> is kept at level index <code>b % levels</code>, hence advancing the window only moves the
+ * head index and the pools of the levels are reused. The head level holds the earliest bucket, the workers scan the
+ * levels from the head and wrap around. The window only advances past an empty head level, tasks whose bucket lies
+ * before the head are kept at the head.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+final class RollingLevels {
+
+    private final int levels;
+    private final long bucketNanos;
+    private final long originNanos;
+    private final AtomicLong headBucket = new AtomicLong(0);
+
+    RollingLevels(final int levels, final DeadlineWindow deadlineWindow) {
+        this.levels = levels;
+        this.bucketNanos = deadlineWindow.bucketNanos();
+        this.originNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the level index of the earliest bucket in the window.
+     */
+    int head() {
+        return (int) (headBucket.get() % levels);
+    }
+
+    /**
+     * @return the level index of the bucket <code>offset</code> buckets after the head.
+     */
+    int levelIndex(final int offset) {
+        return (int) ((headBucket.get() + offset) % levels);
+    }
+
+    /**
+     * @return the level index of the bucket of the deadline, clamped to the window.
+     */
+    int deadlineIndex(final long deadlineNanos) {
+        final long head = headBucket.get();
+        final long offset = Math.max(0, Math.min(bucket(deadlineNanos) - head, levels - 1));
+        return (int) ((head + offset) % levels);
+    }
+
+    /**
+     * @return true if the head lags behind the bucket of the current time.
+     */
+    boolean isBehind(final long currentNanos) {
+        return headBucket.get() < bucket(currentNanos);
+    }
+
+    /**
+     * Moves the window forward by one bucket, the caller must have observed the head level <code>headIndex</code>
+     * to be empty.
+     *
+     * @return true if the window advanced, false if another worker advanced it first.
+     */
+    boolean advance(final int headIndex) {
+        final long head = headBucket.get();
+        return head % levels == headIndex && headBucket.compareAndSet(head, head + 1);
+    }
+
+    private long bucket(final long timeNanos) {
+        // deadlines before the origin map to buckets before the head
+        return (timeNanos - originNanos) / bucketNanos;
+    }
+}
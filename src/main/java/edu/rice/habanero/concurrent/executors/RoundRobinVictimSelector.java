@@ -0,0 +1,34 @@
+package edu.rice.habanero.concurrent.executors;
+
+/**
+ * Walks the other workers in index order, a victim is kept as long as steals from it succeed.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+final class RoundRobinVictimSelector implements VictimSelector {
+
+    private final int workerIndex;
+    private final int parallelism;
+    private int victim;
+
+    RoundRobinVictimSelector(final int workerIndex, final int parallelism) {
+        this.workerIndex = workerIndex;
+        this.parallelism = parallelism;
+        this.victim = (workerIndex + 1) % parallelism;
+    }
+
+    @Override
+    public int nextVictim() {
+        return victim;
+    }
+
+    @Override
+    public void stealAttempted(final int victim, final boolean success) {
+        if (!success) {
+            this.victim = (this.victim + 1) % parallelism;
+            if (this.victim == workerIndex) {
+                this.victim = (this.victim + 1) % parallelism;
+            }
+        }
+    }
+}
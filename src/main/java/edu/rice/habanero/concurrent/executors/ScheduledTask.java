@@ -0,0 +1,132 @@
+package edu.rice.habanero.concurrent.executors;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A delayed or periodic task of a {@link TimingWheelScheduler}. Once it comes due the task is submitted to the executor
+ * with its priority, the handle can cancel the runs that have not been submitted yet.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class ScheduledTask implements Runnable {
+
+    private static final int WAITING = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+    private static final int CANCELLED = 3;
+
+    private final TimingWheelScheduler scheduler;
+    private final int priority;
+    private final Runnable runnable;
+    // zero for one-shot tasks
+    private final long periodNanos;
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+    // relative to the start of the scheduler, advanced by the period before each run is rearmed
+    private long deadlineNanos;
+
+    // owned by the ticker of the scheduler
+    long deadlineTick;
+    int slot = -1;
+    ScheduledTask prev;
+    ScheduledTask next;
+
+    ScheduledTask(
+            final TimingWheelScheduler scheduler, final int priority, final Runnable runnable,
+            final long deadlineNanos, final long periodNanos) {
+        this.scheduler = scheduler;
+        this.priority = priority;
+        this.runnable = runnable;
+        this.deadlineNanos = deadlineNanos;
+        this.periodNanos = periodNanos;
+        this.deadlineTick = scheduler.tickOf(deadlineNanos);
+    }
+
+    public int priority() {
+        return priority;
+    }
+
+    /**
+     * Cancels the runs that have not been submitted to the executor yet, a run in progress completes.
+     *
+     * @return true if the task will not be run again because of this call, false if it had already come due as a
+     * one-shot task, failed or been cancelled.
+     */
+    public boolean cancel() {
+        while (true) {
+            final int currentState = state.get();
+            if (currentState != WAITING && currentState != RUNNING) {
+                return false;
+            }
+            if (state.compareAndSet(currentState, CANCELLED)) {
+                scheduler.cancelled(this);
+                return true;
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return state.get() == CANCELLED;
+    }
+
+    /**
+     * @return true if the task will not be submitted again: a one-shot task that has come due, a periodic task that
+     * failed, or a cancelled task.
+     */
+    public boolean isDone() {
+        final int currentState = state.get();
+        return currentState == DONE || currentState == CANCELLED;
+    }
+
+    boolean isWaiting() {
+        return state.get() == WAITING;
+    }
+
+    /**
+     * Invoked by the ticker once the task is due. A one-shot task is done from here on, as its token passes to the
+     * submitted run; a periodic task keeps its token while it runs and can still be cancelled.
+     *
+     * @return true if the task should be submitted, false if it has been cancelled meanwhile.
+     */
+    boolean fire() {
+        return state.compareAndSet(WAITING, periodNanos == 0 ? DONE : RUNNING);
+    }
+
+    /**
+     * @return true if the task will not come due again.
+     */
+    boolean isOneShot() {
+        return periodNanos == 0;
+    }
+
+    @Override
+    public void run() {
+        try {
+            runnable.run();
+        } catch (final Throwable th) {
+            // a failed periodic task is not rearmed, as with ScheduledThreadPoolExecutor
+            final Thread currentThread = Thread.currentThread();
+            currentThread.getUncaughtExceptionHandler().uncaughtException(currentThread, th);
+            if (periodNanos != 0 && state.compareAndSet(RUNNING, DONE)) {
+                scheduler.completed(this);
+            }
+            return;
+        }
+        if (periodNanos != 0) {
+            // fixed rate: runs that are late come due at once, but never overlap
+            deadlineNanos += periodNanos;
+            deadlineTick = scheduler.tickOf(deadlineNanos);
+            if (state.compareAndSet(RUNNING, WAITING)) {
+                scheduler.rearm(this);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduledTask{" +
+                "priority=" + priority +
+                ", periodNanos=" + periodNanos +
+                ", state=" + state.get() +
+                '}';
+    }
+}
@@ -0,0 +1,16 @@
+package edu.rice.habanero.concurrent.executors;
+
+/**
+ * Implemented by the work-stealing executors to expose the scheduler counters of their workers. Each worker writes its
+ * counters only from its own thread without synchronization, the counters are aggregated on demand and are approximate
+ * while the executor is running.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public interface SchedulerMetrics {
+
+    /**
+     * @return a snapshot of the counters of each worker, indexed by worker.
+     */
+    WorkerMetrics[] workerMetrics();
+}
@@ -0,0 +1,19 @@
+package edu.rice.habanero.concurrent.executors;
+
+/**
+ * Busy-spins on the work queues, the worker never releases its core.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+final class SpinIdleStrategy implements IdleStrategy {
+
+    @Override
+    public void idle(final int idleCount, final WorkProbe workProbe) {
+        // return immediately and search again
+    }
+
+    @Override
+    public boolean wakeUp() {
+        return false;
+    }
+}
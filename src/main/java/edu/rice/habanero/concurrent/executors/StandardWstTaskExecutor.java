@@ -1,75 +1,227 @@
 package edu.rice.habanero.concurrent.executors;
 
-import edu.rice.habanero.concurrent.util.ModCountDownLatch;
+import edu.rice.habanero.concurrent.util.Blocker;
+import edu.rice.habanero.concurrent.util.GroupedTask;
+import edu.rice.habanero.concurrent.util.InjectionQueues;
+import edu.rice.habanero.concurrent.util.Prioritized;
 import edu.rice.habanero.concurrent.util.PriorityTask;
+import edu.rice.habanero.concurrent.util.TaskFuture;
+import edu.rice.habanero.concurrent.util.TaskGroup;
+import edu.rice.habanero.concurrent.util.TerminationDetector;
 import edu.rice.habanero.concurrent.wstdeque.PoolType;
 import edu.rice.habanero.concurrent.wstdeque.WorkStealingPool;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
  * @author Vivek Sarkar
  */
-public class StandardWstTaskExecutor implements TaskExecutor {
+public class StandardWstTaskExecutor implements TaskExecutor, StealStatistics, SchedulerMetrics, EventTracing,
+        QosStatistics {
 
     private final PoolType poolType;
     private final int parallelism;
-    private final ModCountDownLatch countDownLatch;
+    private final TerminationDetector terminationDetector;
+    // null unless the workers are persistent
+    private final KernelEpochs kernelEpochs;
+    private final InjectionQueues injectionQueues;
     private final WorkerThread[] workerThreads;
-    private boolean allThreadsStarted = false;
-
-    private final AtomicInteger startedThreadsCounter = new AtomicInteger(-1);
+    private final WorkerSizing<WorkerThread> workerSizing;
+    private final QosMonitor qosMonitor = QosMonitor.ENABLED ? new QosMonitor() : null;
 
     public StandardWstTaskExecutor(final PoolType poolType, final int parallelism) {
+        this(poolType, parallelism, new WstOptions());
+    }
+
+    /**
+     * @param options the priority aging option does not apply, tasks are not kept at priority levels.
+     */
+    public StandardWstTaskExecutor(final PoolType poolType, final int parallelism, final WstOptions options) {
+        final LocalityDomains localityDomains = options.localityDomains(parallelism);
+        localityDomains.checkParallelism(parallelism);
         this.poolType = poolType;
         this.parallelism = parallelism;
-        this.countDownLatch = new ModCountDownLatch(1);
+        this.terminationDetector = options.terminationDetector().newInstance(parallelism);
+        this.kernelEpochs = options.workerLifecycle() == WorkerLifecycle.PERSISTENT ?
+                new KernelEpochs(terminationDetector) : null;
+        this.injectionQueues = new InjectionQueues(1, parallelism);
         this.workerThreads = new WorkerThread[parallelism];
+        this.workerSizing = new WorkerSizing<WorkerThread>(
+                workerThreads, options.elasticSizing(), terminationDetector) {
+            @Override
+            WorkerThread newWorker(final int workerIndex) {
+                final WorkerThread workerThread = new WorkerThread(
+                        workerIndex, poolType, workerThreads, this, injectionQueues, terminationDetector,
+                        options.idleStrategy(), options.victimSelector(), localityDomains, qosMonitor, kernelEpochs);
+                if (kernelEpochs != null) {
+                    // dormant workers do not keep the JVM alive if the executor is never closed
+                    workerThread.setDaemon(true);
+                }
+                return workerThread;
+            }
+        };
         for (int i = 0; i < parallelism; i++) {
-            this.workerThreads[i] = new WorkerThread(i, poolType, workerThreads, countDownLatch);
+            this.workerThreads[i] = workerSizing.newWorker(i);
         }
     }
 
     @Override
     public void submit(final int priority, final Runnable runnable) {
 
-        final Runnable task = poolType.supportsPriority() ? new PriorityTask<Void>(priority, runnable, countDownLatch) : runnable;
-
-        countDownLatch.updateCount();
+        if (kernelEpochs != null) {
+            kernelEpochs.openIfTerminated();
+        }
+        // a priority task counts itself in the termination detector
+        final Runnable task;
+        if (poolType.supportsPriority()) {
+            task = new PriorityTask<Void>(priority, runnable, terminationDetector, qosMonitor);
+        } else if (QosMonitor.ENABLED) {
+            // the deques do not keep the priority, the task remembers it while QoS is measured
+            task = new QosTask(priority, runnable);
+            terminationDetector.taskSpawned();
+            qosMonitor.taskQueued(priority);
+        } else {
+            task = runnable;
+            terminationDetector.taskSpawned();
+        }
         final Thread currentThread = Thread.currentThread();
-        if (currentThread instanceof WorkerThread) {
-            ((WorkerThread) currentThread).pushTask(task);
-            if (!allThreadsStarted) {
-                final int numActiveThreads = startedThreadsCounter.incrementAndGet();
-                if (numActiveThreads < parallelism) {
-                    workerThreads[numActiveThreads].start();
-                } else {
-                    allThreadsStarted = true;
-                }
+        // a spare worker injects the tasks it spawns like other threads
+        if (currentThread instanceof WorkerThread && !((WorkerThread) currentThread).isSpare()) {
+            final WorkerThread workerThread = (WorkerThread) currentThread;
+            workerThread.pushTask(task);
+            workerSizing.pushedByWorker(workerThread);
+        } else {
+            final int workerIndex = workerSizing.claimInitialWorker();
+            if (workerIndex >= 0) {
+                workerThreads[workerIndex].pushTask(task);
+                workerSizing.startWorker(workerIndex);
+            } else {
+                // the pool of a started worker only supports pushes from its owner
+                injectionQueues.offer(0, task);
+                workerSizing.wakeParkedWorker();
+                workerSizing.injectedBacklog(1);
             }
+        }
+    }
+
+    /**
+     * Tasks that need a wrapper, for the priority pools or while QoS is measured, are submitted one by one. Plain
+     * tasks take a single update of the termination detector and a single push or append.
+     */
+    @Override
+    public void submitAll(final int priority, final Runnable[] tasks) {
+        final int count = tasks.length;
+        if (count == 0) {
+            return;
+        }
+        if (poolType.supportsPriority() || QosMonitor.ENABLED) {
+            for (final Runnable task : tasks) {
+                submit(priority, task);
+            }
+            return;
+        }
+        if (kernelEpochs != null) {
+            kernelEpochs.openIfTerminated();
+        }
+        terminationDetector.tasksSpawned(count);
+        final Thread currentThread = Thread.currentThread();
+        // a spare worker injects the tasks it spawns like other threads
+        if (currentThread instanceof WorkerThread && !((WorkerThread) currentThread).isSpare()) {
+            final WorkerThread workerThread = (WorkerThread) currentThread;
+            workerThread.pushTasks(tasks, count);
+            workerSizing.pushedByWorker(workerThread);
         } else {
-            final int numActiveThreads = startedThreadsCounter.incrementAndGet();
-            if (numActiveThreads < parallelism) {
-                workerThreads[numActiveThreads].pushTask(task);
+            final int workerIndex = workerSizing.claimInitialWorker();
+            if (workerIndex >= 0) {
+                workerThreads[workerIndex].pushTasks(tasks, count);
+                workerSizing.startWorker(workerIndex);
             } else {
-                throw new RuntimeException("All threads active, cannot accept task from non-worker thread");
+                injectionQueues.offerAll(0, tasks, count);
+                workerSizing.wakeParkedWorker();
+                workerSizing.injectedBacklog(count);
             }
-            if (numActiveThreads < parallelism) {
-                workerThreads[numActiveThreads].start();
+        }
+    }
+
+    @Override
+    public <T> TaskFuture<T> submit(final int priority, final Callable<T> task) {
+        final TaskFuture<T> future = new TaskFuture<>(this, task);
+        submit(priority, future);
+        return future;
+    }
+
+    @Override
+    public void submit(final int priority, final TaskGroup group, final Runnable task) {
+        submit(priority, new GroupedTask(group, task));
+    }
+
+    @Override
+    public boolean helpQueuedTask() {
+        final Thread currentThread = Thread.currentThread();
+        if (currentThread instanceof WorkerThread) {
+            final WorkerThread workerThread = (WorkerThread) currentThread;
+            if (workerThread.workerThreads == workerThreads) {
+                final Object task = workerThread.findTask();
+                if (task instanceof Runnable) {
+                    workerThread.runTask((Runnable) task);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isWorkerThread() {
+        final Thread currentThread = Thread.currentThread();
+        return currentThread instanceof WorkerThread && ((WorkerThread) currentThread).workerThreads == workerThreads;
+    }
+
+    @Override
+    public boolean higherPriorityPending() {
+        // all tasks share a single level
+        return false;
+    }
+
+    @Override
+    public boolean shouldSplit(final int priority) {
+        final Thread currentThread = Thread.currentThread();
+        if (currentThread instanceof WorkerThread) {
+            final WorkerThread workerThread = (WorkerThread) currentThread;
+            if (workerThread.workerThreads == workerThreads) {
+                return workerThread.shouldSplit();
             }
         }
+        return true;
+    }
+
+    @Override
+    public void managedBlock(final Blocker blocker) throws InterruptedException {
+        workerSizing.managedBlock(blocker);
+    }
+
+    /**
+     * @return the number of workers that have been started and are not retired.
+     */
+    public int activeWorkers() {
+        return workerSizing.activeWorkers();
     }
 
     @Override
     public void submit(final Runnable task) {
-        // ignore priority
-        submit(0, task);
+        // the priority only matters to a priority pool
+        submit(task instanceof Prioritized ? ((Prioritized) task).priority() : 0, task);
     }
 
     @Override
     public void triggerShutdown() {
-        countDownLatch.countDown();
+        terminationDetector.taskCompleted();
+        if (terminationDetector.tryTerminate()) {
+            workerSizing.wakeAllParkedWorkers();
+        }
     }
 
     @Override
@@ -77,43 +229,158 @@ public class StandardWstTaskExecutor implements TaskExecutor {
         boolean keepLooping = true;
         while (keepLooping) {
             try {
-                countDownLatch.await();
+                terminationDetector.await();
             } catch (final InterruptedException ex) {
                 // ignore
             } finally {
                 keepLooping = !stopped();
             }
         }
+        // workers may still be parked if termination was detected by this thread
+        workerSizing.wakeAllParkedWorkers();
+        if (EventTrace.ENABLED) {
+            EventTrace.writeTraceFile(eventTraces());
+        }
     }
 
     private boolean stopped() {
-        return countDownLatch.getCount() <= 0;
+        return terminationDetector.isTerminated();
+    }
+
+    /**
+     * Lets the dormant workers of a persistent executor exit once the running kernel, if any, has terminated. The
+     * executor cannot run further kernels. Has no effect on other executors, their workers exit at termination.
+     */
+    public void close() {
+        if (kernelEpochs != null) {
+            kernelEpochs.close();
+        }
+    }
+
+    @Override
+    public long stealAttempts() {
+        long result = 0;
+        for (final WorkerThread workerThread : workerSizing.workers()) {
+            result += workerThread.stealAttempts;
+        }
+        return result;
+    }
+
+    @Override
+    public long successfulSteals() {
+        long result = 0;
+        for (final WorkerThread workerThread : workerSizing.workers()) {
+            result += workerThread.successfulSteals;
+        }
+        return result;
+    }
+
+    @Override
+    public long remoteSteals() {
+        long result = 0;
+        for (final WorkerThread workerThread : workerSizing.workers()) {
+            result += workerThread.remoteSteals;
+        }
+        return result;
+    }
+
+    @Override
+    public WorkerMetrics[] workerMetrics() {
+        // the spare workers follow the workers of the executor
+        final List<WorkerThread> workers = workerSizing.workers();
+        final WorkerMetrics[] result = new WorkerMetrics[workers.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = workers.get(i).metrics();
+        }
+        return result;
+    }
+
+    @Override
+    public QosMonitor qosMonitor() {
+        return qosMonitor;
+    }
+
+    @Override
+    public void writeChromeTrace(final Appendable out) throws IOException {
+        EventTrace.writeChromeTrace(eventTraces(), out);
+    }
+
+    private EventTrace[] eventTraces() {
+        final List<WorkerThread> workers = workerSizing.workers();
+        final EventTrace[] result = new EventTrace[workers.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = workers.get(i).eventTrace;
+        }
+        return result;
+    }
+
+    @Override
+    public long executedTasks() {
+        long result = 0;
+        for (final WorkerThread workerThread : workerSizing.workers()) {
+            result += workerThread.executedTasks;
+        }
+        return result;
+    }
+
+    @Override
+    public long discardedTasks() {
+        long result = 0;
+        for (final WorkerThread workerThread : workerSizing.workers()) {
+            result += workerThread.discardedTasks;
+        }
+        return result;
     }
 
-    private static class WorkerThread extends Thread {
+    private static class WorkerThread extends WorkerSizing.Worker implements VictimSelector.LoadProbe {
+
+        private static final int TERMINATION_SCAN_LIMIT = 128;
+        private static final int SPLIT_DEPTH = 4;
 
         private final int parallelism;
         private final int threadSeqNum;
-        private int previousVictim;
+        private long stealAttempts;
+        private long successfulSteals;
+        private long remoteSteals;
+        private long executedTasks;
+        private long discardedTasks;
+        private long localPops;
+        private long idleSpins;
         private final WorkerThread[] workerThreads;
         private final WorkStealingPool myPool;
-        private final ModCountDownLatch countDownLatch;
+        private final boolean countsTasks;
+        private final InjectionQueues injectionQueues;
+        private final TerminationDetector terminationDetector;
+        private final VictimSelector victimSelector;
+        private final LocalityDomains localityDomains;
+
+        // set by thieves that took a task from our pool, cleared by the owner
+        private volatile boolean stealDemand;
+        private final EventTrace eventTrace = EventTrace.ENABLED ? new EventTrace() : null;
+        private final QosMonitor qosMonitor;
+        private final KernelEpochs kernelEpochs;
 
         private WorkerThread(
                 final int threadSeqNum, final PoolType poolType,
-                final WorkerThread[] workerThreads,
-                final ModCountDownLatch countDownLatch) {
+                final WorkerThread[] workerThreads, final WorkerSizing<WorkerThread> workerSizing,
+                final InjectionQueues injectionQueues,
+                final TerminationDetector terminationDetector, final IdleStrategyType idleStrategyType,
+                final VictimSelectorType victimSelectorType, final LocalityDomains localityDomains,
+                final QosMonitor qosMonitor, final KernelEpochs kernelEpochs) {
+            super(workerSizing, threadSeqNum, idleStrategyType);
             this.parallelism = workerThreads.length;
             this.threadSeqNum = threadSeqNum;
-            this.countDownLatch = countDownLatch;
-            this.previousVictim = nextVictim(threadSeqNum);
+            this.terminationDetector = terminationDetector;
+            // a spare worker is outside of the locality domains, it visits all workers in turn
+            this.victimSelector = (isSpare() ? VictimSelectorType.ROUND_ROBIN : victimSelectorType).newInstance(
+                    threadSeqNum, parallelism, this, localityDomains);
+            this.localityDomains = localityDomains;
             this.workerThreads = workerThreads;
             this.myPool = poolType.newInstance();
-            ;
-        }
-
-        private int nextVictim(final int threadSeqNum) {
-            return (threadSeqNum + 1) % parallelism;
+            this.countsTasks = !poolType.supportsPriority();
+            this.injectionQueues = injectionQueues;
+            this.qosMonitor = qosMonitor;
+            this.kernelEpochs = kernelEpochs;
         }
 
         @Override
@@ -125,55 +392,107 @@ public class StandardWstTaskExecutor implements TaskExecutor {
                 while (keepLooping) {
                     final Object myTask = findTask();
                     if (myTask instanceof Runnable) {
-                        counter = 0;
-                        try {
-                            ((Runnable) myTask).run();
-                        } finally {
-                            countDownLatch.countDown();
+                        if (EventTrace.ENABLED && counter > 0) {
+                            eventTrace.record(EventTrace.IDLE_END, 0, 0);
                         }
+                        counter = 0;
+                        runTask((Runnable) myTask);
                     } else {
                         counter++;
-                        if (counter > 1_000_000) {
-                            final Object lastTaskAttempt = findTask();
-                            if (lastTaskAttempt == null) {
-                                // no more tasks in queues
-                                while (countDownLatch.getCount() > 0) {
-                                    countDownLatch.countDown();
-                                }
-                            } else {
-                                counter = 0;
-                                pushTask(lastTaskAttempt);
-                            }
+                        idleSpins++;
+                        if (EventTrace.ENABLED && counter == 1) {
+                            eventTrace.record(EventTrace.IDLE_START, 0, 0);
+                        }
+                        if ((counter & (counter - 1)) == 0 || counter > TERMINATION_SCAN_LIMIT) {
+                            // the full check may aggregate counters of all threads, back off while idle
+                            terminationDetector.tryTerminate();
+                        }
+                        if (idle(counter)) {
+                            counter = 0;
                         }
                     }
-                    keepLooping = !stopped();
+                    if (stopped()) {
+                        keepLooping = awaitNextKernel();
+                        counter = 0;
+                    }
                 }
+                // release the remaining parked workers so that they can observe termination
+                workerSizing.wakeAllParkedWorkers();
             } catch (final Throwable ex) {
                 ex.printStackTrace();
             }
         }
 
+        /**
+         * Invoked once the kernel has terminated, the workers of a persistent executor go dormant until the next kernel
+         * starts while the other workers exit.
+         *
+         * @return true if the worker should keep running.
+         */
+        private boolean awaitNextKernel() {
+            if (kernelEpochs == null) {
+                return false;
+            }
+            // the parked workers go dormant as well
+            workerSizing.wakeAllParkedWorkers();
+            return kernelEpochs.awaitNextEpoch();
+        }
+
+        private void runTask(final Runnable task) {
+            if (EventTrace.ENABLED) {
+                eventTrace.record(EventTrace.TASK_START, 0, 0);
+            }
+            if (QosMonitor.ENABLED && task instanceof QosTask) {
+                qosMonitor.taskStarted(((QosTask) task).priority);
+            }
+            try {
+                task.run();
+            } finally {
+                if (EventTrace.ENABLED) {
+                    eventTrace.record(EventTrace.TASK_END, 0, 0);
+                }
+                if (QosMonitor.ENABLED && task instanceof QosTask) {
+                    qosMonitor.taskCompleted(((QosTask) task).priority);
+                }
+                executedTasks++;
+                if (countsTasks) {
+                    terminationDetector.taskCompleted();
+                }
+            }
+        }
+
         private Object findTask() {
             {
-                final Object localTask = myPool.popBottom();
+                final Object localTask = popLocal();
                 if (localTask != WorkStealingPool.EMPTY) {
                     // found a local task to execute
                     return localTask;
                 }
             }
-            // search for task from victim
-            while (!stopped()) {
-                final WorkerThread victimThread = workerThreads[previousVictim];
-                final Object stolenTask = victimThread.steal();
+            // search for task from victims, a single round before reporting failure to the idle strategy
+            for (int i = 0; i < parallelism && !stopped(); i++) {
+                final int victim = victimSelector.nextVictim();
+                stealAttempts++;
+                final Object stolenTask = stealFrom(workerThreads[victim]);
                 if (stolenTask != WorkStealingPool.EMPTY) {
                     // found a stolen task to execute
+                    successfulSteals++;
+                    if (!isSpare() && !localityDomains.sameDomain(threadSeqNum, victim)) {
+                        remoteSteals++;
+                    }
+                    if (EventTrace.ENABLED) {
+                        eventTrace.record(EventTrace.STEAL, 0, victim);
+                    }
+                    victimSelector.stealAttempted(victim, true);
                     return stolenTask;
                 }
-                // update victim
-                previousVictim = nextVictim(previousVictim);
-                if (previousVictim == threadSeqNum) {
-                    previousVictim = nextVictim(previousVictim);
-                }
+                // let the selector update its victim
+                victimSelector.stealAttempted(victim, false);
+            }
+            // search for task submitted by non-worker threads
+            final Object injectedTask = pollInjected();
+            if (injectedTask != null) {
+                return injectedTask;
             }
 
             return WorkStealingPool.EMPTY;
@@ -181,14 +500,164 @@ public class StandardWstTaskExecutor implements TaskExecutor {
 
         private void pushTask(final Object item) {
             myPool.pushBottom(item);
+            workerSizing.wakeParkedWorker();
+        }
+
+        private void pushTasks(final Object[] items, final int count) {
+            myPool.pushBottomBatch(items, count);
+            workerSizing.wakeParkedWorker();
+        }
+
+        private WorkerMetrics metrics() {
+            return new WorkerMetrics(
+                    new long[]{executedTasks}, localPops, successfulSteals, stealAttempts - successfulSteals,
+                    idleSpins, 0);
+        }
+
+        @Override
+        boolean hasLocalWork() {
+            return !myPool.isEmpty();
+        }
+
+        @Override
+        int localBacklog() {
+            return myPool.size();
+        }
+
+        @Override
+        public boolean hasWork() {
+            if (stopped()) {
+                return true;
+            }
+            for (final WorkerThread workerThread : workerThreads) {
+                if (!workerThread.myPool.isEmpty()) {
+                    return true;
+                }
+            }
+            return !injectionQueues.isEmpty(0);
+        }
+
+        @Override
+        public int approximateLoad(final int worker) {
+            return workerThreads[worker].myPool.size();
         }
 
         private Object steal() {
-            return myPool.steal();
+            final Object stolenTask = myPool.steal();
+            if (stolenTask != WorkStealingPool.EMPTY) {
+                stealDemand = true;
+            }
+            return stolenTask;
+        }
+
+        /**
+         * Lazy binary splitting: a child is spawned while our pool holds fewer than <code>SPLIT_DEPTH</code> tasks for
+         * thieves, or while thieves have recently taken tasks from it or other workers are parked.
+         */
+        private boolean shouldSplit() {
+            if (stealDemand) {
+                stealDemand = false;
+                return true;
+            }
+            return workerSizing.hasParkedWorkers() || myPool.size() < SPLIT_DEPTH;
+        }
+
+        /**
+         * Pops from our own pool, dropping the tasks of cancelled groups on the way. Tasks of a group are usually
+         * spawned together, hence a run of them is discarded in one pass with a single update of the detector.
+         */
+        private Object popLocal() {
+            int numDiscarded = 0;
+            Object localTask = myPool.popBottom();
+            while (isCancelled(localTask)) {
+                discard(localTask);
+                numDiscarded++;
+                localTask = myPool.popBottom();
+            }
+            discardTasks(numDiscarded);
+            if (localTask != WorkStealingPool.EMPTY) {
+                localPops++;
+            }
+            return localTask;
+        }
+
+        private Object stealFrom(final WorkerThread victimThread) {
+            int numDiscarded = 0;
+            Object stolenTask = victimThread.steal();
+            while (isCancelled(stolenTask)) {
+                discard(stolenTask);
+                numDiscarded++;
+                stolenTask = victimThread.steal();
+            }
+            discardTasks(numDiscarded);
+            return stolenTask;
+        }
+
+        private Object pollInjected() {
+            int numDiscarded = 0;
+            Object injectedTask = injectionQueues.poll(0, threadSeqNum);
+            while (isCancelled(injectedTask)) {
+                discard(injectedTask);
+                numDiscarded++;
+                injectedTask = injectionQueues.poll(0, threadSeqNum);
+            }
+            discardTasks(numDiscarded);
+            return injectedTask;
+        }
+
+        private static boolean isCancelled(final Object task) {
+            final Object groupedTask = unwrap(task);
+            return groupedTask instanceof GroupedTask && ((GroupedTask) groupedTask).isCancelled();
+        }
+
+        /**
+         * @return the task submitted to the executor, without the wrapper of a priority pool or of the QoS monitor.
+         */
+        private static Object unwrap(final Object task) {
+            if (task instanceof PriorityTask) {
+                return ((PriorityTask<?>) task).runnable();
+            }
+            return task instanceof QosTask ? ((QosTask) task).runnable : task;
+        }
+
+        /**
+         * The priority task counted itself in the termination detector, {@link #discardTasks(int)} accounts for it as
+         * for the other tasks.
+         */
+        private void discard(final Object task) {
+            if (task instanceof QosTask) {
+                qosMonitor.tasksDropped(((QosTask) task).priority, 1);
+            } else if (task instanceof PriorityTask && QosMonitor.ENABLED && qosMonitor != null) {
+                qosMonitor.tasksDropped(((PriorityTask<?>) task).priority(), 1);
+            }
+            ((GroupedTask) unwrap(task)).discard();
+        }
+
+        private void discardTasks(final int numDiscarded) {
+            if (numDiscarded > 0) {
+                discardedTasks += numDiscarded;
+                terminationDetector.tasksCompleted(numDiscarded);
+            }
         }
 
         private boolean stopped() {
-            return countDownLatch.getCount() <= 0;
+            return terminationDetector.isTerminated();
+        }
+    }
+
+    private static final class QosTask implements Runnable {
+
+        private final int priority;
+        private final Runnable runnable;
+
+        private QosTask(final int priority, final Runnable runnable) {
+            this.priority = priority;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public void run() {
+            runnable.run();
         }
     }
 }
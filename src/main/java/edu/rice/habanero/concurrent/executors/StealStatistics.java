@@ -0,0 +1,38 @@
+package edu.rice.habanero.concurrent.executors;
+
+/**
+ * Implemented by the work-stealing executors to report how effective their steal attempts were and how many tasks
+ * they executed. Counters are updated
+ * only by the owner workers, the values are approximate while the executor is running.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public interface StealStatistics {
+
+    /**
+     * @return the number of steal operations invoked on the pools of victim workers.
+     */
+    long stealAttempts();
+
+    /**
+     * @return the number of steal operations that returned a task.
+     */
+    long successfulSteals();
+
+    /**
+     * @return the number of successful steals whose victim belongs to another {@link LocalityDomains locality domain}
+     * than the thief.
+     */
+    long remoteSteals();
+
+    /**
+     * @return the number of tasks executed by the workers.
+     */
+    long executedTasks();
+
+    /**
+     * @return the number of queued tasks of cancelled groups, and of expired tasks shed by a deadline executor, that the
+     * workers dropped without running.
+     */
+    long discardedTasks();
+}
@@ -0,0 +1,30 @@
+package edu.rice.habanero.concurrent.executors;
+
+/**
+ * Returns to the last victim a steal succeeded from, a worker that recently had surplus work is likely to have more.
+ * Random victims are used until the first successful steal and after the sticky victim fails.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+final class StickyVictimSelector extends RandomVictimSelector {
+
+    private int lastSuccessfulVictim = -1;
+
+    StickyVictimSelector(final int workerIndex, final int parallelism) {
+        super(workerIndex, parallelism);
+    }
+
+    @Override
+    public int nextVictim() {
+        return lastSuccessfulVictim >= 0 ? lastSuccessfulVictim : randomVictim();
+    }
+
+    @Override
+    public void stealAttempted(final int victim, final boolean success) {
+        if (success) {
+            lastSuccessfulVictim = victim;
+        } else if (victim == lastSuccessfulVictim) {
+            lastSuccessfulVictim = -1;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package edu.rice.habanero.concurrent.executors;
 
 import edu.rice.habanero.concurrent.util.PriorityTaskComparator;
 import edu.rice.habanero.concurrent.util.SynchronizedPriorityQueue;
+import edu.rice.habanero.concurrent.util.TerminationDetectorType;
 
 import java.util.concurrent.TimeUnit;
 
@@ -21,6 +22,15 @@ public class SynchronizedPriorityQueueTaskExecutor extends AbstractBlockingQueue
               minPriorityInc, maxPriorityInc);
     }
 
+    public SynchronizedPriorityQueueTaskExecutor(
+            final int corePoolSize, final int maximumPoolSize,
+            final long keepAliveTime, final TimeUnit timeUnit,
+            final int minPriorityInc, final int maxPriorityInc,
+            final TerminationDetectorType terminationDetectorType) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, timeUnit,
+              minPriorityInc, maxPriorityInc, terminationDetectorType);
+    }
+
     @Override
     protected void onShutdown() {
         priorityQueue.terminate();
@@ -1,5 +1,11 @@
 package edu.rice.habanero.concurrent.executors;
 
+import edu.rice.habanero.concurrent.util.Blocker;
+import edu.rice.habanero.concurrent.util.TaskFuture;
+import edu.rice.habanero.concurrent.util.TaskGroup;
+
+import java.util.concurrent.Callable;
+
 /**
  * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
  */
@@ -9,6 +15,52 @@ public interface TaskExecutor {
 
     void submit(int priority, Runnable task);
 
+    /**
+     * Submits the tasks at the same priority as successive calls of {@link #submit(int, Runnable)} would. Executors
+     * with work-stealing pools account for the batch and publish it at once.
+     */
+    void submitAll(int priority, Runnable[] tasks);
+
+    <T> TaskFuture<T> submit(int priority, Callable<T> task);
+
+    /**
+     * Submits a task that is discarded without running if the group is cancelled before the task starts.
+     */
+    void submit(int priority, TaskGroup group, Runnable task);
+
+    /**
+     * Runs at most one queued task on the calling thread, used by workers that would otherwise block waiting on other
+     * tasks. Only the workers of the executor help, for other threads this is a no-op.
+     *
+     * @return true if a task was run.
+     */
+    boolean helpQueuedTask();
+
+    /**
+     * @return true if the calling thread is one of the workers of this executor.
+     */
+    boolean isWorkerThread();
+
+    /**
+     * Queried by long running tasks at their yield points. The answer is read from flags that may be momentarily out of
+     * date, executors without priority levels always return false.
+     *
+     * @return true if the calling worker runs a task while a task with a higher priority is queued.
+     */
+    boolean higherPriorityPending();
+
+    /**
+     * Lazy task creation: tells the running task whether a child with the specified priority is worth spawning, or
+     * whether it should rather run inline. Executors that cannot tell return true.
+     */
+    boolean shouldSplit(int priority);
+
+    /**
+     * Runs the blocker until it is released. Executors that can spare a worker activate it while the calling worker is
+     * blocked, the other executors just block.
+     */
+    void managedBlock(Blocker blocker) throws InterruptedException;
+
     void triggerShutdown();
 
     void awaitTermination();
@@ -0,0 +1,74 @@
+package edu.rice.habanero.concurrent.executors;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Tells the threads of a JDK executor service apart from other threads, so that only its own threads help it while
+ * they wait on other tasks. A {@link ThreadPoolExecutor} does not expose its threads, hence its thread factory is
+ * wrapped to mark the threads it starts from then on; threads it started before keep blocking instead of helping.
+ * A {@link ForkJoinPool} does not need to be marked.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+final class ThreadPoolHelping {
+
+    private static final ThreadLocal<ExecutorService> currentPool = new ThreadLocal<>();
+
+    private ThreadPoolHelping() {
+        super();
+    }
+
+    static void markPoolThreads(final ExecutorService executor) {
+        if (!(executor instanceof ThreadPoolExecutor)) {
+            return;
+        }
+        final ThreadPoolExecutor threadPool = (ThreadPoolExecutor) executor;
+        final ThreadFactory threadFactory = threadPool.getThreadFactory();
+        threadPool.setThreadFactory(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return threadFactory.newThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        currentPool.set(threadPool);
+                        runnable.run();
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return true if the calling thread belongs to the executor service.
+     */
+    static boolean isPoolThread(final ExecutorService executor) {
+        if (executor instanceof ForkJoinPool) {
+            final Thread currentThread = Thread.currentThread();
+            return currentThread instanceof ForkJoinWorkerThread &&
+                    ((ForkJoinWorkerThread) currentThread).getPool() == executor;
+        }
+        return currentPool.get() == executor;
+    }
+
+    /**
+     * Runs the head of the queue of a {@link ThreadPoolExecutor} on one of its marked threads. Other executor services
+     * do not help, a fork-join pool compensates for the blocked worker instead.
+     *
+     * @return true if a task was run.
+     */
+    static boolean helpQueuedTask(final ExecutorService executor) {
+        if (!(executor instanceof ThreadPoolExecutor) || currentPool.get() != executor) {
+            return false;
+        }
+        final Runnable task = ((ThreadPoolExecutor) executor).getQueue().poll();
+        if (task == null) {
+            return false;
+        }
+        task.run();
+        return true;
+    }
+}
@@ -0,0 +1,160 @@
+package edu.rice.habanero.concurrent.executors;
+
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel of four levels with 64 slots each, the slots of a level span 64 times the ticks of the
+ * slots of the level below. A timer is linked into the lowest level whose range covers its remaining ticks. When the
+ * wheel reaches the start of a slot of a higher level, the timers of that slot are cascaded to lower levels, hence
+ * adding and removing a timer take constant time and every timer is cascaded at most three times. Timers beyond the
+ * range of the top level are kept in its farthest slot and are cascaded back into it until they are in range.
+ * <p/>
+ * The wheel is not thread-safe, it is owned by the ticker of a {@link TimingWheelScheduler}.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+final class TimingWheel {
+
+    private static final int LEVEL_BITS = 6;
+    private static final int SLOTS = 1 << LEVEL_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long RANGE = 1L << (LEVELS * LEVEL_BITS);
+
+    // the first timer of each slot of each level, the slots are doubly linked lists through the timers
+    private final ScheduledTask[] slots = new ScheduledTask[LEVELS * SLOTS];
+    private long currentTick;
+    private int size = 0;
+
+    TimingWheel(final long currentTick) {
+        this.currentTick = currentTick;
+    }
+
+    /**
+     * @return the last tick the wheel has advanced to, the timers of that tick have expired.
+     */
+    long currentTick() {
+        return currentTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return false if the timer is already due, the caller fires it instead.
+     */
+    boolean add(final ScheduledTask timer) {
+        final long remainingTicks = timer.deadlineTick - currentTick;
+        if (remainingTicks <= 0) {
+            return false;
+        }
+        final long slotTick = remainingTicks < RANGE ? timer.deadlineTick : currentTick + RANGE - 1;
+        int level = 0;
+        while (level < LEVELS - 1 && slotTick - currentTick >= (1L << ((level + 1) * LEVEL_BITS))) {
+            level++;
+        }
+        final int slot = (level << LEVEL_BITS) + (int) ((slotTick >>> (level * LEVEL_BITS)) & SLOT_MASK);
+        final ScheduledTask head = slots[slot];
+        timer.slot = slot;
+        timer.prev = null;
+        timer.next = head;
+        if (head != null) {
+            head.prev = timer;
+        }
+        slots[slot] = timer;
+        size++;
+        return true;
+    }
+
+    /**
+     * Unlinks the timer, has no effect if the timer is not in the wheel.
+     */
+    void remove(final ScheduledTask timer) {
+        if (timer.slot < 0) {
+            return;
+        }
+        if (timer.prev == null) {
+            slots[timer.slot] = timer.next;
+        } else {
+            timer.prev.next = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.slot = -1;
+        timer.prev = null;
+        timer.next = null;
+        size--;
+    }
+
+    /**
+     * Advances the wheel tick by tick up to <code>toTick</code>, an empty wheel jumps there at once.
+     *
+     * @param expired collects the timers that came due, in no particular order.
+     */
+    void advanceTo(final long toTick, final List<ScheduledTask> expired) {
+        while (currentTick < toTick) {
+            if (size == 0) {
+                currentTick = toTick;
+                return;
+            }
+            currentTick++;
+            // the higher levels first, their timers may move down into a slot that is cascaded next
+            int level = 0;
+            while (level < LEVELS - 1 && (currentTick & ((1L << ((level + 1) * LEVEL_BITS)) - 1)) == 0) {
+                level++;
+            }
+            for (; level > 0; level--) {
+                final int slot = (level << LEVEL_BITS) + (int) ((currentTick >>> (level * LEVEL_BITS)) & SLOT_MASK);
+                ScheduledTask timer = unlinkSlot(slot);
+                while (timer != null) {
+                    final ScheduledTask next = timer.next;
+                    timer.next = null;
+                    if (!add(timer)) {
+                        expired.add(timer);
+                    }
+                    timer = next;
+                }
+            }
+            ScheduledTask timer = unlinkSlot((int) (currentTick & SLOT_MASK));
+            while (timer != null) {
+                final ScheduledTask next = timer.next;
+                timer.next = null;
+                expired.add(timer);
+                timer = next;
+            }
+        }
+    }
+
+    /**
+     * @return the first timer of the detached slot, the timers stay chained through their next links.
+     */
+    private ScheduledTask unlinkSlot(final int slot) {
+        final ScheduledTask head = slots[slot];
+        slots[slot] = null;
+        for (ScheduledTask timer = head; timer != null; timer = timer.next) {
+            timer.slot = -1;
+            timer.prev = null;
+            size--;
+        }
+        return head;
+    }
+
+    /**
+     * Removes all timers from the wheel.
+     *
+     * @param removed collects the removed timers.
+     */
+    void clear(final List<ScheduledTask> removed) {
+        for (int slot = 0; slot < slots.length; slot++) {
+            ScheduledTask timer = unlinkSlot(slot);
+            while (timer != null) {
+                final ScheduledTask next = timer.next;
+                timer.next = null;
+                removed.add(timer);
+                timer = next;
+            }
+        }
+    }
+}
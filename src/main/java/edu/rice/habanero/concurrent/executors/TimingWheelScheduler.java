@@ -0,0 +1,199 @@
+package edu.rice.habanero.concurrent.executors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs delayed and periodic tasks on a {@link PriorityWstTaskExecutor}: once a task comes due it is submitted at its
+ * priority level, and the workers order it among the other queued tasks as usual.
+ * <p/>
+ * The timers are kept in a {@link TimingWheel} advanced by a dedicated ticker thread, which sleeps until the next tick
+ * while timers are pending and indefinitely otherwise. Scheduling and cancelling from any thread only queue the timer
+ * for the ticker, hence neither takes a lock. A task fires within one tick after its deadline, never before it.
+ * <p/>
+ * Every pending timer keeps the executor from terminating, the executor terminates once all timers have fired or have
+ * been cancelled and all tasks are done.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class TimingWheelScheduler {
+
+    private static final long DEFAULT_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final PriorityWstTaskExecutor taskExecutor;
+    private final long tickNanos;
+    private final long startNanos;
+    private final TimingWheel wheel;
+    private final ConcurrentLinkedQueue<ScheduledTask> addedTimers = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<ScheduledTask> cancelledTimers = new ConcurrentLinkedQueue<>();
+    private final Thread ticker;
+    private volatile boolean tickerIdle = false;
+    private volatile boolean shutdown = false;
+
+    public TimingWheelScheduler(final PriorityWstTaskExecutor taskExecutor) {
+        this(taskExecutor, DEFAULT_TICK_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param tick the resolution of the deadlines, the ticker wakes up once per tick while timers are pending.
+     */
+    public TimingWheelScheduler(final PriorityWstTaskExecutor taskExecutor, final long tick, final TimeUnit unit) {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tick);
+        }
+        this.taskExecutor = taskExecutor;
+        this.tickNanos = unit.toNanos(tick);
+        this.startNanos = System.nanoTime();
+        this.wheel = new TimingWheel(0);
+        this.ticker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, "timing-wheel-ticker");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * Submits the task to the executor at the priority once the delay has elapsed.
+     *
+     * @throws IllegalStateException if the scheduler has been shut down.
+     */
+    public ScheduledTask schedule(final int priority, final long delay, final TimeUnit unit, final Runnable task) {
+        return add(priority, task, delay, unit, 0);
+    }
+
+    /**
+     * Submits the task to the executor at the priority after the initial delay and then periodically at a fixed rate,
+     * until it is cancelled or a run fails. A run that is late is submitted at once, but the runs never overlap.
+     *
+     * @throws IllegalStateException if the scheduler has been shut down.
+     */
+    public ScheduledTask scheduleAtFixedRate(
+            final int priority, final long initialDelay, final long period, final TimeUnit unit, final Runnable task) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive: " + period);
+        }
+        return add(priority, task, initialDelay, unit, unit.toNanos(period));
+    }
+
+    private ScheduledTask add(
+            final int priority, final Runnable task, final long delay, final TimeUnit unit, final long periodNanos) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        if (shutdown) {
+            throw new IllegalStateException("Scheduler has been shut down");
+        }
+        final long deadlineNanos = System.nanoTime() - startNanos + Math.max(0, unit.toNanos(delay));
+        final ScheduledTask scheduledTask = new ScheduledTask(this, priority, task, deadlineNanos, periodNanos);
+        taskExecutor.holdToken();
+        rearm(scheduledTask);
+        return scheduledTask;
+    }
+
+    /**
+     * Stops the ticker and cancels the pending timers, a periodic task that is running is not rearmed.
+     */
+    public void shutdown() {
+        shutdown = true;
+        LockSupport.unpark(ticker);
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * @return the first tick that starts at or after the time.
+     */
+    long tickOf(final long nanos) {
+        return (nanos + tickNanos - 1) / tickNanos;
+    }
+
+    /**
+     * Queues the waiting timer for the ticker.
+     */
+    void rearm(final ScheduledTask scheduledTask) {
+        addedTimers.offer(scheduledTask);
+        if (shutdown) {
+            // the ticker may have drained the queue already
+            scheduledTask.cancel();
+        } else if (tickerIdle) {
+            LockSupport.unpark(ticker);
+        }
+    }
+
+    /**
+     * Invoked once by the thread that cancelled the task.
+     */
+    void cancelled(final ScheduledTask scheduledTask) {
+        cancelledTimers.offer(scheduledTask);
+        taskExecutor.releaseToken();
+    }
+
+    /**
+     * Invoked once a task will not come due again without having been cancelled.
+     */
+    void completed(final ScheduledTask scheduledTask) {
+        taskExecutor.releaseToken();
+    }
+
+    private void tick() {
+        final List<ScheduledTask> expiredTimers = new ArrayList<>();
+        while (!shutdown) {
+            ScheduledTask scheduledTask;
+            while ((scheduledTask = addedTimers.poll()) != null) {
+                // timers cancelled before they reached the wheel are skipped
+                if (scheduledTask.isWaiting() && !wheel.add(scheduledTask)) {
+                    expiredTimers.add(scheduledTask);
+                }
+            }
+            while ((scheduledTask = cancelledTimers.poll()) != null) {
+                wheel.remove(scheduledTask);
+            }
+            final long currentTick = (System.nanoTime() - startNanos) / tickNanos;
+            wheel.advanceTo(currentTick, expiredTimers);
+            for (int i = 0; i < expiredTimers.size(); i++) {
+                fire(expiredTimers.get(i));
+            }
+            expiredTimers.clear();
+
+            if (wheel.size() == 0) {
+                tickerIdle = true;
+                if (addedTimers.isEmpty() && !shutdown) {
+                    LockSupport.park(this);
+                }
+                tickerIdle = false;
+            } else {
+                LockSupport.parkNanos(this, startNanos + (currentTick + 1) * tickNanos - System.nanoTime());
+            }
+        }
+
+        final List<ScheduledTask> pendingTimers = new ArrayList<>();
+        wheel.clear(pendingTimers);
+        ScheduledTask scheduledTask;
+        while ((scheduledTask = addedTimers.poll()) != null) {
+            pendingTimers.add(scheduledTask);
+        }
+        for (final ScheduledTask pendingTimer : pendingTimers) {
+            pendingTimer.cancel();
+        }
+        cancelledTimers.clear();
+    }
+
+    private void fire(final ScheduledTask scheduledTask) {
+        if (!scheduledTask.fire()) {
+            return;
+        }
+        taskExecutor.submit(scheduledTask.priority(), scheduledTask);
+        if (scheduledTask.isOneShot()) {
+            // the submitted task holds the executor open from here on
+            taskExecutor.releaseToken();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package edu.rice.habanero.concurrent.executors;
+
+/**
+ * Policy used by a worker thread to decide which worker to steal from next. Each worker owns its own instance, so
+ * implementations may keep per-worker state (e.g. the last successful victim) without synchronization.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public interface VictimSelector {
+
+    /**
+     * Invoked only by the owner worker before each steal attempt.
+     *
+     * @return the index of the worker to steal from, differs from the owner index unless the owner is the only worker.
+     */
+    int nextVictim();
+
+    /**
+     * Invoked only by the owner worker after each steal attempt on the victim returned by {@link #nextVictim()}.
+     *
+     * @param victim  the index of the worker that was tried.
+     * @param success true if a task was stolen.
+     */
+    void stealAttempted(int victim, boolean success);
+
+    /**
+     * Allows a victim selector to query the approximate number of stealable tasks of a worker.
+     */
+    interface LoadProbe {
+        int approximateLoad(int worker);
+    }
+}
@@ -0,0 +1,73 @@
+package edu.rice.habanero.concurrent.executors;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public enum VictimSelectorType {
+    /**
+     * Stays on a victim while steals succeed and moves to the next worker in order on a failed steal.
+     */
+    ROUND_ROBIN() {
+        @Override
+        public VictimSelector newInstance(
+                final int workerIndex, final int parallelism, final VictimSelector.LoadProbe loadProbe,
+                final LocalityDomains localityDomains) {
+            return new RoundRobinVictimSelector(workerIndex, parallelism);
+        }
+    },
+    /**
+     * Picks a uniformly random victim for every attempt, thieves do not converge on the same victims.
+     */
+    RANDOM() {
+        @Override
+        public VictimSelector newInstance(
+                final int workerIndex, final int parallelism, final VictimSelector.LoadProbe loadProbe,
+                final LocalityDomains localityDomains) {
+            return new RandomVictimSelector(workerIndex, parallelism);
+        }
+    },
+    /**
+     * Retries the last victim a steal succeeded from, falls back to random victims once that victim runs dry.
+     */
+    STICKY() {
+        @Override
+        public VictimSelector newInstance(
+                final int workerIndex, final int parallelism, final VictimSelector.LoadProbe loadProbe,
+                final LocalityDomains localityDomains) {
+            return new StickyVictimSelector(workerIndex, parallelism);
+        }
+    },
+    /**
+     * Picks the more loaded of two random victims, approximating a choice weighted by queue length.
+     */
+    LOAD_WEIGHTED() {
+        @Override
+        public VictimSelector newInstance(
+                final int workerIndex, final int parallelism, final VictimSelector.LoadProbe loadProbe,
+                final LocalityDomains localityDomains) {
+            return new LoadWeightedVictimSelector(workerIndex, parallelism, loadProbe);
+        }
+    },
+    /**
+     * Prefers victims of the own locality domain, victims of other domains are only tried after repeated failed local
+     * steals. Behaves like {@link #ROUND_ROBIN} when all workers share a domain.
+     */
+    LOCALITY() {
+        @Override
+        public VictimSelector newInstance(
+                final int workerIndex, final int parallelism, final VictimSelector.LoadProbe loadProbe,
+                final LocalityDomains localityDomains) {
+            return new LocalityVictimSelector(workerIndex, localityDomains);
+        }
+    };
+
+    /**
+     * @param workerIndex     the index of the owner worker.
+     * @param parallelism     the number of workers in the executor.
+     * @param loadProbe       reports the approximate load of the other workers.
+     * @param localityDomains the locality domains of the workers.
+     * @return a new victim selector instance for a single worker.
+     */
+    public abstract VictimSelector newInstance(
+            int workerIndex, int parallelism, VictimSelector.LoadProbe loadProbe, LocalityDomains localityDomains);
+}
@@ -0,0 +1,19 @@
+package edu.rice.habanero.concurrent.executors;
+
+/**
+ * Whether the workers of a work-stealing executor outlive the termination of its kernel.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public enum WorkerLifecycle {
+    /**
+     * The workers exit once the executor terminates, the executor runs a single kernel.
+     */
+    TRANSIENT,
+    /**
+     * The workers go dormant once the executor terminates and resume with the next kernel, so that the executor runs
+     * any number of kernels one after the other with the threads and pools of the first. The executor has to be closed
+     * to let the workers exit.
+     */
+    PERSISTENT
+}
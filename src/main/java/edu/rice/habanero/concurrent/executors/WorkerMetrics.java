@@ -0,0 +1,71 @@
+package edu.rice.habanero.concurrent.executors;
+
+/**
+ * A snapshot of the scheduler counters of a single worker, see {@link SchedulerMetrics}.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class WorkerMetrics {
+
+    private final long[] executedTasks;
+    private final long localPops;
+    private final long steals;
+    private final long failedSteals;
+    private final long idleSpins;
+    private final long globalStateResets;
+
+    WorkerMetrics(
+            final long[] executedTasks, final long localPops, final long steals, final long failedSteals,
+            final long idleSpins, final long globalStateResets) {
+        this.executedTasks = executedTasks;
+        this.localPops = localPops;
+        this.steals = steals;
+        this.failedSteals = failedSteals;
+        this.idleSpins = idleSpins;
+        this.globalStateResets = globalStateResets;
+    }
+
+    /**
+     * @return the number of tasks executed per priority level, indexed from the highest priority. Executors without
+     * priority levels report a single level.
+     */
+    public long[] executedTasks() {
+        return executedTasks.clone();
+    }
+
+    /**
+     * @return the number of tasks popped from the own pools, including tasks moved there by a batch steal.
+     */
+    public long localPops() {
+        return localPops;
+    }
+
+    /**
+     * @return the number of steal operations that returned a task.
+     */
+    public long steals() {
+        return steals;
+    }
+
+    /**
+     * @return the number of steal operations that did not return a task.
+     */
+    public long failedSteals() {
+        return failedSteals;
+    }
+
+    /**
+     * @return the number of rounds in which the worker found no task and invoked its idle strategy.
+     */
+    public long idleSpins() {
+        return idleSpins;
+    }
+
+    /**
+     * @return the number of times the worker cleared the flag of a priority level in the global state after finding the
+     * level empty, always zero for executors without global state.
+     */
+    public long globalStateResets() {
+        return globalStateResets;
+    }
+}
@@ -0,0 +1,371 @@
+package edu.rice.habanero.concurrent.executors;
+
+import edu.rice.habanero.concurrent.util.Blocker;
+import edu.rice.habanero.concurrent.util.TerminationDetector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The lifecycle of the workers of a work-stealing executor: starts them on demand, grows and shrinks the set of active
+ * workers as configured by the {@link ElasticSizing}, wakes parked workers when new work is published and compensates
+ * for workers blocked in {@link TaskExecutor#managedBlock(Blocker)}.
+ * <p/>
+ * The executors construct their workers, see {@link #newWorker(int)}, and provide the view of the pools of a worker,
+ * see {@link Worker#hasLocalWork()} and {@link Worker#localBacklog()}.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+abstract class WorkerSizing<W extends WorkerSizing.Worker> {
+
+    /**
+     * The bound on the spare workers started beyond the parallelism, as for the spare threads of a {@link
+     * java.util.concurrent.ForkJoinPool}.
+     */
+    private static final int MAX_SPARE_WORKERS = 256;
+
+    // filled in by the executor, the workers need the sizing to be constructed
+    private final W[] workers;
+    private final int parallelism;
+    private final ElasticSizing elasticSizing;
+    private final int initialWorkers;
+    private final TerminationDetector terminationDetector;
+    private boolean allThreadsStarted = false;
+
+    private final AtomicInteger startedThreadsCounter = new AtomicInteger(-1);
+    private final AtomicInteger parkedWorkers = new AtomicInteger(0);
+    private final AtomicInteger activeWorkers = new AtomicInteger(0);
+    private final AtomicInteger blockedWorkers = new AtomicInteger(0);
+    private final AtomicInteger injectionBacklog = new AtomicInteger(0);
+    private final AtomicInteger spareWorkersCounter = new AtomicInteger(-1);
+    private final List<W> spareWorkers = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param workers the array the executor stores its workers in once they are constructed.
+     */
+    WorkerSizing(
+            final W[] workers, final ElasticSizing elasticSizing,
+            final TerminationDetector terminationDetector) {
+        this.workers = workers;
+        this.parallelism = workers.length;
+        this.elasticSizing = elasticSizing;
+        this.initialWorkers = elasticSizing.isElastic() ? elasticSizing.initialWorkers(parallelism) : parallelism;
+        this.terminationDetector = terminationDetector;
+    }
+
+    /**
+     * @param workerIndex the index of a worker of the executor, or of a spare worker if it is at least the parallelism.
+     * @return a new worker that has not been started yet.
+     */
+    abstract W newWorker(int workerIndex);
+
+    /**
+     * Invoked by a thread other than the workers before it queues tasks.
+     *
+     * @return the index of the next initial worker that has not been started yet, the caller pushes its tasks into the
+     * pool of that worker and then starts it. Or -1 once all initial workers have been started, the tasks are then
+     * injected.
+     */
+    int claimInitialWorker() {
+        if (allThreadsStarted) {
+            return -1;
+        }
+        final int workerIndex = claimNext(startedThreadsCounter, initialWorkers);
+        if (workerIndex < 0) {
+            allThreadsStarted = true;
+        }
+        return workerIndex;
+    }
+
+    /**
+     * Starts the next worker after a worker has pushed tasks, or adds one if the worker sees a sustained backlog.
+     */
+    void pushedByWorker(final W worker) {
+        if (!allThreadsStarted) {
+            final int workerIndex = claimInitialWorker();
+            if (workerIndex >= 0) {
+                startWorker(workerIndex);
+            }
+        } else if (elasticSizing.isElastic() && worker.observedSustainedBacklog()) {
+            addWorker();
+        }
+    }
+
+    /**
+     * Invoked after tasks have been injected while all initial workers run.
+     */
+    void injectedBacklog(final int count) {
+        if (elasticSizing.isElastic() && parkedWorkers.get() == 0 &&
+                injectionBacklog.addAndGet(count) >= elasticSizing.backlogThreshold()) {
+            // producers keep submitting while every worker is busy
+            injectionBacklog.set(0);
+            addWorker();
+        }
+    }
+
+    /**
+     * @return the index of the next worker that has not been started yet, or -1 if <code>limit</code> workers have
+     * already been claimed.
+     */
+    private static int claimNext(final AtomicInteger counter, final int limit) {
+        while (true) {
+            final int current = counter.get();
+            if (current + 1 >= limit) {
+                return -1;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    void startWorker(final int workerIndex) {
+        activeWorkers.incrementAndGet();
+        workers[workerIndex].start();
+    }
+
+    /**
+     * Revives a retired worker, or starts a new worker if none is retired and the parallelism has not been reached.
+     *
+     * @return false if all workers are active.
+     */
+    private boolean addWorker() {
+        for (final W worker : workers) {
+            if (worker.revive()) {
+                return true;
+            }
+        }
+        final int workerIndex = claimNext(startedThreadsCounter, parallelism);
+        if (workerIndex >= 0) {
+            startWorker(workerIndex);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Revives a retired spare worker, or starts a new one unless <code>MAX_SPARE_WORKERS</code> have been started.
+     */
+    private void addSpareWorker() {
+        for (final W spareWorker : spareWorkers) {
+            if (spareWorker.revive()) {
+                return;
+            }
+        }
+        final int spareIndex = claimNext(spareWorkersCounter, MAX_SPARE_WORKERS);
+        if (spareIndex >= 0) {
+            final W spareWorker = newWorker(parallelism + spareIndex);
+            spareWorkers.add(spareWorker);
+            activeWorkers.incrementAndGet();
+            spareWorker.start();
+        }
+    }
+
+    /**
+     * A blocked worker does not count towards the running workers, as in a {@link java.util.concurrent.ForkJoinPool}: a
+     * parked worker is woken, or else a retired or not yet started worker is activated, or else a spare worker is
+     * started beyond the parallelism to take its place. Once the blocker has been released, the surplus workers retire
+     * when they go idle: spare workers while more workers than the parallelism are active, the workers of an elastic
+     * executor while more than <code>minWorkers</code> are.
+     */
+    void managedBlock(final Blocker blocker) throws InterruptedException {
+        final Thread currentThread = Thread.currentThread();
+        final boolean compensate = currentThread instanceof Worker &&
+                ((Worker) currentThread).workerSizing == this && !blocker.isReleasable();
+        if (compensate) {
+            blockedWorkers.incrementAndGet();
+            if (parkedWorkers.get() > 0) {
+                wakeParkedWorker();
+            } else if (!addWorker()) {
+                addSpareWorker();
+            }
+        }
+        try {
+            while (!blocker.isReleasable() && !blocker.block()) {
+                // keep blocking
+            }
+        } finally {
+            if (compensate) {
+                blockedWorkers.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Releases a single parked worker, if any, so that it can steal the newly available work.
+     */
+    void wakeParkedWorker() {
+        if (parkedWorkers.get() > 0) {
+            for (final W worker : workers) {
+                if (worker.idleStrategy.wakeUp()) {
+                    return;
+                }
+            }
+            for (final W spareWorker : spareWorkers) {
+                if (spareWorker.idleStrategy.wakeUp()) {
+                    return;
+                }
+            }
+        }
+    }
+
+    void wakeAllParkedWorkers() {
+        for (final W worker : workers()) {
+            worker.idleStrategy.wakeUp();
+            if (worker.retired.get()) {
+                LockSupport.unpark(worker);
+            }
+        }
+    }
+
+    boolean hasParkedWorkers() {
+        return parkedWorkers.get() > 0;
+    }
+
+    /**
+     * @return the number of workers that have been started and are not retired.
+     */
+    int activeWorkers() {
+        return activeWorkers.get();
+    }
+
+    /**
+     * @return the workers of the executor followed by the spare workers started so far.
+     */
+    List<W> workers() {
+        final List<W> result = new ArrayList<>(Arrays.asList(workers));
+        result.addAll(spareWorkers);
+        return result;
+    }
+
+    /**
+     * A worker thread of an executor, the executor provides the view of its pools.
+     * <p/>
+     * A spare worker only runs tasks on behalf of blocked workers. Tasks spawned by it are injected rather than pushed
+     * into its pools, which hold no tasks when it blocks or retires.
+     */
+    abstract static class Worker extends Thread implements IdleStrategy.WorkProbe {
+
+        final WorkerSizing<?> workerSizing;
+        final IdleStrategy idleStrategy;
+        final AtomicBoolean retired = new AtomicBoolean(false);
+        private final boolean spare;
+        private int backlogCount;
+        private long idleSinceNanos;
+
+        Worker(final WorkerSizing<?> workerSizing, final int workerIndex, final IdleStrategyType idleStrategyType) {
+            this.workerSizing = workerSizing;
+            this.spare = workerIndex >= workerSizing.parallelism;
+            this.idleStrategy = idleStrategyType.newInstance(workerSizing.parkedWorkers);
+        }
+
+        /**
+         * Invoked by the owner only, no other thread pushes into its pools.
+         *
+         * @return true if any of the pools of the worker holds a task.
+         */
+        abstract boolean hasLocalWork();
+
+        /**
+         * Invoked by the owner only.
+         *
+         * @return the number of tasks in the pool the worker pushed into last.
+         */
+        abstract int localBacklog();
+
+        final boolean isSpare() {
+            return spare;
+        }
+
+        /**
+         * Invoked by the owner after a search for a task has failed. An elastic worker retires once it has been idle
+         * for <code>retireAfterIdle</code>, a spare worker as soon as no blocked worker needs it any more.
+         *
+         * @param idleCount the number of consecutive failed searches, starts at 1.
+         * @return true if the worker was idle for long enough to retire, the idle count starts over.
+         */
+        final boolean idle(final int idleCount) {
+            idleStrategy.idle(idleCount, this);
+            if (spare) {
+                return retireWhileIdle(workerSizing.parallelism);
+            }
+            final ElasticSizing elasticSizing = workerSizing.elasticSizing;
+            if (elasticSizing.isElastic()) {
+                // timestamps are only taken while idle in elastic mode
+                final long currentNanos = System.nanoTime();
+                if (idleCount == 1) {
+                    idleSinceNanos = currentNanos;
+                } else if (currentNanos - idleSinceNanos >= elasticSizing.retireAfterIdleNanos()) {
+                    retireWhileIdle(elasticSizing.minWorkers());
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Invoked by the owner after a push, reports a backlog once <code>backlogThreshold</code> consecutive pushes
+         * found at least that many tasks in the pool while no other worker was parked.
+         */
+        boolean observedSustainedBacklog() {
+            final int backlogThreshold = workerSizing.elasticSizing.backlogThreshold();
+            if (!workerSizing.hasParkedWorkers() && localBacklog() >= backlogThreshold) {
+                backlogCount++;
+                if (backlogCount >= backlogThreshold) {
+                    backlogCount = 0;
+                    return true;
+                }
+            } else {
+                backlogCount = 0;
+            }
+            return false;
+        }
+
+        /**
+         * Parks the worker until it is revived or the executor terminates. Only workers with empty pools retire, no
+         * other thread pushes into them, hence no queued task is stranded.
+         *
+         * @param minActive the number of workers that stay active to pick up new work.
+         * @return true if the worker retired.
+         */
+        private boolean retireWhileIdle(final int minActive) {
+            if (hasLocalWork()) {
+                return false;
+            }
+            final AtomicInteger activeWorkers = workerSizing.activeWorkers;
+            while (true) {
+                final int numActive = activeWorkers.get();
+                // blocked workers do not count towards the minimum
+                if (numActive - workerSizing.blockedWorkers.get() <= minActive) {
+                    return false;
+                }
+                if (activeWorkers.compareAndSet(numActive, numActive - 1)) {
+                    break;
+                }
+            }
+            retired.set(true);
+            while (retired.get() && !workerSizing.terminationDetector.isTerminated()) {
+                LockSupport.park(this);
+            }
+            if (retired.compareAndSet(true, false)) {
+                // released by termination rather than revived
+                activeWorkers.incrementAndGet();
+            }
+            return true;
+        }
+
+        boolean revive() {
+            if (retired.compareAndSet(true, false)) {
+                workerSizing.activeWorkers.incrementAndGet();
+                LockSupport.unpark(this);
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package edu.rice.habanero.concurrent.executors;
+
+import edu.rice.habanero.concurrent.util.TerminationDetectorType;
+
+/**
+ * The optional settings of the work-stealing executors, settings that are not set keep their defaults:
+ * <pre>
+ * new PriorityWstTaskExecutor(PoolType.X10, parallelism, minPriorityInc, maxPriorityInc,
+ *                             new WstOptions().victimSelector(VictimSelectorType.RANDOM).priorityAging(aging));
+ * </pre>
+ * The executors read the settings when they are constructed, later changes to the options do not affect them.
+ * {@link StandardWstTaskExecutor} has no priority levels and ignores {@link #priorityAging(PriorityAging)}.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class WstOptions {
+
+    private IdleStrategyType idleStrategyType = IdleStrategyType.BACKOFF;
+    private VictimSelectorType victimSelectorType = VictimSelectorType.ROUND_ROBIN;
+    private ElasticSizing elasticSizing = ElasticSizing.FIXED;
+    private TerminationDetectorType terminationDetectorType = TerminationDetectorType.LATCH;
+    private PriorityAging priorityAging = PriorityAging.STRICT;
+    // null until set, the domains are then detected for the parallelism of the executor
+    private LocalityDomains localityDomains = null;
+    private WorkerLifecycle workerLifecycle = WorkerLifecycle.TRANSIENT;
+
+    /**
+     * How idle workers wait for tasks, defaults to {@link IdleStrategyType#BACKOFF}.
+     */
+    public WstOptions idleStrategy(final IdleStrategyType idleStrategyType) {
+        this.idleStrategyType = checkNotNull(idleStrategyType, "idleStrategy");
+        return this;
+    }
+
+    /**
+     * The order in which thieves visit victims, defaults to {@link VictimSelectorType#ROUND_ROBIN}.
+     */
+    public WstOptions victimSelector(final VictimSelectorType victimSelectorType) {
+        this.victimSelectorType = checkNotNull(victimSelectorType, "victimSelector");
+        return this;
+    }
+
+    /**
+     * Defaults to {@link ElasticSizing#FIXED}.
+     */
+    public WstOptions elasticSizing(final ElasticSizing elasticSizing) {
+        this.elasticSizing = checkNotNull(elasticSizing, "elasticSizing");
+        return this;
+    }
+
+    /**
+     * Defaults to {@link TerminationDetectorType#LATCH}.
+     */
+    public WstOptions terminationDetector(final TerminationDetectorType terminationDetectorType) {
+        this.terminationDetectorType = checkNotNull(terminationDetectorType, "terminationDetector");
+        return this;
+    }
+
+    /**
+     * Defaults to {@link PriorityAging#STRICT}.
+     */
+    public WstOptions priorityAging(final PriorityAging priorityAging) {
+        this.priorityAging = checkNotNull(priorityAging, "priorityAging");
+        return this;
+    }
+
+    /**
+     * Defaults to the domains {@link LocalityDomains#detect(int) detected} for the parallelism of the executor.
+     */
+    public WstOptions localityDomains(final LocalityDomains localityDomains) {
+        this.localityDomains = checkNotNull(localityDomains, "localityDomains");
+        return this;
+    }
+
+    /**
+     * Defaults to {@link WorkerLifecycle#TRANSIENT}.
+     */
+    public WstOptions workerLifecycle(final WorkerLifecycle workerLifecycle) {
+        this.workerLifecycle = checkNotNull(workerLifecycle, "workerLifecycle");
+        return this;
+    }
+
+    IdleStrategyType idleStrategy() {
+        return idleStrategyType;
+    }
+
+    VictimSelectorType victimSelector() {
+        return victimSelectorType;
+    }
+
+    ElasticSizing elasticSizing() {
+        return elasticSizing;
+    }
+
+    TerminationDetectorType terminationDetector() {
+        return terminationDetectorType;
+    }
+
+    PriorityAging priorityAging() {
+        return priorityAging;
+    }
+
+    LocalityDomains localityDomains(final int parallelism) {
+        return localityDomains != null ? localityDomains : LocalityDomains.detect(parallelism);
+    }
+
+    WorkerLifecycle workerLifecycle() {
+        return workerLifecycle;
+    }
+
+    private static <T> T checkNotNull(final T value, final String name) {
+        if (value == null) {
+            throw new IllegalArgumentException("The " + name + " option must not be null");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,157 @@
+package edu.rice.habanero.concurrent.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A hierarchical bitmap used to track non-empty priority levels.
+ * <p/>
+ * Layer 0 stores one bit per level, every higher layer stores one bit per non-empty word of the layer below it. The top
+ * layer is a single word, hence at most three layers are needed for up to 262,144 levels. Looking up the next
+ * non-empty level costs one word read per layer using {@link Long#numberOfTrailingZeros(long)} instead of a linear
+ * scan over all levels.
+ * <p/>
+ * All reads and updates are volatile reads and CAS operations on {@link AtomicLongArray}s. A set publishes the level
+ * bit before the summary bits, a clear that empties a word clears the summary bit and then re-reads the word to undo
+ * the clear if a concurrent set re-populated it. Hence a set bit is always reachable from the top layer once the set
+ * completes. Each word lives on its own cache line so that writers to levels more than 64 apart do not interfere.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class AtomicPriorityBitmap {
+
+    /**
+     * Number of longs in a 64-byte cache line.
+     */
+    private static final int PADDING = 8;
+
+    private final int size;
+    private final int[] layerWords;
+    private final AtomicLongArray[] layers;
+
+    public AtomicPriorityBitmap(final int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size (" + size + ") must be positive");
+        }
+        this.size = size;
+
+        int numLayers = 0;
+        int numBits = size;
+        do {
+            numBits = (numBits + 63) >>> 6;
+            numLayers++;
+        } while (numBits > 1);
+
+        this.layerWords = new int[numLayers];
+        this.layers = new AtomicLongArray[numLayers];
+        numBits = size;
+        for (int l = 0; l < numLayers; l++) {
+            final int numWords = (numBits + 63) >>> 6;
+            layerWords[l] = numWords;
+            // one extra cache line on either side avoids false sharing with neighbouring objects
+            layers[l] = new AtomicLongArray((numWords + 2) * PADDING);
+            numBits = numWords;
+        }
+    }
+
+    private static int slot(final int word) {
+        return (word + 1) * PADDING;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isSet(final int index) {
+        return (layers[0].get(slot(index >>> 6)) & (1L << index)) != 0;
+    }
+
+    public void set(final int index) {
+        setFrom(0, index);
+    }
+
+    /**
+     * Sets the bit in layer <code>fromLayer</code> and the corresponding summary bits in all the layers above it.
+     */
+    private void setFrom(final int fromLayer, final int fromBit) {
+        int bit = fromBit;
+        for (int l = fromLayer; l < layers.length; l++) {
+            final AtomicLongArray layer = layers[l];
+            final int slot = slot(bit >>> 6);
+            final long mask = 1L << bit;
+            while (true) {
+                final long current = layer.get(slot);
+                if ((current & mask) != 0 || layer.compareAndSet(slot, current, current | mask)) {
+                    break;
+                }
+            }
+            bit = bit >>> 6;
+        }
+    }
+
+    public void clear(final int index) {
+        int bit = index;
+        for (int l = 0; l < layers.length; l++) {
+            final AtomicLongArray layer = layers[l];
+            final int slot = slot(bit >>> 6);
+            final long mask = 1L << bit;
+            long current;
+            long next;
+            do {
+                current = layer.get(slot);
+                if ((current & mask) == 0) {
+                    // already clear
+                    return;
+                }
+                next = current & ~mask;
+            } while (!layer.compareAndSet(slot, current, next));
+
+            if (l > 0 && layers[l - 1].get(slot(bit)) != 0) {
+                // the child word was re-populated concurrently, undo the clear of its summary bit
+                setFrom(l, bit);
+                return;
+            }
+            if (next != 0) {
+                // other bits in this word remain set, summary bits above stay valid
+                return;
+            }
+            bit = bit >>> 6;
+        }
+    }
+
+    /**
+     * @param fromIndex the index to start the search from (inclusive).
+     * @return the index of the first set bit at or after <code>fromIndex</code>, or {@link #size()} if none.
+     */
+    public int nextSetIndex(final int fromIndex) {
+        if (fromIndex >= size) {
+            return size;
+        }
+        final int result = nextSetBit(0, Math.max(0, fromIndex));
+        return result < 0 ? size : result;
+    }
+
+    private int nextSetBit(final int l, final int fromBit) {
+        final AtomicLongArray layer = layers[l];
+        final int numWords = layerWords[l];
+        int bit = fromBit;
+        int word = bit >>> 6;
+        while (word < numWords) {
+            final long value = layer.get(slot(word)) & (-1L << bit);
+            if (value != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(value);
+            }
+            if (l + 1 == layers.length) {
+                // top layer is a single word
+                return -1;
+            }
+            // consult the summary layer for the next non-empty word
+            final int nextWord = nextSetBit(l + 1, word + 1);
+            if (nextWord < 0) {
+                return -1;
+            }
+            word = nextWord;
+            bit = word << 6;
+        }
+        return -1;
+    }
+}
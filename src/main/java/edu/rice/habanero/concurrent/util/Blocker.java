@@ -0,0 +1,23 @@
+package edu.rice.habanero.concurrent.util;
+
+/**
+ * A blocking operation of a task, e.g. waiting on I/O or a lock, run through {@link TaskExecutorUtil#block(Blocker)}
+ * so that the executor can compensate for the blocked worker. Modelled after
+ * {@link java.util.concurrent.ForkJoinPool.ManagedBlocker}.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public interface Blocker {
+
+    /**
+     * Possibly blocks the calling thread, invoked repeatedly until it returns true or {@link #isReleasable()} does.
+     *
+     * @return true if no further blocking is necessary.
+     */
+    boolean block() throws InterruptedException;
+
+    /**
+     * @return true if blocking is unnecessary, checked before every call to {@link #block()}.
+     */
+    boolean isReleasable();
+}
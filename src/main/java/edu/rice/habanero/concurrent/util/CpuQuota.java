@@ -0,0 +1,151 @@
+package edu.rice.habanero.concurrent.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Computes the parallelism available to the JVM from the Linux cgroup CPU quota.
+ * <p/>
+ * <code>Runtime.availableProcessors()</code> on older JVMs reports the host CPUs and ignores container quotas. The
+ * quota is read from <code>cpu.max</code> (cgroup v2) or <code>cpu.cfs_quota_us</code>/<code>cpu.cfs_period_us</code>
+ * (cgroup v1) of the cgroup of the current process, the result is rounded up and never exceeds the available
+ * processors. Missing or unlimited quotas fall back to the available processors.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class CpuQuota {
+
+    private static final String CGROUP_ROOT = "/sys/fs/cgroup";
+
+    private CpuQuota() {
+        super();
+    }
+
+    public static int availableParallelism() {
+        final int availableProcessors = Runtime.getRuntime().availableProcessors();
+        final int quotaCpus = quotaCpus();
+        return quotaCpus > 0 ? Math.max(1, Math.min(quotaCpus, availableProcessors)) : availableProcessors;
+    }
+
+    /**
+     * @return the CPU quota rounded up to whole CPUs, or -1 if no quota applies.
+     */
+    public static int quotaCpus() {
+        final String v2Path = cgroupPath("");
+        if (v2Path != null) {
+            final int result = readCpuMax(new File(CGROUP_ROOT + v2Path, "cpu.max"));
+            if (result != 0) {
+                return result;
+            }
+        }
+        {
+            final int result = readCpuMax(new File(CGROUP_ROOT, "cpu.max"));
+            if (result != 0) {
+                return result;
+            }
+        }
+        final String v1Path = cgroupPath("cpu");
+        if (v1Path != null) {
+            final int result = readCfsQuota(new File(CGROUP_ROOT + "/cpu" + v1Path));
+            if (result != 0) {
+                return result;
+            }
+        }
+        final int result = readCfsQuota(new File(CGROUP_ROOT + "/cpu"));
+        return result != 0 ? result : -1;
+    }
+
+    /**
+     * @param controller the v1 controller name, or the empty string for the unified v2 hierarchy.
+     * @return the cgroup path of the current process for the controller, or null if unknown.
+     */
+    private static String cgroupPath(final String controller) {
+        final List<String> lines = readLines(new File("/proc/self/cgroup"));
+        if (lines == null) {
+            return null;
+        }
+        for (final String line : lines) {
+            // format is hierarchy-id:controller-list:path
+            final String[] parts = line.split(":", 3);
+            if (parts.length != 3) {
+                continue;
+            }
+            if (controller.isEmpty()) {
+                if ("0".equals(parts[0]) && parts[1].isEmpty()) {
+                    return "/".equals(parts[2]) ? "" : parts[2];
+                }
+            } else {
+                for (final String loopController : parts[1].split(",")) {
+                    if (controller.equals(loopController)) {
+                        return "/".equals(parts[2]) ? "" : parts[2];
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the quota in CPUs, -1 for an unlimited quota or 0 if the file is missing or malformed.
+     */
+    private static int readCpuMax(final File file) {
+        final List<String> lines = readLines(file);
+        if (lines == null || lines.isEmpty()) {
+            return 0;
+        }
+        // format is "$MAX $PERIOD" where $MAX may be "max"
+        final String[] parts = lines.get(0).trim().split("\\s+");
+        if (parts.length != 2) {
+            return 0;
+        }
+        if ("max".equals(parts[0])) {
+            return -1;
+        }
+        try {
+            return toCpus(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        } catch (final NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * @return the quota in CPUs, -1 for an unlimited quota or 0 if the files are missing or malformed.
+     */
+    private static int readCfsQuota(final File directory) {
+        final List<String> quotaLines = readLines(new File(directory, "cpu.cfs_quota_us"));
+        final List<String> periodLines = readLines(new File(directory, "cpu.cfs_period_us"));
+        if (quotaLines == null || quotaLines.isEmpty() || periodLines == null || periodLines.isEmpty()) {
+            return 0;
+        }
+        try {
+            final long quota = Long.parseLong(quotaLines.get(0).trim());
+            if (quota < 0) {
+                return -1;
+            }
+            return toCpus(quota, Long.parseLong(periodLines.get(0).trim()));
+        } catch (final NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private static int toCpus(final long quota, final long period) {
+        if (quota <= 0 || period <= 0) {
+            return 0;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (quota + period - 1) / period);
+    }
+
+    private static List<String> readLines(final File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        } catch (final IOException | SecurityException ex) {
+            return null;
+        }
+    }
+}
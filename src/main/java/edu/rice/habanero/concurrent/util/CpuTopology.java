@@ -0,0 +1,152 @@
+package edu.rice.habanero.concurrent.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Reads the locality domains of the online CPUs from the Linux sysfs topology in <code>/sys/devices/system/cpu</code>.
+ * <p/>
+ * CPUs that share a last level cache form a domain, the cache is the highest level entry of
+ * <code>cpuN/cache/index*</code>. Without cache information the CPUs of a physical package (socket) form a domain.
+ * The topology is read once per JVM.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class CpuTopology {
+
+    private static final String CPU_ROOT = "/sys/devices/system/cpu";
+
+    private static int[] cpuDomains = null;
+
+    private CpuTopology() {
+        super();
+    }
+
+    /**
+     * @return the domain of each online CPU ordered by domain and then by CPU id, domains are numbered from zero. An
+     * empty array is returned if the topology is unknown.
+     */
+    public static synchronized int[] cpuDomains() {
+        if (cpuDomains == null) {
+            cpuDomains = readCpuDomains();
+        }
+        return cpuDomains.clone();
+    }
+
+    private static int[] readCpuDomains() {
+        final List<String> onlineLines = readLines(new File(CPU_ROOT, "online"));
+        if (onlineLines == null || onlineLines.isEmpty()) {
+            return new int[0];
+        }
+        final int[] onlineCpus = parseCpuList(onlineLines.get(0));
+        if (onlineCpus == null || onlineCpus.length == 0) {
+            return new int[0];
+        }
+        // a domain is identified by the smallest cpu sharing the cache, or by the package id
+        final TreeMap<Long, Integer> domainSizes = new TreeMap<>();
+        for (final int cpu : onlineCpus) {
+            final long domainKey = domainKey(cpu);
+            final Integer size = domainSizes.get(domainKey);
+            domainSizes.put(domainKey, size == null ? 1 : size + 1);
+        }
+        final int[] result = new int[onlineCpus.length];
+        int domain = 0;
+        int offset = 0;
+        for (final int size : domainSizes.values()) {
+            Arrays.fill(result, offset, offset + size, domain);
+            offset += size;
+            domain++;
+        }
+        return result;
+    }
+
+    private static long domainKey(final int cpu) {
+        final File cpuDir = new File(CPU_ROOT, "cpu" + cpu);
+        final File[] cacheDirs = new File(cpuDir, "cache").listFiles();
+        if (cacheDirs != null) {
+            int lastLevel = -1;
+            int[] sharedCpus = null;
+            for (final File cacheDir : cacheDirs) {
+                if (!cacheDir.getName().startsWith("index")) {
+                    continue;
+                }
+                final int level = readInt(new File(cacheDir, "level"));
+                final List<String> sharedLines = readLines(new File(cacheDir, "shared_cpu_list"));
+                if (level > lastLevel && sharedLines != null && !sharedLines.isEmpty()) {
+                    final int[] loopSharedCpus = parseCpuList(sharedLines.get(0));
+                    if (loopSharedCpus != null && loopSharedCpus.length > 0) {
+                        lastLevel = level;
+                        sharedCpus = loopSharedCpus;
+                    }
+                }
+            }
+            if (sharedCpus != null) {
+                return sharedCpus[0];
+            }
+        }
+        final int packageId = readInt(new File(cpuDir, "topology/physical_package_id"));
+        // package keys are kept apart from cache keys, a tree only uses one kind unless sysfs is incomplete
+        return packageId < 0 ? 0 : (1L << 32) + packageId;
+    }
+
+    /**
+     * @param cpuList a list in the sysfs format, e.g. <code>0-3,8-11</code>.
+     * @return the CPU ids in the list in ascending order, or null if the list is malformed.
+     */
+    private static int[] parseCpuList(final String cpuList) {
+        final List<Integer> cpus = new ArrayList<>();
+        try {
+            for (final String range : cpuList.trim().split(",")) {
+                if (range.isEmpty()) {
+                    continue;
+                }
+                final int dash = range.indexOf('-');
+                final int first = Integer.parseInt(dash < 0 ? range : range.substring(0, dash));
+                final int last = dash < 0 ? first : Integer.parseInt(range.substring(dash + 1));
+                for (int cpu = first; cpu <= last; cpu++) {
+                    cpus.add(cpu);
+                }
+            }
+        } catch (final NumberFormatException ex) {
+            return null;
+        }
+        final int[] result = new int[cpus.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = cpus.get(i);
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * @return the integer in the file, or -1 if the file is missing or malformed.
+     */
+    private static int readInt(final File file) {
+        final List<String> lines = readLines(file);
+        if (lines == null || lines.isEmpty()) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(lines.get(0).trim());
+        } catch (final NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static List<String> readLines(final File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        } catch (final IOException | SecurityException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package edu.rice.habanero.concurrent.util;
+
+import edu.rice.habanero.concurrent.executors.TaskExecutor;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Counts the tasks spawned transitively inside a finish that have not completed yet. Only the thread that runs the
+ * finish waits on the scope, it helps the executor while tasks are pending.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+final class FinishScope {
+
+    private static final int HELP_SPINS = 64;
+    private static final long PARK_NANOS = 1_000_000L;
+
+    private static final AtomicIntegerFieldUpdater<FinishScope> PENDING_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(FinishScope.class, "pending");
+
+    private volatile int pending = 0;
+    private volatile Thread waiter = null;
+
+    void register() {
+        PENDING_UPDATER.incrementAndGet(this);
+    }
+
+    void register(final int count) {
+        PENDING_UPDATER.addAndGet(this, count);
+    }
+
+    void arrive() {
+        if (PENDING_UPDATER.decrementAndGet(this) == 0) {
+            final Thread thread = waiter;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    void await(final TaskExecutor taskExecutor) {
+        waiter = Thread.currentThread();
+        int spins = 0;
+        while (pending != 0) {
+            if (Helping.tryHelp(taskExecutor)) {
+                spins = 0;
+            } else if (spins < HELP_SPINS) {
+                spins++;
+                Thread.yield();
+            } else {
+                // timed, tasks queued later are still helped with
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+        }
+    }
+}
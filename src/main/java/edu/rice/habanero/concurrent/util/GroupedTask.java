@@ -0,0 +1,49 @@
+package edu.rice.habanero.concurrent.util;
+
+/**
+ * A task submitted as part of a {@link TaskGroup}.
+ * <p/>
+ * Work-stealing executors recognize grouped tasks and discard those of a cancelled group as they pop or steal them,
+ * without running them. Other executors run the task, which then completes immediately.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class GroupedTask implements Runnable {
+
+    private final TaskGroup group;
+    private final Runnable runnable;
+    private final FinishScope finishScope;
+
+    public GroupedTask(final TaskGroup group, final Runnable runnable) {
+        this(group, runnable, null);
+    }
+
+    GroupedTask(final TaskGroup group, final Runnable runnable, final FinishScope finishScope) {
+        this.group = group;
+        this.runnable = runnable;
+        this.finishScope = finishScope;
+    }
+
+    @Override
+    public void run() {
+        if (group.isCancelled()) {
+            discard();
+        } else {
+            runnable.run();
+        }
+    }
+
+    public boolean isCancelled() {
+        return group.isCancelled();
+    }
+
+    /**
+     * Invoked instead of {@link #run()} for a task that is dropped, a finish scope waiting on the task is still
+     * notified.
+     */
+    public void discard() {
+        if (finishScope != null) {
+            finishScope.arrive();
+        }
+    }
+}
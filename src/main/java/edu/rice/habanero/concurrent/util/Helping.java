@@ -0,0 +1,42 @@
+package edu.rice.habanero.concurrent.util;
+
+import edu.rice.habanero.concurrent.executors.TaskExecutor;
+
+/**
+ * Runs queued tasks on a thread that waits for other tasks. Helped tasks nest on the stack of the waiting thread, the
+ * nesting is bounded so that long chains of waits cannot overflow the stack.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class Helping {
+
+    private static final int MAX_HELP_DEPTH = 64;
+
+    private static final ThreadLocal<int[]> helpDepth = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    private Helping() {
+        super();
+    }
+
+    /**
+     * @return true if a queued task of the executor was run, false if none was found or the calling thread is already
+     * nested too deep.
+     */
+    public static boolean tryHelp(final TaskExecutor executor) {
+        final int[] depth = helpDepth.get();
+        if (depth[0] >= MAX_HELP_DEPTH) {
+            return false;
+        }
+        depth[0]++;
+        try {
+            return executor.helpQueuedTask();
+        } finally {
+            depth[0]--;
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package edu.rice.habanero.concurrent.util;
+
+import edu.rice.habanero.concurrent.wstdeque.FibonacciHeap;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A blocking priority queue of {@link PriorityTask}s and {@link TaskHandle}s backed by a {@link FibonacciHeap}.
+ * <p/>
+ * Each queued {@link TaskHandle} keeps a reference to its heap entry, hence raising its priority is a decrease-key and
+ * lowering it an increase-key on that entry. Neither operation enqueues the task again.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class IndexedPriorityQueue implements BlockingQueue<Runnable> {
+
+    // keys are negated priorities, the minimum of the heap is the task with the highest priority
+    private final FibonacciHeap<Runnable> heap;
+    private boolean terminated;
+    private int waiters;
+
+    public IndexedPriorityQueue() {
+        this.heap = new FibonacciHeap<>();
+        this.terminated = false;
+        this.waiters = 0;
+    }
+
+    public void terminate() {
+        synchronized (this) {
+            terminated = true;
+            notifyAll();
+        }
+    }
+
+    boolean reprioritize(final TaskHandle task, final int newPriority) {
+        synchronized (this) {
+            final FibonacciHeap.Entry<Runnable> entry = task.entry();
+            if (entry == null) {
+                return false;
+            }
+            final int oldPriority = task.priority();
+            if (newPriority > oldPriority) {
+                heap.decreaseKey(entry, -newPriority);
+            } else if (newPriority < oldPriority) {
+                heap.increaseKey(entry, -newPriority);
+            }
+            task.priority(newPriority);
+            return true;
+        }
+    }
+
+    boolean isQueued(final TaskHandle task) {
+        synchronized (this) {
+            return task.entry() != null;
+        }
+    }
+
+    private static int priorityOf(final Runnable task) {
+        if (task instanceof TaskHandle) {
+            return ((TaskHandle) task).priority();
+        }
+        return ((PriorityTask) task).priority();
+    }
+
+    private Runnable dequeue() {
+        final Runnable task = heap.dequeueMin().getValue();
+        if (task instanceof TaskHandle) {
+            ((TaskHandle) task).dequeued();
+        }
+        return task;
+    }
+
+    @Override
+    public boolean add(final Runnable task) {
+        return offer(task);
+    }
+
+    @Override
+    public boolean offer(final Runnable task) {
+        synchronized (this) {
+            final FibonacciHeap.Entry<Runnable> entry = heap.enqueue(task, -priorityOf(task));
+            if (task instanceof TaskHandle) {
+                ((TaskHandle) task).enqueued(this, entry);
+            }
+            if (waiters > 0) {
+                notify();
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public void put(final Runnable task) throws InterruptedException {
+        offer(task);
+    }
+
+    @Override
+    public boolean offer(final Runnable task, final long timeout, final TimeUnit unit) throws InterruptedException {
+        return offer(task);
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        synchronized (this) {
+            while (heap.isEmpty()) {
+                if (terminated) {
+                    return null;
+                }
+                waiters++;
+                try {
+                    wait();
+                } finally {
+                    waiters--;
+                }
+            }
+            return dequeue();
+        }
+    }
+
+    @Override
+    public Runnable poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while (heap.isEmpty()) {
+                final long remainingNanos = deadlineNanos - System.nanoTime();
+                if (terminated || remainingNanos <= 0) {
+                    return null;
+                }
+                waiters++;
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+                } finally {
+                    waiters--;
+                }
+            }
+            return dequeue();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Removes a queued {@link TaskHandle} through its heap entry, other tasks are looked up in O(n).
+     */
+    @Override
+    public boolean remove(final Object o) {
+        synchronized (this) {
+            if (o instanceof TaskHandle) {
+                final FibonacciHeap.Entry<Runnable> entry = ((TaskHandle) o).entry();
+                if (entry == null) {
+                    return false;
+                }
+                delete(entry);
+                return true;
+            }
+            for (final FibonacciHeap.Entry<Runnable> entry : heap.entries()) {
+                if (entry.getValue().equals(o)) {
+                    delete(entry);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        if (o instanceof TaskHandle) {
+            return isQueued((TaskHandle) o);
+        }
+        synchronized (this) {
+            for (final FibonacciHeap.Entry<Runnable> entry : heap.entries()) {
+                if (entry.getValue().equals(o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private void delete(final FibonacciHeap.Entry<Runnable> entry) {
+        heap.delete(entry);
+        final Runnable task = entry.getValue();
+        if (task instanceof TaskHandle) {
+            ((TaskHandle) task).dequeued();
+        }
+    }
+
+    /**
+     * Removes the queued tasks that are (or are not, if <code>retain</code> is set) contained in <code>c</code>.
+     */
+    private boolean removeMatching(final Collection<?> c, final boolean retain) {
+        boolean modified = false;
+        synchronized (this) {
+            for (final FibonacciHeap.Entry<Runnable> entry : heap.entries()) {
+                if (c.contains(entry.getValue()) != retain) {
+                    delete(entry);
+                    modified = true;
+                }
+            }
+        }
+        return modified;
+    }
+
+    @Override
+    public int drainTo(final Collection<? super Runnable> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(final Collection<? super Runnable> c, final int maxElements) {
+        int count = 0;
+        synchronized (this) {
+            while (count < maxElements && !heap.isEmpty()) {
+                c.add(dequeue());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Runnable remove() {
+        synchronized (this) {
+            return dequeue();
+        }
+    }
+
+    @Override
+    public Runnable poll() {
+        synchronized (this) {
+            return heap.isEmpty() ? null : dequeue();
+        }
+    }
+
+    @Override
+    public Runnable element() {
+        synchronized (this) {
+            return heap.min().getValue();
+        }
+    }
+
+    @Override
+    public Runnable peek() {
+        synchronized (this) {
+            return heap.isEmpty() ? null : heap.min().getValue();
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (this) {
+            return heap.size();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        synchronized (this) {
+            return heap.isEmpty();
+        }
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the queued tasks in no particular order, like
+     * {@link java.util.concurrent.PriorityBlockingQueue}. Removing through the iterator removes the task from the queue
+     * if it is still queued.
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        final Object[] snapshot = toArray();
+        return new Iterator<Runnable>() {
+            private int cursor = 0;
+            private int lastReturned = -1;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < snapshot.length;
+            }
+
+            @Override
+            public Runnable next() {
+                if (cursor >= snapshot.length) {
+                    throw new NoSuchElementException();
+                }
+                lastReturned = cursor;
+                return (Runnable) snapshot[cursor++];
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                removeEq(snapshot[lastReturned]);
+                lastReturned = -1;
+            }
+        };
+    }
+
+    /**
+     * Removes the queued task that is identical to <code>o</code>.
+     */
+    private void removeEq(final Object o) {
+        synchronized (this) {
+            if (o instanceof TaskHandle) {
+                remove(o);
+                return;
+            }
+            for (final FibonacciHeap.Entry<Runnable> entry : heap.entries()) {
+                if (entry.getValue() == o) {
+                    delete(entry);
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        synchronized (this) {
+            final List<FibonacciHeap.Entry<Runnable>> entries = heap.entries();
+            final Object[] result = new Object[entries.size()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = entries.get(i).getValue();
+            }
+            return result;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T1> T1[] toArray(final T1[] a) {
+        final Object[] tasks = toArray();
+        if (a.length < tasks.length) {
+            return (T1[]) Arrays.copyOf(tasks, tasks.length, a.getClass());
+        }
+        System.arraycopy(tasks, 0, a, 0, tasks.length);
+        if (a.length > tasks.length) {
+            a[tasks.length] = null;
+        }
+        return a;
+    }
+
+    @Override
+    public boolean containsAll(final Collection<?> c) {
+        synchronized (this) {
+            for (final Object o : c) {
+                if (!contains(o)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends Runnable> c) {
+        synchronized (this) {
+            for (final Runnable task : c) {
+                offer(task);
+            }
+            return !c.isEmpty();
+        }
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> c) {
+        return removeMatching(c, false);
+    }
+
+    @Override
+    public boolean retainAll(final Collection<?> c) {
+        return removeMatching(c, true);
+    }
+
+    @Override
+    public void clear() {
+        synchronized (this) {
+            while (!heap.isEmpty()) {
+                dequeue();
+            }
+        }
+    }
+}
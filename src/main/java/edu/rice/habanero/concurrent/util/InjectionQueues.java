@@ -0,0 +1,85 @@
+package edu.rice.habanero.concurrent.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Multi-producer queues used by threads outside an executor to inject tasks, one set of striped queues per priority
+ * level. Producers pick a stripe based on their thread id, so concurrent producers rarely contend on the same queue,
+ * and never touch the work-stealing pools owned by the workers. The queue of a (level, stripe) pair is created on the
+ * first offer.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class InjectionQueues {
+
+    private final int numStripes;
+    private final int stripeMask;
+    private final AtomicReferenceArray<ConcurrentLinkedQueue<Object>> queues;
+
+    public InjectionQueues(final int levels, final int stripes) {
+        int n = 1;
+        while (n < stripes) {
+            n <<= 1;
+        }
+        this.numStripes = n;
+        this.stripeMask = n - 1;
+        this.queues = new AtomicReferenceArray<>(levels * n);
+    }
+
+    public void offer(final int level, final Object item) {
+        stripeQueue(level).offer(item);
+    }
+
+    /**
+     * Appends the first <code>count</code> items to a single stripe of the level, they are linked in with one CAS.
+     */
+    public void offerAll(final int level, final Object[] items, final int count) {
+        stripeQueue(level).addAll(Arrays.asList(items).subList(0, count));
+    }
+
+    /**
+     * @return the queue of the stripe of the calling thread at the level.
+     */
+    private ConcurrentLinkedQueue<Object> stripeQueue(final int level) {
+        final int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        final int index = (level * numStripes) + stripe;
+        ConcurrentLinkedQueue<Object> queue = queues.get(index);
+        if (queue == null) {
+            final ConcurrentLinkedQueue<Object> newQueue = new ConcurrentLinkedQueue<>();
+            queue = queues.compareAndSet(index, null, newQueue) ? newQueue : queues.get(index);
+        }
+        return queue;
+    }
+
+    /**
+     * @param level       the priority level to poll from.
+     * @param startStripe the stripe to start the search from, consumers use different start stripes to spread out.
+     * @return an item from any stripe of the level, or null if all of them are empty.
+     */
+    public Object poll(final int level, final int startStripe) {
+        final int offset = level * numStripes;
+        for (int i = 0; i < numStripes; i++) {
+            final ConcurrentLinkedQueue<Object> queue = queues.get(offset + ((startStripe + i) & stripeMask));
+            if (queue != null) {
+                final Object item = queue.poll();
+                if (item != null) {
+                    return item;
+                }
+            }
+        }
+        return null;
+    }
+
+    public boolean isEmpty(final int level) {
+        final int offset = level * numStripes;
+        for (int i = 0; i < numStripes; i++) {
+            final ConcurrentLinkedQueue<Object> queue = queues.get(offset + i);
+            if (queue != null && !queue.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
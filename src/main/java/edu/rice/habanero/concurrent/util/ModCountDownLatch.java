@@ -15,7 +15,7 @@ import java.util.concurrent.locks.AbstractQueuedSynchronizer;
  *
  * @author Raj Barik, Vivek Sarkar
  */
-public class ModCountDownLatch {
+public class ModCountDownLatch implements TerminationDetector {
 
     /**
      * A synchronizer that wraps a single atomic int value to represent state of active activities.
@@ -50,6 +50,7 @@ public class ModCountDownLatch {
      *
      * @throws InterruptedException if the current thread is interrupted while waiting.
      */
+    @Override
     public void await() throws InterruptedException {
         sync.acquireSharedInterruptibly(1);
     }
@@ -109,6 +110,41 @@ public class ModCountDownLatch {
         return sync.getCount();
     }
 
+    @Override
+    public void taskSpawned() {
+        updateCount();
+    }
+
+    @Override
+    public void tasksSpawned(final int count) {
+        sync.updateCount(count);
+    }
+
+    @Override
+    public void taskCompleted() {
+        countDown();
+    }
+
+    @Override
+    public void tasksCompleted(final int count) {
+        sync.releaseShared(count);
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return getCount() <= 0;
+    }
+
+    @Override
+    public boolean tryTerminate() {
+        return isTerminated();
+    }
+
+    @Override
+    public void reopen() {
+        updateCount();
+    }
+
     /**
      * Returns a string identifying this latch, as well as its state. The state, in brackets, includes the String
      * &quot;Count =&quot; followed by the current count.
@@ -144,11 +180,18 @@ public class ModCountDownLatch {
          * Update the state
          */
         public void updateCount() {
+            updateCount(1);
+        }
+
+        /**
+         * Increments the state by several spawned activities at once
+         */
+        public void updateCount(final int count) {
             // Increment count -- loop till the update is successful
             // Modeled after tryReleaseShared()
             while (true) {
                 int c = getState();
-                int nextc = c + 1;
+                int nextc = c + count;
                 if (compareAndSetState(c, nextc)) {
                     return; // Success!
                 }
@@ -174,7 +217,7 @@ public class ModCountDownLatch {
                 if (c == 0) {
                     return false;
                 }
-                int nextc = c - 1;
+                int nextc = Math.max(0, c - releases);
                 if (compareAndSetState(c, nextc)) {
                     return nextc == 0;
                 }
@@ -0,0 +1,15 @@
+package edu.rice.habanero.concurrent.util;
+
+/**
+ * Implemented by a {@link Runnable} or {@link java.util.concurrent.Callable} to carry its own priority when it is
+ * submitted through an {@link java.util.concurrent.ExecutorService} adapter, e.g.
+ * {@link edu.rice.habanero.concurrent.executors.PriorityWstExecutorService}, or to the priority-less
+ * {@link edu.rice.habanero.concurrent.executors.TaskExecutor#submit(Runnable)} of the work-stealing executors, which
+ * queue it without a wrapper. A larger value is served first.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public interface Prioritized {
+
+    int priority();
+}
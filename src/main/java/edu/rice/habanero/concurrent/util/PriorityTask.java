@@ -1,5 +1,7 @@
 package edu.rice.habanero.concurrent.util;
 
+import edu.rice.habanero.concurrent.executors.QosMonitor;
+
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.TimeUnit;
@@ -13,25 +15,56 @@ public final class PriorityTask<T> implements Comparable<PriorityTask>, Runnable
 
     private final int priority;
     private final Runnable runnable;
-    private final ModCountDownLatch latch;
+    private final TerminationDetector terminationDetector;
+    private final QosMonitor qosMonitor;
+
+    public PriorityTask(final int priority, final Runnable runnable, final TerminationDetector terminationDetector) {
+        this(priority, runnable, terminationDetector, null);
+    }
 
-    public PriorityTask(final int priority, final Runnable runnable, final ModCountDownLatch latch) {
+    /**
+     * @param qosMonitor the monitor that measures the QoS of the executor, or null.
+     */
+    public PriorityTask(
+            final int priority, final Runnable runnable, final TerminationDetector terminationDetector,
+            final QosMonitor qosMonitor) {
         this.priority = priority;
         this.runnable = runnable;
-        this.latch = latch;
+        this.terminationDetector = terminationDetector;
+        this.qosMonitor = qosMonitor;
 
-        this.latch.updateCount();
+        this.terminationDetector.taskSpawned();
+        if (QosMonitor.ENABLED && qosMonitor != null) {
+            qosMonitor.taskQueued(priority);
+        }
     }
 
     @Override
     public void run() {
+        if (QosMonitor.ENABLED && qosMonitor != null) {
+            qosMonitor.taskStarted(priority);
+        }
         try {
             runnable.run();
         } finally {
-            latch.countDown();
+            if (QosMonitor.ENABLED && qosMonitor != null) {
+                qosMonitor.taskCompleted(priority);
+            }
+            terminationDetector.taskCompleted();
         }
     }
 
+    public int priority() {
+        return priority;
+    }
+
+    /**
+     * @return the wrapped task.
+     */
+    public Runnable runnable() {
+        return runnable;
+    }
+
     @Override
     public int compareTo(final PriorityTask otherTask) {
         return otherTask.priority - priority;
@@ -0,0 +1,241 @@
+package edu.rice.habanero.concurrent.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import edu.rice.habanero.concurrent.executors.SchedulerMetrics;
+import edu.rice.habanero.concurrent.executors.WorkerMetrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Publishes the {@link SchedulerMetrics} of named executors as platform MXBeans, and optionally as a Prometheus text
+ * endpoint served by <code>com.sun.net.httpserver</code> on the loopback interface. The counters are only aggregated
+ * when they are read, the workers never touch the exporter.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class SchedulerMetricsExporter {
+
+    private static final String DOMAIN = "edu.rice.habanero.concurrent";
+
+    private static final Map<String, SchedulerMetrics> registeredMetrics = new ConcurrentSkipListMap<>();
+
+    private SchedulerMetricsExporter() {
+        super();
+    }
+
+    /**
+     * Registers the MXBean of an executor, a previous registration under the same name is replaced.
+     *
+     * @return the name of the MXBean.
+     */
+    public static ObjectName register(final String name, final SchedulerMetrics metrics) {
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName objectName = objectName(name);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(new MetricsBean(metrics), objectName);
+            registeredMetrics.put(name, metrics);
+            return objectName;
+        } catch (final JMException ex) {
+            throw new IllegalStateException("Unable to register scheduler metrics " + name, ex);
+        }
+    }
+
+    public static void unregister(final String name) {
+        registeredMetrics.remove(name);
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName objectName = objectName(name);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (final JMException ex) {
+            throw new IllegalStateException("Unable to unregister scheduler metrics " + name, ex);
+        }
+    }
+
+    private static ObjectName objectName(final String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=SchedulerMetrics,name=" + ObjectName.quote(name));
+    }
+
+    /**
+     * Serves the registered executors at <code>/metrics</code> on the loopback interface, the caller stops the server.
+     *
+     * @param port the port to listen on, 0 picks a free port.
+     */
+    public static HttpServer startHttpServer(final int port) throws IOException {
+        final HttpServer httpServer = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.createContext("/metrics", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                final byte[] body = prometheusText().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (final OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+            }
+        });
+        httpServer.start();
+        return httpServer;
+    }
+
+    /**
+     * @return the counters of all registered executors in the Prometheus text exposition format, one sample per
+     * worker (and priority level for the executed tasks).
+     */
+    public static String prometheusText() {
+        final StringBuilder executedSamples = new StringBuilder();
+        final StringBuilder localPopSamples = new StringBuilder();
+        final StringBuilder stealSamples = new StringBuilder();
+        final StringBuilder failedStealSamples = new StringBuilder();
+        final StringBuilder idleSpinSamples = new StringBuilder();
+        final StringBuilder resetSamples = new StringBuilder();
+        for (final Map.Entry<String, SchedulerMetrics> entry : registeredMetrics.entrySet()) {
+            final String executorName = escapeLabel(entry.getKey());
+            final WorkerMetrics[] workerMetrics = entry.getValue().workerMetrics();
+            for (int worker = 0; worker < workerMetrics.length; worker++) {
+                final WorkerMetrics metrics = workerMetrics[worker];
+                final String labels = "executor=\"" + executorName + "\",worker=\"" + worker + "\"";
+                final long[] executedTasks = metrics.executedTasks();
+                for (int level = 0; level < executedTasks.length; level++) {
+                    appendSample(executedSamples, "wst_executed_tasks_total",
+                                 labels + ",level=\"" + level + "\"", executedTasks[level]);
+                }
+                appendSample(localPopSamples, "wst_local_pops_total", labels, metrics.localPops());
+                appendSample(stealSamples, "wst_steals_total", labels, metrics.steals());
+                appendSample(failedStealSamples, "wst_failed_steals_total", labels, metrics.failedSteals());
+                appendSample(idleSpinSamples, "wst_idle_spins_total", labels, metrics.idleSpins());
+                appendSample(resetSamples, "wst_global_state_resets_total", labels, metrics.globalStateResets());
+            }
+        }
+
+        final StringBuilder result = new StringBuilder();
+        appendFamily(result, "wst_executed_tasks_total", "Tasks executed per worker and priority level.",
+                     executedSamples);
+        appendFamily(result, "wst_local_pops_total", "Tasks popped from the own pools of a worker.", localPopSamples);
+        appendFamily(result, "wst_steals_total", "Steal operations that returned a task.", stealSamples);
+        appendFamily(result, "wst_failed_steals_total", "Steal operations that returned no task.", failedStealSamples);
+        appendFamily(result, "wst_idle_spins_total", "Rounds in which a worker found no task.", idleSpinSamples);
+        appendFamily(result, "wst_global_state_resets_total", "Priority levels cleared in the global state.",
+                     resetSamples);
+        return result.toString();
+    }
+
+    private static void appendFamily(
+            final StringBuilder result, final String metricName, final String help, final StringBuilder samples) {
+        result.append("# HELP ").append(metricName).append(' ').append(help).append('\n');
+        result.append("# TYPE ").append(metricName).append(" counter\n");
+        result.append(samples);
+    }
+
+    private static void appendSample(
+            final StringBuilder samples, final String metricName, final String labels, final long value) {
+        samples.append(metricName).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String escapeLabel(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class MetricsBean implements SchedulerMetricsMXBean {
+
+        private final SchedulerMetrics metrics;
+
+        private MetricsBean(final SchedulerMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public int getWorkers() {
+            return metrics.workerMetrics().length;
+        }
+
+        @Override
+        public long[] getExecutedTasksPerLevel() {
+            long[] result = new long[0];
+            for (final WorkerMetrics workerMetrics : metrics.workerMetrics()) {
+                final long[] executedTasks = workerMetrics.executedTasks();
+                if (result.length < executedTasks.length) {
+                    result = new long[executedTasks.length];
+                }
+                for (int level = 0; level < executedTasks.length; level++) {
+                    result[level] += executedTasks[level];
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public long[] getExecutedTasksPerWorker() {
+            final WorkerMetrics[] workerMetrics = metrics.workerMetrics();
+            final long[] result = new long[workerMetrics.length];
+            for (int worker = 0; worker < workerMetrics.length; worker++) {
+                for (final long executedTasks : workerMetrics[worker].executedTasks()) {
+                    result[worker] += executedTasks;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public long getLocalPops() {
+            long result = 0;
+            for (final WorkerMetrics workerMetrics : metrics.workerMetrics()) {
+                result += workerMetrics.localPops();
+            }
+            return result;
+        }
+
+        @Override
+        public long getSteals() {
+            long result = 0;
+            for (final WorkerMetrics workerMetrics : metrics.workerMetrics()) {
+                result += workerMetrics.steals();
+            }
+            return result;
+        }
+
+        @Override
+        public long getFailedSteals() {
+            long result = 0;
+            for (final WorkerMetrics workerMetrics : metrics.workerMetrics()) {
+                result += workerMetrics.failedSteals();
+            }
+            return result;
+        }
+
+        @Override
+        public long getIdleSpins() {
+            long result = 0;
+            for (final WorkerMetrics workerMetrics : metrics.workerMetrics()) {
+                result += workerMetrics.idleSpins();
+            }
+            return result;
+        }
+
+        @Override
+        public long getGlobalStateResets() {
+            long result = 0;
+            for (final WorkerMetrics workerMetrics : metrics.workerMetrics()) {
+                result += workerMetrics.globalStateResets();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package edu.rice.habanero.concurrent.util;
+
+/**
+ * The scheduler counters of a work-stealing executor summed over its workers, registered through {@link
+ * SchedulerMetricsExporter}. Every read aggregates the current counters of the workers.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public interface SchedulerMetricsMXBean {
+
+    int getWorkers();
+
+    /**
+     * @return the executed tasks per priority level, indexed from the highest priority.
+     */
+    long[] getExecutedTasksPerLevel();
+
+    /**
+     * @return the executed tasks per worker, indexed by worker.
+     */
+    long[] getExecutedTasksPerWorker();
+
+    long getLocalPops();
+
+    long getSteals();
+
+    long getFailedSteals();
+
+    long getIdleSpins();
+
+    long getGlobalStateResets();
+}
@@ -0,0 +1,147 @@
+package edu.rice.habanero.concurrent.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A termination detector that avoids a single shared counter.
+ * <p/>
+ * Every thread updates a stripe chosen by its thread id, each stripe has its own cache line with two monotonically
+ * increasing counters: the number of tasks spawned and the number of tasks completed on that stripe. Counters are only
+ * aggregated in {@link #tryTerminate()}: it sums all completed counters first and then all spawned counters. As a task
+ * is always spawned before it completes and the counters never decrease, equal sums imply that at the end of the first
+ * pass every spawned task had completed, including the initial token, hence no task is left to spawn new ones and the
+ * termination is stable.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class StripedTerminationDetector implements TerminationDetector {
+
+    /**
+     * Number of longs in two 64-byte cache lines, adjacent lines are often prefetched together.
+     */
+    private static final int PADDING = 16;
+    private static final int SPAWNED = 0;
+    private static final int COMPLETED = 1;
+    private static final long MIN_WAIT_NANOS = 10_000L;
+    private static final long MAX_WAIT_NANOS = 1_000_000L;
+
+    private final int numStripes;
+    private final int stripeMask;
+    private final AtomicLongArray counters;
+    // the epoch in the upper bits and the terminated flag in the lowest bit, see reopen()
+    private final AtomicLong state = new AtomicLong(0);
+    private final ConcurrentLinkedQueue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    public StripedTerminationDetector(final int parallelism) {
+        // workers and the external threads that submit and trigger the shutdown
+        int n = 1;
+        while (n < 2 * parallelism) {
+            n <<= 1;
+        }
+        this.numStripes = n;
+        this.stripeMask = n - 1;
+        // one extra stripe on either side avoids false sharing with neighbouring objects
+        this.counters = new AtomicLongArray((n + 2) * PADDING);
+        // the initial token, completed when the shutdown is triggered
+        taskSpawned();
+    }
+
+    private int stripeOffset() {
+        final int stripe = (int) Thread.currentThread().getId() & stripeMask;
+        return (stripe + 1) * PADDING;
+    }
+
+    @Override
+    public void taskSpawned() {
+        counters.getAndIncrement(stripeOffset() + SPAWNED);
+    }
+
+    @Override
+    public void tasksSpawned(final int count) {
+        counters.getAndAdd(stripeOffset() + SPAWNED, count);
+    }
+
+    @Override
+    public void taskCompleted() {
+        counters.getAndIncrement(stripeOffset() + COMPLETED);
+    }
+
+    @Override
+    public void tasksCompleted(final int count) {
+        counters.getAndAdd(stripeOffset() + COMPLETED, count);
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return (state.get() & 1) != 0;
+    }
+
+    @Override
+    public boolean tryTerminate() {
+        final long currentState = state.get();
+        if ((currentState & 1) != 0) {
+            return true;
+        }
+        long completed = 0;
+        for (int i = 1; i <= numStripes; i++) {
+            completed += counters.get(i * PADDING + COMPLETED);
+        }
+        long spawned = 0;
+        for (int i = 1; i <= numStripes; i++) {
+            spawned += counters.get(i * PADDING + SPAWNED);
+        }
+        if (completed != spawned) {
+            return false;
+        }
+        if (!state.compareAndSet(currentState, currentState | 1)) {
+            // terminated by another thread, or the sums are stale as a new epoch has been opened meanwhile
+            return isTerminated();
+        }
+        for (final Thread waiter : waiters) {
+            LockSupport.unpark(waiter);
+        }
+        return true;
+    }
+
+    /**
+     * The counters keep increasing across epochs: the new token is spawned before the flag is cleared, hence a thread
+     * that reads the cleared flag also sums the new token. Threads that read the state of the previous epoch fail to
+     * set the flag as the epoch has changed.
+     */
+    @Override
+    public void reopen() {
+        taskSpawned();
+        state.incrementAndGet();
+    }
+
+    @Override
+    public void await() throws InterruptedException {
+        // waiters are released by the thread that detects termination, usually an idle worker, executors without
+        // idle checks rely on the waiters polling with a backoff
+        final Thread currentThread = Thread.currentThread();
+        waiters.add(currentThread);
+        try {
+            long waitNanos = MIN_WAIT_NANOS;
+            while (!tryTerminate()) {
+                LockSupport.parkNanos(this, waitNanos);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                waitNanos = Math.min(MAX_WAIT_NANOS, 2 * waitNanos);
+            }
+        } finally {
+            waiters.remove(currentThread);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StripedTerminationDetector{" +
+                "stripes=" + numStripes +
+                ", terminated=" + isTerminated() +
+                '}';
+    }
+}
@@ -1,48 +1,489 @@
 package edu.rice.habanero.concurrent.util;
 
+import edu.rice.habanero.concurrent.executors.DeadlineTaskExecutor;
+import edu.rice.habanero.concurrent.executors.ReprioritizableTaskExecutor;
 import edu.rice.habanero.concurrent.executors.TaskExecutor;
 
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 /**
  * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
  * @author Vivek Sarkar
  */
 public class TaskExecutorUtil {
 
-    private static final ThreadLocal<TaskExecutor> executorTracker = new ThreadLocal<>();
+    // tasks submitted without a priority get the default priority of their executor
+    private static final int NO_PRIORITY = Integer.MIN_VALUE;
+
+    private static final ThreadLocal<TaskContext> contextTracker = new ThreadLocal<TaskContext>() {
+        @Override
+        protected TaskContext initialValue() {
+            return new TaskContext();
+        }
+    };
 
     public static void kernel(final TaskExecutor taskExecutor, final Runnable runnable) {
-        final Runnable runnableTask = wrapRunnable(taskExecutor, runnable);
+        final TaskContext context = contextTracker.get();
+        final Runnable runnableTask = wrapRunnable(context, taskExecutor, null, NO_PRIORITY, runnable);
         taskExecutor.submit(runnableTask);
         taskExecutor.triggerShutdown();
         taskExecutor.awaitTermination();
     }
 
     public static void async(final Runnable runnable) {
-        final TaskExecutor taskExecutor = executorTracker.get();
-        final Runnable runnableTask = wrapRunnable(taskExecutor, runnable);
+        final TaskContext context = contextTracker.get();
+        final TaskExecutor taskExecutor = context.executor();
+        final Runnable runnableTask =
+                wrapRunnable(context, taskExecutor, context.registerChild(), NO_PRIORITY, runnable);
         taskExecutor.submit(runnableTask);
     }
 
     public static void async(final int priority, final Runnable runnable) {
-        final TaskExecutor taskExecutor = executorTracker.get();
-        final Runnable runnableTask = wrapRunnable(taskExecutor, runnable);
+        final TaskContext context = contextTracker.get();
+        final TaskExecutor taskExecutor = context.executor();
+        final Runnable runnableTask = wrapRunnable(context, taskExecutor, context.registerChild(), priority, runnable);
         taskExecutor.submit(priority, runnableTask);
     }
 
-    private static Runnable wrapRunnable(final TaskExecutor taskExecutor, final Runnable runnable) {
-        return new Runnable() {
+    /**
+     * Spawns the tasks at the same priority as successive {@link #async(int, Runnable)} calls would, but registers
+     * them with the enclosing finish scope at once and submits them as a batch, see
+     * {@link TaskExecutor#submitAll(int, Runnable[])}.
+     */
+    public static void asyncAll(final int priority, final Runnable[] runnables) {
+        final int count = runnables.length;
+        if (count == 0) {
+            return;
+        }
+        final TaskContext context = contextTracker.get();
+        final TaskExecutor taskExecutor = context.executor();
+        final FinishScope finishScope = context.registerChildren(count);
+        final Runnable[] runnableTasks = new Runnable[count];
+        for (int i = 0; i < count; i++) {
+            runnableTasks[i] = wrapRunnable(context, taskExecutor, finishScope, priority, runnables[i]);
+        }
+        taskExecutor.submitAll(priority, runnableTasks);
+    }
+
+    /**
+     * Spawns a task that is discarded without running if the group is cancelled before the task starts, a null group
+     * spawns an ungrouped task.
+     */
+    public static void async(final TaskGroup group, final int priority, final Runnable runnable) {
+        if (group == null) {
+            async(priority, runnable);
+            return;
+        }
+        final TaskContext context = contextTracker.get();
+        final TaskExecutor taskExecutor = context.executor();
+        final FinishScope finishScope = context.registerChild();
+        // a discarded task arrives at the scope in place of its wrapper
+        final Runnable runnableTask = wrapRunnable(context, taskExecutor, finishScope, priority, runnable);
+        taskExecutor.submit(priority, new GroupedTask(group, runnableTask, finishScope));
+    }
+
+    /**
+     * Spawns the tasks as a batch as {@link #asyncAll(int, Runnable[])} does, each task is discarded without running if
+     * the group is cancelled before it starts. A null group spawns ungrouped tasks.
+     */
+    public static void asyncAll(final TaskGroup group, final int priority, final Runnable[] runnables) {
+        if (group == null) {
+            asyncAll(priority, runnables);
+            return;
+        }
+        final int count = runnables.length;
+        if (count == 0) {
+            return;
+        }
+        final TaskContext context = contextTracker.get();
+        final TaskExecutor taskExecutor = context.executor();
+        final FinishScope finishScope = context.registerChildren(count);
+        final Runnable[] groupedTasks = new Runnable[count];
+        for (int i = 0; i < count; i++) {
+            // a discarded task arrives at the scope in place of its wrapper
+            final Runnable runnableTask = wrapRunnable(context, taskExecutor, finishScope, priority, runnables[i]);
+            groupedTasks[i] = new GroupedTask(group, runnableTask, finishScope);
+        }
+        taskExecutor.submitAll(priority, groupedTasks);
+    }
+
+    /**
+     * Lazy task creation: spawns the task only if the executor reports that the calling worker should split, see
+     * {@link TaskExecutor#shouldSplit(int)}, and otherwise runs it inline as part of the calling task.
+     */
+    public static void asyncOrInline(final int priority, final Runnable runnable) {
+        if (shouldSplit(priority)) {
+            async(priority, runnable);
+        } else {
+            runnable.run();
+        }
+    }
+
+    /**
+     * @return true if a child spawned with the priority of the calling task is worth spawning rather than inlining.
+     */
+    public static boolean shouldSplit() {
+        final int priority = contextTracker.get().priority();
+        return priority == NO_PRIORITY || shouldSplit(priority);
+    }
+
+    public static boolean shouldSplit(final int priority) {
+        final TaskExecutor taskExecutor = contextTracker.get().executor();
+        return taskExecutor == null || taskExecutor.shouldSplit(priority);
+    }
+
+    /**
+     * Spawns a task whose priority can be changed while it is queued, the current executor must be a {@link
+     * ReprioritizableTaskExecutor}.
+     */
+    public static TaskHandle asyncWithHandle(final int priority, final Runnable runnable) {
+        final TaskContext context = contextTracker.get();
+        final TaskExecutor taskExecutor = context.executor();
+        if (!(taskExecutor instanceof ReprioritizableTaskExecutor)) {
+            throw new UnsupportedOperationException("asyncWithHandle: " + taskExecutor);
+        }
+        final Runnable runnableTask = wrapRunnable(context, taskExecutor, context.registerChild(), priority, runnable);
+        return ((ReprioritizableTaskExecutor) taskExecutor).submitWithHandle(priority, runnableTask);
+    }
+
+    /**
+     * Spawns a task that should complete by the deadline, the current executor must be a {@link DeadlineTaskExecutor}.
+     * A task that the executor sheds once its deadline has passed still counts as done for the enclosing finish scope.
+     *
+     * @param deadlineNanos the deadline as a {@link System#nanoTime()} value.
+     */
+    public static void asyncWithDeadline(final long deadlineNanos, final Runnable runnable) {
+        final TaskContext context = contextTracker.get();
+        final TaskExecutor taskExecutor = context.executor();
+        if (!(taskExecutor instanceof DeadlineTaskExecutor)) {
+            throw new UnsupportedOperationException("asyncWithDeadline: " + taskExecutor);
+        }
+        final Runnable runnableTask =
+                wrapRunnable(context, taskExecutor, context.registerChild(), NO_PRIORITY, runnable);
+        ((DeadlineTaskExecutor) taskExecutor).submit(deadlineNanos, runnableTask);
+    }
+
+    /**
+     * Drops a task spawned through this class without running it, for executors that discard queued tasks: the finish
+     * scope of the task is notified as if the task had run. Has no effect on other tasks.
+     */
+    public static void discard(final Runnable task) {
+        if (task instanceof TaskRecord) {
+            ((TaskRecord) task).discard();
+        }
+    }
+
+    public static <T> TaskFuture<T> future(final int priority, final Callable<T> callable) {
+        final TaskContext context = contextTracker.get();
+        final TaskExecutor taskExecutor = context.executor();
+        final FinishScope finishScope = context.registerChild();
+        // the future arrives at the scope when it completes or is cancelled
+        final TaskFuture<T> future = new TaskFuture<>(
+                taskExecutor, wrapCallable(taskExecutor, finishScope, priority, callable), finishScope);
+        taskExecutor.submit(priority, future);
+        return future;
+    }
+
+    /**
+     * A cheap check for the yield points of long running tasks, see {@link TaskExecutor#higherPriorityPending()}.
+     */
+    public static boolean higherPriorityPending() {
+        final TaskExecutor taskExecutor = contextTracker.get().executor();
+        return taskExecutor != null && taskExecutor.higherPriorityPending();
+    }
+
+    /**
+     * Runs a blocking operation of the calling task, see {@link TaskExecutor#managedBlock(Blocker)}. Outside of a task
+     * the calling thread just blocks.
+     */
+    public static void block(final Blocker blocker) throws InterruptedException {
+        final TaskExecutor taskExecutor = contextTracker.get().executor();
+        if (taskExecutor != null) {
+            taskExecutor.managedBlock(blocker);
+        } else {
+            while (!blocker.isReleasable() && !blocker.block()) {
+                // keep blocking
+            }
+        }
+    }
+
+    /**
+     * Suspends the calling task by queueing its continuation at the priority the task was spawned with, the caller is
+     * expected to return right after. The continuation counts towards the finish scope of the task.
+     */
+    public static void continueLater(final Runnable continuation) {
+        final int priority = contextTracker.get().priority();
+        if (priority == NO_PRIORITY) {
+            async(continuation);
+        } else {
+            async(priority, continuation);
+        }
+    }
+
+    /**
+     * Runs the body on the calling task and waits until all tasks spawned transitively inside the body have completed.
+     * Unlike {@link #kernel}, only the tasks of this scope are waited for, other tasks of the executor keep running and
+     * are helped with while waiting.
+     */
+    public static void finish(final Runnable body) {
+        finish(contextTracker.get().executor(), body);
+    }
+
+    /**
+     * Runs the body on the calling thread, which need not belong to the executor, with the tasks spawned inside the body
+     * submitted to <code>taskExecutor</code>. Waits until all of them have completed. Several threads may run finish
+     * scopes on a shared executor concurrently.
+     */
+    public static void finish(final TaskExecutor taskExecutor, final Runnable body) {
+        final TaskContext context = contextTracker.get();
+        context.pushFinish(taskExecutor);
+        try {
+            body.run();
+        } finally {
+            final FinishScope scope = context.pop();
+            if (scope != null) {
+                scope.await(taskExecutor);
+            }
+        }
+    }
+
+    /**
+     * @return a recycled task record of the spawning context.
+     */
+    private static Runnable wrapRunnable(
+            final TaskContext context, final TaskExecutor taskExecutor, final FinishScope finishScope,
+            final int priority, final Runnable runnable) {
+        return context.acquireRecord().init(taskExecutor, finishScope, priority, runnable);
+    }
+
+    private static <T> Callable<T> wrapCallable(
+            final TaskExecutor taskExecutor, final FinishScope finishScope, final int priority,
+            final Callable<T> callable) {
+        return new Callable<T>() {
             @Override
-            public void run() {
+            public T call() throws Exception {
+                final TaskContext context = contextTracker.get();
+                context.pushTask(taskExecutor, finishScope, priority);
                 try {
-                    executorTracker.set(taskExecutor);
-                    runnable.run();
-                } catch (final Exception ex) {
-                    ex.printStackTrace();
+                    return callable.call();
                 } finally {
-                    executorTracker.set(null);
+                    context.pop();
                 }
             }
         };
     }
 
+    /**
+     * The wrapper of a spawned task, recycled so that spawning allocates nothing in the steady state. A record belongs
+     * to the context of the thread that spawned it and is returned as soon as its task starts running: to the free list
+     * of the owner if it runs on the owner's thread, else onto a lock-free stack that the owner takes over in one swap
+     * once its free list is empty. The record of a task shed by a deadline executor is returned the same way, that of a
+     * grouped task discarded without running is left to the collector.
+     */
+    private static final class TaskRecord implements Runnable {
+
+        private static final AtomicReferenceFieldUpdater<TaskRecord, Runnable> RUNNABLE_UPDATER =
+                AtomicReferenceFieldUpdater.newUpdater(TaskRecord.class, Runnable.class, "runnable");
+
+        private final TaskContext owner;
+        private TaskExecutor taskExecutor;
+        private FinishScope finishScope;
+        private int priority;
+        // written last when the record is spawned and read first when it runs, it publishes the other fields
+        private volatile Runnable runnable;
+        // links the free list or the returned stack of the owner
+        private TaskRecord next;
+
+        private TaskRecord(final TaskContext owner) {
+            this.owner = owner;
+        }
+
+        private TaskRecord init(
+                final TaskExecutor taskExecutor, final FinishScope finishScope, final int priority,
+                final Runnable runnable) {
+            this.taskExecutor = taskExecutor;
+            this.finishScope = finishScope;
+            this.priority = priority;
+            RUNNABLE_UPDATER.lazySet(this, runnable);
+            return this;
+        }
+
+        @Override
+        public void run() {
+            final Runnable body = runnable;
+            final TaskExecutor executor = taskExecutor;
+            final FinishScope scope = finishScope;
+            final int taskPriority = priority;
+            taskExecutor = null;
+            finishScope = null;
+            RUNNABLE_UPDATER.lazySet(this, null);
+
+            // tasks run while helping are nested inside another task, hence the context is a stack
+            final TaskContext context = contextTracker.get();
+            // the fields have been read, the record can be reused while the task runs
+            owner.releaseRecord(this, context);
+            context.pushTask(executor, scope, taskPriority);
+            try {
+                body.run();
+            } catch (final Exception ex) {
+                ex.printStackTrace();
+            } finally {
+                context.pop();
+                if (scope != null) {
+                    scope.arrive();
+                }
+            }
+        }
+
+        private void discard() {
+            // the volatile read publishes the other fields
+            if (runnable == null) {
+                return;
+            }
+            final FinishScope scope = finishScope;
+            taskExecutor = null;
+            finishScope = null;
+            RUNNABLE_UPDATER.lazySet(this, null);
+
+            owner.releaseRecord(this, contextTracker.get());
+            if (scope != null) {
+                scope.arrive();
+            }
+        }
+    }
+
+    /**
+     * The stack of tasks and finish scopes running on a thread. A frame pushed by a finish gets its scope allocated
+     * when the first task is spawned inside it, a frame pushed by a task refers to the scope the task was spawned in.
+     * Each frame also records the priority its task was spawned with.
+     */
+    private static final class TaskContext {
+
+        // bounds the records a thread keeps after a burst of spawns, the returned stack is taken over as a whole
+        private static final int MAX_FREE_RECORDS = 1 << 12;
+
+        private static final AtomicReferenceFieldUpdater<TaskContext, TaskRecord> RETURNED_UPDATER =
+                AtomicReferenceFieldUpdater.newUpdater(TaskContext.class, TaskRecord.class, "returnedRecords");
+
+        private TaskRecord freeRecords = null;
+        private int numFreeRecords = 0;
+        // records released by other threads
+        private volatile TaskRecord returnedRecords = null;
+
+        private TaskExecutor[] executors = new TaskExecutor[8];
+        private FinishScope[] scopes = new FinishScope[8];
+        private boolean[] finishFrames = new boolean[8];
+        private int[] priorities = new int[8];
+        private int depth = 0;
+
+        private TaskExecutor executor() {
+            return depth == 0 ? null : executors[depth - 1];
+        }
+
+        private TaskRecord acquireRecord() {
+            TaskRecord record = freeRecords;
+            if (record == null) {
+                if (returnedRecords == null) {
+                    return new TaskRecord(this);
+                }
+                record = RETURNED_UPDATER.getAndSet(this, null);
+                numFreeRecords = 0;
+            } else if (numFreeRecords > 0) {
+                numFreeRecords--;
+            }
+            freeRecords = record.next;
+            record.next = null;
+            return record;
+        }
+
+        /**
+         * @param context the context of the calling thread.
+         */
+        private void releaseRecord(final TaskRecord record, final TaskContext context) {
+            if (context == this) {
+                if (numFreeRecords < MAX_FREE_RECORDS) {
+                    numFreeRecords++;
+                    record.next = freeRecords;
+                    freeRecords = record;
+                }
+                return;
+            }
+            while (true) {
+                final TaskRecord head = returnedRecords;
+                record.next = head;
+                if (RETURNED_UPDATER.compareAndSet(this, head, record)) {
+                    return;
+                }
+            }
+        }
+
+        private int priority() {
+            return depth == 0 ? NO_PRIORITY : priorities[depth - 1];
+        }
+
+        private void pushTask(final TaskExecutor executor, final FinishScope scope, final int priority) {
+            push(executor, scope, false, priority);
+        }
+
+        private void pushFinish(final TaskExecutor executor) {
+            // the body of a finish runs on behalf of the enclosing task
+            push(executor, null, true, priority());
+        }
+
+        private void push(
+                final TaskExecutor executor, final FinishScope scope, final boolean finishFrame, final int priority) {
+            if (depth == executors.length) {
+                executors = Arrays.copyOf(executors, 2 * depth);
+                scopes = Arrays.copyOf(scopes, 2 * depth);
+                finishFrames = Arrays.copyOf(finishFrames, 2 * depth);
+                priorities = Arrays.copyOf(priorities, 2 * depth);
+            }
+            executors[depth] = executor;
+            scopes[depth] = scope;
+            finishFrames[depth] = finishFrame;
+            priorities[depth] = priority;
+            depth++;
+        }
+
+        /**
+         * @return the scope of the popped frame.
+         */
+        private FinishScope pop() {
+            depth--;
+            final FinishScope scope = scopes[depth];
+            executors[depth] = null;
+            scopes[depth] = null;
+            return scope;
+        }
+
+        /**
+         * @return the scope a task spawned now belongs to, already counting the task, or null outside any finish.
+         */
+        private FinishScope registerChild() {
+            return registerChildren(1);
+        }
+
+        /**
+         * @return the scope the tasks spawned now belong to, already counting them, or null outside any finish.
+         */
+        private FinishScope registerChildren(final int count) {
+            if (depth == 0) {
+                return null;
+            }
+            final int top = depth - 1;
+            FinishScope scope = scopes[top];
+            if (scope == null) {
+                if (!finishFrames[top]) {
+                    return null;
+                }
+                scope = new FinishScope();
+                scopes[top] = scope;
+            }
+            scope.register(count);
+            return scope;
+        }
+    }
+
 }
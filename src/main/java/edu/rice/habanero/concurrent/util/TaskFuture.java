@@ -0,0 +1,230 @@
+package edu.rice.habanero.concurrent.util;
+
+import edu.rice.habanero.concurrent.executors.TaskExecutor;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * The result of a {@link Callable} submitted to a {@link TaskExecutor}.
+ * <p/>
+ * The future is itself the task pushed into the executor, so a submit allocates a single object. On a worker of the
+ * owning executor, {@link #join()} and the untimed {@link #get()} first run the task on the calling thread if it has not
+ * started yet, its queued entry then completes as a no-op. If the task is running elsewhere, the worker does not block
+ * while it can find other queued tasks: it runs them (highest priority first for the priority executors) until the
+ * result is available. Other threads and the timed {@link #get(long, TimeUnit)} never run tasks, so that a deadline is
+ * not overrun by a task of unknown length. When helping is not possible the caller waits, via
+ * {@link ForkJoinPool#managedBlock} so that fork-join pools can compensate.
+ * <p/>
+ * Cancellation only succeeds before the task starts running, a running task is never interrupted.
+ * <p/>
+ * Subclasses may refine {@link #run()}, e.g. to cancel instead of running, and are notified through {@link #done()}.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public class TaskFuture<T> implements RunnableFuture<T> {
+
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int COMPLETED = 2;
+    private static final int FAILED = 3;
+    private static final int CANCELLED = 4;
+
+    private static final int HELP_SPINS = 64;
+    private static final long WAIT_MILLIS = 1;
+
+    @SuppressWarnings("unchecked")
+    private static final AtomicIntegerFieldUpdater<TaskFuture<?>> STATE_UPDATER =
+            (AtomicIntegerFieldUpdater<TaskFuture<?>>) (AtomicIntegerFieldUpdater<?>)
+                    AtomicIntegerFieldUpdater.newUpdater(TaskFuture.class, "state");
+
+    private final TaskExecutor executor;
+    private final FinishScope finishScope;
+    private Callable<T> callable;
+    private volatile int state = NEW;
+    private volatile boolean hasWaiters = false;
+    private Object outcome;
+
+    public TaskFuture(final TaskExecutor executor, final Callable<T> callable) {
+        this(executor, callable, null);
+    }
+
+    TaskFuture(final TaskExecutor executor, final Callable<T> callable, final FinishScope finishScope) {
+        this.executor = executor;
+        this.callable = callable;
+        this.finishScope = finishScope;
+    }
+
+    @Override
+    public void run() {
+        if (!STATE_UPDATER.compareAndSet(this, NEW, RUNNING)) {
+            // cancelled before it started
+            return;
+        }
+        final Callable<T> task = callable;
+        callable = null;
+        try {
+            outcome = task.call();
+            complete(COMPLETED);
+        } catch (final Throwable th) {
+            outcome = th;
+            complete(FAILED);
+        }
+    }
+
+    private void complete(final int finalState) {
+        state = finalState;
+        if (hasWaiters) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+        done();
+        if (finishScope != null) {
+            finishScope.arrive();
+        }
+    }
+
+    /**
+     * Invoked once on the thread that completed, failed or cancelled the task, after the waiters have been released.
+     */
+    protected void done() {
+        // nothing to do
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        if (STATE_UPDATER.compareAndSet(this, NEW, CANCELLED)) {
+            callable = null;
+            complete(CANCELLED);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    @Override
+    public boolean isDone() {
+        return state >= COMPLETED;
+    }
+
+    /**
+     * Waits for the result, running other queued tasks of the executor meanwhile if invoked on one of its workers.
+     *
+     * @return the result of the callable.
+     * @throws CancellationException if the task was cancelled.
+     * @throws RuntimeException      wrapping a checked exception thrown by the callable, unchecked exceptions and
+     *                               errors are rethrown as is.
+     */
+    public T join() {
+        boolean interrupted = false;
+        while (!isDone()) {
+            try {
+                awaitDone(Long.MAX_VALUE);
+            } catch (final InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (state == FAILED) {
+            final Throwable th = (Throwable) outcome;
+            if (th instanceof RuntimeException) {
+                throw (RuntimeException) th;
+            }
+            if (th instanceof Error) {
+                throw (Error) th;
+            }
+            throw new RuntimeException(th);
+        }
+        return report();
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        awaitDone(Long.MAX_VALUE);
+        if (state == FAILED) {
+            throw new ExecutionException((Throwable) outcome);
+        }
+        return report();
+    }
+
+    @Override
+    public T get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        final long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+        awaitDone(deadlineNanos);
+        if (!isDone()) {
+            throw new TimeoutException();
+        }
+        if (state == FAILED) {
+            throw new ExecutionException((Throwable) outcome);
+        }
+        return report();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T report() {
+        if (state == CANCELLED) {
+            throw new CancellationException();
+        }
+        return (T) outcome;
+    }
+
+    /**
+     * Without a deadline a worker of the executor runs the task if it has not started yet and then helps the executor
+     * while tasks are available, other waits go on in short timed slices so that tasks queued in the meantime are still
+     * picked up.
+     *
+     * @param deadlineNanos the {@link System#nanoTime()} to give up at, or {@link Long#MAX_VALUE} to never time out.
+     */
+    private void awaitDone(final long deadlineNanos) throws InterruptedException {
+        final boolean helps = deadlineNanos == Long.MAX_VALUE && executor.isWorkerThread();
+        if (helps && state == NEW) {
+            run();
+        }
+        int spins = 0;
+        while (!isDone()) {
+            if (helps && Helping.tryHelp(executor)) {
+                spins = 0;
+                continue;
+            }
+            if (deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos >= 0) {
+                return;
+            }
+            if (spins < HELP_SPINS) {
+                spins++;
+                Thread.yield();
+                continue;
+            }
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    synchronized (TaskFuture.this) {
+                        hasWaiters = true;
+                        if (!isDone()) {
+                            TaskFuture.this.wait(WAIT_MILLIS);
+                        }
+                    }
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return isDone();
+                }
+            });
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TaskFuture{" +
+                "state=" + state +
+                '}';
+    }
+}
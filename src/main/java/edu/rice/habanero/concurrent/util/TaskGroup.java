@@ -0,0 +1,20 @@
+package edu.rice.habanero.concurrent.util;
+
+/**
+ * A set of tasks that can be cancelled together. Cancelling a group does not interrupt its running tasks, its queued
+ * tasks are discarded without running when a worker pops or steals them.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class TaskGroup {
+
+    private volatile boolean cancelled = false;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
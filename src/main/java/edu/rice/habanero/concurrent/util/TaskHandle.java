@@ -0,0 +1,95 @@
+package edu.rice.habanero.concurrent.util;
+
+import edu.rice.habanero.concurrent.wstdeque.FibonacciHeap;
+
+/**
+ * A task whose priority can be changed while it is still queued in an {@link IndexedPriorityQueue}.
+ * <p/>
+ * The handle is itself the queued task, {@link #reprioritize(int)} moves its heap entry in place instead of enqueueing
+ * the task again. Once a worker has dequeued the task the handle can no longer be reprioritized.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public final class TaskHandle implements Runnable {
+
+    private final Runnable runnable;
+    private final TerminationDetector terminationDetector;
+    private final int minPriorityInc;
+    private final int maxPriorityInc;
+
+    private volatile IndexedPriorityQueue queue;
+    // guarded by the queue the task has been offered to
+    private FibonacciHeap.Entry<Runnable> entry;
+    private int priority;
+
+    public TaskHandle(
+            final int priority, final Runnable runnable, final TerminationDetector terminationDetector,
+            final int minPriorityInc, final int maxPriorityInc) {
+        this.priority = priority;
+        this.runnable = runnable;
+        this.terminationDetector = terminationDetector;
+        this.minPriorityInc = minPriorityInc;
+        this.maxPriorityInc = maxPriorityInc;
+
+        this.terminationDetector.taskSpawned();
+    }
+
+    @Override
+    public void run() {
+        try {
+            runnable.run();
+        } finally {
+            terminationDetector.taskCompleted();
+        }
+    }
+
+    /**
+     * Raises or lowers the priority of the queued task, the priority is clamped to the range of the executor.
+     *
+     * @return true if the task was still queued, false if it has already been dequeued by a worker.
+     */
+    public boolean reprioritize(final int newPriority) {
+        final IndexedPriorityQueue currentQueue = queue;
+        if (currentQueue == null) {
+            return false;
+        }
+        final int sanitizedPriority = Math.max(minPriorityInc, Math.min(newPriority, maxPriorityInc));
+        return currentQueue.reprioritize(this, sanitizedPriority);
+    }
+
+    /**
+     * @return true if the task has been queued and not yet dequeued by a worker.
+     */
+    public boolean isQueued() {
+        final IndexedPriorityQueue currentQueue = queue;
+        return currentQueue != null && currentQueue.isQueued(this);
+    }
+
+    int priority() {
+        return priority;
+    }
+
+    void priority(final int priority) {
+        this.priority = priority;
+    }
+
+    FibonacciHeap.Entry<Runnable> entry() {
+        return entry;
+    }
+
+    void enqueued(final IndexedPriorityQueue queue, final FibonacciHeap.Entry<Runnable> entry) {
+        this.entry = entry;
+        this.queue = queue;
+    }
+
+    void dequeued() {
+        this.entry = null;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskHandle{" +
+                "priority=" + priority +
+                '}';
+    }
+}
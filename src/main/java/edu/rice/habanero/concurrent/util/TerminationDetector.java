@@ -0,0 +1,57 @@
+package edu.rice.habanero.concurrent.util;
+
+/**
+ * Tracks the tasks of an executor that have been spawned but not completed, the executor terminates once all of them
+ * have completed. Executors start with a single pending token that is completed when the shutdown is triggered.
+ *
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public interface TerminationDetector {
+
+    /**
+     * Invoked before a task is made visible to the workers.
+     */
+    void taskSpawned();
+
+    /**
+     * Invoked once for several tasks before they are made visible to the workers.
+     */
+    void tasksSpawned(int count);
+
+    /**
+     * Invoked after a task has run.
+     */
+    void taskCompleted();
+
+    /**
+     * Invoked once for several tasks that have completed or were discarded.
+     */
+    void tasksCompleted(int count);
+
+    /**
+     * A cheap check that can be invoked on every iteration of a worker loop.
+     *
+     * @return true if termination has already been detected.
+     */
+    boolean isTerminated();
+
+    /**
+     * A potentially expensive check for termination, invoked by idle workers and waiting threads.
+     *
+     * @return true if the executor has terminated.
+     */
+    boolean tryTerminate();
+
+    /**
+     * Waits until the executor has terminated.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting.
+     */
+    void await() throws InterruptedException;
+
+    /**
+     * Starts a new epoch with a single pending token, so that the executor can run another kernel after it has
+     * terminated. Invoked by a single thread and only after termination has been detected.
+     */
+    void reopen();
+}
@@ -0,0 +1,33 @@
+package edu.rice.habanero.concurrent.util;
+
+/**
+ * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
+ */
+public enum TerminationDetectorType {
+
+    /**
+     * A single counter shared by all threads, see {@link ModCountDownLatch}.
+     */
+    LATCH {
+        @Override
+        public TerminationDetector newInstance(final int parallelism) {
+            return new ModCountDownLatch(1);
+        }
+    },
+    /**
+     * Per-thread counters that are only aggregated while looking for termination, see {@link
+     * StripedTerminationDetector}.
+     */
+    STRIPED {
+        @Override
+        public TerminationDetector newInstance(final int parallelism) {
+            return new StripedTerminationDetector(parallelism);
+        }
+    };
+
+    /**
+     * @param parallelism the number of worker threads of the executor.
+     * @return a detector with a single pending token.
+     */
+    public abstract TerminationDetector newInstance(int parallelism);
+}
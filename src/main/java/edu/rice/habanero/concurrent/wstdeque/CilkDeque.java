@@ -7,6 +7,9 @@ import java.util.concurrent.locks.ReentrantLock;
  * The Implementation of the Cilk-5 Multithreaded Language. Matteo Frigo, Charles Leiserson, Keith Randall.
  * <p/>
  * Simplified THE Protocol.
+ * <p/>
+ * The owner publishes a task by advancing T only after the slot has been written. Thieves never clear slots, a slot
+ * claimed by a stalled thief may already have been reused by the owner.
  *
  * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu) [current version]
  */
@@ -18,7 +21,11 @@ public class CilkDeque implements WorkStealingPool {
     private volatile CircularArray v;
 
     public CilkDeque() {
-        v = new CircularArray(13);
+        this(13);
+    }
+
+    public CilkDeque(final int logInitialSize) {
+        v = new CircularArray(logInitialSize);
     }
 
     @Override
@@ -29,18 +36,44 @@ public class CilkDeque implements WorkStealingPool {
         return size == 0;
     }
 
+    @Override
+    public int size() {
+        return Math.max(0, T.get() - H.get());
+    }
+
     @Override
     public void pushBottom(final Object f) {
-        final int index = T.getAndIncrement();
-        CircularArray a = this.v;
         final int t = T.get();
+        CircularArray a = this.v;
         final int h = H.get();
         final int size = t - h;
-        if (size >= a.size() - 1) {
-            a = a.grow(t, h);
+        // a batch steal may inflate H by up to a quarter of the array before it backs off
+        if (size >= a.size() - 1 - a.maxStealBatch()) {
+            a = a.grow(t);
             this.v = a;
         }
-        a.put(index, f);
+        a.put(t, f);
+        // publish the task only after the slot has been written
+        T.set(t + 1);
+    }
+
+    @Override
+    public void pushBottomBatch(final Object[] in, final int count) {
+        if (count <= 0) {
+            return;
+        }
+        final int t = T.get();
+        CircularArray a = this.v;
+        final int h = H.get();
+        while (t + count - h >= a.size() - 1 - a.maxStealBatch()) {
+            a = a.grow(t);
+            this.v = a;
+        }
+        for (int i = 0; i < count; i++) {
+            a.put(t + i, in[i]);
+        }
+        // publish the tasks only after the slots have been written
+        T.set(t + count);
     }
 
     @Override
@@ -59,7 +92,10 @@ public class CilkDeque implements WorkStealingPool {
                 L.unlock();
             }
         }
-        return v.get(index);
+        final CircularArray a = v;
+        final Object result = a.get(index);
+        a.clear(index);
+        return result;
     }
 
     @Override
@@ -77,6 +113,50 @@ public class CilkDeque implements WorkStealingPool {
         }
     }
 
+    /**
+     * Claims up to <code>max</code> tasks with a single update of H, the THE protocol check against T detects a
+     * conflict with the owner in which case a single task is stolen instead.
+     */
+    @Override
+    public int stealBatch(final int max, final Object[] out) {
+        try {
+            L.lock();
+            final int h = H.get();
+            final int count = Math.min(Math.min(max, v.maxStealBatch()), T.get() - h);
+            if (count <= 0) {
+                return 0;
+            }
+            beforeBatchClaim();
+            if (H.addAndGet(count) > T.get()) {
+                // the owner is popping from the range, fall back to a single task
+                H.addAndGet(-count);
+                final int index = H.getAndIncrement();
+                if (H.get() > T.get()) {
+                    H.decrementAndGet();
+                    return 0;
+                }
+                out[0] = v.get(index);
+                return 1;
+            }
+            // read the array after the claim, it contains every task published before our read of T
+            final CircularArray a = v;
+            for (int i = 0; i < count; i++) {
+                out[i] = a.get(h + i);
+            }
+            return count;
+        } finally {
+            L.unlock();
+        }
+    }
+
+    /**
+     * Invoked by a thief, while holding the lock, after sizing a batch and before claiming it. The owner may pop from
+     * the range in between, subclasses can hook here to drive that interleaving.
+     */
+    protected void beforeBatchClaim() {
+        // no-op
+    }
+
     private static class CircularArray {
 
         private int logArraySize;
@@ -91,21 +171,29 @@ public class CilkDeque implements WorkStealingPool {
             return 1 << this.logArraySize;
         }
 
+        int maxStealBatch() {
+            return Math.max(1, size() >>> 2);
+        }
+
         Object get(final int i) {
-            final int index = i % size();
-            final Object result = this.segment[index];
-            this.segment[index] = EMPTY;
-            return result;
+            return this.segment[i & (size() - 1)];
+        }
+
+        void clear(final int i) {
+            this.segment[i & (size() - 1)] = EMPTY;
         }
 
         void put(final int i, final Object o) {
-            final int index = i % size();
-            this.segment[index] = o;
+            this.segment[i & (size() - 1)] = o;
         }
 
-        CircularArray grow(final int b, final int t) {
+        /**
+         * Copies the whole window below <code>b</code> as H may be transiently inflated by a thief that later backs
+         * off. The old array is not cleared, a thief may still read its claimed slot from there.
+         */
+        CircularArray grow(final int b) {
             final CircularArray a = new CircularArray(this.logArraySize + 1);
-            for (int i = t; i < b; i++) {
+            for (int i = b - size(); i < b; i++) {
                 a.put(i, this.get(i));
             }
             return a;
@@ -4,6 +4,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Dynamic Circular Work-Stealing Deque. David Chase and Yossi Lev.
+ * <p/>
+ * Slots are only cleared by the owner once it has won the task, a thief reads its slot before the CAS on top and may
+ * lose the race.
  */
 public class CircularWorkStealingDeque implements WorkStealingPool {
 
@@ -15,10 +18,14 @@ public class CircularWorkStealingDeque implements WorkStealingPool {
     private volatile CircularArray activeArray;
 
     protected CircularWorkStealingDeque() {
+        this(LogInitialSize);
+    }
+
+    protected CircularWorkStealingDeque(final int logInitialSize) {
         super();
         this.bottom = 0;
         this.top = new AtomicInteger(0);
-        this.activeArray = new CircularArray(LogInitialSize);
+        this.activeArray = new CircularArray(logInitialSize);
     }
 
     @Override
@@ -29,6 +36,11 @@ public class CircularWorkStealingDeque implements WorkStealingPool {
         return size <= 0;
     }
 
+    @Override
+    public int size() {
+        return Math.max(0, bottom - top.get());
+    }
+
     @Override
     public void pushBottom(final Object o) {
         final int b = this.bottom;
@@ -43,6 +55,24 @@ public class CircularWorkStealingDeque implements WorkStealingPool {
         bottom = b + 1;
     }
 
+    @Override
+    public void pushBottomBatch(final Object[] in, final int count) {
+        if (count <= 0) {
+            return;
+        }
+        final int b = this.bottom;
+        final int t = this.top.get();
+        CircularArray a = this.activeArray;
+        while (b + count - t >= a.size() - 1) {
+            a = a.grow(b, t);
+            this.activeArray = a;
+        }
+        for (int i = 0; i < count; i++) {
+            a.put(b + i, in[i]);
+        }
+        bottom = b + count;
+    }
+
     @Override
     public Object popBottom() {
         int b = this.bottom;
@@ -57,10 +87,13 @@ public class CircularWorkStealingDeque implements WorkStealingPool {
         }
         Object o = a.get(b);
         if (size > 0) {
+            a.clear(b);
             return o;
         }
         if (!top.compareAndSet(t, t + 1)) {
             o = EMPTY;
+        } else {
+            a.clear(b);
         }
         this.bottom = t + 1;
         return o;
@@ -82,6 +115,28 @@ public class CircularWorkStealingDeque implements WorkStealingPool {
         return o;
     }
 
+    /**
+     * Claims one task per CAS on top, a single CAS over a range would race with the owner popping without a CAS while
+     * more than one task remains.
+     */
+    @Override
+    public int stealBatch(final int max, final Object[] out) {
+        int count = 0;
+        while (count < max) {
+            final int t = this.top.get();
+            final int b = this.bottom;
+            if (b - t <= 0) {
+                break;
+            }
+            final Object o = this.activeArray.get(t);
+            if (!top.compareAndSet(t, t + 1)) {
+                break;
+            }
+            out[count++] = o;
+        }
+        return count;
+    }
+
     private static class CircularArray {
 
         private int logArraySize;
@@ -97,10 +152,11 @@ public class CircularWorkStealingDeque implements WorkStealingPool {
         }
 
         Object get(final int i) {
-            final int index = i % size();
-            final Object result = this.segment[index];
-            this.segment[index] = EMPTY;
-            return result;
+            return this.segment[i % size()];
+        }
+
+        void clear(final int i) {
+            this.segment[i % size()] = EMPTY;
         }
 
         void put(final int i, final Object o) {
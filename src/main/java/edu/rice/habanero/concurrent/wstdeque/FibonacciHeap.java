@@ -172,6 +172,37 @@ public final class FibonacciHeap<T> {
         return mSize;
     }
 
+    /**
+     * Returns the entries of the heap in no particular order.  The list is a snapshot, later operations on the heap do
+     * not affect it.  This runs in O(n) time.
+     *
+     * @return All entries of the heap.
+     */
+    public List<Entry<T>> entries() {
+        final List<Entry<T>> result = new ArrayList<>(mSize);
+        if (mMin == null) {
+            return result;
+        }
+
+        /* Every entry is visited once: walk a sibling list and push each
+         * child list onto the stack of lists still to be walked.
+         */
+        final List<Entry<T>> pending = new ArrayList<>();
+        pending.add(mMin);
+        while (!pending.isEmpty()) {
+            final Entry<T> first = pending.remove(pending.size() - 1);
+            Entry<T> curr = first;
+            do {
+                result.add(curr);
+                if (curr.mChild != null) {
+                    pending.add(curr.mChild);
+                }
+                curr = curr.mNext;
+            } while (curr != first);
+        }
+        return result;
+    }
+
     /**
      * Given two Fibonacci heaps, returns a new Fibonacci heap that contains all of the elements of the two heaps.  Each
      * of the input heaps is destructively modified by having all its elements removed.  You can continue to use those
@@ -378,6 +409,36 @@ public final class FibonacciHeap<T> {
         decreaseKeyUnchecked(entry, newPriority);
     }
 
+    /**
+     * Increases the key of the specified element to the new priority.  The entry is unlinked as in delete and then
+     * spliced back into the root list as a singleton tree, hence it remains a valid handle for later operations.  This
+     * runs in amortized O(lg n) time.
+     *
+     * @param entry       The element whose priority should be increased.
+     * @param newPriority The new priority to associate with this entry.
+     * @throws IllegalArgumentException If the new priority is less than the old priority, or if the argument is not a
+     *                                  finite double.
+     */
+    public void increaseKey(Entry<T> entry, double newPriority) {
+        checkPriority(newPriority);
+        if (newPriority < entry.mPriority) {
+            throw new IllegalArgumentException("New priority is less than old.");
+        }
+
+        /* Remove the entry; its children are promoted to roots. */
+        delete(entry);
+
+        /* Reset the entry to a singleton tree and merge it back in. */
+        entry.mDegree = 0;
+        entry.mIsMarked = false;
+        entry.mParent = null;
+        entry.mChild = null;
+        entry.mNext = entry.mPrev = entry;
+        entry.mPriority = newPriority;
+        mMin = mergeLists(mMin, entry);
+        ++mSize;
+    }
+
     /**
      * Deletes this Entry from the Fibonacci heap that contains it.
      * <p>
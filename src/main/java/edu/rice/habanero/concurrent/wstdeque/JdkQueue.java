@@ -14,11 +14,24 @@ public class JdkQueue implements WorkStealingPool {
         return queue.isEmpty();
     }
 
+    @Override
+    public int size() {
+        // ConcurrentLinkedQueue.size() traverses the whole queue, only report whether items are available
+        return queue.isEmpty() ? 0 : 1;
+    }
+
     @Override
     public void pushBottom(final Object o) {
         queue.offer(o);
     }
 
+    @Override
+    public void pushBottomBatch(final Object[] in, final int count) {
+        for (int i = 0; i < count; i++) {
+            queue.offer(in[i]);
+        }
+    }
+
     @Override
     public Object popBottom() {
         return queue.poll();
@@ -28,4 +41,17 @@ public class JdkQueue implements WorkStealingPool {
     public Object steal() {
         return queue.poll();
     }
+
+    @Override
+    public int stealBatch(final int max, final Object[] out) {
+        int count = 0;
+        while (count < max) {
+            final Object item = steal();
+            if (item == EMPTY) {
+                break;
+            }
+            out[count++] = item;
+        }
+        return count;
+    }
 }
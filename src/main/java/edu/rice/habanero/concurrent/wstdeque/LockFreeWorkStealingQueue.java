@@ -38,6 +38,11 @@ public class LockFreeWorkStealingQueue implements WorkStealingPool {
         return count <= 0;
     }
 
+    @Override
+    public int size() {
+        return Math.max(0, tail.get().id - head.get().id);
+    }
+
     public int count() {
         final int[] count = {0};
         evaluateCount(new IntPredicate() {
@@ -144,6 +149,13 @@ public class LockFreeWorkStealingQueue implements WorkStealingPool {
         tail.compareAndSet(localTail, newNode);
     }
 
+    @Override
+    public void pushBottomBatch(final Object[] in, final int count) {
+        for (int i = 0; i < count; i++) {
+            pushBottom(in[i]);
+        }
+    }
+
     public Object popBottom() {
         // keep spinning until we catch the proper head.
         while (true) {
@@ -210,6 +222,19 @@ public class LockFreeWorkStealingQueue implements WorkStealingPool {
         return localTail.val;
     }
 
+    @Override
+    public int stealBatch(final int max, final Object[] out) {
+        int count = 0;
+        while (count < max) {
+            final Object item = steal();
+            if (item == EMPTY) {
+                break;
+            }
+            out[count++] = item;
+        }
+        return count;
+    }
+
 
     private static interface IntPredicate {
         boolean apply(int input);
@@ -9,12 +9,22 @@ public enum PoolType {
         public WorkStealingPool newInstance() {
             return new CircularWorkStealingDeque();
         }
+
+        @Override
+        public WorkStealingPool newInstance(final int logInitialCapacity) {
+            return new CircularWorkStealingDeque(logInitialCapacity);
+        }
     },
     CILK() {
         @Override
         public WorkStealingPool newInstance() {
             return new CilkDeque();
         }
+
+        @Override
+        public WorkStealingPool newInstance(final int logInitialCapacity) {
+            return new CilkDeque(logInitialCapacity);
+        }
     },
     JDK() {
         @Override
@@ -44,10 +54,22 @@ public enum PoolType {
         public WorkStealingPool newInstance() {
             return new X10WorkStealingDeque();
         }
+
+        @Override
+        public WorkStealingPool newInstance(final int logInitialCapacity) {
+            return new X10WorkStealingDeque(1 << logInitialCapacity);
+        }
     };
 
     public abstract WorkStealingPool newInstance();
 
+    /**
+     * Array-backed pools preallocate <code>2^logInitialCapacity</code> slots, linked pools ignore the hint.
+     */
+    public WorkStealingPool newInstance(final int logInitialCapacity) {
+        return newInstance();
+    }
+
     public boolean supportsPriority() {
         return false;
     }
@@ -14,6 +14,13 @@ public class PriorityQueue implements WorkStealingPool {
         }
     }
 
+    @Override
+    public int size() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
     @Override
     public void pushBottom(final Object o) {
         synchronized (queue) {
@@ -21,6 +28,15 @@ public class PriorityQueue implements WorkStealingPool {
         }
     }
 
+    @Override
+    public void pushBottomBatch(final Object[] in, final int count) {
+        synchronized (queue) {
+            for (int i = 0; i < count; i++) {
+                queue.offer(in[i]);
+            }
+        }
+    }
+
     @Override
     public Object popBottom() {
         synchronized (queue) {
@@ -34,4 +50,19 @@ public class PriorityQueue implements WorkStealingPool {
             return queue.poll();
         }
     }
+
+    @Override
+    public int stealBatch(final int max, final Object[] out) {
+        int count = 0;
+        synchronized (queue) {
+            while (count < max) {
+                final Object item = queue.poll();
+                if (item == EMPTY) {
+                    break;
+                }
+                out[count++] = item;
+            }
+        }
+        return count;
+    }
 }
@@ -9,9 +9,29 @@ public interface WorkStealingPool {
 
     boolean isEmpty();
 
+    /**
+     * @return the approximate number of items in the pool, the value may be stale under concurrent access.
+     */
+    int size();
+
     void pushBottom(Object o);
 
+    /**
+     * Pushes the first <code>count</code> items of <code>in</code> as successive {@link #pushBottom(Object)} calls
+     * would, but publishes them in a single operation where the pool supports it.
+     */
+    void pushBottomBatch(Object[] in, int count);
+
     Object popBottom();
 
     Object steal();
+
+    /**
+     * Steals up to <code>max</code> items from the top of the pool in a single operation where the pool supports it.
+     *
+     * @param max the maximum number of items to steal, at most <code>out.length</code>.
+     * @param out receives the stolen items, oldest first.
+     * @return the number of items stored into <code>out</code>.
+     */
+    int stealBatch(int max, Object[] out);
 }
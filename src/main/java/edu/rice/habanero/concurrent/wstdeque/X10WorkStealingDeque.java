@@ -52,9 +52,16 @@ public class X10WorkStealingDeque implements WorkStealingPool {
      * Creates a Deque.
      */
     public X10WorkStealingDeque() {
+        this(INITIAL_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a Deque with the given initial capacity, must be a power of two and at least 2.
+     */
+    public X10WorkStealingDeque(final int initialCapacity) {
         // Allocate while starting to improve chances of thread-local
         // isolation
-        queue = new Object[INITIAL_QUEUE_CAPACITY];
+        queue = new Object[initialCapacity];
     }
 
     // Intrinsics-based support for queue operations.
@@ -98,6 +105,12 @@ public class X10WorkStealingDeque implements WorkStealingPool {
         return n <= 0;
     }
 
+    @Override
+    public int size() {
+        // suppress momentarily negative values
+        return Math.max(0, sp - base);
+    }
+
     /**
      * Pushes a task. Called only by current thread.
      *
@@ -117,6 +130,30 @@ public class X10WorkStealingDeque implements WorkStealingPool {
         }
     }
 
+    /**
+     * Copies the tasks into the queue array in at most two runs and then advances sp once. Called only by current
+     * thread.
+     */
+    @Override
+    public final void pushBottomBatch(final Object[] in, final int count) {
+        if (count <= 0) {
+            return;
+        }
+        final int s = sp;
+        while (s + count - base >= queue.length - 1) {
+            growQueue();
+        }
+        final Object[] q = queue;
+        final int mask = q.length - 1;
+        final int start = s & mask;
+        final int firstRun = Math.min(count, q.length - start);
+        System.arraycopy(in, 0, q, start, firstRun);
+        if (firstRun < count) {
+            System.arraycopy(in, firstRun, q, 0, count - firstRun);
+        }
+        storeSp(s + count);
+    }
+
     /**
      * Returns a popped task, or EMPTY if empty. Ensures active status if nonnull. Called only by current thread.
      */
@@ -158,6 +195,34 @@ public class X10WorkStealingDeque implements WorkStealingPool {
         return EMPTY;
     }
 
+    /**
+     * Takes successive tasks from the base of the queue, stopping at the first empty or contended slot. Each slot is
+     * claimed by its own CAS, as in {@link #steal()}, but the thief keeps its queue array and base in cache.
+     *
+     * @return the number of tasks stored into <code>out</code>.
+     */
+    @Override
+    public final int stealBatch(final int max, final Object[] out) {
+        int b = base;
+        // must read q after b
+        final Object[] q = queue;
+        if (q == null) {
+            return 0;
+        }
+        final int mask = q.length - 1;
+        int count = 0;
+        while (count < max && sp - b > 0) {
+            final int i = mask & b;
+            final Object t = q[i];
+            if (t == null || !casSlotNull(q, i, t)) {
+                break;
+            }
+            base = ++b;
+            out[count++] = t;
+        }
+        return count;
+    }
+
     /**
      * Doubles queue array size. Transfers elements by emulating steals (deqs) from old array and placing, oldest first,
      * into new array.
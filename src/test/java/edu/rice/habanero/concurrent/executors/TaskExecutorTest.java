@@ -1,15 +1,42 @@
 package edu.rice.habanero.concurrent.executors;
 
+import com.sun.net.httpserver.HttpServer;
+import edu.rice.habanero.concurrent.util.AtomicPriorityBitmap;
+import edu.rice.habanero.concurrent.util.Blocker;
+import edu.rice.habanero.concurrent.util.IndexedPriorityQueue;
+import edu.rice.habanero.concurrent.util.Prioritized;
+import edu.rice.habanero.concurrent.util.PriorityTask;
+import edu.rice.habanero.concurrent.util.SchedulerMetricsExporter;
+import edu.rice.habanero.concurrent.util.TaskFuture;
+import edu.rice.habanero.concurrent.util.TaskGroup;
+import edu.rice.habanero.concurrent.util.TaskHandle;
+import edu.rice.habanero.concurrent.util.TerminationDetector;
+import edu.rice.habanero.concurrent.util.TerminationDetectorType;
+import edu.rice.habanero.concurrent.wstdeque.CilkDeque;
 import edu.rice.habanero.concurrent.wstdeque.PoolType;
+import edu.rice.habanero.concurrent.wstdeque.WorkStealingPool;
 import junit.framework.TestCase;
 
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.async;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.asyncAll;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.asyncWithDeadline;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.block;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.continueLater;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.finish;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.future;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.higherPriorityPending;
 import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.kernel;
+import static edu.rice.habanero.concurrent.util.TaskExecutorUtil.shouldSplit;
 
 /**
  * @author <a href="http://shams.web.rice.edu/">Shams Imam</a> (shams@rice.edu)
@@ -79,6 +106,46 @@ public class TaskExecutorTest extends TestCase {
     }
 
 
+    private static void executeExternalTasks(
+            final int numProducers, final int tasksPerProducer, final TaskExecutor taskExecutor,
+            final int minPriorityInc, final int maxPriorityInc) {
+
+        final AtomicInteger executedTasks = new AtomicInteger(0);
+        final int numPriorities = maxPriorityInc - minPriorityInc + 1;
+
+        final Thread[] producers = new Thread[numProducers];
+        for (int p = 0; p < numProducers; p++) {
+            producers[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < tasksPerProducer; i++) {
+                        taskExecutor.submit(minPriorityInc + (i % numPriorities), new Runnable() {
+                            @Override
+                            public void run() {
+                                executedTasks.incrementAndGet();
+                            }
+                        });
+                    }
+                }
+            });
+            producers[p].start();
+        }
+        for (final Thread producer : producers) {
+            try {
+                producer.join();
+            } catch (final InterruptedException ex) {
+                fail("Interrupted while waiting for producer: " + ex.getMessage());
+            }
+        }
+        taskExecutor.triggerShutdown();
+        taskExecutor.awaitTermination();
+
+        final int expectedTasks = numProducers * tasksPerProducer;
+        final String message = "Executed number of external tasks: actual = " + executedTasks.get() + ", expected = " + expectedTasks;
+        System.out.println("  " + taskExecutor.getClass().getSimpleName() + ":: " + message);
+        assertEquals(message, expectedTasks, executedTasks.get());
+    }
+
     public void testGenericForkJoinTaskExecutor() {
 
         System.out.println("TaskExecutorTest.testGenericForkJoinTaskExecutor: starts...");
@@ -126,6 +193,23 @@ public class TaskExecutorTest extends TestCase {
         System.out.println("TaskExecutorTest.testPriorityBlockingQueueTaskExecutor: ends.");
     }
 
+    public void testPriorityBlockingQueueTaskExecutorStripedTermination() {
+
+        System.out.println("TaskExecutorTest.testPriorityBlockingQueueTaskExecutorStripedTermination: starts...");
+
+        final int availableProcessors = Runtime.getRuntime().availableProcessors();
+
+        final TaskExecutor taskExecutor = new PriorityBlockingQueueTaskExecutor(
+                availableProcessors, availableProcessors,
+                0L, TimeUnit.MILLISECONDS,
+                minPriorityInc, maxPriorityInc, TerminationDetectorType.STRIPED);
+        final int numTasks = 500;
+
+        executeTasks(numTasks, taskExecutor, minPriorityInc, maxPriorityInc, 0.30, availableProcessors);
+
+        System.out.println("TaskExecutorTest.testPriorityBlockingQueueTaskExecutorStripedTermination: ends.");
+    }
+
     public void testPriorityWstTaskExecutorCilkDeque() {
 
         System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorCilkDeque: starts...");
@@ -171,63 +255,1999 @@ public class TaskExecutorTest extends TestCase {
         System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10Deque: ends.");
     }
 
-    public void testStandardWstTaskExecutorCilkDeque() {
+    public void testPriorityWstTaskExecutorX10DequeSpinIdle() {
 
-        System.out.println("TaskExecutorTest.testStandardWstTaskExecutorCilkDeque: starts...");
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeSpinIdle: starts...");
 
         final int availableProcessors = Runtime.getRuntime().availableProcessors();
 
-        final TaskExecutor taskExecutor = new StandardWstTaskExecutor(PoolType.CILK, availableProcessors);
+        final TaskExecutor taskExecutor = new PriorityWstTaskExecutor(
+                PoolType.X10, availableProcessors, minPriorityInc, maxPriorityInc,
+                new WstOptions().idleStrategy(IdleStrategyType.SPIN));
         final int numTasks = 500;
 
-        executeTasks(numTasks, taskExecutor, minPriorityInc, maxPriorityInc, 0.95, availableProcessors);
+        executeTasks(numTasks, taskExecutor, minPriorityInc, maxPriorityInc, 0.30, availableProcessors);
 
-        System.out.println("TaskExecutorTest.testStandardWstTaskExecutorCilkDeque: ends.");
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeSpinIdle: ends.");
     }
 
-    public void testStandardWstTaskExecutorJdkDeque() {
+    public void testPriorityWstTaskExecutorX10DequeExternalSubmit() {
 
-        System.out.println("TaskExecutorTest.testStandardWstTaskExecutorJdkDeque: starts...");
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeExternalSubmit: starts...");
 
         final int availableProcessors = Runtime.getRuntime().availableProcessors();
 
-        final TaskExecutor taskExecutor = new StandardWstTaskExecutor(PoolType.JDK, availableProcessors);
+        final TaskExecutor taskExecutor = new PriorityWstTaskExecutor(
+                PoolType.X10, availableProcessors, minPriorityInc, maxPriorityInc);
+
+        executeExternalTasks(4, 10_000, taskExecutor, minPriorityInc, maxPriorityInc);
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeExternalSubmit: ends.");
+    }
+
+    public void testPriorityWstTaskExecutorX10DequeLoadWeightedVictim() {
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeLoadWeightedVictim: starts...");
+
+        final int availableProcessors = Runtime.getRuntime().availableProcessors();
+
+        final TaskExecutor taskExecutor = new PriorityWstTaskExecutor(
+                PoolType.X10, availableProcessors, minPriorityInc, maxPriorityInc,
+                new WstOptions().victimSelector(VictimSelectorType.LOAD_WEIGHTED));
         final int numTasks = 500;
 
-        executeTasks(numTasks, taskExecutor, minPriorityInc, maxPriorityInc, 0.95, availableProcessors);
+        executeTasks(numTasks, taskExecutor, minPriorityInc, maxPriorityInc, 0.30, availableProcessors);
 
-        System.out.println("TaskExecutorTest.testStandardWstTaskExecutorJdkDeque: ends.");
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeLoadWeightedVictim: ends.");
     }
 
-    public void testStandardWstTaskExecutorX10Deque() {
+    public void testPriorityWstTaskExecutorX10DequeLocalityVictim() {
 
-        System.out.println("TaskExecutorTest.testStandardWstTaskExecutorX10Deque: starts...");
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeLocalityVictim: starts...");
+
+        {
+            // worker 0 shares a domain with worker 1 only, every second failed local attempt allows a remote one
+            final LocalityDomains localityDomains = new LocalityDomains(new int[]{0, 0, 1, 1}, 2);
+            final VictimSelector victimSelector = VictimSelectorType.LOCALITY.newInstance(0, 4, null, localityDomains);
+            final int[] expectedVictims = {1, 1, 2, 1, 1, 3, 1, 1, 2};
+            for (final int expectedVictim : expectedVictims) {
+                final int victim = victimSelector.nextVictim();
+                assertEquals("Victim", expectedVictim, victim);
+                victimSelector.stealAttempted(victim, false);
+            }
+        }
 
         final int availableProcessors = Runtime.getRuntime().availableProcessors();
+        final int[] workerDomains = new int[availableProcessors];
+        for (int i = 0; i < availableProcessors; i++) {
+            workerDomains[i] = i % 2;
+        }
 
-        final TaskExecutor taskExecutor = new StandardWstTaskExecutor(PoolType.X10, availableProcessors);
+        final PriorityWstTaskExecutor taskExecutor = new PriorityWstTaskExecutor(
+                PoolType.X10, availableProcessors, minPriorityInc, maxPriorityInc,
+                new WstOptions()
+                        .victimSelector(VictimSelectorType.LOCALITY)
+                        .localityDomains(new LocalityDomains(workerDomains, 4)));
         final int numTasks = 500;
 
-        executeTasks(numTasks, taskExecutor, minPriorityInc, maxPriorityInc, 0.95, availableProcessors);
+        executeTasks(numTasks, taskExecutor, minPriorityInc, maxPriorityInc, 0.30, availableProcessors);
+        assertTrue("Remote steals", taskExecutor.remoteSteals() <= taskExecutor.successfulSteals());
 
-        System.out.println("TaskExecutorTest.testStandardWstTaskExecutorX10Deque: ends.");
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeLocalityVictim: ends.");
     }
 
-    public void testSynchronizedPriorityQueueTaskExecutor() {
+    public void testPriorityWstTaskExecutorX10DequeMetrics() throws Exception {
 
-        System.out.println("TaskExecutorTest.testSynchronizedPriorityQueueTaskExecutor: starts...");
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeMetrics: starts...");
 
         final int availableProcessors = Runtime.getRuntime().availableProcessors();
 
-        final TaskExecutor taskExecutor = new SynchronizedPriorityQueueTaskExecutor(
-                availableProcessors, availableProcessors,
-                0L, TimeUnit.MILLISECONDS,
-                minPriorityInc, maxPriorityInc);
+        final PriorityWstTaskExecutor taskExecutor = new PriorityWstTaskExecutor(
+                PoolType.X10, availableProcessors, minPriorityInc, maxPriorityInc);
         final int numTasks = 500;
 
         executeTasks(numTasks, taskExecutor, minPriorityInc, maxPriorityInc, 0.30, availableProcessors);
 
-        System.out.println("TaskExecutorTest.testSynchronizedPriorityQueueTaskExecutor: ends.");
+        long executedTasks = 0;
+        long localPops = 0;
+        for (final WorkerMetrics workerMetrics : taskExecutor.workerMetrics()) {
+            assertEquals("Levels", maxPriorityInc - minPriorityInc + 1, workerMetrics.executedTasks().length);
+            for (final long levelTasks : workerMetrics.executedTasks()) {
+                executedTasks += levelTasks;
+            }
+            localPops += workerMetrics.localPops();
+        }
+        assertEquals("Executed tasks", taskExecutor.executedTasks(), executedTasks);
+        assertTrue("Local pops", localPops > 0);
+
+        final ObjectName objectName = SchedulerMetricsExporter.register("test", taskExecutor);
+        final HttpServer httpServer = SchedulerMetricsExporter.startHttpServer(0);
+        try {
+            final long[] workerTasks = (long[]) ManagementFactory.getPlatformMBeanServer().getAttribute(
+                    objectName, "ExecutedTasksPerWorker");
+            assertEquals("Workers", availableProcessors, workerTasks.length);
+
+            final URL url = new URL("http://127.0.0.1:" + httpServer.getAddress().getPort() + "/metrics");
+            final String body;
+            try (final Scanner scanner = new Scanner(url.openStream(), "UTF-8")) {
+                body = scanner.useDelimiter("\\A").next();
+            }
+            assertTrue("Executed tasks sample",
+                       body.contains("wst_executed_tasks_total{executor=\"test\",worker=\"0\""));
+            assertTrue("Steals sample", body.contains("# TYPE wst_steals_total counter"));
+        } finally {
+            httpServer.stop(0);
+            SchedulerMetricsExporter.unregister("test");
+        }
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeMetrics: ends.");
+    }
+
+    public void testEventTraceChromeExport() throws Exception {
+
+        System.out.println("TaskExecutorTest.testEventTraceChromeExport: starts...");
+
+        final EventTrace[] traces = {new EventTrace(), new EventTrace()};
+        traces[0].record(EventTrace.TASK_START, 2, 0);
+        traces[0].record(EventTrace.TASK_END, 2, 0);
+        traces[0].record(EventTrace.LEVEL_SWITCH, 0, 2);
+        traces[0].record(EventTrace.TASK_START, 0, 0);
+        traces[0].record(EventTrace.TASK_END, 0, 0);
+        traces[1].record(EventTrace.IDLE_START, 0, 0);
+        traces[1].record(EventTrace.IDLE_END, 0, 0);
+        traces[1].record(EventTrace.STEAL, 1, 0);
+        // the begin event of this end event is missing, it is dropped
+        traces[1].record(EventTrace.TASK_END, 1, 0);
+
+        final StringBuilder out = new StringBuilder();
+        EventTrace.writeChromeTrace(traces, out);
+        final String json = out.toString();
+        assertTrue("Header", json.startsWith("{\"displayTimeUnit\":\"ns\",\"traceEvents\":["));
+        assertTrue("Footer", json.trim().endsWith("]}"));
+        assertTrue("Worker names", json.contains("\"name\":\"worker-1\""));
+        assertTrue("Task", json.contains("\"name\":\"task L2\""));
+        assertTrue("Level switch", json.contains("\"args\":{\"from\":2,\"to\":0}"));
+        assertTrue("Steal", json.contains("\"args\":{\"victim\":0,\"level\":1}"));
+        assertEquals("Begin events", 3, json.split("\"ph\":\"B\"", -1).length - 1);
+        assertEquals("End events", 3, json.split("\"ph\":\"E\"", -1).length - 1);
+
+        final int availableProcessors = Runtime.getRuntime().availableProcessors();
+        final PriorityWstTaskExecutor taskExecutor = new PriorityWstTaskExecutor(
+                PoolType.X10, availableProcessors, minPriorityInc, maxPriorityInc);
+        executeTasks(100, taskExecutor, minPriorityInc, maxPriorityInc, 0.30, availableProcessors);
+        final StringBuilder executorOut = new StringBuilder();
+        taskExecutor.writeChromeTrace(executorOut);
+        assertTrue("Executor workers", executorOut.toString().contains("\"name\":\"worker-0\""));
+
+        System.out.println("TaskExecutorTest.testEventTraceChromeExport: ends.");
+    }
+
+    public void testQosMonitor() throws Exception {
+
+        System.out.println("TaskExecutorTest.testQosMonitor: starts...");
+
+        final QosMonitor qosMonitor = new QosMonitor();
+        qosMonitor.taskQueued(1);
+        qosMonitor.taskQueued(1);
+        qosMonitor.taskQueued(5);
+        qosMonitor.taskQueued(9);
+
+        // a higher priority task is queued while these start
+        qosMonitor.taskStarted(1);
+        qosMonitor.taskCompleted(1);
+        qosMonitor.taskStarted(5);
+        qosMonitor.taskCompleted(5);
+        // the highest priority is not an inversion, nor is the last task
+        qosMonitor.taskStarted(9);
+        qosMonitor.taskCompleted(9);
+        qosMonitor.taskStarted(1);
+        qosMonitor.taskCompleted(1);
+
+        assertEquals("Started tasks", 4, qosMonitor.startedTasks());
+        assertEquals("Inversions", 2, qosMonitor.inversions());
+        assertEquals("Inversion rate", 50.0, qosMonitor.inversionRate(), 1e-9);
+        // two tasks were queued above the first start, one above the second
+        assertEquals("Higher queued", 3 / 4.0, qosMonitor.meanHigherQueued(), 1e-9);
+        assertEquals("Priorities", 3, qosMonitor.meanQueued().size());
+        assertTrue("Weighted completion", qosMonitor.weightedCompletionMillis() > 0);
+
+        final QosMonitor droppedMonitor = new QosMonitor();
+        droppedMonitor.taskQueued(5);
+        droppedMonitor.tasksDropped(5, 1);
+        droppedMonitor.taskQueued(1);
+        droppedMonitor.taskStarted(1);
+        assertEquals("Dropped tasks are not queued", 0, droppedMonitor.inversions());
+
+        System.out.println("TaskExecutorTest.testQosMonitor: ends.");
+    }
+
+    public void testPriorityWstExecutorService() throws Exception {
+
+        System.out.println("TaskExecutorTest.testPriorityWstExecutorService: starts...");
+
+        final PriorityWstExecutorService executorService = new PriorityWstExecutorService(
+                PoolType.X10, 2, minPriorityInc, maxPriorityInc);
+
+        assertEquals("Callable result", 42, (int) executorService.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return 42;
+            }
+        }).get());
+        assertEquals("Runnable result", "done", executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                // nothing to do
+            }
+        }, "done").get());
+
+        // waiting workers run the queued subtasks instead of exhausting the two workers
+        assertEquals("Nested futures", 610, (int) executorService.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return fibonacci(executorService, 15);
+            }
+        }).get());
+
+        final List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tasks.add(new PrioritizedCallable(minPriorityInc + (i % (maxPriorityInc - minPriorityInc + 1)), i));
+        }
+        final List<Future<Integer>> futures = executorService.invokeAll(tasks);
+        for (int i = 0; i < futures.size(); i++) {
+            assertTrue("Done after invokeAll", futures.get(i).isDone());
+            assertEquals("invokeAll result", i, (int) futures.get(i).get());
+        }
+
+        final List<Callable<Integer>> mostlyFailingTasks = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            mostlyFailingTasks.add(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    throw new IllegalStateException("expected");
+                }
+            });
+        }
+        mostlyFailingTasks.add(new PrioritizedCallable(minPriorityInc, 7));
+        assertEquals("invokeAny result", 7, (int) executorService.invokeAny(mostlyFailingTasks));
+        try {
+            executorService.invokeAny(mostlyFailingTasks.subList(0, 5));
+            fail("invokeAny of failing tasks must fail");
+        } catch (final ExecutionException ex) {
+            assertTrue("Cause", ex.getCause() instanceof IllegalStateException);
+        }
+
+        executorService.setDefaultPriority(maxPriorityInc);
+        final Future<Integer> defaultFuture = executorService.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return 1;
+            }
+        });
+        assertEquals("Thread default priority", maxPriorityInc, ((PriorityFuture<?>) defaultFuture).priority());
+        executorService.clearDefaultPriority();
+        assertEquals("Prioritized overrides the default", minPriorityInc,
+                     ((PriorityFuture<?>) executorService.submit(new PrioritizedCallable(minPriorityInc, 1))).priority());
+
+        // the completed futures come out by priority once all are done
+        final PriorityCompletionService<Integer> completionService = new PriorityCompletionService<>(executorService);
+        final List<Future<Integer>> completionFutures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final int priority = minPriorityInc + (i * 7) % (maxPriorityInc - minPriorityInc + 1);
+            completionFutures.add(completionService.submit(new PrioritizedCallable(priority, priority)));
+        }
+        for (final Future<Integer> future : completionFutures) {
+            future.get();
+        }
+        int lastPriority = Integer.MAX_VALUE;
+        for (int i = 0; i < completionFutures.size(); i++) {
+            final int priority = completionService.take().get();
+            assertTrue("Completion order " + priority + " after " + lastPriority, priority <= lastPriority);
+            lastPriority = priority;
+        }
+        assertTrue("Completion queue drained", completionService.poll(10, TimeUnit.MILLISECONDS) == null);
+
+        executorService.shutdown();
+        assertTrue("Shutdown", executorService.isShutdown());
+        try {
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    // nothing to do
+                }
+            });
+            fail("Submission after shutdown must be rejected");
+        } catch (final RejectedExecutionException ex) {
+            // expected
+        }
+        assertTrue("Terminated in time", executorService.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue("Terminated", executorService.isTerminated());
+
+        System.out.println("TaskExecutorTest.testPriorityWstExecutorService: ends.");
+    }
+
+    public void testPriorityWstExecutorServiceShutdownNow() throws Exception {
+
+        System.out.println("TaskExecutorTest.testPriorityWstExecutorServiceShutdownNow: starts...");
+
+        final PriorityWstExecutorService executorService = new PriorityWstExecutorService(
+                PoolType.X10, 1, minPriorityInc, maxPriorityInc);
+
+        final CountDownLatch startedLatch = new CountDownLatch(1);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final Future<?> blockingFuture = executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                startedLatch.countDown();
+                try {
+                    releaseLatch.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        startedLatch.await();
+
+        final List<Future<Integer>> queuedFutures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            queuedFutures.add(executorService.submit(new PrioritizedCallable(maxPriorityInc, i)));
+        }
+        final List<Runnable> drainedTasks = executorService.shutdownNow();
+        assertEquals("Queued tasks returned", queuedFutures.size(), drainedTasks.size());
+        assertTrue("Returns the queued futures", new HashSet<Object>(drainedTasks).equals(new HashSet<>(queuedFutures)));
+        assertFalse("Not terminated while a task runs", executorService.awaitTermination(10, TimeUnit.MILLISECONDS));
+        releaseLatch.countDown();
+
+        assertTrue("Terminated in time", executorService.awaitTermination(10, TimeUnit.SECONDS));
+        assertFalse("The running task completes", blockingFuture.isCancelled());
+        for (final Future<Integer> future : queuedFutures) {
+            assertFalse("Returned task never runs", future.isDone());
+        }
+
+        // tasks that the workers take after shutdownNow are cancelled instead
+        final PriorityWstExecutorService spawningService = new PriorityWstExecutorService(
+                PoolType.X10, 1, minPriorityInc, maxPriorityInc);
+        final CountDownLatch spawningLatch = new CountDownLatch(1);
+        final CountDownLatch spawnedLatch = new CountDownLatch(1);
+        final CountDownLatch stoppedLatch = new CountDownLatch(1);
+        final List<Future<Integer>> subtaskFutures = new ArrayList<>();
+        spawningService.submit(new Runnable() {
+            @Override
+            public void run() {
+                spawningLatch.countDown();
+                try {
+                    stoppedLatch.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 10; i++) {
+                    subtaskFutures.add(spawningService.submit(new PrioritizedCallable(maxPriorityInc, i)));
+                }
+                spawnedLatch.countDown();
+            }
+        });
+        spawningLatch.await();
+        assertTrue("Nothing queued", spawningService.shutdownNow().isEmpty());
+        stoppedLatch.countDown();
+        spawnedLatch.await();
+        assertTrue("Terminated in time", spawningService.awaitTermination(10, TimeUnit.SECONDS));
+        for (final Future<Integer> future : subtaskFutures) {
+            assertTrue("Subtask cancelled", future.isCancelled());
+        }
+
+        System.out.println("TaskExecutorTest.testPriorityWstExecutorServiceShutdownNow: ends.");
+    }
+
+    private static int fibonacci(final ExecutorService executorService, final int n) throws Exception {
+        if (n < 2) {
+            return n;
+        }
+        final Future<Integer> left = executorService.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return fibonacci(executorService, n - 1);
+            }
+        });
+        final int right = fibonacci(executorService, n - 2);
+        return left.get() + right;
+    }
+
+    private static final class PrioritizedCallable implements Callable<Integer>, Prioritized {
+
+        private final int priority;
+        private final int result;
+
+        private PrioritizedCallable(final int priority, final int result) {
+            this.priority = priority;
+            this.result = result;
+        }
+
+        @Override
+        public int priority() {
+            return priority;
+        }
+
+        @Override
+        public Integer call() {
+            return result;
+        }
+    }
+
+    public void testTimingWheelCascades() {
+
+        System.out.println("TaskExecutorTest.testTimingWheelCascades: starts...");
+
+        final PriorityWstTaskExecutor taskExecutor = new PriorityWstTaskExecutor(
+                PoolType.X10, 1, minPriorityInc, maxPriorityInc);
+        final TimingWheelScheduler scheduler = new TimingWheelScheduler(taskExecutor);
+        final Runnable noop = new Runnable() {
+            @Override
+            public void run() {
+                // nothing to do
+            }
+        };
+        final Random random = new Random(42);
+        final TimingWheel wheel = new TimingWheel(0);
+        final List<ScheduledTask> timers = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            final ScheduledTask timer = new ScheduledTask(scheduler, maxPriorityInc, noop, 0, 0);
+            // beyond the range of the top level for some timers
+            timer.deadlineTick = 1 + (i % 100 == 0 ? (1L << 24) + random.nextInt(100_000) : random.nextInt(300_000));
+            assertTrue("Timer in the future is added", wheel.add(timer));
+            timers.add(timer);
+        }
+        for (int i = 0; i < timers.size(); i += 7) {
+            wheel.remove(timers.get(i));
+        }
+        final List<ScheduledTask> expired = new ArrayList<>();
+        int expiredTimers = 0;
+        while (wheel.size() > 0) {
+            wheel.advanceTo(wheel.currentTick() + 1, expired);
+            for (final ScheduledTask timer : expired) {
+                assertEquals("Timer expires at its deadline", timer.deadlineTick, wheel.currentTick());
+            }
+            expiredTimers += expired.size();
+            expired.clear();
+        }
+        assertEquals("Expired timers", timers.size() - (timers.size() + 6) / 7, expiredTimers);
+
+        scheduler.shutdown();
+        taskExecutor.triggerShutdown();
+        taskExecutor.awaitTermination();
+
+        System.out.println("TaskExecutorTest.testTimingWheelCascades: ends.");
+    }
+
+    public void testTimingWheelScheduler() {
+
+        System.out.println("TaskExecutorTest.testTimingWheelScheduler: starts...");
+
+        final PriorityWstTaskExecutor taskExecutor = new PriorityWstTaskExecutor(
+                PoolType.X10, 2, minPriorityInc, maxPriorityInc);
+        // a short tick so that the delays below cascade from the second and third level
+        final TimingWheelScheduler scheduler = new TimingWheelScheduler(taskExecutor, 100, TimeUnit.MICROSECONDS);
+
+        final int numTasks = 200;
+        final AtomicInteger earlyTasks = new AtomicInteger(0);
+        final AtomicInteger executedTasks = new AtomicInteger(0);
+        final AtomicInteger cancelledRuns = new AtomicInteger(0);
+        final List<ScheduledTask> cancelledTasks = new ArrayList<>();
+        for (int i = 0; i < numTasks; i++) {
+            final long delayMicros = (i * 2_503L) % 500_000;
+            final long deadlineNanos = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(delayMicros);
+            final int priority = minPriorityInc + (i % (maxPriorityInc - minPriorityInc + 1));
+            scheduler.schedule(priority, delayMicros, TimeUnit.MICROSECONDS, new Runnable() {
+                @Override
+                public void run() {
+                    if (System.nanoTime() < deadlineNanos) {
+                        earlyTasks.incrementAndGet();
+                    }
+                    executedTasks.incrementAndGet();
+                }
+            });
+            cancelledTasks.add(scheduler.schedule(priority, delayMicros + 50_000, TimeUnit.MICROSECONDS,
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            cancelledRuns.incrementAndGet();
+                        }
+                    }));
+        }
+        // pending timers keep the executor from terminating until they are cancelled
+        cancelledTasks.add(scheduler.schedule(maxPriorityInc, 1, TimeUnit.HOURS, new Runnable() {
+            @Override
+            public void run() {
+                cancelledRuns.incrementAndGet();
+            }
+        }));
+
+        final AtomicInteger periodicRuns = new AtomicInteger(0);
+        final ScheduledTask[] periodicTask = new ScheduledTask[1];
+        periodicTask[0] = scheduler.scheduleAtFixedRate(maxPriorityInc, 0, 5, TimeUnit.MILLISECONDS, new Runnable() {
+            @Override
+            public void run() {
+                if (periodicRuns.incrementAndGet() == 10) {
+                    assertTrue("Cancels itself", periodicTask[0].cancel());
+                }
+            }
+        });
+        final AtomicInteger failingRuns = new AtomicInteger(0);
+        final ScheduledTask failingTask = scheduler.scheduleAtFixedRate(
+                minPriorityInc, 1, 2, TimeUnit.MILLISECONDS, new Runnable() {
+                    @Override
+                    public void run() {
+                        if (failingRuns.incrementAndGet() == 3) {
+                            throw new IllegalStateException("Expected failure of a periodic task");
+                        }
+                    }
+                });
+
+        for (final ScheduledTask cancelledTask : cancelledTasks) {
+            assertTrue("Cancels pending task", cancelledTask.cancel());
+            assertTrue("Cancelled task is done", cancelledTask.isCancelled() && cancelledTask.isDone());
+            assertFalse("Cancels only once", cancelledTask.cancel());
+        }
+
+        taskExecutor.triggerShutdown();
+        taskExecutor.awaitTermination();
+        scheduler.shutdown();
+
+        assertEquals("Executed delayed tasks", numTasks, executedTasks.get());
+        assertEquals("Tasks fired before their deadline", 0, earlyTasks.get());
+        assertEquals("Runs of cancelled tasks", 0, cancelledRuns.get());
+        assertEquals("Runs of the periodic task", 10, periodicRuns.get());
+        assertEquals("Runs of the failing periodic task", 3, failingRuns.get());
+        assertTrue("Failed periodic task is done", failingTask.isDone() && !failingTask.isCancelled());
+        try {
+            scheduler.schedule(maxPriorityInc, 1, TimeUnit.MILLISECONDS, new Runnable() {
+                @Override
+                public void run() {
+                    // nothing to do
+                }
+            });
+            fail("Scheduling after shutdown must fail");
+        } catch (final IllegalStateException ex) {
+            // expected
+        }
+
+        System.out.println("TaskExecutorTest.testTimingWheelScheduler: ends.");
+    }
+
+    public void testTimingWheelSchedulerCancelAfterFire() throws InterruptedException {
+
+        System.out.println("TaskExecutorTest.testTimingWheelSchedulerCancelAfterFire: starts...");
+
+        final PriorityWstTaskExecutor taskExecutor = new PriorityWstTaskExecutor(
+                PoolType.X10, 2, minPriorityInc, maxPriorityInc);
+        final TimingWheelScheduler scheduler = new TimingWheelScheduler(taskExecutor);
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicInteger completedRuns = new AtomicInteger(0);
+        final ScheduledTask firedTask = scheduler.schedule(maxPriorityInc, 0, TimeUnit.MILLISECONDS, new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    Thread.sleep(300);
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                completedRuns.incrementAndGet();
+            }
+        });
+        started.await();
+        assertTrue("Fired one-shot task is done", firedTask.isDone());
+        assertFalse("Fired one-shot task cannot be cancelled", firedTask.cancel());
+        assertFalse("Fired one-shot task is not cancelled", firedTask.isCancelled());
+
+        // a periodic task that is running can be cancelled, its run in progress completes
+        final CountDownLatch periodicStarted = new CountDownLatch(1);
+        final AtomicInteger periodicRuns = new AtomicInteger(0);
+        final ScheduledTask periodicTask = scheduler.scheduleAtFixedRate(
+                minPriorityInc, 0, 1, TimeUnit.MILLISECONDS, new Runnable() {
+                    @Override
+                    public void run() {
+                        periodicStarted.countDown();
+                        try {
+                            Thread.sleep(100);
+                        } catch (final InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                        periodicRuns.incrementAndGet();
+                    }
+                });
+        periodicStarted.await();
+        assertTrue("Cancels running periodic task", periodicTask.cancel());
+        assertFalse("Cancels only once", periodicTask.cancel());
+
+        taskExecutor.triggerShutdown();
+        taskExecutor.awaitTermination();
+        scheduler.shutdown();
+
+        assertEquals("Termination waits for the fired task", 1, completedRuns.get());
+        assertEquals("Runs of the cancelled periodic task", 1, periodicRuns.get());
+
+        System.out.println("TaskExecutorTest.testTimingWheelSchedulerCancelAfterFire: ends.");
+    }
+
+    public void testAtomicPriorityBitmap() {
+
+        System.out.println("TaskExecutorTest.testAtomicPriorityBitmap: starts...");
+
+        // three layers: 12,293 levels span 193 words of layer 0 and 4 words of layer 1
+        final int size = 3 * 64 * 64 + 5;
+        final AtomicPriorityBitmap bitmap = new AtomicPriorityBitmap(size);
+        assertEquals("Empty bitmap", size, bitmap.nextSetIndex(0));
+
+        final int[] boundaries = {0, 63, 64, 127, 4_095, 4_096, 8_191, 8_192, size - 1};
+        for (final int index : boundaries) {
+            bitmap.set(index);
+            assertTrue("Set " + index, bitmap.isSet(index));
+        }
+        bitmap.set(4_096);
+        assertEquals("Setting twice has no effect", 4_096, bitmap.nextSetIndex(4_096));
+        for (int i = 0; i < boundaries.length; i++) {
+            assertEquals("Next from " + boundaries[i], boundaries[i], bitmap.nextSetIndex(boundaries[i]));
+            if (i + 1 < boundaries.length) {
+                assertEquals("Next after " + boundaries[i], boundaries[i + 1], bitmap.nextSetIndex(boundaries[i] + 1));
+            }
+        }
+        assertEquals("Next past the end", size, bitmap.nextSetIndex(size));
+        assertEquals("Negative start", 0, bitmap.nextSetIndex(-5));
+
+        // clearing the last bit of a word and of a layer-1 word clears the summary bits above it
+        bitmap.clear(4_095);
+        bitmap.clear(4_096);
+        assertFalse("Cleared 4095", bitmap.isSet(4_095));
+        assertEquals("Skips the cleared words", 8_191, bitmap.nextSetIndex(128));
+        bitmap.clear(4_096);
+        assertEquals("Clearing twice has no effect", 8_191, bitmap.nextSetIndex(128));
+        for (final int index : boundaries) {
+            bitmap.clear(index);
+        }
+        assertEquals("Cleared bitmap", size, bitmap.nextSetIndex(0));
+
+        // random operations against a BitSet
+        final Random random = new Random(42);
+        final BitSet expected = new BitSet(size);
+        for (int i = 0; i < 20_000; i++) {
+            final int index = random.nextInt(size);
+            if (random.nextBoolean()) {
+                bitmap.set(index);
+                expected.set(index);
+            } else {
+                bitmap.clear(index);
+                expected.clear(index);
+            }
+            final int fromIndex = random.nextInt(size);
+            final int expectedNext = expected.nextSetBit(fromIndex);
+            assertEquals("Next from " + fromIndex, expectedNext < 0 ? size : expectedNext,
+                         bitmap.nextSetIndex(fromIndex));
+        }
+
+        // the range the bitmap is sized for: up to 262,144 levels in three layers
+        final int maxSize = 64 * 64 * 64;
+        final AtomicPriorityBitmap largeBitmap = new AtomicPriorityBitmap(maxSize);
+        largeBitmap.set(maxSize - 1);
+        assertEquals("Last level", maxSize - 1, largeBitmap.nextSetIndex(0));
+        largeBitmap.set(100_000);
+        assertEquals("Middle level", 100_000, largeBitmap.nextSetIndex(0));
+        largeBitmap.clear(100_000);
+        largeBitmap.clear(maxSize - 1);
+        assertEquals("Cleared large bitmap", maxSize, largeBitmap.nextSetIndex(0));
+
+        System.out.println("TaskExecutorTest.testAtomicPriorityBitmap: ends.");
+    }
+
+    public void testAtomicPriorityBitmapConcurrentSetClear() throws InterruptedException {
+
+        System.out.println("TaskExecutorTest.testAtomicPriorityBitmapConcurrentSetClear: starts...");
+
+        // the threads own interleaved indices, hence they race on the same words and summary bits
+        final int numThreads = 4;
+        final int size = 64 * 64 + 64;
+        final AtomicPriorityBitmap bitmap = new AtomicPriorityBitmap(size);
+        final AtomicInteger lostBits = new AtomicInteger(0);
+        final CyclicBarrier barrier = new CyclicBarrier(numThreads);
+        final Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            final int threadIndex = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    final Random random = new Random(threadIndex);
+                    try {
+                        barrier.await();
+                    } catch (final InterruptedException | BrokenBarrierException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                    for (int i = 0; i < 200_000; i++) {
+                        // indices at word boundaries keep the summary bits flipping
+                        final int bit = random.nextInt(size / 64) * 64 + (random.nextBoolean() ? 0 : 63);
+                        final int index = bit - (bit % numThreads) + threadIndex;
+                        bitmap.set(index);
+                        // only this thread clears the bit, a completed set must be reachable from the top layer
+                        if (bitmap.nextSetIndex(index) != index) {
+                            lostBits.incrementAndGet();
+                        }
+                        bitmap.clear(index);
+                    }
+                    // leaves one bit per thread behind
+                    bitmap.set(threadIndex * 1_000 + threadIndex);
+                }
+            });
+            threads[t].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals("Set bits not reachable", 0, lostBits.get());
+        int index = bitmap.nextSetIndex(0);
+        for (int t = 0; t < numThreads; t++) {
+            assertEquals("Bit left by thread " + t, t * 1_000 + t, index);
+            index = bitmap.nextSetIndex(index + 1);
+        }
+        assertEquals("No other bits", size, index);
+
+        System.out.println("TaskExecutorTest.testAtomicPriorityBitmapConcurrentSetClear: ends.");
+    }
+
+    public void testPushBottomBatch() {
+
+        System.out.println("TaskExecutorTest.testPushBottomBatch: starts...");
+
+        for (final PoolType poolType : new PoolType[] {PoolType.CIRCULAR, PoolType.CILK, PoolType.X10, PoolType.JDK}) {
+            // a small array so that the batch wraps around and grows it
+            final WorkStealingPool pool = poolType.newInstance(3);
+            for (int i = 0; i < 5; i++) {
+                pool.pushBottom(i);
+            }
+            for (int i = 0; i < 3; i++) {
+                assertEquals("Stolen before the batch from " + poolType, i, pool.steal());
+            }
+            final Object[] batch = new Object[24];
+            for (int i = 0; i < 20; i++) {
+                batch[i] = 5 + i;
+            }
+            pool.pushBottomBatch(batch, 20);
+            int expected = 3;
+            if (poolType != PoolType.JDK) {
+                assertEquals("Size of " + poolType, 22, pool.size());
+                assertEquals("Popped last pushed item of " + poolType, 24, pool.popBottom());
+            }
+            for (Object item = pool.steal(); item != WorkStealingPool.EMPTY; item = pool.steal()) {
+                assertEquals("Stolen in push order from " + poolType, expected++, item);
+            }
+            assertEquals("Items stolen from " + poolType, poolType == PoolType.JDK ? 25 : 24, expected);
+        }
+
+        System.out.println("TaskExecutorTest.testPushBottomBatch: ends.");
+    }
+
+    public void testStealBatchAcrossGrow() {
+
+        System.out.println("TaskExecutorTest.testStealBatchAcrossGrow: starts...");
+
+        for (final PoolType poolType : new PoolType[] {PoolType.CIRCULAR, PoolType.CILK, PoolType.X10}) {
+            final WorkStealingPool pool = poolType.newInstance(3);
+            final Object[] stolen = new Object[64];
+            int nextPushed = 0;
+            int nextStolen = 0;
+            for (int round = 0; round < 6; round++) {
+                // every round pushes more than the array holds, a batch steal then spans the old and the grown array
+                for (int i = 0; i < 12 << round; i++) {
+                    pool.pushBottom(nextPushed++);
+                }
+                int numStolen;
+                do {
+                    numStolen = pool.stealBatch(stolen.length / 2, stolen);
+                    for (int i = 0; i < numStolen; i++) {
+                        assertEquals("Stolen oldest first from " + poolType, nextStolen++, stolen[i]);
+                        stolen[i] = null;
+                    }
+                } while (numStolen > 0 && nextPushed - nextStolen > 8);
+            }
+            for (Object item = pool.steal(); item != WorkStealingPool.EMPTY; item = pool.steal()) {
+                assertEquals("Stolen in push order from " + poolType, nextStolen++, item);
+            }
+            assertEquals("Items stolen from " + poolType, nextPushed, nextStolen);
+            assertEquals("Batch steal from an empty " + poolType, 0, pool.stealBatch(8, stolen));
+        }
+
+        System.out.println("TaskExecutorTest.testStealBatchAcrossGrow: ends.");
+    }
+
+    public void testStealBatchRacesPopBottom() throws InterruptedException {
+
+        System.out.println("TaskExecutorTest.testStealBatchRacesPopBottom: starts...");
+
+        for (final PoolType poolType : new PoolType[] {PoolType.CIRCULAR, PoolType.CILK, PoolType.X10}) {
+            // a small initial array so that the owner grows it while the thieves steal
+            final WorkStealingPool pool = poolType.newInstance(2);
+            final int numItems = 200_000;
+            final AtomicIntegerArray taken = new AtomicIntegerArray(numItems);
+            final AtomicBoolean ownerDone = new AtomicBoolean(false);
+            final Thread[] thieves = new Thread[2];
+            for (int t = 0; t < thieves.length; t++) {
+                thieves[t] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        final Object[] stolen = new Object[8];
+                        while (true) {
+                            final int numStolen = pool.stealBatch(stolen.length, stolen);
+                            for (int i = 0; i < numStolen; i++) {
+                                taken.incrementAndGet((Integer) stolen[i]);
+                                stolen[i] = null;
+                            }
+                            if (numStolen == 0) {
+                                if (ownerDone.get() && pool.isEmpty()) {
+                                    return;
+                                }
+                                Thread.yield();
+                            }
+                        }
+                    }
+                });
+                thieves[t].start();
+            }
+            // the owner keeps few tasks in the pool so that its pops conflict with the batch steals
+            for (int i = 0; i < numItems; i++) {
+                pool.pushBottom(i);
+                if (i % 4 != 0) {
+                    final Object popped = pool.popBottom();
+                    if (popped != WorkStealingPool.EMPTY) {
+                        taken.incrementAndGet((Integer) popped);
+                    }
+                }
+            }
+            for (Object popped = pool.popBottom(); popped != WorkStealingPool.EMPTY; popped = pool.popBottom()) {
+                taken.incrementAndGet((Integer) popped);
+            }
+            ownerDone.set(true);
+            for (final Thread thief : thieves) {
+                thief.join();
+            }
+            for (int i = 0; i < numItems; i++) {
+                assertEquals("Times item " + i + " was taken from " + poolType, 1, taken.get(i));
+            }
+        }
+
+        System.out.println("TaskExecutorTest.testStealBatchRacesPopBottom: ends.");
+    }
+
+    public void testCilkDequeStealBatchFallsBackToSingleTask() {
+
+        System.out.println("TaskExecutorTest.testCilkDequeStealBatchFallsBackToSingleTask: starts...");
+
+        // the owner pops all but the top task while the thief is about to claim its batch
+        final CilkDeque deque = new OwnerPoppingCilkDeque(7);
+        for (int i = 0; i < 8; i++) {
+            deque.pushBottom(i);
+        }
+        final Object[] stolen = new Object[8];
+        assertEquals("Falls back to a single task", 1, deque.stealBatch(stolen.length, stolen));
+        assertEquals("Steals the top task", 0, stolen[0]);
+        assertTrue("Deque emptied", deque.isEmpty());
+        assertEquals("Nothing left to steal", WorkStealingPool.EMPTY, deque.steal());
+        deque.pushBottom(8);
+        assertEquals("Owner pops after the fall back", 8, deque.popBottom());
+
+        // the owner pops the top task as well
+        final CilkDeque emptiedDeque = new OwnerPoppingCilkDeque(8);
+        for (int i = 0; i < 8; i++) {
+            emptiedDeque.pushBottom(i);
+        }
+        assertEquals("Nothing stolen from the emptied deque", 0, emptiedDeque.stealBatch(stolen.length, stolen));
+        assertEquals("Claim backed off", 0, emptiedDeque.size());
+        emptiedDeque.pushBottom(8);
+        assertEquals("Thieves steal after the back off", 8, emptiedDeque.steal());
+
+        System.out.println("TaskExecutorTest.testCilkDequeStealBatchFallsBackToSingleTask: ends.");
+    }
+
+    /**
+     * Pops tasks as the owner would between the first thief's sizing and claiming of a batch.
+     */
+    private static final class OwnerPoppingCilkDeque extends CilkDeque {
+
+        private int ownerPops;
+
+        OwnerPoppingCilkDeque(final int ownerPops) {
+            super(4);
+            this.ownerPops = ownerPops;
+        }
+
+        @Override
+        protected void beforeBatchClaim() {
+            for (; ownerPops > 0; ownerPops--) {
+                TestCase.assertNotNull("Owner pop", popBottom());
+            }
+        }
+    }
+
+    public void testSubmitAll() {
+
+        System.out.println("TaskExecutorTest.testSubmitAll: starts...");
+
+        final TaskExecutor[] taskExecutors = {
+                new PriorityWstTaskExecutor(PoolType.X10, 2, minPriorityInc, maxPriorityInc),
+                new PriorityWstTaskExecutor(PoolType.CILK, 2, minPriorityInc, maxPriorityInc),
+                new StandardWstTaskExecutor(PoolType.X10, 2),
+                new StandardWstTaskExecutor(PoolType.PRIORITY_QUEUE, 2),
+                new PriorityBlockingQueueTaskExecutor(2, 2, 0L, TimeUnit.MILLISECONDS, minPriorityInc, maxPriorityInc)
+        };
+        for (final TaskExecutor taskExecutor : taskExecutors) {
+            final String name = taskExecutor.getClass().getSimpleName();
+            final AtomicInteger executedTasks = new AtomicInteger(0);
+            final AtomicInteger finishTasks = new AtomicInteger(0);
+            final AtomicInteger finishTasksAfterFinish = new AtomicInteger(-1);
+            final Runnable countingTask = new Runnable() {
+                @Override
+                public void run() {
+                    executedTasks.incrementAndGet();
+                }
+            };
+
+            // injected by a thread outside the executor
+            final Runnable[] externalTasks = new Runnable[300];
+            Arrays.fill(externalTasks, countingTask);
+            taskExecutor.submitAll(maxPriorityInc, externalTasks);
+
+            kernel(taskExecutor, new Runnable() {
+                @Override
+                public void run() {
+                    for (int priority = minPriorityInc; priority <= maxPriorityInc; priority++) {
+                        final Runnable[] tasks = new Runnable[100];
+                        Arrays.fill(tasks, countingTask);
+                        asyncAll(priority, tasks);
+                    }
+                    finish(new Runnable() {
+                        @Override
+                        public void run() {
+                            final Runnable[] tasks = new Runnable[500];
+                            Arrays.fill(tasks, new Runnable() {
+                                @Override
+                                public void run() {
+                                    finishTasks.incrementAndGet();
+                                }
+                            });
+                            asyncAll(minPriorityInc, tasks);
+                        }
+                    });
+                    finishTasksAfterFinish.set(finishTasks.get());
+                }
+            });
+
+            final int numPriorities = maxPriorityInc - minPriorityInc + 1;
+            assertEquals("Tasks of " + name, 300 + 100 * numPriorities, executedTasks.get());
+            assertEquals("Finish waits for the batch on " + name, 500, finishTasksAfterFinish.get());
+        }
+
+        System.out.println("TaskExecutorTest.testSubmitAll: ends.");
+    }
+
+    public void testRecycledTaskRecords() {
+
+        System.out.println("TaskExecutorTest.testRecycledTaskRecords: starts...");
+
+        final PriorityWstTaskExecutor taskExecutor = new PriorityWstTaskExecutor(
+                PoolType.X10, 2, minPriorityInc, maxPriorityInc,
+                new WstOptions().workerLifecycle(WorkerLifecycle.PERSISTENT));
+        final int numTasks = 2_000;
+        // the records of the root are released by both workers, those of the children by whichever worker runs them
+        for (int k = 0; k < 5; k++) {
+            final AtomicIntegerArray runs = new AtomicIntegerArray(2 * numTasks);
+            final AtomicInteger finishedChildren = new AtomicInteger(-1);
+            kernel(taskExecutor, new Runnable() {
+                @Override
+                public void run() {
+                    finish(new Runnable() {
+                        @Override
+                        public void run() {
+                            for (int i = 0; i < numTasks; i++) {
+                                final int index = i;
+                                async(minPriorityInc + (i % (maxPriorityInc - minPriorityInc + 1)), new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        runs.incrementAndGet(index);
+                                        async(new Runnable() {
+                                            @Override
+                                            public void run() {
+                                                runs.incrementAndGet(numTasks + index);
+                                            }
+                                        });
+                                    }
+                                });
+                            }
+                        }
+                    });
+                    int children = 0;
+                    for (int i = 0; i < runs.length(); i++) {
+                        children += runs.get(i);
+                    }
+                    finishedChildren.set(children);
+                }
+            });
+            assertEquals("Finish waits for all tasks of kernel " + k, 2 * numTasks, finishedChildren.get());
+            for (int i = 0; i < runs.length(); i++) {
+                assertEquals("Runs of task " + i + " of kernel " + k, 1, runs.get(i));
+            }
+        }
+        taskExecutor.close();
+
+        System.out.println("TaskExecutorTest.testRecycledTaskRecords: ends.");
+    }
+
+    public void testPrioritizedSubmit() {
+
+        System.out.println("TaskExecutorTest.testPrioritizedSubmit: starts...");
+
+        final PriorityWstTaskExecutor taskExecutor =
+                new PriorityWstTaskExecutor(PoolType.X10, 1, minPriorityInc, maxPriorityInc);
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        kernel(taskExecutor, new Runnable() {
+            @Override
+            public void run() {
+                // the only worker runs the queued tasks once the root returns, highest priority first
+                for (int i = 0; i < 3; i++) {
+                    taskExecutor.submit(minPriorityInc, new Runnable() {
+                        @Override
+                        public void run() {
+                            order.add(minPriorityInc);
+                        }
+                    });
+                }
+                taskExecutor.submit(new PrioritizedRunnable(maxPriorityInc, order));
+            }
+        });
+        assertEquals("Tasks run", 4, order.size());
+        assertEquals("Prioritized task runs first", Integer.valueOf(maxPriorityInc), order.get(0));
+
+        System.out.println("TaskExecutorTest.testPrioritizedSubmit: ends.");
+    }
+
+    private static final class PrioritizedRunnable implements Runnable, Prioritized {
+
+        private final int priority;
+        private final List<Integer> order;
+
+        private PrioritizedRunnable(final int priority, final List<Integer> order) {
+            this.priority = priority;
+            this.order = order;
+        }
+
+        @Override
+        public int priority() {
+            return priority;
+        }
+
+        @Override
+        public void run() {
+            order.add(priority);
+        }
+    }
+
+    public void testPersistentWorkersRunSeveralKernels() throws InterruptedException {
+
+        System.out.println("TaskExecutorTest.testPersistentWorkersRunSeveralKernels: starts...");
+
+        for (final TerminationDetectorType terminationDetectorType : TerminationDetectorType.values()) {
+            final PriorityWstTaskExecutor priorityExecutor = new PriorityWstTaskExecutor(
+                    PoolType.X10, 2, minPriorityInc, maxPriorityInc,
+                    new WstOptions()
+                            .terminationDetector(terminationDetectorType)
+                            .workerLifecycle(WorkerLifecycle.PERSISTENT));
+            final Set<Thread> priorityWorkers = runPersistentKernels(priorityExecutor, terminationDetectorType);
+            priorityExecutor.close();
+            assertWorkersExit(priorityWorkers);
+            try {
+                priorityExecutor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        // nothing to do
+                    }
+                });
+                fail("Submission after close must fail");
+            } catch (final IllegalStateException ex) {
+                // expected
+            }
+
+            final StandardWstTaskExecutor standardExecutor = new StandardWstTaskExecutor(
+                    PoolType.X10, 2,
+                    new WstOptions()
+                            .idleStrategy(IdleStrategyType.SPIN)
+                            .terminationDetector(terminationDetectorType)
+                            .workerLifecycle(WorkerLifecycle.PERSISTENT));
+            final Set<Thread> standardWorkers = runPersistentKernels(standardExecutor, terminationDetectorType);
+            standardExecutor.close();
+            assertWorkersExit(standardWorkers);
+        }
+
+        System.out.println("TaskExecutorTest.testPersistentWorkersRunSeveralKernels: ends.");
+    }
+
+    private static Set<Thread> runPersistentKernels(
+            final TaskExecutor taskExecutor, final TerminationDetectorType terminationDetectorType) {
+        final Set<Thread> workers = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+        for (int k = 0; k < 5; k++) {
+            final AtomicInteger executedTasks = new AtomicInteger(0);
+            kernel(taskExecutor, new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1_000; i++) {
+                        async(minPriorityInc + (i % (maxPriorityInc - minPriorityInc + 1)), new Runnable() {
+                            @Override
+                            public void run() {
+                                workers.add(Thread.currentThread());
+                                executedTasks.incrementAndGet();
+                            }
+                        });
+                    }
+                }
+            });
+            assertEquals("Tasks of kernel " + k + " with " + terminationDetectorType, 1_000, executedTasks.get());
+        }
+        assertTrue("Workers reused: " + workers.size(), workers.size() <= 2);
+        return workers;
+    }
+
+    private static void assertWorkersExit(final Set<Thread> workers) throws InterruptedException {
+        for (final Thread worker : workers) {
+            worker.join(10_000);
+            assertFalse("Worker exits after close", worker.isAlive());
+        }
+    }
+
+    public void testPriorityWstTaskExecutorX10DequeStripedTermination() {
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeStripedTermination: starts...");
+
+        final int availableProcessors = Runtime.getRuntime().availableProcessors();
+
+        final TaskExecutor taskExecutor = new PriorityWstTaskExecutor(
+                PoolType.X10, availableProcessors, minPriorityInc, maxPriorityInc,
+                new WstOptions().terminationDetector(TerminationDetectorType.STRIPED));
+        final int numTasks = 500;
+
+        executeTasks(numTasks, taskExecutor, minPriorityInc, maxPriorityInc, 0.30, availableProcessors);
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeStripedTermination: ends.");
+    }
+
+    public void testPriorityWstTaskExecutorX10DequeElastic() throws InterruptedException {
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeElastic: starts...");
+
+        final int maxWorkers = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+        final ElasticSizing elasticSizing = new ElasticSizing(1, 4, 5, TimeUnit.MILLISECONDS);
+        final PriorityWstTaskExecutor taskExecutor = new PriorityWstTaskExecutor(
+                PoolType.X10, maxWorkers, minPriorityInc, maxPriorityInc,
+                new WstOptions().elasticSizing(elasticSizing));
+
+        final int numTasks = 10_000;
+        final AtomicInteger executedTasks = new AtomicInteger(0);
+        final AtomicInteger maxActiveWorkers = new AtomicInteger(0);
+        for (int i = 0; i < numTasks; i++) {
+            final int taskId = i;
+            taskExecutor.submit(minPriorityInc + (i % (maxPriorityInc - minPriorityInc + 1)), new Runnable() {
+                @Override
+                public void run() {
+                    final int activeWorkers = taskExecutor.activeWorkers();
+                    if (activeWorkers > maxActiveWorkers.get()) {
+                        maxActiveWorkers.set(activeWorkers);
+                    }
+                    busyWait(taskId, null);
+                    executedTasks.incrementAndGet();
+                }
+            });
+        }
+
+        // idle workers retire down to the minimum while the executor is still open for submissions
+        final long deadlineMillis = System.currentTimeMillis() + 10_000;
+        while ((executedTasks.get() < numTasks || taskExecutor.activeWorkers() > 1) &&
+                System.currentTimeMillis() < deadlineMillis) {
+            Thread.sleep(10);
+        }
+        System.out.println("  " + taskExecutor.getClass().getSimpleName() + ":: Max active workers = " + maxActiveWorkers.get());
+        assertEquals("Executed number of tasks", numTasks, executedTasks.get());
+        assertEquals("Active workers after idling", 1, taskExecutor.activeWorkers());
+
+        taskExecutor.triggerShutdown();
+        taskExecutor.awaitTermination();
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeElastic: ends.");
+    }
+
+    private static int lowPriorityPosition(final PriorityAging priorityAging) {
+
+        final TaskExecutor taskExecutor = new PriorityWstTaskExecutor(
+                PoolType.X10, 1, minPriorityInc, maxPriorityInc,
+                new WstOptions().priorityAging(priorityAging));
+
+        final int numHighTasks = 1_000;
+        final AtomicInteger executedTasks = new AtomicInteger(0);
+        final AtomicInteger lowPriorityPosition = new AtomicInteger(-1);
+        kernel(taskExecutor, new Runnable() {
+            @Override
+            public void run() {
+                async(minPriorityInc, new Runnable() {
+                    @Override
+                    public void run() {
+                        lowPriorityPosition.set(executedTasks.getAndIncrement());
+                    }
+                });
+                async(maxPriorityInc, new Runnable() {
+                    @Override
+                    public void run() {
+                        // a chain of high priority tasks keeps the highest level non-empty
+                        if (executedTasks.getAndIncrement() < numHighTasks) {
+                            async(maxPriorityInc, this);
+                        }
+                    }
+                });
+            }
+        });
+        return lowPriorityPosition.get();
+    }
+
+    public void testPriorityWstTaskExecutorX10DequeManagedBlock() {
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeManagedBlock: starts...");
+
+        // a single running worker, the second worker is spare
+        final ElasticSizing elasticSizing = new ElasticSizing(1, Integer.MAX_VALUE, 5, TimeUnit.MILLISECONDS);
+        final PriorityWstTaskExecutor taskExecutor = new PriorityWstTaskExecutor(
+                PoolType.X10, 2, minPriorityInc, maxPriorityInc,
+                new WstOptions().elasticSizing(elasticSizing));
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger releasedTasks = new AtomicInteger(0);
+        kernel(taskExecutor, new Runnable() {
+            @Override
+            public void run() {
+                async(maxPriorityInc, new Runnable() {
+                    @Override
+                    public void run() {
+                        // queued behind the blocking task on the same worker, only a compensating worker can run it
+                        async(minPriorityInc, new Runnable() {
+                            @Override
+                            public void run() {
+                                latch.countDown();
+                            }
+                        });
+                        try {
+                            block(new Blocker() {
+                                @Override
+                                public boolean block() throws InterruptedException {
+                                    latch.await();
+                                    return true;
+                                }
+
+                                @Override
+                                public boolean isReleasable() {
+                                    return latch.getCount() == 0;
+                                }
+                            });
+                            releasedTasks.incrementAndGet();
+                        } catch (final InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }
+        });
+        assertEquals("Released tasks", 1, releasedTasks.get());
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeManagedBlock: ends.");
+    }
+
+    public void testPriorityWstTaskExecutorX10DequeManagedBlockSpare() {
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeManagedBlockSpare: starts...");
+
+        // a single worker that is always active, only a spare worker can compensate
+        final PriorityWstTaskExecutor taskExecutor = new PriorityWstTaskExecutor(
+                PoolType.X10, 1, minPriorityInc, maxPriorityInc);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger releasedTasks = new AtomicInteger(0);
+        final AtomicInteger blockedActiveWorkers = new AtomicInteger(0);
+        final AtomicInteger releasedActiveWorkers = new AtomicInteger(0);
+        kernel(taskExecutor, new Runnable() {
+            @Override
+            public void run() {
+                async(maxPriorityInc, new Runnable() {
+                    @Override
+                    public void run() {
+                        async(minPriorityInc, new Runnable() {
+                            @Override
+                            public void run() {
+                                blockedActiveWorkers.set(taskExecutor.activeWorkers());
+                                latch.countDown();
+                            }
+                        });
+                        try {
+                            block(new Blocker() {
+                                @Override
+                                public boolean block() throws InterruptedException {
+                                    latch.await();
+                                    return true;
+                                }
+
+                                @Override
+                                public boolean isReleasable() {
+                                    return latch.getCount() == 0;
+                                }
+                            });
+                            releasedTasks.incrementAndGet();
+                            // the spare worker retires once it is idle
+                            final long deadlineMillis = System.currentTimeMillis() + 10_000;
+                            while (taskExecutor.activeWorkers() > 1 && System.currentTimeMillis() < deadlineMillis) {
+                                Thread.sleep(10);
+                            }
+                            releasedActiveWorkers.set(taskExecutor.activeWorkers());
+                        } catch (final InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                });
+            }
+        });
+        assertEquals("Released tasks", 1, releasedTasks.get());
+        assertEquals("Active workers while blocked", 2, blockedActiveWorkers.get());
+        assertEquals("Active workers after release", 1, releasedActiveWorkers.get());
+        assertEquals("Worker metrics", 2, taskExecutor.workerMetrics().length);
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeManagedBlockSpare: ends.");
+    }
+
+    public void testPriorityWstTaskExecutorX10DequeAging() {
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeAging: starts...");
+
+        final int strictPosition = lowPriorityPosition(PriorityAging.STRICT);
+        final int fractionPosition = lowPriorityPosition(new PriorityAging(0, TimeUnit.MILLISECONDS, 0.1));
+        final int waitPosition = lowPriorityPosition(new PriorityAging(1, TimeUnit.NANOSECONDS, 0));
+        // the wait bound is never reached, the fraction has to age the level while the levels are stamped
+        final int bothPosition = lowPriorityPosition(new PriorityAging(1, TimeUnit.HOURS, 0.1));
+        System.out.println("  PriorityWstTaskExecutor:: Low priority positions = " +
+                                   strictPosition + ", " + fractionPosition + ", " + waitPosition + ", " +
+                                   bothPosition);
+        assertTrue("Strict low priority position", strictPosition >= 1_000);
+        assertTrue("Fraction aged low priority position", fractionPosition < 100);
+        assertTrue("Wait aged low priority position", waitPosition < 100);
+        assertTrue("Fraction aged low priority position with a wait bound", bothPosition < 100);
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeAging: ends.");
+    }
+
+    public void testDeadlineWstTaskExecutorX10Deque() {
+
+        System.out.println("TaskExecutorTest.testDeadlineWstTaskExecutorX10Deque: starts...");
+
+        final int numLevels = 8;
+        final long bucketNanos = TimeUnit.MILLISECONDS.toNanos(20);
+        final DeadlineWstTaskExecutor taskExecutor = new DeadlineWstTaskExecutor(
+                PoolType.X10, 1, numLevels, new DeadlineWindow(bucketNanos, TimeUnit.NANOSECONDS, false));
+
+        final int numTasks = numLevels - 2;
+        final List<Integer> executionOrder = Collections.synchronizedList(new ArrayList<Integer>());
+        kernel(taskExecutor, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(TimeUnit.NANOSECONDS.toMillis(3 * bucketNanos + (bucketNanos / 2)));
+                } catch (final InterruptedException ex) {
+                    ex.printStackTrace();
+                }
+                // idle scheduling decisions roll the empty window forward, the buckets below wrap around the levels
+                for (int i = 0; i < 64; i++) {
+                    taskExecutor.helpQueuedTask();
+                }
+                final List<Integer> bucketOffsets = new ArrayList<>();
+                for (int i = 0; i < numTasks; i++) {
+                    bucketOffsets.add(i);
+                }
+                Collections.shuffle(bucketOffsets, new Random(numTasks));
+                final long currentNanos = System.nanoTime();
+                for (final int bucketOffset : bucketOffsets) {
+                    taskExecutor.submit(currentNanos + (bucketOffset * bucketNanos), new Runnable() {
+                        @Override
+                        public void run() {
+                            executionOrder.add(bucketOffset);
+                        }
+                    });
+                }
+            }
+        });
+        System.out.println("  DeadlineWstTaskExecutor:: Execution order = " + executionOrder);
+        final List<Integer> expectedOrder = new ArrayList<>(executionOrder);
+        Collections.sort(expectedOrder);
+        assertEquals("Tasks executed", numTasks, executionOrder.size());
+        assertEquals("Tasks executed out of deadline order", expectedOrder, executionOrder);
+
+        System.out.println("TaskExecutorTest.testDeadlineWstTaskExecutorX10Deque: ends.");
+    }
+
+    public void testDeadlineWstTaskExecutorX10DequeShedExpired() {
+
+        System.out.println("TaskExecutorTest.testDeadlineWstTaskExecutorX10DequeShedExpired: starts...");
+
+        final DeadlineWstTaskExecutor taskExecutor = new DeadlineWstTaskExecutor(
+                PoolType.X10, 1, 8, new DeadlineWindow(1, TimeUnit.MILLISECONDS, true));
+
+        final int numExpiredTasks = 100;
+        final AtomicInteger expiredTasks = new AtomicInteger(0);
+        final AtomicInteger liveTasks = new AtomicInteger(0);
+        kernel(taskExecutor, new Runnable() {
+            @Override
+            public void run() {
+                final long currentNanos = System.nanoTime();
+                for (int i = 0; i < numExpiredTasks; i++) {
+                    taskExecutor.submit(currentNanos - 1, new Runnable() {
+                        @Override
+                        public void run() {
+                            expiredTasks.incrementAndGet();
+                        }
+                    });
+                }
+                taskExecutor.submit(currentNanos + TimeUnit.MINUTES.toNanos(1), new Runnable() {
+                    @Override
+                    public void run() {
+                        liveTasks.incrementAndGet();
+                    }
+                });
+            }
+        });
+        assertEquals("Expired tasks executed", 0, expiredTasks.get());
+        assertEquals("Live tasks executed", 1, liveTasks.get());
+        assertEquals("Discarded tasks", numExpiredTasks, taskExecutor.discardedTasks());
+
+        // shed tasks still arrive at their finish scope
+        final DeadlineWstTaskExecutor finishExecutor = new DeadlineWstTaskExecutor(
+                PoolType.X10, 1, 8, new DeadlineWindow(1, TimeUnit.MILLISECONDS, true));
+        final AtomicInteger finishedScopes = new AtomicInteger(0);
+        final AtomicInteger liveTasksInScope = new AtomicInteger(-1);
+        kernel(finishExecutor, new Runnable() {
+            @Override
+            public void run() {
+                finish(new Runnable() {
+                    @Override
+                    public void run() {
+                        final long currentNanos = System.nanoTime();
+                        for (int i = 0; i < numExpiredTasks; i++) {
+                            asyncWithDeadline(currentNanos - 1, new Runnable() {
+                                @Override
+                                public void run() {
+                                    expiredTasks.incrementAndGet();
+                                }
+                            });
+                        }
+                        asyncWithDeadline(currentNanos + TimeUnit.MINUTES.toNanos(1), new Runnable() {
+                            @Override
+                            public void run() {
+                                liveTasks.incrementAndGet();
+                            }
+                        });
+                    }
+                });
+                liveTasksInScope.set(liveTasks.get());
+                finishedScopes.incrementAndGet();
+            }
+        });
+        assertEquals("Finished scopes", 1, finishedScopes.get());
+        assertEquals("Finish waits for the live task", 2, liveTasksInScope.get());
+        assertEquals("Expired tasks executed in scope", 0, expiredTasks.get());
+        assertEquals("Discarded tasks in scope", numExpiredTasks, finishExecutor.discardedTasks());
+
+        System.out.println("TaskExecutorTest.testDeadlineWstTaskExecutorX10DequeShedExpired: ends.");
+    }
+
+    public void testPriorityWstTaskExecutorX10DequeYield() {
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeYield: starts...");
+
+        final TaskExecutor taskExecutor = new PriorityWstTaskExecutor(PoolType.X10, 1, minPriorityInc, maxPriorityInc);
+
+        final int numSteps = 100;
+        final AtomicInteger completedSteps = new AtomicInteger(0);
+        final AtomicInteger highPriorityPosition = new AtomicInteger(-1);
+        final AtomicInteger yieldedTimes = new AtomicInteger(0);
+        kernel(taskExecutor, new Runnable() {
+            @Override
+            public void run() {
+                async(minPriorityInc, new Runnable() {
+                    @Override
+                    public void run() {
+                        // a long low priority task with a yield point before every step
+                        while (completedSteps.get() < numSteps) {
+                            if (higherPriorityPending()) {
+                                yieldedTimes.incrementAndGet();
+                                continueLater(this);
+                                return;
+                            }
+                            if (completedSteps.incrementAndGet() == numSteps / 10) {
+                                async(maxPriorityInc, new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        highPriorityPosition.set(completedSteps.get());
+                                    }
+                                });
+                            }
+                        }
+                    }
+                });
+            }
+        });
+        System.out.println("  PriorityWstTaskExecutor:: High priority position = " + highPriorityPosition.get() +
+                                   ", yields = " + yieldedTimes.get());
+        assertEquals("Completed steps", numSteps, completedSteps.get());
+        assertEquals("High priority position", numSteps / 10, highPriorityPosition.get());
+        assertEquals("Yields", 1, yieldedTimes.get());
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeYield: ends.");
+    }
+
+    private static void lazyTree(final int depth, final AtomicInteger leaves, final AtomicInteger spawnedTasks) {
+        if (depth == 0) {
+            leaves.incrementAndGet();
+            return;
+        }
+        for (int i = 0; i < 2; i++) {
+            final Runnable child = new Runnable() {
+                @Override
+                public void run() {
+                    lazyTree(depth - 1, leaves, spawnedTasks);
+                }
+            };
+            if (shouldSplit(depth % 4)) {
+                spawnedTasks.incrementAndGet();
+                async(depth % 4, child);
+            } else {
+                child.run();
+            }
+        }
+    }
+
+    public void testPriorityWstTaskExecutorX10DequeLazySplit() {
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeLazySplit: starts...");
+
+        final TaskExecutor taskExecutor = new PriorityWstTaskExecutor(PoolType.X10, 1, 0, 3);
+
+        final int depth = 16;
+        final AtomicInteger leaves = new AtomicInteger(0);
+        final AtomicInteger spawnedTasks = new AtomicInteger(0);
+        kernel(taskExecutor, new Runnable() {
+            @Override
+            public void run() {
+                lazyTree(depth, leaves, spawnedTasks);
+            }
+        });
+        System.out.println("  PriorityWstTaskExecutor:: Spawned tasks = " + spawnedTasks.get());
+        assertEquals("Leaves", 1 << depth, leaves.get());
+        // a lone worker without thieves only spawns while its pool is shallow
+        assertTrue("Spawned tasks", spawnedTasks.get() < (1 << depth) / 4);
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeLazySplit: ends.");
+    }
+
+    private static int fibonacciJoin(final int number) {
+        if (number < 2) {
+            return number;
+        }
+        final TaskFuture<Integer> leftFuture = future(number % 4, new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return fibonacciJoin(number - 1);
+            }
+        });
+        final TaskFuture<Integer> rightFuture = future((number + 1) % 4, new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return fibonacciJoin(number - 2);
+            }
+        });
+        return rightFuture.join() + leftFuture.join();
+    }
+
+    public void testPriorityWstTaskExecutorX10DequeFutureJoin() {
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeFutureJoin: starts...");
+
+        final int numWorkers = Math.max(4, Runtime.getRuntime().availableProcessors());
+        final TaskExecutor taskExecutor = new PriorityWstTaskExecutor(PoolType.X10, numWorkers, 0, 3);
+
+        final AtomicInteger result = new AtomicInteger(0);
+        kernel(taskExecutor, new Runnable() {
+            @Override
+            public void run() {
+                result.set(fibonacciJoin(20));
+            }
+        });
+        assertEquals("Fibonacci result", 6_765, result.get());
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeFutureJoin: ends.");
+    }
+
+    public void testFutureOnlyHelpsOnWorkers() throws Exception {
+
+        System.out.println("TaskExecutorTest.testFutureOnlyHelpsOnWorkers: starts...");
+
+        final TaskExecutor[] taskExecutors = {
+                new PriorityWstTaskExecutor(PoolType.X10, 1, minPriorityInc, maxPriorityInc),
+                new PriorityBlockingQueueTaskExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, minPriorityInc, maxPriorityInc)
+        };
+        for (final TaskExecutor taskExecutor : taskExecutors) {
+            final String name = taskExecutor.getClass().getSimpleName();
+            // keeps the only worker busy so that the future stays queued
+            final CountDownLatch release = new CountDownLatch(1);
+            final CountDownLatch blocking = new CountDownLatch(1);
+            taskExecutor.submit(maxPriorityInc, new Runnable() {
+                @Override
+                public void run() {
+                    blocking.countDown();
+                    try {
+                        release.await();
+                    } catch (final InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            blocking.await();
+
+            final Thread caller = Thread.currentThread();
+            final AtomicInteger callerRuns = new AtomicInteger(0);
+            final TaskFuture<Integer> future = taskExecutor.submit(minPriorityInc, new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    if (Thread.currentThread() == caller) {
+                        callerRuns.incrementAndGet();
+                    }
+                    return 42;
+                }
+            });
+            assertFalse("External thread is not a worker of " + name, taskExecutor.isWorkerThread());
+            assertFalse("External thread does not help " + name, taskExecutor.helpQueuedTask());
+            try {
+                future.get(20, TimeUnit.MILLISECONDS);
+                fail("Timed get must not run the queued task of " + name);
+            } catch (final TimeoutException ex) {
+                // expected
+            }
+            assertFalse("Timed get leaves the task queued on " + name, future.isDone());
+
+            release.countDown();
+            assertEquals("Result on " + name, Integer.valueOf(42), future.get());
+            assertEquals("Tasks run by the external caller of " + name, 0, callerRuns.get());
+            taskExecutor.triggerShutdown();
+            taskExecutor.awaitTermination();
+        }
+
+        System.out.println("TaskExecutorTest.testFutureOnlyHelpsOnWorkers: ends.");
+    }
+
+    private static void spawnTree(final int depth, final AtomicInteger leafCounter) {
+        if (depth == 0) {
+            busyWait(depth, null);
+            leafCounter.incrementAndGet();
+            return;
+        }
+        for (int i = 0; i < 2; i++) {
+            async(depth % 4, new Runnable() {
+                @Override
+                public void run() {
+                    spawnTree(depth - 1, leafCounter);
+                }
+            });
+        }
+    }
+
+    public void testPriorityWstTaskExecutorX10DequeFinish() throws InterruptedException {
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeFinish: starts...");
+
+        final int numWorkers = Math.max(4, Runtime.getRuntime().availableProcessors());
+        final TaskExecutor taskExecutor = new PriorityWstTaskExecutor(PoolType.X10, numWorkers, 0, 3);
+
+        // independent computations share the executor, each waits only for its own tasks
+        final int numComputations = 2;
+        final int treeDepth = 8;
+        final AtomicInteger failures = new AtomicInteger(0);
+        final Thread[] computations = new Thread[numComputations];
+        for (int c = 0; c < numComputations; c++) {
+            computations[c] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    final AtomicInteger outerLeaves = new AtomicInteger(0);
+                    final AtomicInteger innerLeaves = new AtomicInteger(0);
+                    finish(taskExecutor, new Runnable() {
+                        @Override
+                        public void run() {
+                            spawnTree(treeDepth, outerLeaves);
+                            async(new Runnable() {
+                                @Override
+                                public void run() {
+                                    finish(new Runnable() {
+                                        @Override
+                                        public void run() {
+                                            spawnTree(treeDepth, innerLeaves);
+                                        }
+                                    });
+                                    if (innerLeaves.get() != (1 << treeDepth)) {
+                                        failures.incrementAndGet();
+                                    }
+                                }
+                            });
+                        }
+                    });
+                    if (outerLeaves.get() != (1 << treeDepth) || innerLeaves.get() != (1 << treeDepth)) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            computations[c].start();
+        }
+        for (final Thread computation : computations) {
+            computation.join();
+        }
+        taskExecutor.triggerShutdown();
+        taskExecutor.awaitTermination();
+
+        assertEquals("Finish scopes completed early", 0, failures.get());
+
+        System.out.println("TaskExecutorTest.testPriorityWstTaskExecutorX10DequeFinish: ends.");
+    }
+
+    public void testStandardWstTaskExecutorCilkDeque() {
+
+        System.out.println("TaskExecutorTest.testStandardWstTaskExecutorCilkDeque: starts...");
+
+        final int availableProcessors = Runtime.getRuntime().availableProcessors();
+
+        final TaskExecutor taskExecutor = new StandardWstTaskExecutor(PoolType.CILK, availableProcessors);
+        final int numTasks = 500;
+
+        executeTasks(numTasks, taskExecutor, minPriorityInc, maxPriorityInc, 0.95, availableProcessors);
+
+        System.out.println("TaskExecutorTest.testStandardWstTaskExecutorCilkDeque: ends.");
+    }
+
+    public void testStandardWstTaskExecutorJdkDeque() {
+
+        System.out.println("TaskExecutorTest.testStandardWstTaskExecutorJdkDeque: starts...");
+
+        final int availableProcessors = Runtime.getRuntime().availableProcessors();
+
+        final TaskExecutor taskExecutor = new StandardWstTaskExecutor(PoolType.JDK, availableProcessors);
+        final int numTasks = 500;
+
+        executeTasks(numTasks, taskExecutor, minPriorityInc, maxPriorityInc, 0.95, availableProcessors);
+
+        System.out.println("TaskExecutorTest.testStandardWstTaskExecutorJdkDeque: ends.");
+    }
+
+    public void testStandardWstTaskExecutorX10Deque() {
+
+        System.out.println("TaskExecutorTest.testStandardWstTaskExecutorX10Deque: starts...");
+
+        final int availableProcessors = Runtime.getRuntime().availableProcessors();
+
+        final TaskExecutor taskExecutor = new StandardWstTaskExecutor(PoolType.X10, availableProcessors);
+        final int numTasks = 500;
+
+        executeTasks(numTasks, taskExecutor, minPriorityInc, maxPriorityInc, 0.95, availableProcessors);
+
+        System.out.println("TaskExecutorTest.testStandardWstTaskExecutorX10Deque: ends.");
+    }
+
+    public void testStandardWstTaskExecutorX10DequeExternalSubmit() {
+
+        System.out.println("TaskExecutorTest.testStandardWstTaskExecutorX10DequeExternalSubmit: starts...");
+
+        final int availableProcessors = Runtime.getRuntime().availableProcessors();
+
+        final TaskExecutor taskExecutor = new StandardWstTaskExecutor(PoolType.X10, availableProcessors);
+
+        executeExternalTasks(4, 10_000, taskExecutor, minPriorityInc, maxPriorityInc);
+
+        System.out.println("TaskExecutorTest.testStandardWstTaskExecutorX10DequeExternalSubmit: ends.");
+    }
+
+    private static void executeCancelledGroup(final TaskExecutor taskExecutor) {
+
+        final int numTasks = 1_000;
+        final TaskGroup taskGroup = new TaskGroup();
+        final AtomicInteger executedTasks = new AtomicInteger(0);
+        final AtomicInteger finishedScopes = new AtomicInteger(0);
+        kernel(taskExecutor, new Runnable() {
+            @Override
+            public void run() {
+                finish(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < numTasks; i++) {
+                            async(taskGroup, minPriorityInc + (i % (maxPriorityInc - minPriorityInc + 1)), new Runnable() {
+                                @Override
+                                public void run() {
+                                    executedTasks.incrementAndGet();
+                                }
+                            });
+                        }
+                        // the spawned tasks are still queued on the single worker running this task
+                        taskGroup.cancel();
+                    }
+                });
+                // the scope completes although its tasks were discarded
+                finishedScopes.incrementAndGet();
+            }
+        });
+
+        System.out.println("  " + taskExecutor.getClass().getSimpleName() + ":: Discarded tasks = " +
+                                   ((StealStatistics) taskExecutor).discardedTasks());
+        assertEquals("Executed tasks of cancelled group", 0, executedTasks.get());
+        assertEquals("Discarded tasks", numTasks, ((StealStatistics) taskExecutor).discardedTasks());
+        assertEquals("Finished scopes", 1, finishedScopes.get());
+    }
+
+    public void testTaskGroupCancellation() {
+
+        System.out.println("TaskExecutorTest.testTaskGroupCancellation: starts...");
+
+        executeCancelledGroup(new PriorityWstTaskExecutor(PoolType.X10, 1, minPriorityInc, maxPriorityInc));
+        executeCancelledGroup(new StandardWstTaskExecutor(PoolType.X10, 1));
+        // every task is wrapped in a priority task on a priority pool
+        executeCancelledGroup(new StandardWstTaskExecutor(PoolType.PRIORITY_QUEUE, 1));
+
+        System.out.println("TaskExecutorTest.testTaskGroupCancellation: ends.");
+    }
+
+    public void testSynchronizedPriorityQueueTaskExecutor() {
+
+        System.out.println("TaskExecutorTest.testSynchronizedPriorityQueueTaskExecutor: starts...");
+
+        final int availableProcessors = Runtime.getRuntime().availableProcessors();
+
+        final TaskExecutor taskExecutor = new SynchronizedPriorityQueueTaskExecutor(
+                availableProcessors, availableProcessors,
+                0L, TimeUnit.MILLISECONDS,
+                minPriorityInc, maxPriorityInc);
+        final int numTasks = 500;
+
+        executeTasks(numTasks, taskExecutor, minPriorityInc, maxPriorityInc, 0.30, availableProcessors);
+
+        System.out.println("TaskExecutorTest.testSynchronizedPriorityQueueTaskExecutor: ends.");
+    }
+
+    public void testIndexedPriorityQueueTaskExecutor() {
+
+        System.out.println("TaskExecutorTest.testIndexedPriorityQueueTaskExecutor: starts...");
+
+        final int availableProcessors = Runtime.getRuntime().availableProcessors();
+
+        final TaskExecutor taskExecutor = new IndexedPriorityQueueTaskExecutor(
+                availableProcessors, availableProcessors,
+                0L, TimeUnit.MILLISECONDS,
+                minPriorityInc, maxPriorityInc);
+        final int numTasks = 500;
+
+        executeTasks(numTasks, taskExecutor, minPriorityInc, maxPriorityInc, 0.30, availableProcessors);
+
+        System.out.println("TaskExecutorTest.testIndexedPriorityQueueTaskExecutor: ends.");
+    }
+
+    public void testIndexedPriorityQueueTaskExecutorReprioritize() throws InterruptedException {
+
+        System.out.println("TaskExecutorTest.testIndexedPriorityQueueTaskExecutorReprioritize: starts...");
+
+        final IndexedPriorityQueueTaskExecutor taskExecutor = new IndexedPriorityQueueTaskExecutor(
+                1, 1, 0L, TimeUnit.MILLISECONDS, minPriorityInc, maxPriorityInc);
+
+        // the single worker is blocked while the other tasks are queued
+        final CountDownLatch blockerStarted = new CountDownLatch(1);
+        final CountDownLatch releaseBlocker = new CountDownLatch(1);
+        taskExecutor.submit(maxPriorityInc, new Runnable() {
+            @Override
+            public void run() {
+                blockerStarted.countDown();
+                try {
+                    releaseBlocker.await();
+                } catch (final InterruptedException ex) {
+                    // ignore
+                }
+            }
+        });
+        blockerStarted.await();
+
+        final Queue<String> executionOrder = new ConcurrentLinkedQueue<>();
+        final String[] names = {"low", "mid", "high"};
+        final int[] priorities = {minPriorityInc, (minPriorityInc + maxPriorityInc) / 2, maxPriorityInc};
+        final TaskHandle[] handles = new TaskHandle[names.length];
+        for (int i = 0; i < names.length; i++) {
+            final String name = names[i];
+            handles[i] = taskExecutor.submitWithHandle(priorities[i], new Runnable() {
+                @Override
+                public void run() {
+                    executionOrder.add(name);
+                }
+            });
+        }
+        assertTrue("Raised low priority task", handles[0].reprioritize(maxPriorityInc + 1));
+        assertTrue("Lowered high priority task", handles[2].reprioritize(minPriorityInc - 1));
+        assertTrue("Queued before release", handles[1].isQueued());
+
+        releaseBlocker.countDown();
+        taskExecutor.triggerShutdown();
+        taskExecutor.awaitTermination();
+
+        assertEquals("Execution order", Arrays.asList("low", "mid", "high"), new ArrayList<>(executionOrder));
+        assertFalse("Reprioritized after execution", handles[1].reprioritize(maxPriorityInc));
+
+        System.out.println("TaskExecutorTest.testIndexedPriorityQueueTaskExecutorReprioritize: ends.");
+    }
+
+    public void testIndexedPriorityQueueCollectionViews() {
+
+        System.out.println("TaskExecutorTest.testIndexedPriorityQueueCollectionViews: starts...");
+
+        final TerminationDetector terminationDetector = TerminationDetectorType.LATCH.newInstance(1);
+        final Runnable noop = new Runnable() {
+            @Override
+            public void run() {
+                // nothing to do
+            }
+        };
+        final IndexedPriorityQueue queue = new IndexedPriorityQueue();
+        final List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            final Runnable task = i % 2 == 0
+                    ? new TaskHandle(minPriorityInc + i, noop, terminationDetector, minPriorityInc, maxPriorityInc)
+                    : new PriorityTask<>(minPriorityInc + i, noop, terminationDetector);
+            tasks.add(task);
+            queue.offer(task);
+        }
+        // dequeue a few so that the heap has consolidated trees with children to walk
+        final List<Runnable> dequeued = new ArrayList<>();
+        queue.drainTo(dequeued, 3);
+        final List<Runnable> queued = new ArrayList<>(tasks);
+        queued.removeAll(dequeued);
+
+        assertEquals("Iterated tasks", new HashSet<>(queued), new HashSet<>(Arrays.asList(queue.toArray())));
+        final Runnable[] typed = queue.toArray(new Runnable[0]);
+        assertEquals("Typed array length", queued.size(), typed.length);
+        final Runnable[] larger = queue.toArray(new Runnable[queued.size() + 2]);
+        assertNull("Terminated with null", larger[queued.size()]);
+        assertTrue("Contains all queued", queue.containsAll(queued));
+        assertFalse("Contains dequeued", queue.containsAll(dequeued));
+
+        // remove the handles through the iterator
+        int numIterated = 0;
+        for (final Iterator<Runnable> iterator = queue.iterator(); iterator.hasNext(); ) {
+            final Runnable task = iterator.next();
+            numIterated++;
+            if (task instanceof TaskHandle) {
+                iterator.remove();
+                assertFalse("Handle dequeued", ((TaskHandle) task).isQueued());
+            }
+        }
+        assertEquals("Iterated tasks", queued.size(), numIterated);
+        for (final Runnable task : queue) {
+            assertTrue("Only priority tasks left", task instanceof PriorityTask);
+        }
+
+        final List<Runnable> removed = Arrays.asList(tasks.get(1), tasks.get(3));
+        assertTrue("Removed some", queue.removeAll(removed));
+        assertFalse("Removed again", queue.removeAll(removed));
+        final List<Runnable> retained = Arrays.asList(tasks.get(5), tasks.get(7), tasks.get(14));
+        assertTrue("Retained some", queue.retainAll(retained));
+        assertEquals("Size after retain", 2, queue.size());
+        assertEquals("Highest retained first", tasks.get(7), queue.poll());
+        assertEquals("Lowest retained last", tasks.get(5), queue.poll());
+        assertTrue("Emptied", queue.isEmpty());
+
+        System.out.println("TaskExecutorTest.testIndexedPriorityQueueCollectionViews: ends.");
     }
 
     private static class PriorityCounter {